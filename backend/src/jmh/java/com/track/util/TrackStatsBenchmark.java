@@ -0,0 +1,210 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 轨迹统计基准（ns/点）：原 TrackServiceImpl.calculateTrackStats 的两遍 BigDecimal 实现
+ * 与 TrackStatsAccumulator 的单遍原始类型实现对比
+ * 原实现照搬自重构前的代码，轨迹点字段当时为 BigDecimal，这里预先构建 BigDecimal 点列表，转换不计入耗时。
+ * 运行方式（benchmark 配置启用 JMH 依赖和 src/jmh/java 源码目录）：
+ * <pre>
+ * mvn -B -Pbenchmark test-compile dependency:build-classpath -Dmdep.outputFile=target/benchmark.classpath
+ * java -cp target/classes:target/test-classes:$(cat target/benchmark.classpath) org.openjdk.jmh.Main TrackStatsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TrackStatsBenchmark {
+
+    private static final int POINTS = 100_000;
+
+    private List<LegacyPoint> legacyPoints;
+
+    private List<TrackPoint> trackPoints;
+
+    private PointBlock block;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        legacyPoints = new ArrayList<>(POINTS);
+        trackPoints = new ArrayList<>(POINTS);
+        double latitude = 30.0;
+        double longitude = 120.0;
+        double altitude = 50.0;
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < POINTS; i++) {
+            latitude += (random.nextDouble() - 0.5) * 0.0002;
+            longitude += (random.nextDouble() - 0.5) * 0.0002;
+            altitude += (random.nextDouble() - 0.5) * 2;
+            double speed = random.nextDouble() * 5;
+            time = time.plusSeconds(1);
+
+            TrackPoint point = new TrackPoint();
+            point.setLatitude(round(latitude, 6));
+            point.setLongitude(round(longitude, 6));
+            point.setAltitude(round(altitude, 2));
+            point.setSpeed(round(speed, 2));
+            point.setCreateTime(time);
+            trackPoints.add(point);
+            legacyPoints.add(new LegacyPoint(point));
+        }
+        block = PointBlock.of(trackPoints);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public LegacyStats legacyBigDecimal() {
+        return calculateTrackStats(legacyPoints);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public TrackStatsAccumulator accumulatorTrackPoints() {
+        return new TrackStatsAccumulator().addAll(trackPoints);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public TrackStatsAccumulator accumulatorPointBlock() {
+        return new TrackStatsAccumulator().addAll(block);
+    }
+
+    /**
+     * 重构前的轨迹统计（两遍遍历、BigDecimal 累加、每段计算两端纬度的余弦）
+     */
+    private static LegacyStats calculateTrackStats(List<LegacyPoint> trackPoints) {
+        LegacyStats stats = new LegacyStats();
+
+        if (trackPoints == null || trackPoints.isEmpty()) {
+            return stats;
+        }
+
+        stats.totalPoints = trackPoints.size();
+
+        BigDecimal totalSpeed = BigDecimal.ZERO;
+        BigDecimal maxSpeed = BigDecimal.ZERO;
+        BigDecimal minAltitude = null;
+        BigDecimal maxAltitude = null;
+
+        for (LegacyPoint point : trackPoints) {
+            if (point.speed != null) {
+                totalSpeed = totalSpeed.add(point.speed);
+                if (point.speed.compareTo(maxSpeed) > 0) {
+                    maxSpeed = point.speed;
+                }
+            }
+
+            if (point.altitude != null) {
+                if (minAltitude == null || point.altitude.compareTo(minAltitude) < 0) {
+                    minAltitude = point.altitude;
+                }
+                if (maxAltitude == null || point.altitude.compareTo(maxAltitude) > 0) {
+                    maxAltitude = point.altitude;
+                }
+            }
+        }
+
+        stats.averageSpeed = totalSpeed.divide(BigDecimal.valueOf(trackPoints.size()), 2, BigDecimal.ROUND_HALF_UP);
+        stats.maxSpeed = maxSpeed;
+        if (minAltitude != null && maxAltitude != null) {
+            stats.altitudeChange = maxAltitude.subtract(minAltitude);
+        }
+
+        BigDecimal totalDistance = BigDecimal.ZERO;
+        for (int i = 1; i < trackPoints.size(); i++) {
+            LegacyPoint prev = trackPoints.get(i - 1);
+            LegacyPoint curr = trackPoints.get(i);
+
+            if (prev.latitude != null && prev.longitude != null
+                    && curr.latitude != null && curr.longitude != null) {
+                double distance = calculateDistance(
+                        prev.latitude.doubleValue(), prev.longitude.doubleValue(),
+                        curr.latitude.doubleValue(), curr.longitude.doubleValue());
+                totalDistance = totalDistance.add(BigDecimal.valueOf(distance));
+            }
+        }
+        stats.totalDistance = totalDistance;
+
+        LegacyPoint firstPoint = trackPoints.get(0);
+        LegacyPoint lastPoint = trackPoints.get(trackPoints.size() - 1);
+        if (firstPoint.createTime != null && lastPoint.createTime != null) {
+            stats.duration = Duration.between(firstPoint.createTime, lastPoint.createTime).getSeconds();
+        }
+
+        return stats;
+    }
+
+    private static double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371000;
+
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return R * c;
+    }
+
+    private static double round(double value, int scale) {
+        return BigDecimal.valueOf(value).setScale(scale, BigDecimal.ROUND_HALF_UP).doubleValue();
+    }
+
+    /**
+     * 重构前的轨迹点（坐标、海拔、速度为 BigDecimal）
+     */
+    static class LegacyPoint {
+        final BigDecimal latitude;
+        final BigDecimal longitude;
+        final BigDecimal altitude;
+        final BigDecimal speed;
+        final LocalDateTime createTime;
+
+        LegacyPoint(TrackPoint point) {
+            latitude = BigDecimal.valueOf(point.getLatitude());
+            longitude = BigDecimal.valueOf(point.getLongitude());
+            altitude = BigDecimal.valueOf(point.getAltitude());
+            speed = BigDecimal.valueOf(point.getSpeed());
+            createTime = point.getCreateTime();
+        }
+    }
+
+    /**
+     * 重构前的统计结果
+     */
+    public static class LegacyStats {
+        int totalPoints;
+        BigDecimal averageSpeed;
+        BigDecimal maxSpeed;
+        BigDecimal altitudeChange;
+        BigDecimal totalDistance;
+        long duration;
+    }
+}
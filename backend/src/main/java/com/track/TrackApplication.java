@@ -3,9 +3,11 @@ package com.track;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @MapperScan("com.track.mapper")
+@EnableScheduling
 public class TrackApplication {
 
     public static void main(String[] args) {
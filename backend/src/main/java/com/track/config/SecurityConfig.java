@@ -3,6 +3,7 @@ package com.track.config;
 import com.track.security.JwtAuthenticationEntryPoint;
 import com.track.security.JwtAuthenticationTokenFilter;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,7 +27,7 @@ import java.util.Arrays;
  * 配置了JWT认证过滤器、密码编码器、CORS设置等。
  * 使用@EnableWebSecurity启用Web安全性，使用@EnableGlobalMethodSecurity启用方法级别的安全性注解支持。
  * 定义了SecurityFilterChain Bean，配置HTTP安全性，包括禁用CSRF、设置无状态会话管理、配置公共和受保护的端点等。
- * 还定义了CORS配置源，允许跨域请求。
+ * 还定义了CORS配置源，允许来自 track.cors.allowed-origin-patterns 的跨域请求（实时采集通道使用同一配置）。
  * 依赖于JwtAuthenticationEntryPoint和JwtAuthenticationTokenFilter来处理未授权访问和JWT令牌认证。
  * 如果没有这个配置类，Spring Boot将不知道过滤器链和安全设置，从而无法保护应用程序的端点。
  */
@@ -45,6 +46,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationEntryPoint unauthorizedHandler;
 
+    @Value("${track.cors.allowed-origin-patterns:http://localhost:*,http://127.0.0.1:*}")
+    private String[] allowedOriginPatterns;
+
     @Bean
     public JwtAuthenticationTokenFilter authenticationJwtTokenFilter() {
         return new JwtAuthenticationTokenFilter();
@@ -70,6 +74,8 @@ public class SecurityConfig {
             // 1. 现有公开访问路径
             .antMatchers("/api/auth/**").permitAll()
             .antMatchers("/api/public/**").permitAll()
+            // WebSocket 采集通道在握手拦截器中自行校验令牌和轨迹归属
+            .antMatchers("/ws/**").permitAll()
             
             // 2. ⚡️ 添加 SpringDoc/Swagger 路径到白名单
             // 注意：这里使用 SWAGGER_WHITELIST 数组进行配置
@@ -87,9 +93,10 @@ public class SecurityConfig {
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
-        configuration.setAllowedOriginPatterns(Arrays.asList("*"));
+        configuration.setAllowedOriginPatterns(Arrays.asList(allowedOriginPatterns));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-Committed-Seq"));
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
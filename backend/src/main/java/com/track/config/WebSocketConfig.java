@@ -0,0 +1,55 @@
+package com.track.config;
+
+import com.track.websocket.TrackIngestHandshakeInterceptor;
+import com.track.websocket.TrackPointWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+
+/**
+ * WebSocket 配置
+ * 注册实时轨迹采集通道：连接建立时完成一次鉴权和轨迹归属校验，之后的轨迹点以轻量帧上报
+ */
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    @Value("${track.ingest.websocket.max-frame-bytes:65536}")
+    private int maxFrameBytes;
+
+    @Value("${track.ingest.websocket.idle-timeout-ms:300000}")
+    private long idleTimeoutMs;
+
+    @Value("${track.cors.allowed-origin-patterns:http://localhost:*,http://127.0.0.1:*}")
+    private String[] allowedOriginPatterns;
+
+    @Autowired
+    private TrackPointWebSocketHandler trackPointWebSocketHandler;
+
+    @Autowired
+    private TrackIngestHandshakeInterceptor trackIngestHandshakeInterceptor;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(trackPointWebSocketHandler, "/ws/tracks/{trackId}/points")
+                .addInterceptors(trackIngestHandshakeInterceptor)
+                .setAllowedOriginPatterns(allowedOriginPatterns);
+    }
+
+    /**
+     * 调整单帧大小上限（容器默认 8KB，批量帧容易超出）和空闲超时
+     */
+    @Bean
+    public ServletServerContainerFactoryBean createWebSocketContainer() {
+        ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
+        container.setMaxTextMessageBufferSize(maxFrameBytes);
+        container.setMaxBinaryMessageBufferSize(maxFrameBytes);
+        container.setMaxSessionIdleTimeout(idleTimeoutMs);
+        return container;
+    }
+}
@@ -0,0 +1,45 @@
+package com.track.controller;
+
+import com.track.common.Result;
+import com.track.dto.HeatmapGrid;
+import com.track.security.UserPrincipal;
+import com.track.service.UserHeatmapService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "热力图")
+@RestController
+@RequestMapping("/api/heatmap")
+public class HeatmapController {
+
+    @Autowired
+    private UserHeatmapService userHeatmapService;
+
+    @Operation(summary = "获取用户热力图瓦片", description = "获取当前用户全部已完成轨迹的热力图瓦片（Web 墨卡托瓦片坐标），" +
+            "只返回非空网格单元的中心坐标和点数，开销与单条轨迹的热力图相同")
+    @GetMapping("/user/tiles/{zoom}/{x}/{y}")
+    public ResponseEntity<Result<HeatmapGrid>> getUserHeatmapTile(
+            @Parameter(description = "缩放级别（0-22）", required = true) @PathVariable int zoom,
+            @Parameter(description = "瓦片列号", required = true) @PathVariable int x,
+            @Parameter(description = "瓦片行号", required = true) @PathVariable int y,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        HeatmapGrid tile = userHeatmapService.getTile(userPrincipal.getId(), zoom, x, y);
+        return ResponseEntity.ok(Result.success(tile));
+    }
+
+    @Operation(summary = "重建用户热力图", description = "按当前用户全部已完成轨迹重新计算热力图（用于补齐历史轨迹）")
+    @PostMapping("/user/rebuild")
+    public ResponseEntity<Result<Integer>> rebuildUserHeatmap(Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        int trackCount = userHeatmapService.rebuild(userPrincipal.getId());
+        return ResponseEntity.ok(Result.success(trackCount));
+    }
+}
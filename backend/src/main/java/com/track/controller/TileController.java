@@ -0,0 +1,40 @@
+package com.track.controller;
+
+import com.track.security.UserPrincipal;
+import com.track.service.TrackTileService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+@Tag(name = "矢量瓦片")
+@RestController
+@RequestMapping("/api/tiles")
+public class TileController {
+
+    private static final MediaType MVT = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    @Autowired
+    private TrackTileService trackTileService;
+
+    @Operation(summary = "获取用户轨迹矢量瓦片", description = "返回当前用户非进行中轨迹在瓦片内的几何（Mapbox Vector Tile，图层 tracks，" +
+            "属性 id/name/status），几何按缩放级别压缩并裁剪到瓦片范围；瓦片内没有轨迹时返回 204")
+    @GetMapping("/{zoom}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getTrackTile(
+            @Parameter(description = "缩放级别（0-22）", required = true) @PathVariable int zoom,
+            @Parameter(description = "瓦片列号", required = true) @PathVariable int x,
+            @Parameter(description = "瓦片行号", required = true) @PathVariable int y,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        byte[] tile = trackTileService.getTile(userPrincipal.getId(), zoom, x, y);
+        if (tile.length == 0) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok().contentType(MVT).body(tile);
+    }
+}
@@ -3,13 +3,17 @@ package com.track.controller;
 import com.track.annotation.LogOperation;
 import com.track.annotation.RequirePermission;
 import com.track.common.Result;
+import com.track.dto.CursorPageResponse;
 import com.track.dto.PageResponse;
 import com.track.dto.TrackDetail;
 import com.track.dto.TrackSimpleDetail;
 import com.track.entity.Track;
 import com.track.security.UserPrincipal;
 import com.track.service.TrackExportService;
+import com.track.service.TrackPointStreamExporter;
 import com.track.service.TrackService;
+import com.track.util.PointListEncoder;
+import com.track.util.PointProjection;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -43,6 +47,9 @@ public class TrackController {
     @Autowired
     private TrackExportService trackExportService;
 
+    @Autowired
+    private TrackPointStreamExporter trackPointStreamExporter;
+
     @Operation(summary = "创建轨迹", description = "创建一条新的轨迹记录")
     @PostMapping
     @LogOperation(operation = "创建轨迹", logParams = true)
@@ -61,16 +68,26 @@ public class TrackController {
         return ResponseEntity.ok(Result.success(track));
     }
 
-    @Operation(summary = "获取用户轨迹列表", description = "获取当前用户的轨迹列表，支持分页查询")
+    @Operation(summary = "获取用户轨迹列表", description = "获取当前用户的轨迹列表，支持分页查询。" +
+            "传入 cursor 参数（首页传空字符串）时使用键集分页，深分页不随页码变慢")
     @GetMapping
     @LogOperation(operation = "查询用户轨迹列表")
     public ResponseEntity<Result<Object>> getUserTracks(
             @Parameter(description = "页码", example = "1") @RequestParam(defaultValue = "1") int page,
             @Parameter(description = "每页大小", example = "10") @RequestParam(defaultValue = "10") int pageSize,
+            @Parameter(description = "键集分页游标（上一页返回的 nextCursor）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "是否统计总数（页码分页默认统计，键集分页默认不统计）") @RequestParam(required = false) Boolean withTotal,
             Authentication authentication) {
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
+        // 键集分页
+        if (cursor != null) {
+            CursorPageResponse<Track> cursorPage = trackService.searchTracksByCursor(
+                userPrincipal.getId(), null, null, null, cursor, pageSize, Boolean.TRUE.equals(withTotal));
+            return ResponseEntity.ok(Result.success(cursorPage));
+        }
+
         // 如果page和pageSize都是默认值，返回所有数据（兼容旧版本）
         if (page == 1 && pageSize == 10) {
             List<Track> tracks = trackService.findByUserId(userPrincipal.getId());
@@ -79,7 +96,7 @@ public class TrackController {
 
         // 使用分页查询
         PageResponse<Track> pageResponse = trackService.findByUserIdWithPagination(
-            userPrincipal.getId(), page, pageSize);
+            userPrincipal.getId(), page, pageSize, !Boolean.FALSE.equals(withTotal));
         return ResponseEntity.ok(Result.success(pageResponse));
     }
 
@@ -105,7 +122,7 @@ public class TrackController {
             Authentication authentication) {
         // 权限验证已通过AOP处理
         track.setId(id);
-        trackService.updateById(track);
+        trackService.updateTrack(track);
         return ResponseEntity.ok(Result.success(track));
     }
 
@@ -125,23 +142,45 @@ public class TrackController {
         }
     }
 
-    @Operation(summary = "获取轨迹详情", description = "获取轨迹的完整详情，包括轨迹信息和所有轨迹点数据")
+    @Operation(summary = "获取轨迹详情", description = "获取轨迹的完整详情，包括轨迹信息和所有轨迹点数据。" +
+            "stream=true 时逐行流式输出轨迹点，统计信息在轨迹点之后输出，适合点数很多的轨迹；" +
+            "format=polyline / columnar 时轨迹点以编码折线或列式数组输出在 encodedPoints 中")
     @GetMapping("/{id}/detail")
     @RequirePermission(resourceType = "track", resourceIdParam = "id")
     @LogOperation(operation = "查询轨迹详情", resourceId = "#id")
-    public ResponseEntity<Result<TrackDetail>> getTrackDetail(
+    public ResponseEntity<?> getTrackDetail(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long id,
+            @Parameter(description = "是否流式输出", example = "false") @RequestParam(defaultValue = "false") boolean stream,
+            @Parameter(description = "轨迹点输出格式（json / polyline / columnar），未指定时按 Accept 头协商", example = "polyline") @RequestParam(required = false) String format,
+            @Parameter(description = "附加维度（t 时间、alt 海拔，逗号分隔）", example = "t,alt") @RequestParam(required = false) String dims,
+            @Parameter(description = "编码折线的坐标小数位数", example = "5") @RequestParam(defaultValue = "5") int precision,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication authentication) {
         // 1. 获取当前用户 ID
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         Long userId = userPrincipal.getId();
 
+        PointListEncoder.Format pointFormat = PointListEncoder.resolve(format, accept);
+        if (stream && pointFormat != PointListEncoder.Format.JSON) {
+            throw new IllegalArgumentException("流式输出只支持 JSON 格式");
+        }
+
+        // 流式输出：游标逐行读取，内存占用与轨迹长度无关
+        if (stream) {
+            Track track = trackService.getById(id);
+            if (track == null) {
+                throw new IllegalArgumentException("轨迹不存在");
+            }
+            StreamingResponseBody body = trackPointStreamExporter.streamDetail(track, () -> trackService.getTrackStats(id));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
         // 2. 调用 Service (传入 trackId 和 userId)
         // Service 内部会执行: SELECT ... FROM tracks WHERE id=? AND user_id=?
         // 如果查不到或无权访问，Service 会直接抛出异常
         TrackDetail trackDetail = trackService.getTrackDetail(id, userId);
 
-        return ResponseEntity.ok(Result.success(trackDetail));
+        return detailResponse(trackDetail, pointFormat, dims, precision);
     }
 
     @Operation(summary = "获取轨迹简化详情", description = "获取轨迹的简化详情，包含轨迹信息和统计信息，不包含轨迹点数据")
@@ -161,42 +200,76 @@ public class TrackController {
         return ResponseEntity.ok(Result.success(trackSimpleDetail));
     }
 
-    @Operation(summary = "搜索轨迹", description = "根据关键字和日期范围搜索用户的轨迹")
+    @Operation(summary = "搜索轨迹", description = "根据关键字和日期范围搜索用户的轨迹。" +
+            "传入 cursor 参数（首页传空字符串）时使用键集分页")
     @GetMapping("/search")
     @LogOperation(operation = "搜索轨迹", logParams = true)
-    public ResponseEntity<Result<PageResponse<Track>>> searchTracks(
+    public ResponseEntity<Result<Object>> searchTracks(
             @Parameter(description = "页码", example = "1") @RequestParam(defaultValue = "1") int page,
             @Parameter(description = "每页大小", example = "10") @RequestParam(defaultValue = "10") int pageSize,
             @Parameter(description = "搜索关键字") @RequestParam(required = false) String keyword,
             @Parameter(description = "开始日期", example = "2024-01-01") @RequestParam(required = false) LocalDate startDate,
             @Parameter(description = "结束日期", example = "2024-12-31") @RequestParam(required = false) LocalDate endDate,
+            @Parameter(description = "键集分页游标（上一页返回的 nextCursor）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "是否统计总数（页码分页默认统计，键集分页默认不统计）") @RequestParam(required = false) Boolean withTotal,
             Authentication authentication) {
 
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
+        // 键集分页
+        if (cursor != null) {
+            CursorPageResponse<Track> cursorPage = trackService.searchTracksByCursor(
+                userPrincipal.getId(), keyword, startDate, endDate, cursor, pageSize, Boolean.TRUE.equals(withTotal));
+            return ResponseEntity.ok(Result.success(cursorPage));
+        }
+
         // 执行搜索查询
         PageResponse<Track> pageResponse = trackService.searchTracks(
-            userPrincipal.getId(), keyword, startDate, endDate, page, pageSize);
+            userPrincipal.getId(), keyword, startDate, endDate, page, pageSize, !Boolean.FALSE.equals(withTotal));
 
         return ResponseEntity.ok(Result.success(pageResponse));
     }
 
-    @Operation(summary = "获取压缩后的轨迹详情", description = "获取轨迹的完整详情，包含压缩后的轨迹点数据")
+    @Operation(summary = "获取压缩后的轨迹详情", description = "获取轨迹的完整详情，包含压缩后的轨迹点数据。" +
+            "指定 maxPoints 时按点数预算简化，配合 after 可渐进加载；format=polyline / columnar 时输出紧凑格式")
     @GetMapping("/{id}/detail/compressed")
     @RequirePermission(resourceType = "track", resourceIdParam = "id")
     @LogOperation(operation = "查询压缩轨迹详情", resourceId = "#id")
-    public ResponseEntity<Result<TrackDetail>> getCompressedTrackDetail(
+    public ResponseEntity<?> getCompressedTrackDetail(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long id,
             @Parameter(description = "压缩容差（米）", example = "10.0") @RequestParam(defaultValue = "10.0") double tolerance,
+            @Parameter(description = "最多返回的点数（指定后忽略容差）", example = "500") @RequestParam(required = false) Integer maxPoints,
+            @Parameter(description = "客户端已有的点数预算（渐进加载）", example = "0") @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "轨迹点输出格式（json / polyline / columnar），未指定时按 Accept 头协商", example = "polyline") @RequestParam(required = false) String format,
+            @Parameter(description = "附加维度（t 时间、alt 海拔，逗号分隔）", example = "t,alt") @RequestParam(required = false) String dims,
+            @Parameter(description = "编码折线的坐标小数位数", example = "5") @RequestParam(defaultValue = "5") int precision,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication authentication) {
         // 1. 获取当前用户 ID
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
         Long userId = userPrincipal.getId();
+        PointListEncoder.Format pointFormat = PointListEncoder.resolve(format, accept);
 
-        // 2. 调用 Service (传入 trackId 和 userId)
-        TrackDetail trackDetail = trackService.getCompressedTrackDetail(id, userId, tolerance);
+        // 2. 调用 Service (传入 trackId 和 userId)，指定 maxPoints 时按点数预算简化
+        TrackDetail trackDetail = maxPoints != null
+                ? trackService.getBudgetTrackDetail(id, userId, maxPoints, after)
+                : trackService.getCompressedTrackDetail(id, userId, tolerance);
 
-        return ResponseEntity.ok(Result.success(trackDetail));
+        return detailResponse(trackDetail, pointFormat, dims, precision);
+    }
+
+    /**
+     * 按格式输出轨迹详情：紧凑格式时复制一份（原对象可能来自缓存），轨迹点改为编码后输出
+     */
+    private ResponseEntity<?> detailResponse(TrackDetail trackDetail, PointListEncoder.Format format, String dims, int precision) {
+        if (format == PointListEncoder.Format.JSON) {
+            return ResponseEntity.ok(Result.success(trackDetail));
+        }
+        TrackDetail encodedDetail = new TrackDetail();
+        encodedDetail.setTrack(trackDetail.getTrack());
+        encodedDetail.setStats(trackDetail.getStats());
+        encodedDetail.setEncodedPoints(PointListEncoder.encode(trackDetail.getTrackPoints(), format, dims, precision));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(format.mediaType())).body(Result.success(encodedDetail));
     }
 
     /**
@@ -281,9 +354,10 @@ public class TrackController {
             @Parameter(description = "导出格式", example = "gpx", schema = @io.swagger.v3.oas.annotations.media.Schema(allowableValues = {"gpx", "kml", "csv", "geojson"})) @PathVariable String format,
             Authentication authentication) {
 
-        // 1. 获取数据
+        // 1. 获取数据（只有 CSV 输出地址和卫星数，其余格式只读取坐标、时间和测量值）
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
-        TrackDetail trackDetail = trackService.getTrackDetail(id, userPrincipal.getId());
+        PointProjection projection = "csv".equalsIgnoreCase(format) ? PointProjection.FULL : PointProjection.MEASURES;
+        TrackDetail trackDetail = trackService.getTrackDetail(id, userPrincipal.getId(), projection);
 
         // 2. 准备文件名 (例如: "周末夜跑.gpx")
         String fileName = trackExportService.generateFileName(trackDetail.getTrack(), format);
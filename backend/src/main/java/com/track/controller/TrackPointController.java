@@ -1,18 +1,41 @@
 package com.track.controller;
 
 import com.track.common.Result;
+import com.track.dto.BatchSaveResult;
+import com.track.dto.CursorPageResponse;
+import com.track.dto.EncodedPoints;
+import com.track.dto.HeatmapGrid;
+import com.track.dto.StreamSaveResult;
 import com.track.entity.TrackPoint;
 import com.track.security.UserPrincipal;
 import com.track.service.TrackPointService;
+import com.track.service.TrackPointStreamExporter;
+import com.track.service.TrackPointStreamIngestor;
+import com.track.service.TrackPointWriteBuffer;
 import com.track.service.TrackService;
+import com.track.util.GeoUtils;
+import com.track.util.PointListEncoder;
+import com.track.util.PointProjection;
+import com.track.util.TrackPointCodec;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import javax.servlet.http.HttpServletRequest;
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 @Tag(name = "轨迹点管理")
@@ -20,13 +43,27 @@ import java.util.List;
 @RequestMapping("/api/tracks/{trackId}/points")
 public class TrackPointController {
 
+    /**
+     * 幂等批量上传时返回服务端已提交最大序号的响应头
+     */
+    private static final String COMMITTED_SEQ_HEADER = "X-Committed-Seq";
+
     @Autowired
     private TrackPointService trackPointService;
 
     @Autowired
     private TrackService trackService;
 
-    @Operation(summary = "添加轨迹点", description = "为指定轨迹添加一个新的轨迹点")
+    @Autowired
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Autowired
+    private TrackPointStreamIngestor trackPointStreamIngestor;
+
+    @Autowired
+    private TrackPointStreamExporter trackPointStreamExporter;
+
+    @Operation(summary = "添加轨迹点", description = "为指定轨迹添加一个新的轨迹点（启用写缓冲时异步批量落库）")
     @PostMapping
     public ResponseEntity<Result<TrackPoint>> addTrackPoint(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
@@ -34,24 +71,34 @@ public class TrackPointController {
             Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
-        // 验证轨迹属于当前用户
-        if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
+        // 验证轨迹属于当前用户（缓冲区中已记录归属的轨迹无需再查库）
+        if (!trackPointWriteBuffer.isOwnedBy(trackId, userPrincipal.getId())
+                && !trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
             throw new IllegalArgumentException("轨迹不存在或无权限");
         }
 
+        GeoUtils.validateCoordinates(Collections.singletonList(trackPoint));
         trackPoint.setTrackId(trackId);
-        trackPointService.save(trackPoint);
 
-        // 更新轨迹的总点数
-        trackService.updateTotalPoints(trackId);
+        // 写入缓冲区后立即返回，由后台合并批量写入并累加总点数
+        if (trackPointWriteBuffer.isEnabled()) {
+            trackPointWriteBuffer.add(userPrincipal.getId(), trackPoint);
+            return ResponseEntity.ok(Result.success(trackPoint));
+        }
+
+        // 保存并增量更新轨迹统计（含总点数）
+        trackPointService.savePoints(trackId, Collections.singletonList(trackPoint));
 
         return ResponseEntity.ok(Result.success(trackPoint));
     }
 
-    @Operation(summary = "批量添加轨迹点", description = "为指定轨迹批量添加轨迹点，并进行轨迹处理")
+    @Operation(summary = "批量添加轨迹点",
+            description = "为指定轨迹批量添加轨迹点，并进行轨迹处理。携带 seqStart 时按客户端序号幂等写入，"
+                    + "已提交的点会被跳过，响应头 " + COMMITTED_SEQ_HEADER + " 返回服务端已提交的最大序号，用于断点续传")
     @PostMapping("/batch")
     public ResponseEntity<Result<List<TrackPoint>>> addTrackPointsBatch(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
+            @Parameter(description = "批次第一个点的客户端序号（从0开始连续递增）") @RequestParam(required = false) Long seqStart,
             @RequestBody List<TrackPoint> trackPoints,
             Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
@@ -60,16 +107,76 @@ public class TrackPointController {
         if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
             throw new IllegalArgumentException("轨迹不存在或无权限");
         }
+        GeoUtils.validateCoordinates(trackPoints);
 
-        // 批量保存并进行轨迹处理
-        List<TrackPoint> savedPoints = trackPointService.saveBatchWithProcessing(trackPoints, trackId);
+        if (seqStart != null) {
+            BatchSaveResult result = trackPointService.saveSequencedBatch(trackPoints, trackId, seqStart);
+            return ResponseEntity.ok()
+                    .header(COMMITTED_SEQ_HEADER, String.valueOf(result.getCommittedSeq()))
+                    .body(Result.success(result.getPoints()));
+        }
 
-        // 更新轨迹的总点数
-        trackService.updateTotalPoints(trackId);
+        // 批量保存并进行轨迹处理（轨迹统计和总点数在同一事务中增量更新）
+        List<TrackPoint> savedPoints = trackPointService.saveBatchWithProcessing(trackPoints, trackId);
 
         return ResponseEntity.ok(Result.success(savedPoints));
     }
 
+    @Operation(summary = "批量添加轨迹点（二进制格式）",
+            description = "Content-Type 为 " + TrackPointCodec.MEDIA_TYPE + " 时使用紧凑二进制格式上传（增量定点坐标、varint 时间戳），返回保存的轨迹点数量")
+    @PostMapping(value = "/batch", consumes = TrackPointCodec.MEDIA_TYPE)
+    public ResponseEntity<Result<Integer>> addTrackPointsBatchEncoded(
+            @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
+            @Parameter(description = "批次第一个点的客户端序号（从0开始连续递增）") @RequestParam(required = false) Long seqStart,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        // 验证轨迹属于当前用户
+        if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
+            throw new IllegalArgumentException("轨迹不存在或无权限");
+        }
+
+        // 边读边解码，直接送入轨迹处理流水线
+        BatchSaveResult result;
+        try (InputStream in = new BufferedInputStream(request.getInputStream())) {
+            result = trackPointService.saveEncodedBatch(in, request.getContentLengthLong(), trackId, seqStart);
+        } catch (EOFException e) {
+            throw new IllegalArgumentException(e.getMessage());
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getCommittedSeq() != null) {
+            response.header(COMMITTED_SEQ_HEADER, String.valueOf(result.getCommittedSeq()));
+        }
+        return response.body(Result.success(result.getPoints().size()));
+    }
+
+    @Operation(summary = "流式批量添加轨迹点",
+            description = "Content-Type 为 " + TrackPointStreamIngestor.MEDIA_TYPE + " 时边读边解析（每行一个轨迹点 JSON），"
+                    + "按固定窗口进行轨迹处理并逐窗口提交，适用于离线同步等大批量上传。携带 seqStart 时可断点续传")
+    @PostMapping(value = "/stream", consumes = {TrackPointStreamIngestor.MEDIA_TYPE, "application/json"})
+    public ResponseEntity<Result<StreamSaveResult>> addTrackPointsStream(
+            @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
+            @Parameter(description = "第一个点的客户端序号（从0开始连续递增）") @RequestParam(required = false) Long seqStart,
+            HttpServletRequest request,
+            Authentication authentication) throws IOException {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        // 验证轨迹属于当前用户
+        if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
+            throw new IllegalArgumentException("轨迹不存在或无权限");
+        }
+
+        StreamSaveResult result = trackPointStreamIngestor.ingest(request.getInputStream(), trackId, seqStart);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (result.getCommittedSeq() != null) {
+            response.header(COMMITTED_SEQ_HEADER, String.valueOf(result.getCommittedSeq()));
+        }
+        return response.body(Result.success(result));
+    }
+
     @Operation(summary = "处理轨迹点", description = "对指定轨迹的现有轨迹点进行轨迹处理")
     @PostMapping("/process")
     public ResponseEntity<Result<Integer>> processTrackPoints(
@@ -82,12 +189,9 @@ public class TrackPointController {
             throw new IllegalArgumentException("轨迹不存在或无权限");
         }
 
-        // 处理轨迹点
+        // 处理轨迹点（处理后重建轨迹统计和总点数）
         int processedCount = trackPointService.processTrackPoints(trackId);
 
-        // 更新轨迹的总点数
-        trackService.updateTotalPoints(trackId);
-
         return ResponseEntity.ok(Result.success(processedCount));
     }
 
@@ -108,11 +212,39 @@ public class TrackPointController {
         return ResponseEntity.ok(Result.success(points));
     }
 
-    @Operation(summary = "获取压缩后的轨迹点", description = "获取指定轨迹的压缩后轨迹点数据（用于轨迹展示）")
+    @Operation(summary = "获取热力图网格", description = "服务端将去噪后的轨迹点按 Web 墨卡托像素网格聚合，" +
+            "只返回非空单元的中心坐标和点数，数据量不随轨迹点数增长；单元数超过上限时自动降低缩放级别，响应中的 zoom 为实际使用的级别")
+    @GetMapping("/heatmap/grid")
+    public ResponseEntity<Result<HeatmapGrid>> getHeatmapGrid(
+            @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
+            @Parameter(description = "地图缩放级别（0-22）", example = "16") @RequestParam(defaultValue = "16") int zoom,
+            @Parameter(description = "网格单元边长（像素，1-256）", example = "8") @RequestParam(defaultValue = "8") int cellSize,
+            Authentication authentication) {
+        UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
+
+        // 验证轨迹属于当前用户
+        if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
+            throw new IllegalArgumentException("轨迹不存在或无权限");
+        }
+
+        HeatmapGrid grid = trackPointService.getHeatmapGrid(trackId, zoom, cellSize);
+        return ResponseEntity.ok(Result.success(grid));
+    }
+
+    @Operation(summary = "获取压缩后的轨迹点", description = "获取指定轨迹的压缩后轨迹点数据（用于轨迹展示）。" +
+            "指定 maxPoints 时按点数预算简化，配合 after 可渐进加载：只返回预算从 after 提高到 maxPoints 新增的点；" +
+            "format=polyline / columnar 时输出编码折线或列式数组")
     @GetMapping("/compressed")
-    public ResponseEntity<Result<List<TrackPoint>>> getCompressedPoints(
+    public ResponseEntity<?> getCompressedPoints(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
             @Parameter(description = "压缩容差（米）", example = "10.0") @RequestParam(defaultValue = "10.0") double tolerance,
+            @Parameter(description = "最多返回的点数（指定后忽略容差）", example = "500") @RequestParam(required = false) Integer maxPoints,
+            @Parameter(description = "客户端已有的点数预算（渐进加载）", example = "0") @RequestParam(defaultValue = "0") int after,
+            @Parameter(description = "输出格式（json / polyline / columnar），未指定时按 Accept 头协商", example = "polyline") @RequestParam(required = false) String format,
+            @Parameter(description = "附加维度（t 时间、alt 海拔，逗号分隔）", example = "t,alt") @RequestParam(required = false) String dims,
+            @Parameter(description = "编码折线的坐标小数位数", example = "5") @RequestParam(defaultValue = "5") int precision,
+            @Parameter(description = "返回的字段（逗号分隔的轨迹点属性名，也可用 lat、lng、t、alt 简写），只查询和输出这些字段", example = "latitude,longitude,createTime") @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
@@ -121,15 +253,34 @@ public class TrackPointController {
             throw new IllegalArgumentException("轨迹不存在或无权限");
         }
 
-        // 获取压缩后的轨迹点
-        List<TrackPoint> points = trackPointService.getCompressedPoints(trackId, tolerance);
-        return ResponseEntity.ok(Result.success(points));
+        PointListEncoder.Format pointFormat = PointListEncoder.resolve(format, accept);
+        PointProjection projection = PointProjection.parse(fields);
+
+        // 按点数预算简化，否则获取压缩后的轨迹点
+        List<TrackPoint> points = maxPoints != null
+                ? trackPointService.getBudgetPoints(trackId, maxPoints, after)
+                : trackPointService.getCompressedPoints(trackId, tolerance);
+        return pointsResponse(points, pointFormat, dims, precision, projection);
     }
 
-    @Operation(summary = "获取轨迹点列表", description = "获取指定轨迹的所有轨迹点列表")
+    @Operation(summary = "获取轨迹点列表", description = "获取指定轨迹的所有轨迹点列表。stream=true 时逐行流式输出，适合点数很多的轨迹；" +
+            "传入 cursor 或 since 时按 (时间, ID) 键集分页；传入 afterId 时只返回该ID之后新写入的点，供实时地图轮询。" +
+            "完整列表支持 polyline / columnar 紧凑格式，流式输出和分页只支持 JSON；fields 指定字段时只查询和输出这些字段")
     @GetMapping
-    public ResponseEntity<Result<List<TrackPoint>>> getTrackPoints(
+    public ResponseEntity<?> getTrackPoints(
             @Parameter(description = "轨迹ID", required = true) @PathVariable Long trackId,
+            @Parameter(description = "是否流式输出", example = "false") @RequestParam(defaultValue = "false") boolean stream,
+            @Parameter(description = "键集分页游标（上一页返回的 nextCursor）") @RequestParam(required = false) String cursor,
+            @Parameter(description = "只返回该时间之后的点", example = "2024-01-01T08:00:00")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since,
+            @Parameter(description = "只返回ID大于该值的新写入的点（上次返回的 nextCursor）", example = "0") @RequestParam(required = false) Long afterId,
+            @Parameter(description = "分页时每页最多返回的点数", example = "1000") @RequestParam(defaultValue = "1000") int limit,
+            @Parameter(description = "分页时是否返回总点数", example = "false") @RequestParam(defaultValue = "false") boolean withTotal,
+            @Parameter(description = "输出格式（json / polyline / columnar），未指定时按 Accept 头协商", example = "polyline") @RequestParam(required = false) String format,
+            @Parameter(description = "附加维度（t 时间、alt 海拔，逗号分隔）", example = "t,alt") @RequestParam(required = false) String dims,
+            @Parameter(description = "编码折线的坐标小数位数", example = "5") @RequestParam(defaultValue = "5") int precision,
+            @Parameter(description = "返回的字段（逗号分隔的轨迹点属性名，也可用 lat、lng、t、alt 简写），只查询和输出这些字段", example = "latitude,longitude,createTime") @RequestParam(required = false) String fields,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
@@ -138,7 +289,56 @@ public class TrackPointController {
             throw new IllegalArgumentException("轨迹不存在或无权限");
         }
 
-        List<TrackPoint> points = trackPointService.findByTrackId(trackId);
-        return ResponseEntity.ok(Result.success(points));
+        PointListEncoder.Format pointFormat = PointListEncoder.resolve(format, accept);
+        if (pointFormat != PointListEncoder.Format.JSON && (afterId != null || cursor != null || since != null || stream)) {
+            throw new IllegalArgumentException("流式输出和分页只支持 JSON 格式");
+        }
+        PointProjection projection = PointProjection.parse(fields);
+        if (stream && !projection.isFull()) {
+            throw new IllegalArgumentException("流式输出不支持 fields 参数");
+        }
+
+        // 增量读取：按写入顺序返回新点
+        if (afterId != null) {
+            CursorPageResponse<TrackPoint> page = trackPointService.findPointsAfterId(trackId, afterId, limit, projection);
+            return ResponseEntity.ok(Result.success(pageResponse(page, projection)));
+        }
+
+        // 键集分页：按时间顺序分页
+        if (cursor != null || since != null) {
+            CursorPageResponse<TrackPoint> page = trackPointService.findPointsByCursor(
+                    trackId, cursor, since, limit, withTotal, projection);
+            return ResponseEntity.ok(Result.success(pageResponse(page, projection)));
+        }
+
+        // 流式输出：游标逐行读取，内存占用与轨迹长度无关
+        if (stream) {
+            StreamingResponseBody body = trackPointStreamExporter.streamPoints(trackId);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
+        List<TrackPoint> points = trackPointService.findByTrackId(trackId, projection);
+        return pointsResponse(points, pointFormat, dims, precision, projection);
+    }
+
+    /**
+     * 按格式输出轨迹点列表，紧凑格式使用对应的媒体类型；JSON 格式下指定了 fields 时只输出投影字段
+     */
+    private ResponseEntity<?> pointsResponse(List<TrackPoint> points, PointListEncoder.Format format, String dims,
+                                             int precision, PointProjection projection) {
+        if (format == PointListEncoder.Format.JSON) {
+            return projection.isFull()
+                    ? ResponseEntity.ok(Result.success(points))
+                    : ResponseEntity.ok(Result.success(projection.view(points)));
+        }
+        EncodedPoints encoded = PointListEncoder.encode(points, format, dims, precision);
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(format.mediaType())).body(Result.success(encoded));
+    }
+
+    private static CursorPageResponse<?> pageResponse(CursorPageResponse<TrackPoint> page, PointProjection projection) {
+        if (projection.isFull()) {
+            return page;
+        }
+        return new CursorPageResponse<>(projection.view(page.getData()), page.getNextCursor(), page.isHasMore(), page.getTotal());
     }
-}
\ No newline at end of file
+}
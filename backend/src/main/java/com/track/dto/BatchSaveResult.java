@@ -0,0 +1,25 @@
+package com.track.dto;
+
+import com.track.entity.TrackPoint;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量上传结果
+ * 携带客户端序号上传时，返回服务端已提交的序号，客户端可据此断点续传
+ */
+@Schema(description = "批量上传结果")
+@Data
+public class BatchSaveResult {
+
+    @Schema(description = "保存后的轨迹点列表")
+    private List<TrackPoint> points;
+
+    @Schema(description = "因已提交而跳过的轨迹点数量", example = "0")
+    private int skippedCount;
+
+    @Schema(description = "服务端已提交的客户端最大序号，未使用序号时为空", example = "199")
+    private Long committedSeq;
+}
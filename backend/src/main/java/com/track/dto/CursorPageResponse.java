@@ -0,0 +1,38 @@
+package com.track.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 键集分页响应
+ * 客户端把 nextCursor 原样传回即可获取下一页，hasMore 为 false 时已到末尾。
+ * 深分页时开销与页码无关；总记录数需要额外的 COUNT 查询，仅在请求时返回。
+ */
+@Schema(description = "键集分页响应")
+@Data
+public class CursorPageResponse<T> {
+
+    @Schema(description = "数据列表")
+    private List<T> data;
+
+    @Schema(description = "下一页游标，没有更多数据时为空")
+    private String nextCursor;
+
+    @Schema(description = "是否还有更多数据", example = "true")
+    private boolean hasMore;
+
+    @Schema(description = "总记录数，未请求统计时为空")
+    private Long total;
+
+    public CursorPageResponse() {
+    }
+
+    public CursorPageResponse(List<T> data, String nextCursor, boolean hasMore, Long total) {
+        this.data = data;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+        this.total = total;
+    }
+}
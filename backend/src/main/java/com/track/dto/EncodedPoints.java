@@ -0,0 +1,51 @@
+package com.track.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 紧凑格式的轨迹点列表（地图展示用）
+ * <ul>
+ *     <li>polyline：Google 编码折线，按 dimensions 顺序交错编码各维度的增量；
+ *         纬度、经度按 precision 位小数，海拔按 1 位小数，时间为相对 startTime 的秒数</li>
+ *     <li>columnar：按列输出的数组，每列长度相同，缺失的海拔为 null；时间为 Unix 时间戳（秒）</li>
+ * </ul>
+ */
+@Schema(description = "紧凑格式的轨迹点列表")
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EncodedPoints {
+
+    @Schema(description = "格式（polyline / columnar）", example = "polyline")
+    private String format;
+
+    @Schema(description = "点数", example = "500")
+    private int count;
+
+    @Schema(description = "编码的维度及顺序", example = "[\"lat\", \"lng\", \"t\"]")
+    private List<String> dimensions;
+
+    @Schema(description = "坐标小数位数（polyline）", example = "5")
+    private Integer precision;
+
+    @Schema(description = "时间维度的起点，Unix 时间戳（秒，polyline）", example = "1704067200")
+    private Long startTime;
+
+    @Schema(description = "编码折线（polyline）")
+    private String polyline;
+
+    @Schema(description = "纬度列（columnar）")
+    private double[] lat;
+
+    @Schema(description = "经度列（columnar）")
+    private double[] lng;
+
+    @Schema(description = "时间列，Unix 时间戳（秒，columnar）")
+    private Long[] t;
+
+    @Schema(description = "海拔列（米，columnar）")
+    private Double[] alt;
+}
@@ -0,0 +1,56 @@
+package com.track.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 热力图网格（服务端按 Web 墨卡托像素网格聚合后的非空单元）
+ * 数据量只与轨迹覆盖的区域和缩放级别有关，不随轨迹点数增长
+ */
+@Schema(description = "热力图网格")
+@Data
+public class HeatmapGrid {
+
+    @Schema(description = "缩放级别", example = "16")
+    private int zoom;
+
+    @Schema(description = "单元边长（像素）", example = "8")
+    private int cellSize;
+
+    @Schema(description = "参与聚合的轨迹点数（去噪后）", example = "12000")
+    private int pointCount;
+
+    @Schema(description = "单元内最大点数，用于归一化热力强度", example = "57")
+    private int maxCount;
+
+    @Schema(description = "非空单元列表")
+    private List<Cell> cells;
+
+    /**
+     * 网格单元
+     */
+    @Schema(description = "热力图网格单元")
+    @Data
+    public static class Cell {
+
+        @Schema(description = "单元中心经度", example = "116.397477")
+        private double longitude;
+
+        @Schema(description = "单元中心纬度", example = "39.908692")
+        private double latitude;
+
+        @Schema(description = "单元内的轨迹点数", example = "12")
+        private int count;
+
+        public Cell() {
+        }
+
+        public Cell(double longitude, double latitude, int count) {
+            this.longitude = longitude;
+            this.latitude = latitude;
+            this.count = count;
+        }
+    }
+}
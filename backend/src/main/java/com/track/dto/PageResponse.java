@@ -11,8 +11,8 @@ public class PageResponse<T> {
     @Schema(description = "数据列表")
     private List<T> data;
 
-    @Schema(description = "总记录数")
-    private long total;
+    @Schema(description = "总记录数，未统计总数时为空")
+    private Long total;
 
     @Schema(description = "当前页码")
     private int page;
@@ -20,18 +20,21 @@ public class PageResponse<T> {
     @Schema(description = "每页大小")
     private int pageSize;
 
-    @Schema(description = "总页数")
-    private int totalPages;
+    @Schema(description = "总页数，未统计总数时为空")
+    private Integer totalPages;
 
     public PageResponse() {
     }
 
-    public PageResponse(List<T> data, long total, int page, int pageSize) {
+    /**
+     * @param total 总记录数，为 null 时表示未统计（不计算总页数）
+     */
+    public PageResponse(List<T> data, Long total, int page, int pageSize) {
         this.data = data;
         this.total = total;
         this.page = page;
         this.pageSize = pageSize;
-        this.totalPages = (int) Math.ceil((double) total / pageSize);
+        this.totalPages = total != null ? (int) Math.ceil((double) total / pageSize) : null;
     }
 
     // Getters and Setters
@@ -43,11 +46,11 @@ public class PageResponse<T> {
         this.data = data;
     }
 
-    public long getTotal() {
+    public Long getTotal() {
         return total;
     }
 
-    public void setTotal(long total) {
+    public void setTotal(Long total) {
         this.total = total;
     }
 
@@ -67,11 +70,11 @@ public class PageResponse<T> {
         this.pageSize = pageSize;
     }
 
-    public int getTotalPages() {
+    public Integer getTotalPages() {
         return totalPages;
     }
 
-    public void setTotalPages(int totalPages) {
+    public void setTotalPages(Integer totalPages) {
         this.totalPages = totalPages;
     }
 }
\ No newline at end of file
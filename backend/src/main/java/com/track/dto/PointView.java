@@ -0,0 +1,43 @@
+package com.track.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 按 fields 投影后的轨迹点（字段名与 TrackPoint 一致，只输出请求的字段）
+ */
+@Schema(description = "投影后的轨迹点")
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PointView {
+
+    @Schema(description = "轨迹点ID")
+    private Long id;
+
+    @Schema(description = "经度", example = "116.397128")
+    private Double longitude;
+
+    @Schema(description = "纬度", example = "39.916527")
+    private Double latitude;
+
+    @Schema(description = "海拔（米）", example = "50.5")
+    private Double altitude;
+
+    @Schema(description = "速度（米/秒）", example = "5.2")
+    private Double speed;
+
+    @Schema(description = "定位精度（米）", example = "10.0")
+    private Double accuracy;
+
+    @Schema(description = "卫星数量", example = "8")
+    private Integer satelliteCount;
+
+    @Schema(description = "地址信息", example = "北京市朝阳区")
+    private String address;
+
+    @Schema(description = "创建时间")
+    private LocalDateTime createTime;
+}
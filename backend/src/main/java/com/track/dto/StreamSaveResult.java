@@ -0,0 +1,28 @@
+package com.track.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 流式上传结果
+ * 流式上传不在内存中保留全部轨迹点，因此只返回计数信息
+ */
+@Schema(description = "流式上传结果")
+@Data
+public class StreamSaveResult {
+
+    @Schema(description = "接收的轨迹点数量", example = "10000")
+    private int receivedCount;
+
+    @Schema(description = "处理后保存的轨迹点数量", example = "6500")
+    private int savedCount;
+
+    @Schema(description = "因已提交而跳过的轨迹点数量", example = "0")
+    private int skippedCount;
+
+    @Schema(description = "分窗口提交的次数", example = "20")
+    private int windowCount;
+
+    @Schema(description = "服务端已提交的客户端最大序号，未使用序号时为空", example = "9999")
+    private Long committedSeq;
+}
@@ -1,5 +1,6 @@
 package com.track.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.track.entity.Track;
 import com.track.entity.TrackPoint;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -21,9 +22,14 @@ public class TrackDetail {
     @Schema(description = "轨迹基本信息")
     private Track track;
 
-    @Schema(description = "轨迹点列表")
+    @Schema(description = "轨迹点列表（请求紧凑格式时为空）")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private List<TrackPoint> trackPoints;
 
+    @Schema(description = "紧凑格式的轨迹点（请求 polyline / columnar 格式时返回）")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private EncodedPoints encodedPoints;
+
     @Schema(description = "轨迹统计信息")
     private TrackStats stats;
 
@@ -47,5 +53,17 @@ public class TrackDetail {
 
         @Schema(description = "海拔变化（米）", example = "150.5")
         private BigDecimal altitudeChange;
+
+        @Schema(description = "运动时间（秒），不含停留和信号中断", example = "6600")
+        private Long movingTime;
+
+        @Schema(description = "累计爬升（米）", example = "320.0")
+        private BigDecimal elevationGain;
+
+        @Schema(description = "累计下降（米）", example = "310.0")
+        private BigDecimal elevationLoss;
+
+        @Schema(description = "平均配速（秒/公里，按运动时间计算）", example = "330")
+        private Long averagePace;
     }
 }
\ No newline at end of file
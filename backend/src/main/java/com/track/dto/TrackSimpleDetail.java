@@ -43,5 +43,17 @@ public class TrackSimpleDetail {
 
         @Schema(description = "海拔变化（米）", example = "150.5")
         private BigDecimal altitudeChange;
+
+        @Schema(description = "运动时间（秒），不含停留和信号中断", example = "6600")
+        private Long movingTime;
+
+        @Schema(description = "累计爬升（米）", example = "320.0")
+        private BigDecimal elevationGain;
+
+        @Schema(description = "累计下降（米）", example = "310.0")
+        private BigDecimal elevationLoss;
+
+        @Schema(description = "平均配速（秒/公里，按运动时间计算）", example = "330")
+        private Long averagePace;
     }
 }
\ No newline at end of file
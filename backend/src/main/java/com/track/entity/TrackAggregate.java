@@ -0,0 +1,103 @@
+package com.track.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 轨迹统计聚合
+ * 随轨迹点写入增量维护，读取统计信息时无需重新扫描全部轨迹点
+ */
+@Schema(description = "轨迹统计聚合实体")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("track_stats")
+public class TrackAggregate {
+
+    @Schema(description = "轨迹ID")
+    @TableId(value = "track_id", type = IdType.INPUT)
+    private Long trackId;
+
+    @Schema(description = "轨迹点数量")
+    @TableField("point_count")
+    private Integer pointCount;
+
+    @Schema(description = "累计距离（米）")
+    @TableField("total_distance")
+    private Double totalDistance;
+
+    @Schema(description = "速度之和（米/秒），用于计算平均速度")
+    @TableField("speed_sum")
+    private Double speedSum;
+
+    @Schema(description = "最大速度（米/秒）")
+    @TableField("max_speed")
+    private Double maxSpeed;
+
+    @Schema(description = "最低海拔（米）")
+    @TableField("min_altitude")
+    private Double minAltitude;
+
+    @Schema(description = "最高海拔（米）")
+    @TableField("max_altitude")
+    private Double maxAltitude;
+
+    @Schema(description = "累计爬升（米）")
+    @TableField("elevation_gain")
+    private Double elevationGain;
+
+    @Schema(description = "累计下降（米）")
+    @TableField("elevation_loss")
+    private Double elevationLoss;
+
+    @Schema(description = "累计爬升/下降的滞回基准海拔（米），用于增量计算")
+    @TableField("elevation_reference")
+    private Double elevationReference;
+
+    @Schema(description = "运动时间（毫秒）")
+    @TableField("moving_time")
+    private Long movingTime;
+
+    @Schema(description = "第一个轨迹点时间")
+    @TableField("first_time")
+    private LocalDateTime firstTime;
+
+    @Schema(description = "最后一个轨迹点时间")
+    @TableField("last_time")
+    private LocalDateTime lastTime;
+
+    @Schema(description = "最后一个轨迹点纬度，用于增量计算距离")
+    @TableField("last_latitude")
+    private Double lastLatitude;
+
+    @Schema(description = "最后一个轨迹点经度，用于增量计算距离")
+    @TableField("last_longitude")
+    private Double lastLongitude;
+
+    @Schema(description = "外包矩形最小纬度")
+    @TableField("min_latitude")
+    private Double minLatitude;
+
+    @Schema(description = "外包矩形最大纬度")
+    @TableField("max_latitude")
+    private Double maxLatitude;
+
+    @Schema(description = "外包矩形最小经度")
+    @TableField("min_longitude")
+    private Double minLongitude;
+
+    @Schema(description = "外包矩形最大经度")
+    @TableField("max_longitude")
+    private Double maxLongitude;
+
+    @Schema(description = "客户端已提交的最大批次序号（幂等上传的高水位）")
+    @TableField("committed_seq")
+    private Long committedSeq;
+
+    @Schema(description = "更新时间")
+    @TableField(value = "update_time", fill = FieldFill.INSERT_UPDATE)
+    private LocalDateTime updateTime;
+}
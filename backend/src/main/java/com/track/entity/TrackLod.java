@@ -0,0 +1,43 @@
+package com.track.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 轨迹多分辨率层级
+ * 已完成轨迹按固定容差预先压缩，每个容差一行，缩放地图时直接读取对应层级
+ */
+@Schema(description = "轨迹多分辨率层级实体")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("track_lod")
+public class TrackLod {
+
+    @Schema(description = "轨迹ID")
+    @TableField("track_id")
+    private Long trackId;
+
+    @Schema(description = "压缩容差（米）")
+    @TableField("tolerance")
+    private Double tolerance;
+
+    @Schema(description = "构建时轨迹的总点数，与统计不一致时说明轨迹已变化，层级失效")
+    @TableField("source_points")
+    private Integer sourcePoints;
+
+    @Schema(description = "层级点数")
+    @TableField("point_count")
+    private Integer pointCount;
+
+    @Schema(description = "层级点的列式压缩数据（格式见 TrackSegmentCodec）")
+    @TableField("data")
+    private byte[] data;
+
+    @Schema(description = "创建时间")
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
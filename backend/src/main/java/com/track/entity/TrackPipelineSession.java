@@ -0,0 +1,35 @@
+package com.track.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 轨迹处理流水线会话
+ * 已确认写入但尚未确定去留的原始点随批次在同一事务中持久化，重启或由其他节点处理后续批次时不会丢失
+ */
+@Schema(description = "轨迹处理流水线会话实体")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("track_pipeline_sessions")
+public class TrackPipelineSession {
+
+    @Schema(description = "轨迹ID")
+    @TableId(value = "track_id", type = IdType.INPUT)
+    private Long trackId;
+
+    @Schema(description = "锚点（列式压缩数据，格式见 TrackSegmentCodec）")
+    @TableField("anchor")
+    private byte[] anchor;
+
+    @Schema(description = "开放窗口中的原始点（列式压缩数据，格式见 TrackSegmentCodec）")
+    @TableField("open_points")
+    private byte[] openPoints;
+
+    @Schema(description = "最后更新时间")
+    @TableField("update_time")
+    private LocalDateTime updateTime;
+}
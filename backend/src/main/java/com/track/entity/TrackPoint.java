@@ -5,7 +5,6 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Schema(description = "轨迹点实体")
@@ -22,25 +21,28 @@ public class TrackPoint {
     @TableField("track_id")
     private Long trackId;
 
+    // 坐标和测量值使用 Double，查询映射、统计计算和轨迹处理全程不创建 BigDecimal；
+    // 数据库仍为 DECIMAL 列，写入时由数据库按列精度舍入。
+    // 坐标保持装箱类型，上传时缺失的坐标为 null，由 GeoUtils.validateCoordinates 拒绝，而不是变成 0.0
     @Schema(description = "经度", example = "116.397128")
     @TableField("longitude")
-    private BigDecimal longitude;
+    private Double longitude;
 
     @Schema(description = "纬度", example = "39.916527")
     @TableField("latitude")
-    private BigDecimal latitude;
+    private Double latitude;
 
     @Schema(description = "海拔（米）", example = "50.5")
     @TableField("altitude")
-    private BigDecimal altitude;
+    private Double altitude;
 
     @Schema(description = "速度（米/秒）", example = "5.2")
     @TableField("speed")
-    private BigDecimal speed;
+    private Double speed;
 
     @Schema(description = "定位精度（米）", example = "10.0")
     @TableField("accuracy")
-    private BigDecimal accuracy;
+    private Double accuracy;
 
     @Schema(description = "卫星数量", example = "8")
     @TableField("satellite_count")
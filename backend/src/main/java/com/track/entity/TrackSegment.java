@@ -0,0 +1,47 @@
+package com.track.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.time.LocalDateTime;
+
+/**
+ * 轨迹段
+ * 已完成轨迹的轨迹点按列压缩后分段存储（格式见 TrackSegmentCodec），一条轨迹可有多段，按 seq 顺序拼接
+ */
+@Schema(description = "轨迹段实体")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("track_segments")
+public class TrackSegment {
+
+    @Schema(description = "轨迹ID")
+    @TableField("track_id")
+    private Long trackId;
+
+    @Schema(description = "段序号（从0开始）")
+    @TableField("seq")
+    private Integer seq;
+
+    @Schema(description = "段内轨迹点数量")
+    @TableField("point_count")
+    private Integer pointCount;
+
+    @Schema(description = "段内第一个点时间")
+    @TableField("first_time")
+    private LocalDateTime firstTime;
+
+    @Schema(description = "段内最后一个点时间")
+    @TableField("last_time")
+    private LocalDateTime lastTime;
+
+    @Schema(description = "列式压缩后的轨迹点数据")
+    @TableField("data")
+    private byte[] data;
+
+    @Schema(description = "创建时间")
+    @TableField(value = "create_time", fill = FieldFill.INSERT)
+    private LocalDateTime createTime;
+}
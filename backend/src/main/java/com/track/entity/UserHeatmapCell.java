@@ -0,0 +1,37 @@
+package com.track.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 用户热力图网格单元
+ * 用户全部已完成轨迹在某个缩放级别下落入该 Web 墨卡托像素网格单元的点数之和
+ */
+@Schema(description = "用户热力图网格单元实体")
+@Data
+@EqualsAndHashCode(callSuper = false)
+@TableName("user_heatmap_cells")
+public class UserHeatmapCell {
+
+    @Schema(description = "用户ID")
+    @TableField("user_id")
+    private Long userId;
+
+    @Schema(description = "缩放级别")
+    @TableField("zoom")
+    private Integer zoom;
+
+    @Schema(description = "网格列号")
+    @TableField("cell_x")
+    private Long cellX;
+
+    @Schema(description = "网格行号")
+    @TableField("cell_y")
+    private Long cellY;
+
+    @Schema(description = "单元内的轨迹点数")
+    @TableField("count")
+    private Long count;
+}
@@ -0,0 +1,23 @@
+package com.track.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.track.entity.TrackAggregate;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface TrackAggregateMapper extends BaseMapper<TrackAggregate> {
+
+    int insertIfAbsent(@Param("trackId") Long trackId);
+
+    TrackAggregate selectForUpdate(@Param("trackId") Long trackId);
+
+    /**
+     * 锁定统计行，已被其他事务锁定时跳过（返回空）
+     */
+    TrackAggregate selectForUpdateSkipLocked(@Param("trackId") Long trackId);
+
+    int updateAggregate(TrackAggregate aggregate);
+
+    int updateCommittedSeq(@Param("trackId") Long trackId, @Param("committedSeq") long committedSeq);
+}
@@ -0,0 +1,9 @@
+package com.track.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.track.entity.TrackLod;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface TrackLodMapper extends BaseMapper<TrackLod> {
+}
@@ -3,7 +3,24 @@ package com.track.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.track.entity.Track;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
 
 @Mapper
 public interface TrackMapper extends BaseMapper<Track> {
-}
\ No newline at end of file
+
+    /**
+     * 查询用户外包矩形与指定范围相交的非进行中轨迹（用于矢量瓦片）
+     * 历史统计没有外包矩形时无法按范围筛选，一并返回
+     */
+    @Select("SELECT t.* FROM tracks t JOIN track_stats s ON s.track_id = t.id " +
+            "WHERE t.user_id = #{userId} AND t.status <> 1 AND s.point_count > 1 " +
+            "AND (s.min_latitude IS NULL OR (s.min_latitude <= #{maxLatitude} AND s.max_latitude >= #{minLatitude} " +
+            "AND s.min_longitude <= #{maxLongitude} AND s.max_longitude >= #{minLongitude})) " +
+            "ORDER BY t.id")
+    List<Track> selectInBounds(@Param("userId") Long userId,
+                               @Param("minLatitude") double minLatitude, @Param("maxLatitude") double maxLatitude,
+                               @Param("minLongitude") double minLongitude, @Param("maxLongitude") double maxLongitude);
+}
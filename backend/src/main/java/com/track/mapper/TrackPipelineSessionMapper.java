@@ -0,0 +1,27 @@
+package com.track.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.track.entity.TrackPipelineSession;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Mapper
+public interface TrackPipelineSessionMapper extends BaseMapper<TrackPipelineSession> {
+
+    int insertIfAbsent(@Param("trackId") Long trackId);
+
+    TrackPipelineSession selectForUpdate(@Param("trackId") Long trackId);
+
+    /**
+     * 锁定空闲会话，其他节点正在处理的会话跳过
+     */
+    TrackPipelineSession selectIdleForUpdate(@Param("trackId") Long trackId, @Param("before") LocalDateTime before);
+
+    int updateState(@Param("trackId") Long trackId, @Param("anchor") byte[] anchor,
+                    @Param("openPoints") byte[] openPoints);
+
+    List<Long> selectIdleTrackIds(@Param("before") LocalDateTime before);
+}
@@ -1,9 +1,24 @@
 package com.track.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
 import com.track.entity.TrackPoint;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
 @Mapper
 public interface TrackPointMapper extends BaseMapper<TrackPoint> {
-}
\ No newline at end of file
+
+    /**
+     * 以游标方式逐行读取轨迹点
+     * 必须在事务中使用：PostgreSQL 只有关闭自动提交时才按 fetchSize 分批拉取，否则一次读入全部结果
+     */
+    @Select("SELECT * FROM track_points ${ew.customSqlSegment}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = 1000)
+    Cursor<TrackPoint> selectCursor(@Param(Constants.WRAPPER) Wrapper<TrackPoint> queryWrapper);
+}
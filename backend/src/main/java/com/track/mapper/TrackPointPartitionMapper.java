@@ -0,0 +1,29 @@
+package com.track.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+/**
+ * track_points 分区维护（仅 PostgreSQL 分区表模式使用）
+ * 分区名和边界由服务端按月份生成，不接受外部输入
+ */
+@Mapper
+public interface TrackPointPartitionMapper {
+
+    /**
+     * track_points 的表类型：p 为分区表，r 为普通表
+     */
+    String selectTableKind();
+
+    List<String> selectPartitionNames();
+
+    int createMonthlyPartition(@Param("partitionName") String partitionName,
+                               @Param("fromTime") String fromTime,
+                               @Param("toTime") String toTime);
+
+    int detachPartition(@Param("partitionName") String partitionName);
+
+    int dropPartition(@Param("partitionName") String partitionName);
+}
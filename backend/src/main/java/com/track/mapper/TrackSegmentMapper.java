@@ -0,0 +1,9 @@
+package com.track.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.track.entity.TrackSegment;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface TrackSegmentMapper extends BaseMapper<TrackSegment> {
+}
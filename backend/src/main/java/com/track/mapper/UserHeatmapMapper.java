@@ -0,0 +1,43 @@
+package com.track.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.track.entity.UserHeatmapCell;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface UserHeatmapMapper extends BaseMapper<UserHeatmapCell> {
+
+    /**
+     * 批量写入轨迹在最细缩放级别下的网格单元点数
+     *
+     * @param cells 单元列表，cellX/cellY/count 有效
+     */
+    int insertTrackCells(@Param("trackId") Long trackId, @Param("cells") List<UserHeatmapCell> cells);
+
+    /**
+     * 删除轨迹的网格单元点数
+     */
+    int deleteTrackCells(@Param("trackId") Long trackId);
+
+    /**
+     * 轨迹是否已计入用户热力图
+     */
+    boolean existsTrackCells(@Param("trackId") Long trackId);
+
+    /**
+     * 把轨迹的网格单元点数累加到用户热力图的一个缩放级别（upsert）
+     *
+     * @param shift 最细级别与目标级别的缩放级别差（单元编号右移位数）
+     * @param sign 1 为计入，-1 为扣除
+     */
+    int applyTrackCells(@Param("userId") Long userId, @Param("trackId") Long trackId,
+                        @Param("zoom") int zoom, @Param("shift") int shift, @Param("sign") int sign);
+
+    /**
+     * 删除点数已扣减为 0 的单元
+     */
+    int deleteEmptyCells(@Param("userId") Long userId);
+}
@@ -0,0 +1,87 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackPoint;
+
+import java.util.List;
+
+public interface TrackAggregateService extends IService<TrackAggregate> {
+
+    /**
+     * 将新写入的轨迹点累加到轨迹统计中，并同步轨迹的总点数和总距离
+     * 需与轨迹点写入处于同一事务中调用
+     *
+     * @param trackId 轨迹ID
+     * @param trackPoints 新写入的轨迹点（按时间顺序）
+     * @return 更新后的统计聚合
+     */
+    TrackAggregate accumulate(Long trackId, List<TrackPoint> trackPoints);
+
+    /**
+     * 将新写入的轨迹点累加到调用方已通过 {@link #lock} 锁定的统计行，不再重复加锁
+     *
+     * @param lockedAggregate 当前事务中锁定的统计行
+     * @param trackPoints 新写入的轨迹点（按时间顺序）
+     * @return 更新后的统计聚合
+     */
+    TrackAggregate accumulate(TrackAggregate lockedAggregate, List<TrackPoint> trackPoints);
+
+    /**
+     * 基于轨迹的全部轨迹点重建统计（轨迹点被重新处理后调用）
+     *
+     * @param trackId 轨迹ID
+     * @param trackPoints 轨迹的全部轨迹点（按时间顺序）
+     * @return 重建后的统计聚合
+     */
+    TrackAggregate rebuild(Long trackId, List<TrackPoint> trackPoints);
+
+    /**
+     * 为尚无统计记录的历史轨迹补建统计，在独立事务中执行，可从只读事务中调用
+     *
+     * @param trackId 轨迹ID
+     * @param trackPoints 轨迹的全部轨迹点（按时间顺序）
+     * @return 补建后的统计聚合
+     */
+    TrackAggregate backfill(Long trackId, List<TrackPoint> trackPoints);
+
+    /**
+     * 锁定轨迹统计行并返回客户端已提交的最大批次序号，需在事务中调用
+     *
+     * @param trackId 轨迹ID
+     * @return 已提交的最大序号，尚未提交过任何批次时返回 -1
+     */
+    long lockCommittedSeq(Long trackId);
+
+    /**
+     * 锁定轨迹统计行（不存在时先创建）并返回，需在事务中调用
+     * 写入路径在插入前调用一次，插入后把返回的统计行交给 {@link #accumulate(TrackAggregate, List)}
+     *
+     * @param trackId 轨迹ID
+     * @return 当前事务中锁定的统计行
+     */
+    TrackAggregate lock(Long trackId);
+
+    /**
+     * 尝试锁定轨迹统计行，不等待其他事务，需在事务中调用
+     *
+     * @param trackId 轨迹ID
+     * @return 是否锁定成功（统计行正被其他事务锁定或不存在时返回 false）
+     */
+    boolean tryLock(Long trackId);
+
+    /**
+     * 更新客户端已提交的最大批次序号，需在 lock 或 lockCommittedSeq 所在事务中调用
+     *
+     * @param trackId 轨迹ID
+     * @param committedSeq 已提交的最大序号
+     */
+    void updateCommittedSeq(Long trackId, long committedSeq);
+
+    /**
+     * 删除轨迹的统计记录
+     *
+     * @param trackId 轨迹ID
+     */
+    void removeByTrackId(Long trackId);
+}
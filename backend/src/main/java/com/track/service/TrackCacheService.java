@@ -0,0 +1,396 @@
+package com.track.service;
+
+import com.track.entity.Track;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 轨迹读取结果的两级缓存（进程内 LRU + Redis）
+ * <ul>
+ *     <li>一级：按轨迹分组的进程内 LRU，容量按轨迹数限制，条目带较短的过期时间</li>
+ *     <li>二级：Redis 哈希 track:cache:{trackId}，字段为缓存项名称，整条轨迹一次删除</li>
+ *     <li>失效：写入、更新、重新处理和删除轨迹时调用 {@link #evict(Long)}，事务提交后再删一次，
+ *         并通过 Redis 发布/订阅通知其他节点清除进程内缓存</li>
+ * </ul>
+ * 跨轨迹的用户级结果（如矢量瓦片）按用户分组缓存（Redis 哈希 track:cache:user:{userId}），
+ * 用户的任一轨迹变化时调用 {@link #evictUser(Long)} 整组失效。
+ * 进行中的轨迹（状态 1）持续有新点写入，且读取时会合并写缓冲区和流水线会话中尚未落库的点，不做缓存。
+ * 加载期间发生失效时（本节点或其他节点），加载结果不再写入缓存，避免把旧数据写回：
+ * 进程内用分段版本号判断；Redis 中每个分组有一个失效代数键 track:cache:gen:{group}，失效时递增，
+ * 写入 Redis 的脚本先比较加载前读取的代数，不一致时放弃写入（跨节点的 compare-and-set）。
+ * 缓存项名称部分来自请求参数（容差、点数预算、瓦片坐标），每个分组的缓存项数量有上限，
+ * 进程内超出时淘汰最久未访问的项，Redis 中超出时不再写入新项。
+ * Redis 不可用时自动退化为只用进程内缓存。
+ */
+@Component
+public class TrackCacheService implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackCacheService.class);
+
+    private static final String KEY_PREFIX = "track:cache:";
+
+    private static final int VERSION_STRIPES = 1024;
+
+    /**
+     * 用户级缓存分组前缀
+     */
+    private static final String USER_GROUP_PREFIX = "user:";
+
+    private static final String GENERATION_PREFIX = "track:cache:gen:";
+
+    /**
+     * 代数未变且缓存项数量未超上限时写入（KEYS[1] 缓存哈希，KEYS[2] 代数键；
+     * ARGV[1] 加载前的代数，ARGV[2] 项名称，ARGV[3] 值，ARGV[4] 过期秒数，ARGV[5] 项数上限）
+     */
+    private static final DefaultRedisScript<Long> PUT_IF_CURRENT = new DefaultRedisScript<>(
+            "local current = redis.call('GET', KEYS[2]) or ''\n"
+                    + "if current ~= ARGV[1] then return 0 end\n"
+                    + "if redis.call('HEXISTS', KEYS[1], ARGV[2]) == 0 "
+                    + "and redis.call('HLEN', KEYS[1]) >= tonumber(ARGV[5]) then return 0 end\n"
+                    + "redis.call('HSET', KEYS[1], ARGV[2], ARGV[3])\n"
+                    + "redis.call('EXPIRE', KEYS[1], ARGV[4])\n"
+                    + "return 1", Long.class);
+
+    @Value("${track.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${track.cache.local-max-tracks:256}")
+    private int localMaxTracks;
+
+    @Value("${track.cache.local-ttl-ms:60000}")
+    private long localTtlMs;
+
+    @Value("${track.cache.redis-ttl-seconds:3600}")
+    private long redisTtlSeconds;
+
+    @Value("${track.cache.max-entries-per-group:64}")
+    private int maxEntriesPerGroup;
+
+    @Value("${track.cache.evict-channel:track:cache:evict}")
+    private String evictChannel;
+
+    @Autowired(required = false)
+    private RedisTemplate<String, Object> redisTemplate;
+
+    @Autowired(required = false)
+    private RedisMessageListenerContainer redisMessageListenerContainer;
+
+    @Autowired
+    private TrackReadCoalescer trackReadCoalescer;
+
+    /**
+     * 本节点标识，忽略自己发布的失效消息
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * 进程内 LRU：分组（轨迹ID或 user:用户ID）→ 该组的缓存项（访问顺序，超出容量淘汰最久未访问的组）
+     */
+    private final LinkedHashMap<String, Map<String, LocalEntry>> local = new LinkedHashMap<String, Map<String, LocalEntry>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Map<String, LocalEntry>> eldest) {
+            return size() > localMaxTracks;
+        }
+    };
+
+    /**
+     * 按分组分段的失效版本号，加载前后版本不一致说明期间发生过失效（分段冲突只会少缓存一次）
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    @PostConstruct
+    public void init() {
+        if (enabled && redisMessageListenerContainer != null) {
+            redisMessageListenerContainer.addMessageListener(this, new ChannelTopic(evictChannel));
+        }
+    }
+
+    /**
+     * 轨迹是否可以缓存（已结束或已完成）
+     */
+    public boolean isCacheable(Track track) {
+        return enabled && track != null && track.getStatus() != null && track.getStatus() != 1;
+    }
+
+    /**
+     * 读取缓存，未命中时加载并写入两级缓存
+     *
+     * @param trackId 轨迹ID
+     * @param name 缓存项名称（同一轨迹内唯一，如 detail、compressed:10.0）
+     * @param type 缓存值类型
+     * @param loader 加载函数，返回 null 时不缓存
+     */
+    public <T> T get(Long trackId, String name, Class<T> type, Supplier<T> loader) {
+        return getGroup(String.valueOf(trackId), name, type, loader);
+    }
+
+    /**
+     * 读取用户级缓存，未命中时加载并写入两级缓存
+     *
+     * @param userId 用户ID
+     * @param name 缓存项名称（同一用户内唯一，如 tile:10/843/388）
+     * @param type 缓存值类型
+     * @param loader 加载函数，返回 null 时不缓存
+     */
+    public <T> T getForUser(Long userId, String name, Class<T> type, Supplier<T> loader) {
+        return getGroup(USER_GROUP_PREFIX + userId, name, type, loader);
+    }
+
+    private <T> T getGroup(String group, String name, Class<T> type, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        Object value = getLocal(group, name);
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+
+        long version = version(group);
+        byte[] generation = getGeneration(group);
+        value = getRemote(group, name);
+        // byte[] 在 Redis 中序列化为 Base64 字符串
+        if (type == byte[].class && value instanceof String) {
+            value = Base64.getDecoder().decode((String) value);
+        }
+        if (type.isInstance(value)) {
+            putLocal(group, name, value, version);
+            return type.cast(value);
+        }
+
+        T loaded = loader.get();
+        if (loaded != null && version(group) == version) {
+            putRemote(group, name, loaded, generation);
+            putLocal(group, name, loaded, version);
+        }
+        return loaded;
+    }
+
+    /**
+     * 使轨迹的全部缓存失效
+     * 立即删除一次；处于事务中时提交后再删除一次并通知其他节点，避免并发读取把提交前的数据写回
+     */
+    public void evict(Long trackId) {
+        if (trackId != null) {
+            evictGroup(String.valueOf(trackId));
+        }
+    }
+
+    /**
+     * 使用户级缓存全部失效（时机同 {@link #evict(Long)}）
+     */
+    public void evictUser(Long userId) {
+        if (userId != null) {
+            evictGroup(USER_GROUP_PREFIX + userId);
+        }
+    }
+
+    private void evictGroup(String group) {
+        // 未启用缓存时仍需推进读取合并的写入代数
+        evictLocal(group);
+        if (enabled) {
+            evictRemote(group);
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocal(group);
+                    if (enabled) {
+                        evictRemote(group);
+                        publish(group);
+                    }
+                }
+            });
+        } else if (enabled) {
+            publish(group);
+        }
+    }
+
+    /**
+     * 其他节点发布的失效消息：清除本节点的进程内缓存
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int separator = body.indexOf(':');
+        if (separator < 0 || separator == body.length() - 1) {
+            log.warn("忽略格式错误的轨迹缓存失效消息: {}", body);
+            return;
+        }
+        if (!body.substring(0, separator).equals(nodeId)) {
+            evictLocal(body.substring(separator + 1));
+        }
+    }
+
+    private long version(String group) {
+        return versions.get(stripe(group));
+    }
+
+    private static int stripe(String group) {
+        return Math.floorMod(group.hashCode(), VERSION_STRIPES);
+    }
+
+    private Object getLocal(String group, String name) {
+        synchronized (local) {
+            Map<String, LocalEntry> entries = local.get(group);
+            if (entries == null) {
+                return null;
+            }
+            LocalEntry entry = entries.get(name);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt < System.currentTimeMillis()) {
+                entries.remove(name);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private void putLocal(String group, String name, Object value, long version) {
+        synchronized (local) {
+            // 版本号在锁内复查，与 evictLocal 互斥
+            if (version(group) != version) {
+                return;
+            }
+            local.computeIfAbsent(group, key -> new LinkedHashMap<String, LocalEntry>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, LocalEntry> eldest) {
+                    return size() > maxEntriesPerGroup;
+                }
+            }).put(name, new LocalEntry(value, System.currentTimeMillis() + localTtlMs));
+        }
+    }
+
+    /**
+     * 清除进程内缓存，轨迹分组同时推进读取合并的写入代数（之后的读取不再加入失效前开始的执行）
+     */
+    private void evictLocal(String group) {
+        synchronized (local) {
+            versions.incrementAndGet(stripe(group));
+            local.remove(group);
+        }
+        if (!group.startsWith(USER_GROUP_PREFIX)) {
+            trackReadCoalescer.invalidate(Long.valueOf(group));
+        }
+    }
+
+    private Object getRemote(String group, String name) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            return redisTemplate.opsForHash().get(KEY_PREFIX + group, name);
+        } catch (Exception e) {
+            log.debug("读取 Redis 轨迹缓存失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 读取分组当前的失效代数（从未失效过为空数组，Redis 不可用时为 null）
+     */
+    private byte[] getGeneration(String group) {
+        if (redisTemplate == null) {
+            return null;
+        }
+        try {
+            byte[] generation = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                    connection.get((GENERATION_PREFIX + group).getBytes(StandardCharsets.UTF_8)));
+            return generation != null ? generation : new byte[0];
+        } catch (Exception e) {
+            log.debug("读取 Redis 轨迹缓存代数失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void putRemote(String group, String name, Object value, byte[] generation) {
+        if (redisTemplate == null || generation == null) {
+            return;
+        }
+        try {
+            byte[] field = ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(name);
+            byte[] serialized = ((RedisSerializer<Object>) redisTemplate.getHashValueSerializer()).serialize(value);
+            redisTemplate.execute(PUT_IF_CURRENT, RedisSerializer.byteArray(), new GenericToStringSerializer<>(Long.class),
+                    Arrays.asList(KEY_PREFIX + group, GENERATION_PREFIX + group),
+                    generation, field, serialized,
+                    String.valueOf(redisTtlSeconds).getBytes(StandardCharsets.UTF_8),
+                    String.valueOf(maxEntriesPerGroup).getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            log.debug("写入 Redis 轨迹缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void evictRemote(String group) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            // 先递增代数，使加载中的其他节点放弃写入，再删除已有的缓存项
+            String generationKey = GENERATION_PREFIX + group;
+            redisTemplate.execute((RedisCallback<Long>) connection -> {
+                byte[] key = generationKey.getBytes(StandardCharsets.UTF_8);
+                Long generation = connection.incr(key);
+                connection.expire(key, redisTtlSeconds);
+                return generation;
+            });
+            redisTemplate.delete(KEY_PREFIX + group);
+        } catch (Exception e) {
+            log.warn("删除 Redis 轨迹缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private void publish(String group) {
+        if (redisTemplate == null) {
+            return;
+        }
+        try {
+            redisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(
+                    evictChannel.getBytes(StandardCharsets.UTF_8),
+                    (nodeId + ":" + group).getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            log.warn("发布轨迹缓存失效消息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 进程内缓存项
+     */
+    private static class LocalEntry {
+        private final Object value;
+        private final long expireAt;
+
+        LocalEntry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -361,16 +361,14 @@ public class TrackExportService {
             List<TrackPoint> points = trackDetail.getTrackPoints();
             if (points != null) {
                 for (TrackPoint point : points) {
-                    if (point.getLatitude() != null && point.getLongitude() != null) {
-                        writer.write("      <trkpt lat=\"" + point.getLatitude() + "\" lon=\"" + point.getLongitude() + "\">\n");
-                        if (point.getAltitude() != null) {
-                            writer.write("        <ele>" + point.getAltitude() + "</ele>\n");
-                        }
-                        if (point.getCreateTime() != null) {
-                            writer.write("        <time>" + formatIsoTime(point.getCreateTime()) + "</time>\n");
-                        }
-                        writer.write("      </trkpt>\n");
+                    writer.write("      <trkpt lat=\"" + point.getLatitude() + "\" lon=\"" + point.getLongitude() + "\">\n");
+                    if (point.getAltitude() != null) {
+                        writer.write("        <ele>" + point.getAltitude() + "</ele>\n");
                     }
+                    if (point.getCreateTime() != null) {
+                        writer.write("        <time>" + formatIsoTime(point.getCreateTime()) + "</time>\n");
+                    }
+                    writer.write("      </trkpt>\n");
                 }
             }
 
@@ -412,13 +410,11 @@ public class TrackExportService {
             List<TrackPoint> points = trackDetail.getTrackPoints();
             if (points != null) {
                 for (TrackPoint point : points) {
-                    if (point.getLongitude() != null && point.getLatitude() != null) {
-                        writer.write("          " + point.getLongitude() + "," + point.getLatitude());
-                        if (point.getAltitude() != null) {
-                            writer.write("," + point.getAltitude());
-                        }
-                        writer.write("\n");
+                    writer.write("          " + point.getLongitude() + "," + point.getLatitude());
+                    if (point.getAltitude() != null) {
+                        writer.write("," + point.getAltitude());
                     }
+                    writer.write("\n");
                 }
             }
 
@@ -504,18 +500,16 @@ public class TrackExportService {
             if (points != null) {
                 for (int i = 0; i < points.size(); i++) {
                     TrackPoint point = points.get(i);
-                    if (point.getLongitude() != null && point.getLatitude() != null) {
-                        writer.write("          [" + point.getLongitude() + ", " + point.getLatitude());
-                        if (point.getAltitude() != null) {
-                            writer.write(", " + point.getAltitude());
-                        }
-                        writer.write("]");
-                        // 只有不是最后一个元素时，才加逗号
-                        if (i < points.size() - 1) {
-                            writer.write(",");
-                        }
-                        writer.write("\n");
+                    writer.write("          [" + point.getLongitude() + ", " + point.getLatitude());
+                    if (point.getAltitude() != null) {
+                        writer.write(", " + point.getAltitude());
+                    }
+                    writer.write("]");
+                    // 只有不是最后一个元素时，才加逗号
+                    if (i < points.size() - 1) {
+                        writer.write(",");
                     }
+                    writer.write("\n");
                 }
             }
 
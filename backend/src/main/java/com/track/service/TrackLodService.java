@@ -0,0 +1,36 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.entity.TrackLod;
+import com.track.entity.TrackPoint;
+
+import java.util.List;
+
+public interface TrackLodService extends IService<TrackLod> {
+
+    /**
+     * 为轨迹构建多分辨率层级（已有层级整体替换）
+     * 轨迹完成后调用
+     *
+     * @param trackId 轨迹ID
+     * @return 构建的层级数
+     */
+    int build(Long trackId);
+
+    /**
+     * 读取与容差对应的预计算层级
+     * 取不超过请求容差的最大层级（精度不低于请求），没有可用层级或层级已失效时返回 null
+     *
+     * @param trackId 轨迹ID
+     * @param tolerance 请求的压缩容差（米）
+     * @return 层级轨迹点列表，不可用时为 null
+     */
+    List<TrackPoint> loadLevel(Long trackId, double tolerance);
+
+    /**
+     * 删除轨迹的全部层级
+     *
+     * @param trackId 轨迹ID
+     */
+    void removeByTrackId(Long trackId);
+}
@@ -0,0 +1,289 @@
+package com.track.service;
+
+import com.track.entity.TrackPipelineSession;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackPipelineSessionMapper;
+import com.track.starter.model.Point;
+import com.track.starter.pipeline.TrajectoryPipeline;
+import com.track.util.PointConverter;
+import com.track.util.TrackSegmentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 轨迹处理流水线会话管理器（按轨迹保持跨批次的处理状态）
+ * 逐批独立调用流水线时，每批的第一个点和最后一个点总会被压缩保留，去噪也看不到上一批的最后一个定位点。
+ * 会话为每条轨迹保留：
+ * <ul>
+ *     <li>锚点：上一次已提交的最后一个处理后点，作为下一批去噪和压缩的起点（本身不再重复提交）</li>
+ *     <li>开放窗口：锚点之后尚未确定去留的原始点，与下一批合并后重新压缩</li>
+ * </ul>
+ * 每批只提交压缩结果中除最后一个点之外的部分，最后一个点之后的原始点留在开放窗口中。
+ * 开放窗口超过上限时强制整体提交；轨迹完成或长时间空闲时提交剩余的点并回收会话。
+ * <p>
+ * 会话保存在 track_pipeline_sessions 表中，与本批轨迹点和已提交序号在同一事务中更新（行锁串行化同一轨迹的批次），
+ * 已确认写入的点不会因重启丢失，其他节点也能衔接后续批次和读取开放窗口。
+ */
+@Component
+public class TrackPipelineSessionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPipelineSessionManager.class);
+
+    @Value("${track.pipeline.session.enabled:true}")
+    private boolean enabled;
+
+    @Value("${track.pipeline.session.max-open-points:200}")
+    private int maxOpenPoints;
+
+    @Value("${track.pipeline.session.idle-timeout-ms:120000}")
+    private long idleTimeoutMs;
+
+    @Autowired(required = false)
+    private TrajectoryPipeline trajectoryPipeline;
+
+    // 延迟注入，避免与 TrackPointServiceImpl 形成循环依赖
+    @Lazy
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Autowired
+    private TrackPipelineSessionMapper trackPipelineSessionMapper;
+
+    @Autowired
+    private TrackAggregateService trackAggregateService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 是否启用会话（需要轨迹处理流水线可用）
+     */
+    public boolean isEnabled() {
+        return enabled && trajectoryPipeline != null;
+    }
+
+    /**
+     * 处理一批新的轨迹点，返回本批可以提交的处理后点
+     * 必须在调用方的事务中调用：会话行锁和会话状态与本批轨迹点一起提交，事务回滚时会话保持处理前的状态。
+     * 这里不开启嵌套事务模板，流水线异常不会把调用方的事务标记为只回滚，调用方仍可保存原始数据。
+     * 会话模式下流水线处理失败时，开放窗口和本批原始点原样提交，会话从本批最后一个点重新开始。
+     *
+     * @param trackId 轨迹ID
+     * @param points 新的原始轨迹点（按时间升序）
+     * @return 可以提交的处理后轨迹点
+     */
+    public List<Point> process(Long trackId, List<Point> points) {
+        if (points.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        trackPipelineSessionMapper.insertIfAbsent(trackId);
+        Session session = Session.of(trackPipelineSessionMapper.selectForUpdate(trackId));
+
+        // 乱序或重复上传的批次无法衔接上下文，按独立批次处理，会话保持不变
+        if (points.get(0).getTimestamp() <= session.lastTimestamp()) {
+            log.info("轨迹 {} 的批次与会话时间不连续，按独立批次处理", trackId);
+            return trajectoryPipeline.process(points);
+        }
+
+        List<Point> input = new ArrayList<>(1 + session.open.size() + points.size());
+        if (session.anchor != null) {
+            input.add(session.anchor);
+        }
+        input.addAll(session.open);
+        input.addAll(points);
+
+        List<Point> committed;
+        try {
+            committed = advance(session, input, session.open.size() + points.size() > maxOpenPoints);
+        } catch (RuntimeException e) {
+            log.error("轨迹 {} 的流水线处理失败，开放窗口和本批原始点直接提交", trackId, e);
+            committed = new ArrayList<>(session.open.size() + points.size());
+            committed.addAll(session.open);
+            committed.addAll(points);
+            session.anchor = committed.get(committed.size() - 1);
+            session.open = Collections.emptyList();
+        }
+        trackPipelineSessionMapper.updateState(trackId, encode(session.anchor), encode(session.open));
+        return committed;
+    }
+
+    /**
+     * 获取开放窗口中尚未提交的原始点，用于保证读己之写
+     */
+    public List<TrackPoint> pending(Long trackId) {
+        TrackPipelineSession row = trackPipelineSessionMapper.selectById(trackId);
+        if (row == null || row.getOpenPoints() == null) {
+            return Collections.emptyList();
+        }
+        return TrackSegmentCodec.decode(row.getOpenPoints(), trackId);
+    }
+
+    /**
+     * 轨迹完成：提交开放窗口中剩余的点并回收会话
+     * 提交失败时抛出异常，会话保留，由调用方重试或空闲回收时再次提交
+     */
+    public void complete(Long trackId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // 与写入路径相同的锁顺序：统计行 → 会话行
+            trackAggregateService.lockCommittedSeq(trackId);
+            TrackPipelineSession row = trackPipelineSessionMapper.selectForUpdate(trackId);
+            if (row != null) {
+                drain(Session.of(row));
+            }
+        });
+    }
+
+    /**
+     * 丢弃会话（轨迹被删除时调用）
+     */
+    public void discard(Long trackId) {
+        trackPipelineSessionMapper.deleteById(trackId);
+    }
+
+    /**
+     * 定时回收空闲会话
+     * 先以 SKIP LOCKED 认领会话行，再以 SKIP LOCKED 尝试锁定统计行，两步都不等待：
+     * 写入路径按统计行 → 会话行的顺序加锁，回收顺序相反但从不阻塞，不会形成死锁。
+     * 其他节点正在处理或回收的会话、正在写入的轨迹被跳过；提交失败的会话保留到下一轮
+     */
+    @Scheduled(fixedDelayString = "${track.pipeline.session.idle-timeout-ms:120000}")
+    public void evictIdle() {
+        LocalDateTime before = LocalDateTime.now().minusNanos(idleTimeoutMs * 1_000_000);
+        for (Long trackId : trackPipelineSessionMapper.selectIdleTrackIds(before)) {
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    TrackPipelineSession row = trackPipelineSessionMapper.selectIdleForUpdate(trackId, before);
+                    if (row == null) {
+                        return;
+                    }
+                    if (!trackAggregateService.tryLock(trackId)) {
+                        log.debug("轨迹 {} 正在写入，流水线会话留到下一轮回收", trackId);
+                        return;
+                    }
+                    log.debug("轨迹 {} 的流水线会话空闲超时，提交剩余轨迹点", trackId);
+                    drain(Session.of(row));
+                });
+            } catch (Exception e) {
+                log.error("轨迹 {} 的流水线会话剩余轨迹点提交失败，保留到下一轮", trackId, e);
+            }
+        }
+    }
+
+    /**
+     * 处理合并后的输入并推进会话状态
+     *
+     * @param session 会话（调用方持有行锁）
+     * @param input 锚点 + 开放窗口 + 新批次
+     * @param force 是否强制提交全部处理结果
+     * @return 可以提交的处理后点
+     */
+    private List<Point> advance(Session session, List<Point> input, boolean force) {
+        List<Point> processed = trajectoryPipeline.process(input);
+
+        // 去掉锚点本身（已在上一批提交）
+        int from = 0;
+        if (session.anchor != null) {
+            long anchorTime = session.anchor.getTimestamp();
+            while (from < processed.size() && processed.get(from).getTimestamp() <= anchorTime) {
+                from++;
+            }
+        }
+        List<Point> output = processed.subList(from, processed.size());
+
+        if (force) {
+            if (!output.isEmpty()) {
+                session.anchor = output.get(output.size() - 1);
+            }
+            session.open = Collections.emptyList();
+            return new ArrayList<>(output);
+        }
+
+        // 压缩结果的最后一个点只是当前批次的端点，去留要等后续点到达后再确定
+        List<Point> committed = output.isEmpty()
+                ? Collections.emptyList()
+                : new ArrayList<>(output.subList(0, output.size() - 1));
+        if (!committed.isEmpty()) {
+            session.anchor = committed.get(committed.size() - 1);
+        }
+
+        long anchorTime = session.anchor != null ? session.anchor.getTimestamp() : Long.MIN_VALUE;
+        List<Point> open = new ArrayList<>();
+        for (Point point : input) {
+            if (point.getTimestamp() > anchorTime) {
+                open.add(point);
+            }
+        }
+        session.open = open;
+        return committed;
+    }
+
+    /**
+     * 在当前事务中提交会话中剩余的点并删除会话
+     */
+    private void drain(Session session) {
+        if (!session.open.isEmpty()) {
+            List<Point> input = new ArrayList<>(session.open.size() + 1);
+            if (session.anchor != null) {
+                input.add(session.anchor);
+            }
+            input.addAll(session.open);
+            List<Point> remaining = advance(session, input, true);
+            trackPointService.savePoints(session.trackId, PointConverter.toTrackPoints(remaining, session.trackId));
+            log.info("轨迹 {} 的流水线会话结束，提交剩余 {} 个轨迹点", session.trackId, remaining.size());
+        }
+        trackPipelineSessionMapper.deleteById(session.trackId);
+    }
+
+    private static byte[] encode(Point point) {
+        return point != null ? encode(Collections.singletonList(point)) : null;
+    }
+
+    private static byte[] encode(List<Point> points) {
+        return points.isEmpty() ? null : TrackSegmentCodec.encode(PointConverter.toTrackPoints(points, null));
+    }
+
+    private static List<Point> decode(byte[] data) {
+        return data != null ? PointConverter.toPoints(TrackSegmentCodec.decode(data, null)) : Collections.emptyList();
+    }
+
+    /**
+     * 单条轨迹的流水线会话（由数据库中的会话行解码）
+     */
+    private static class Session {
+        private final Long trackId;
+        private Point anchor;
+        private List<Point> open = Collections.emptyList();
+
+        Session(Long trackId) {
+            this.trackId = trackId;
+        }
+
+        static Session of(TrackPipelineSession row) {
+            Session session = new Session(row.getTrackId());
+            List<Point> anchor = decode(row.getAnchor());
+            session.anchor = anchor.isEmpty() ? null : anchor.get(0);
+            session.open = decode(row.getOpenPoints());
+            return session;
+        }
+
+        long lastTimestamp() {
+            if (!open.isEmpty()) {
+                return open.get(open.size() - 1).getTimestamp();
+            }
+            return anchor != null ? anchor.getTimestamp() : Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.track.service;
+
+import com.track.entity.TrackPoint;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 轨迹点批量写入器
+ * 数据源为 PostgreSQL 时使用 COPY 二进制协议批量导入，比逐行 JDBC batch 插入快一个数量级；
+ * 其他数据库（如 H2）不支持该协议，由调用方回退到 MyBatis-Plus 的 saveBatch。
+ * 注意：COPY 不回填自增主键，写入后的轨迹点 id 为空。
+ */
+@Component
+public class TrackPointBulkWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointBulkWriter.class);
+
+    private static final String COPY_SQL = "COPY track_points (track_id, longitude, latitude, altitude, speed, "
+            + "accuracy, satellite_count, address, create_time) FROM STDIN WITH (FORMAT BINARY)";
+
+    /**
+     * PGCOPY 二进制格式文件头（签名 + 标志位 + 扩展区长度）
+     */
+    private static final byte[] COPY_HEADER = {
+            'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0,
+            0, 0, 0, 0,
+            0, 0, 0, 0
+    };
+
+    private static final short FIELD_COUNT = 9;
+
+    /**
+     * PostgreSQL 时间戳以 2000-01-01 00:00:00 为纪元，单位微秒
+     */
+    private static final long PG_EPOCH_SECONDS = LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+
+    private static final long[] POW10 = {1L, 10L, 100L, 1000L};
+
+    private static final double[] SCALE_FACTORS = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6};
+
+    @Value("${track.ingest.bulk.copy-threshold:1000}")
+    private int copyThreshold;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private volatile Boolean copySupported;
+
+    /**
+     * 判断该批数据是否应走 COPY 路径
+     */
+    public boolean shouldUseCopy(int size) {
+        return size >= copyThreshold && isCopySupported();
+    }
+
+    /**
+     * 数据源是否为 PostgreSQL（结果缓存）
+     */
+    public boolean isCopySupported() {
+        Boolean supported = copySupported;
+        if (supported == null) {
+            try (Connection connection = dataSource.getConnection()) {
+                String productName = connection.getMetaData().getDatabaseProductName();
+                supported = "PostgreSQL".equalsIgnoreCase(productName) && connection.isWrapperFor(PGConnection.class);
+            } catch (SQLException e) {
+                log.warn("检测数据库类型失败，COPY 批量写入不可用: {}", e.getMessage());
+                supported = false;
+            }
+            copySupported = supported;
+            log.info("轨迹点 COPY 批量写入{}", supported ? "已启用" : "不可用，使用 JDBC 批量插入");
+        }
+        return supported;
+    }
+
+    /**
+     * 使用 COPY 二进制协议写入轨迹点
+     * 使用 Spring 事务绑定的连接，与调用方处于同一事务中
+     *
+     * @param trackPoints 轨迹点列表
+     * @return 写入的行数
+     */
+    public long copyIn(List<TrackPoint> trackPoints) {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            PGCopyOutputStream copyStream = new PGCopyOutputStream(pgConnection, COPY_SQL, 1 << 16);
+            DataOutputStream out = new DataOutputStream(copyStream);
+
+            out.write(COPY_HEADER);
+            for (TrackPoint point : trackPoints) {
+                if (point.getCreateTime() == null) {
+                    point.setCreateTime(LocalDateTime.now());
+                }
+                out.writeShort(FIELD_COUNT);
+                writeBigint(out, point.getTrackId());
+                writeNumeric(out, point.getLongitude(), 6);
+                writeNumeric(out, point.getLatitude(), 6);
+                writeNumeric(out, point.getAltitude(), 2);
+                writeNumeric(out, point.getSpeed(), 2);
+                writeNumeric(out, point.getAccuracy(), 2);
+                writeInteger(out, point.getSatelliteCount());
+                writeText(out, point.getAddress());
+                writeTimestamp(out, point.getCreateTime());
+            }
+            // 文件尾：字段数 -1
+            out.writeShort(-1);
+            out.flush();
+            return copyStream.endCopy();
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("COPY 写入轨迹点失败: " + e.getMessage(), e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static void writeBigint(DataOutputStream out, Long value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(8);
+        out.writeLong(value);
+    }
+
+    private static void writeInteger(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(4);
+        out.writeInt(value);
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static void writeTimestamp(DataOutputStream out, LocalDateTime value) throws IOException {
+        long micros = (value.toEpochSecond(ZoneOffset.UTC) - PG_EPOCH_SECONDS) * 1_000_000L + value.getNano() / 1_000;
+        out.writeInt(8);
+        out.writeLong(micros);
+    }
+
+    private static void writeNumeric(DataOutputStream out, Double value, int scale) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        writeNumeric(out, value.doubleValue(), scale);
+    }
+
+    /**
+     * 按 PostgreSQL numeric 二进制格式写入：ndigits, weight, sign, dscale 后跟若干个 base-10000 数位
+     * 先按列精度舍入为定点整数，不经过 BigDecimal
+     */
+    static void writeNumeric(DataOutputStream out, double value, int scale) throws IOException {
+        long unscaled = Math.round(value * SCALE_FACTORS[scale]);
+        short sign = unscaled < 0 ? (short) 0x4000 : 0;
+
+        // 小数部分补齐到 4 位一组，便于按 base-10000 拆分
+        int pad = (4 - scale % 4) % 4;
+        int fractionGroups = (scale + pad) / 4;
+        long magnitude = Math.abs(unscaled) * POW10[pad];
+
+        int[] groups = new int[8];
+        int count = 0;
+        while (magnitude != 0) {
+            groups[count++] = (int) (magnitude % 10000);
+            magnitude /= 10000;
+        }
+
+        // 去掉末尾为 0 的数位组（不影响 weight）
+        int lowest = 0;
+        while (lowest < count && groups[lowest] == 0) {
+            lowest++;
+        }
+        int digitCount = count - lowest;
+        short weight = digitCount == 0 ? 0 : (short) (count - 1 - fractionGroups);
+
+        out.writeInt(8 + 2 * digitCount);
+        out.writeShort(digitCount);
+        out.writeShort(weight);
+        out.writeShort(digitCount == 0 ? 0 : sign);
+        out.writeShort(scale);
+        for (int i = count - 1; i >= lowest; i--) {
+            out.writeShort(groups[i]);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackAggregateMapper;
+import com.track.mapper.TrackPointPartitionMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 轨迹点分区管理器
+ * track_points 按 schema-partitioned.sql 建为月度范围分区表时生效（启动时自动识别，普通表和 H2 下不做任何事）：
+ * <ul>
+ *     <li>定时预建当前月及之后若干个月的分区</li>
+ *     <li>配置了保留月数时，整体 DETACH + DROP 过期分区，代替逐行 DELETE</li>
+ *     <li>为按轨迹查询/删除轨迹点的条件补充轨迹起止时间，使查询只扫描相关分区</li>
+ * </ul>
+ */
+@Component
+public class TrackPointPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointPartitionManager.class);
+
+    private static final String PARTITION_PREFIX = "track_points_p";
+
+    private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Value("${track.storage.partition.enabled:true}")
+    private boolean enabled;
+
+    @Value("${track.storage.partition.premake-months:2}")
+    private int premakeMonths;
+
+    /**
+     * 轨迹点保留月数，0 表示永久保留
+     */
+    @Value("${track.storage.partition.retention-months:0}")
+    private int retentionMonths;
+
+    @Autowired
+    private TrackPointPartitionMapper trackPointPartitionMapper;
+
+    @Autowired
+    private TrackAggregateMapper trackAggregateMapper;
+
+    private volatile Boolean partitioned;
+
+    /**
+     * track_points 是否为分区表（结果缓存）
+     */
+    public boolean isPartitioned() {
+        Boolean result = partitioned;
+        if (result == null) {
+            try {
+                result = enabled && "p".equals(trackPointPartitionMapper.selectTableKind());
+            } catch (Exception e) {
+                // 非 PostgreSQL 数据库没有 pg_class
+                result = false;
+            }
+            partitioned = result;
+            log.info("轨迹点分区表模式{}", result ? "已启用" : "未启用");
+        }
+        return result;
+    }
+
+    /**
+     * 为按轨迹查询/删除轨迹点的条件补充轨迹的起止时间，触发分区裁剪
+     * 起止时间取自随写入增量维护的轨迹统计，统计不存在时不加限制。
+     * 范围放宽到整秒（下界向下取整、上界向上取整），统计时间与数据库 TIMESTAMP 的精度或舍入不一致时也不会漏掉首尾的点，
+     * 分区按月划分，放宽后裁剪效果不变
+     */
+    public void applyTimeRange(QueryWrapper<TrackPoint> queryWrapper, Long trackId) {
+        if (!isPartitioned()) {
+            return;
+        }
+        TrackAggregate aggregate = trackAggregateMapper.selectById(trackId);
+        if (aggregate == null || aggregate.getFirstTime() == null || aggregate.getLastTime() == null) {
+            return;
+        }
+        queryWrapper.ge("create_time", aggregate.getFirstTime().truncatedTo(ChronoUnit.SECONDS));
+        queryWrapper.lt("create_time", aggregate.getLastTime().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        maintain();
+    }
+
+    /**
+     * 每天预建分区并清理过期分区
+     */
+    @Scheduled(cron = "${track.storage.partition.maintenance-cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!isPartitioned()) {
+            return;
+        }
+
+        YearMonth current = YearMonth.now();
+        Set<String> existing = new HashSet<>(trackPointPartitionMapper.selectPartitionNames());
+
+        for (int i = 0; i <= premakeMonths; i++) {
+            YearMonth month = current.plusMonths(i);
+            String partitionName = partitionName(month);
+            if (existing.contains(partitionName)) {
+                continue;
+            }
+            try {
+                trackPointPartitionMapper.createMonthlyPartition(partitionName,
+                        month.atDay(1) + " 00:00:00",
+                        month.plusMonths(1).atDay(1) + " 00:00:00");
+                log.info("已创建轨迹点分区 {}", partitionName);
+            } catch (Exception e) {
+                // 默认分区中已有该月数据时无法直接创建，需要人工迁移
+                log.error("创建轨迹点分区 {} 失败: {}", partitionName, e.getMessage());
+            }
+        }
+
+        if (retentionMonths > 0) {
+            dropExpiredPartitions(existing, current.minusMonths(retentionMonths));
+        }
+    }
+
+    /**
+     * 删除早于保留期的分区（只删除按月命名的分区，默认分区不处理）
+     * 轨迹统计保留，轨迹列表中的距离和点数不受影响
+     */
+    private void dropExpiredPartitions(Set<String> existing, YearMonth oldestKept) {
+        List<String> partitionNames = new ArrayList<>(existing);
+        Collections.sort(partitionNames);
+        for (String partitionName : partitionNames) {
+            YearMonth month = parseMonth(partitionName);
+            if (month == null || !month.isBefore(oldestKept)) {
+                continue;
+            }
+            try {
+                trackPointPartitionMapper.detachPartition(partitionName);
+                trackPointPartitionMapper.dropPartition(partitionName);
+                log.info("已删除过期轨迹点分区 {}", partitionName);
+            } catch (Exception e) {
+                log.error("删除轨迹点分区 {} 失败: {}", partitionName, e.getMessage());
+            }
+        }
+    }
+
+    private static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+    }
+
+    private static YearMonth parseMonth(String partitionName) {
+        if (!partitionName.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partitionName.substring(PARTITION_PREFIX.length()), SUFFIX_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -1,14 +1,30 @@
 package com.track.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.dto.BatchSaveResult;
+import com.track.dto.CursorPageResponse;
+import com.track.dto.HeatmapGrid;
 import com.track.entity.TrackPoint;
+import com.track.util.PointProjection;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public interface TrackPointService extends IService<TrackPoint> {
 
     List<TrackPoint> findByTrackId(Long trackId);
 
+    /**
+     * 按字段投影读取轨迹点（只查询投影需要的列，投影外的字段为空）
+     *
+     * @param trackId 轨迹ID
+     * @param projection 字段投影
+     * @return 按时间排序的轨迹点列表
+     */
+    List<TrackPoint> findByTrackId(Long trackId, PointProjection projection);
+
     /**
      * 批量保存轨迹点，并进行轨迹处理
      *
@@ -18,6 +34,39 @@ public interface TrackPointService extends IService<TrackPoint> {
      */
     List<TrackPoint> saveBatchWithProcessing(List<TrackPoint> trackPoints, Long trackId);
 
+    /**
+     * 幂等批量保存：批次中的点依次对应客户端序号 seqStart, seqStart + 1, ...
+     * 不大于服务端已提交序号的部分在进入轨迹处理前直接裁剪，重传或重叠的批次不会重复写入
+     *
+     * @param trackPoints 轨迹点列表
+     * @param trackId 轨迹ID
+     * @param seqStart 批次第一个点的客户端序号
+     * @return 保存结果，包含服务端已提交的最大序号
+     */
+    BatchSaveResult saveSequencedBatch(List<TrackPoint> trackPoints, Long trackId, long seqStart);
+
+    /**
+     * 解码二进制格式的批量轨迹点，直接送入轨迹处理流水线并保存
+     *
+     * @param in 二进制数据输入流（格式见 TrackPointCodec）
+     * @param length 数据总字节数（请求体长度），未知时传 -1
+     * @param trackId 轨迹ID
+     * @param seqStart 批次第一个点的客户端序号，为空时不做幂等裁剪
+     * @return 保存结果
+     * @throws IOException 读取失败或数据被截断
+     * @throws IllegalArgumentException 数据格式错误或坐标超出范围
+     */
+    BatchSaveResult saveEncodedBatch(InputStream in, long length, Long trackId, Long seqStart) throws IOException;
+
+    /**
+     * 直接保存轨迹点（不经过轨迹处理），并增量更新轨迹统计
+     * 写缓冲区刷写和未启用缓冲的单点上报使用此方法
+     *
+     * @param trackId 轨迹ID
+     * @param trackPoints 轨迹点列表
+     */
+    void savePoints(Long trackId, List<TrackPoint> trackPoints);
+
     /**
      * 对现有轨迹点进行轨迹处理
      *
@@ -34,6 +83,28 @@ public interface TrackPointService extends IService<TrackPoint> {
      */
     List<TrackPoint> getRawPointsForHeatmap(Long trackId);
 
+    /**
+     * 获取热力图网格：去噪后的轨迹点按 Web 墨卡托像素网格聚合，只返回非空单元及点数
+     * 单元数超过上限时逐级降低缩放级别，返回结果中的 zoom 为实际使用的级别
+     *
+     * @param trackId 轨迹ID
+     * @param zoom 缩放级别（0 到 22）
+     * @param cellSize 单元边长（像素，1 到 256）
+     * @return 热力图网格
+     * @throws IllegalArgumentException 参数超出范围
+     */
+    HeatmapGrid getHeatmapGrid(Long trackId, int zoom, int cellSize);
+
+    /**
+     * 读取并聚合热力图网格，不经过读取合并和缓存（写路径使用，保证读到当前事务中的数据）
+     *
+     * @param trackId 轨迹ID
+     * @param zoom 缩放级别（0 到 22）
+     * @param cellSize 单元边长（像素，1 到 256）
+     * @return 热力图网格
+     */
+    HeatmapGrid buildHeatmapGrid(Long trackId, int zoom, int cellSize);
+
     /**
      * 获取压缩后的轨迹点（用于轨迹展示）
      *
@@ -42,4 +113,68 @@ public interface TrackPointService extends IService<TrackPoint> {
      * @return 压缩后的轨迹点列表
      */
     List<TrackPoint> getCompressedPoints(Long trackId, double tolerance);
-}
\ No newline at end of file
+
+    /**
+     * 按点数预算简化轨迹（Visvalingam-Whyatt）
+     * 不同预算的结果互相嵌套：先取 maxPoints=N1，再取 maxPoints=N2&after=N1 即只返回新增的点，
+     * 与已有的点按时间合并即得到 N2 点的结果
+     *
+     * @param trackId 轨迹ID
+     * @param maxPoints 点数预算
+     * @param after 客户端已有的点数预算，0 表示返回完整的简化结果
+     * @return 重要性排名在 [after, maxPoints) 之间的轨迹点（按时间升序）
+     */
+    List<TrackPoint> getBudgetPoints(Long trackId, int maxPoints, int after);
+
+    /**
+     * 压缩已读取的原始轨迹点（调用方已持有全部轨迹点时使用，避免重复读取）
+     *
+     * @param trackId 轨迹ID
+     * @param rawPoints 原始轨迹点（按时间升序）
+     * @param tolerance 压缩容差（米）
+     * @return 压缩后的轨迹点列表
+     */
+    List<TrackPoint> compressPoints(Long trackId, List<TrackPoint> rawPoints, double tolerance);
+
+    /**
+     * 按点数预算简化已读取的原始轨迹点，语义同 {@link #getBudgetPoints(Long, int, int)}
+     *
+     * @param trackId 轨迹ID
+     * @param rawPoints 原始轨迹点（按时间升序）
+     * @param maxPoints 点数预算
+     * @param after 客户端已有的点数预算
+     * @return 重要性排名在 [after, maxPoints) 之间的轨迹点（按时间升序）
+     */
+    List<TrackPoint> simplifyPoints(Long trackId, List<TrackPoint> rawPoints, int maxPoints, int after);
+
+    /**
+     * 键集分页读取轨迹点（按 (create_time, id) 升序，从游标位置之后继续）
+     * 只返回已落库的点（逐行数据和轨迹段），写缓冲区中尚未落库的点在刷写后出现在后续页中
+     *
+     * @param trackId 轨迹ID
+     * @param cursor 上一页返回的 nextCursor，为空时从 since 或第一个点开始
+     * @param since 起始时间（不含），仅在 cursor 为空时使用
+     * @param limit 每页最多返回的点数
+     * @param withTotal 是否返回轨迹总点数
+     * @param projection 字段投影
+     * @return 键集分页响应
+     * @throws IllegalArgumentException 游标格式错误或 limit 超出范围
+     */
+    CursorPageResponse<TrackPoint> findPointsByCursor(Long trackId, String cursor, LocalDateTime since,
+                                                      int limit, boolean withTotal, PointProjection projection);
+
+    /**
+     * 增量读取轨迹点（按写入顺序，ID 大于 afterId 的点）
+     * 实时地图轮询使用：同一轨迹的写入事务串行提交，ID 按提交顺序递增，
+     * 即使补传的点时间早于已有的点也不会漏掉；nextCursor 为本次最后一个点的ID，
+     * 没有新点时原样返回 afterId。轨迹段中的点没有ID，已完成并压缩的轨迹不适用。
+     *
+     * @param trackId 轨迹ID
+     * @param afterId 客户端已有的最大轨迹点ID，从头开始传 0
+     * @param limit 每次最多返回的点数
+     * @param projection 字段投影
+     * @return 键集分页响应
+     * @throws IllegalArgumentException limit 超出范围
+     */
+    CursorPageResponse<TrackPoint> findPointsAfterId(Long trackId, long afterId, int limit, PointProjection projection);
+}
@@ -0,0 +1,182 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.track.common.ResultCode;
+import com.track.dto.TrackDetail;
+import com.track.entity.Track;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackPointMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 轨迹点流式输出（大轨迹的完整点列表）
+ * 通过 MyBatis 游标逐行读取 track_points，与逐段解码的轨迹段按时间归并后直接写入 JsonGenerator，
+ * 内存占用与轨迹长度无关（轨迹段只保留压缩字节，同一时刻只解码一个段）。
+ * 输出格式与 Result 包装一致；轨迹详情的统计信息在轨迹点之后输出。
+ * 写缓冲区和流水线会话中尚未落库的点在最后输出（按时间排序，跳过输出期间已落库的点）。
+ */
+@Component
+public class TrackPointStreamExporter {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointStreamExporter.class);
+
+    private static final Comparator<LocalDateTime> TIME_ORDER = Comparator.nullsFirst(Comparator.naturalOrder());
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TrackPointMapper trackPointMapper;
+
+    @Autowired
+    private TrackSegmentService trackSegmentService;
+
+    @Autowired
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Autowired
+    private TrackPipelineSessionManager trackPipelineSessionManager;
+
+    @Autowired
+    private TrackPointPartitionManager trackPointPartitionManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 流式输出轨迹点列表：{"code":200,...,"data":[...]}
+     */
+    public StreamingResponseBody streamPoints(Long trackId) {
+        return out -> write(out, generator -> {
+            generator.writeFieldName("data");
+            writePoints(generator, trackId);
+        });
+    }
+
+    /**
+     * 流式输出轨迹详情：{"code":200,...,"data":{"track":{...},"trackPoints":[...],"stats":{...}}}
+     *
+     * @param track 轨迹信息
+     * @param stats 统计信息（轨迹点输出完成后在同一事务快照中获取）
+     */
+    public StreamingResponseBody streamDetail(Track track, Supplier<TrackDetail.TrackStats> stats) {
+        return out -> write(out, generator -> {
+            generator.writeFieldName("data");
+            generator.writeStartObject();
+            generator.writeObjectField("track", track);
+            generator.writeFieldName("trackPoints");
+            writePoints(generator, track.getId());
+            generator.writeObjectField("stats", stats.get());
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * 在只读的可重复读事务中输出（游标需要打开的连接，统计与轨迹点读取同一快照）
+     */
+    private void write(OutputStream out, DataWriter dataWriter) throws IOException {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setReadOnly(true);
+        transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeNumberField("code", ResultCode.SUCCESS.getCode());
+            generator.writeStringField("message", ResultCode.SUCCESS.getMessage());
+            generator.writeBooleanField("success", true);
+            generator.writeNumberField("timestamp", System.currentTimeMillis());
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    dataWriter.write(generator);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeEndObject();
+        } catch (UncheckedIOException e) {
+            // 响应头已发出，无法再返回错误响应，只能中断输出
+            log.warn("轨迹点流式输出中断: {}", e.getCause().getMessage());
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 输出轨迹点数组：轨迹段与逐行数据按时间归并，最后输出尚未落库的点
+     */
+    private void writePoints(JsonGenerator generator, Long trackId) throws IOException {
+        // 先取缓冲区快照再查库：刷写中的点可能已提交，输出时按ID跳过
+        List<TrackPoint> pending = new ArrayList<>(trackPointWriteBuffer.pending(trackId));
+        pending.addAll(trackPipelineSessionManager.pending(trackId));
+        Map<Long, TrackPoint> pendingById = new HashMap<>();
+        for (TrackPoint point : pending) {
+            if (point.getId() != null) {
+                pendingById.put(point.getId(), point);
+            }
+        }
+
+        QueryWrapper<TrackPoint> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        trackPointPartitionManager.applyTimeRange(queryWrapper, trackId);
+        queryWrapper.orderByAsc("create_time");
+
+        int count = 0;
+        generator.writeStartArray();
+        try (Cursor<TrackPoint> cursor = trackPointMapper.selectCursor(queryWrapper)) {
+            Iterator<TrackPoint> rows = cursor.iterator();
+            Iterator<TrackPoint> segments = trackSegmentService.iteratePoints(trackId);
+            TrackPoint row = rows.hasNext() ? rows.next() : null;
+            TrackPoint segmentPoint = segments.hasNext() ? segments.next() : null;
+            while (row != null || segmentPoint != null) {
+                TrackPoint point;
+                if (row == null || (segmentPoint != null
+                        && TIME_ORDER.compare(segmentPoint.getCreateTime(), row.getCreateTime()) <= 0)) {
+                    point = segmentPoint;
+                    segmentPoint = segments.hasNext() ? segments.next() : null;
+                } else {
+                    point = row;
+                    pendingById.remove(row.getId());
+                    row = rows.hasNext() ? rows.next() : null;
+                }
+                generator.writeObject(point);
+                count++;
+            }
+        }
+
+        pending.removeIf(point -> point.getId() != null && !pendingById.containsKey(point.getId()));
+        pending.sort(Comparator.comparing(TrackPoint::getCreateTime, TIME_ORDER));
+        for (TrackPoint point : pending) {
+            generator.writeObject(point);
+            count++;
+        }
+        generator.writeEndArray();
+        log.debug("轨迹 {} 流式输出 {} 个轨迹点", trackId, count);
+    }
+
+    @FunctionalInterface
+    private interface DataWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+}
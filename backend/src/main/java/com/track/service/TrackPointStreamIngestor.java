@@ -0,0 +1,106 @@
+package com.track.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.track.dto.BatchSaveResult;
+import com.track.dto.StreamSaveResult;
+import com.track.entity.TrackPoint;
+import com.track.util.GeoUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 轨迹点流式导入器
+ * 使用 Jackson 流式解析逐个读取 NDJSON（每行一个 JSON 对象，也兼容单个 JSON 数组）中的轨迹点，
+ * 按固定窗口大小送入轨迹处理流水线（去噪、压缩）并逐窗口提交，内存占用与上传总量无关。
+ * 每个窗口是独立事务：中途断开时已提交的窗口保留，客户端可借助序号从断点续传。
+ */
+@Component
+public class TrackPointStreamIngestor {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointStreamIngestor.class);
+
+    /**
+     * NDJSON 的 Content-Type
+     */
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    @Value("${track.ingest.stream.window-size:500}")
+    private int windowSize;
+
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    /**
+     * 从输入流逐窗口导入轨迹点
+     *
+     * @param in 请求体输入流
+     * @param trackId 轨迹ID
+     * @param seqStart 第一个点的客户端序号，为空时不做幂等裁剪
+     * @return 导入结果
+     * @throws IOException 读取请求体失败
+     * @throws IllegalArgumentException JSON 格式错误或坐标缺失（此前的窗口已提交）
+     */
+    public StreamSaveResult ingest(InputStream in, Long trackId, Long seqStart) throws IOException {
+        StreamSaveResult result = new StreamSaveResult();
+        ObjectReader reader = objectMapper.readerFor(TrackPoint.class);
+
+        try (MappingIterator<TrackPoint> iterator = reader.readValues(in)) {
+            List<TrackPoint> window = new ArrayList<>(windowSize);
+            while (iterator.hasNextValue()) {
+                TrackPoint trackPoint = iterator.nextValue();
+                try {
+                    GeoUtils.validateCoordinates(trackPoint, result.getReceivedCount() + window.size() + 1);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(e.getMessage() + "，此前的 " + result.getReceivedCount() + " 个点已提交");
+                }
+                window.add(trackPoint);
+                if (window.size() >= windowSize) {
+                    commitWindow(window, trackId, seqStart, result);
+                    window = new ArrayList<>(windowSize);
+                }
+            }
+            if (!window.isEmpty()) {
+                commitWindow(window, trackId, seqStart, result);
+            }
+        } catch (JsonProcessingException e) {
+            log.warn("轨迹 {} 流式上传解析失败，已提交 {} 个轨迹点: {}", trackId, result.getReceivedCount(), e.getOriginalMessage());
+            throw new IllegalArgumentException("轨迹点数据格式错误（第 " + (result.getReceivedCount() + 1)
+                    + " 个点附近），此前的 " + result.getReceivedCount() + " 个点已提交");
+        }
+
+        log.info("轨迹 {} 流式上传完成，接收 {} 个点，保存 {} 个点，共 {} 个窗口",
+                trackId, result.getReceivedCount(), result.getSavedCount(), result.getWindowCount());
+        return result;
+    }
+
+    /**
+     * 提交一个窗口（经由服务代理调用，每个窗口一个事务）
+     */
+    private void commitWindow(List<TrackPoint> window, Long trackId, Long seqStart, StreamSaveResult result) {
+        if (seqStart != null) {
+            BatchSaveResult batchResult = trackPointService.saveSequencedBatch(window, trackId,
+                    seqStart + result.getReceivedCount());
+            result.setSavedCount(result.getSavedCount() + batchResult.getPoints().size());
+            result.setSkippedCount(result.getSkippedCount() + batchResult.getSkippedCount());
+            result.setCommittedSeq(batchResult.getCommittedSeq());
+        } else {
+            result.setSavedCount(result.getSavedCount() + trackPointService.saveBatchWithProcessing(window, trackId).size());
+        }
+        result.setReceivedCount(result.getReceivedCount() + window.size());
+        result.setWindowCount(result.getWindowCount() + 1);
+    }
+}
@@ -0,0 +1,342 @@
+package com.track.service;
+
+import com.track.entity.TrackPoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 轨迹点写缓冲区（write-behind）
+ * 单点上报先进入按轨迹分区的内存缓冲区并立即返回，由后台按数量或时间阈值合并成批量写入数据库，
+ * 避免每个GPS点都产生一次插入和一次COUNT更新。
+ * 缓冲区总容量有上限，超过上限时由调用线程同步刷写所在分区，形成背压。
+ * 每次刷写在独立事务中提交，不受调用方事务回滚的影响；刷写失败的批次留在缓冲区中重试，
+ * 缓冲区已满且同步刷写后仍然已满时拒绝新的写入，而不是丢弃已确认的点。
+ * 非瞬时错误（如约束冲突）或连续失败达到上限的批次不再重试，写入死信日志后从缓冲区移除，
+ * 避免一个坏批次永久占用缓冲区容量。
+ */
+@Component
+public class TrackPointWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointWriteBuffer.class);
+
+    /**
+     * 死信日志：放弃重试的轨迹点逐条记录，便于人工核对和补录
+     */
+    private static final Logger deadLetterLog = LoggerFactory.getLogger("com.track.deadletter.TrackPoint");
+
+    @Value("${track.ingest.buffer.enabled:true}")
+    private boolean enabled;
+
+    @Value("${track.ingest.buffer.batch-size:200}")
+    private int batchSize;
+
+    @Value("${track.ingest.buffer.max-delay-ms:1000}")
+    private long maxDelayMs;
+
+    @Value("${track.ingest.buffer.capacity:50000}")
+    private int capacity;
+
+    @Value("${track.ingest.buffer.flush-threads:2}")
+    private int flushThreads;
+
+    @Value("${track.ingest.buffer.max-flush-attempts:5}")
+    private int maxFlushAttempts;
+
+    // 延迟注入，避免与 TrackPointServiceImpl 形成循环依赖
+    @Lazy
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TrackReadCoalescer trackReadCoalescer;
+
+    private TransactionTemplate flushTransaction;
+
+    private final Map<Long, Partition> partitions = new ConcurrentHashMap<>();
+
+    private final AtomicInteger bufferedCount = new AtomicInteger();
+
+    private ExecutorService flushExecutor;
+
+    @PostConstruct
+    public void init() {
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        flushExecutor = Executors.newFixedThreadPool(flushThreads, runnable -> {
+            Thread thread = new Thread(runnable, "track-point-flush-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 判断该轨迹是否已由指定用户写入过缓冲区（用于跳过重复的归属权查询）
+     */
+    public boolean isOwnedBy(Long trackId, Long userId) {
+        Partition partition = partitions.get(trackId);
+        return partition != null && userId.equals(partition.ownerId);
+    }
+
+    /**
+     * 写入一个轨迹点，调用方需保证已完成归属权校验
+     *
+     * @param userId 轨迹所属用户ID
+     * @param trackPoint 轨迹点（trackId 已设置）
+     * @throws RuntimeException 缓冲区已满且同步刷写失败，本次写入未被接收
+     * @throws IllegalStateException 同步刷写后缓冲区仍然已满（积压来自其他轨迹），本次写入未被接收
+     */
+    public void add(Long userId, TrackPoint trackPoint) {
+        Long trackId = trackPoint.getTrackId();
+
+        if (bufferedCount.get() >= capacity) {
+            // 缓冲区已满，由调用线程同步刷写，形成背压；刷写失败时拒绝本次写入
+            log.warn("轨迹点写缓冲区已满（{} / {}），同步刷写轨迹 {}", bufferedCount.get(), capacity, trackId);
+            flush(trackId);
+            if (bufferedCount.get() >= capacity) {
+                throw new IllegalStateException("轨迹点写缓冲区已满，请稍后重试");
+            }
+        }
+
+        // 接收时即确定采集时间，保证刷写前后的排序一致
+        if (trackPoint.getCreateTime() == null) {
+            trackPoint.setCreateTime(LocalDateTime.now());
+        }
+
+        int partitionSize;
+        Partition partition;
+        while (true) {
+            partition = partitions.computeIfAbsent(trackId, Partition::new);
+            synchronized (partition) {
+                if (partition.closed) {
+                    // 分区刚被清理线程回收，重新获取
+                    continue;
+                }
+                if (partition.pending.isEmpty()) {
+                    partition.oldestEnqueueTime = System.currentTimeMillis();
+                }
+                partition.ownerId = userId;
+                partition.pending.add(trackPoint);
+                partitionSize = partition.pending.size();
+            }
+            break;
+        }
+
+        bufferedCount.incrementAndGet();
+        // 读取会合并缓冲区中的点，之后的读取不再加入写入前开始的执行
+        trackReadCoalescer.invalidate(trackId);
+        if (partitionSize >= batchSize) {
+            scheduleFlush(partition);
+        }
+    }
+
+    /**
+     * 获取尚未落库（含正在刷写中）的轨迹点快照，用于保证读己之写
+     */
+    public List<TrackPoint> pending(Long trackId) {
+        Partition partition = partitions.get(trackId);
+        if (partition == null) {
+            return Collections.emptyList();
+        }
+        synchronized (partition) {
+            if (partition.inFlight.isEmpty() && partition.pending.isEmpty()) {
+                return Collections.emptyList();
+            }
+            List<TrackPoint> snapshot = new ArrayList<>(partition.inFlight.size() + partition.pending.size());
+            snapshot.addAll(partition.inFlight);
+            snapshot.addAll(partition.pending);
+            return snapshot;
+        }
+    }
+
+    /**
+     * 立即刷写指定轨迹的缓冲数据（同一轨迹的刷写串行执行，保证写入顺序）
+     * 在独立事务中提交；失败时数据放回缓冲区等待下次刷写，并把异常抛给调用方。
+     * 非瞬时错误或连续失败达到上限时批次写入死信日志后移除，不再抛出异常
+     */
+    public void flush(Long trackId) {
+        Partition partition = partitions.get(trackId);
+        if (partition == null) {
+            return;
+        }
+
+        synchronized (partition.flushLock) {
+            partition.flushScheduled.set(false);
+
+            List<TrackPoint> batch;
+            synchronized (partition) {
+                if (partition.pending.isEmpty()) {
+                    return;
+                }
+                batch = partition.pending;
+                partition.pending = new ArrayList<>();
+                partition.inFlight = batch;
+            }
+
+            try {
+                flushTransaction.executeWithoutResult(status -> trackPointService.savePoints(trackId, batch));
+                partition.failedAttempts = 0;
+                bufferedCount.addAndGet(-batch.size());
+                log.debug("轨迹 {} 缓冲刷写完成，点数: {}", trackId, batch.size());
+            } catch (RuntimeException e) {
+                partition.failedAttempts++;
+                if (e instanceof NonTransientDataAccessException || partition.failedAttempts >= maxFlushAttempts) {
+                    deadLetter(partition, batch, e);
+                    return;
+                }
+                log.error("轨迹 {} 缓冲刷写失败（连续 {} 次），{} 个轨迹点保留在缓冲区中等待重试",
+                        trackId, partition.failedAttempts, batch.size(), e);
+                synchronized (partition) {
+                    partition.pending.addAll(0, batch);
+                }
+                throw e;
+            } finally {
+                synchronized (partition) {
+                    partition.inFlight = Collections.emptyList();
+                }
+            }
+        }
+    }
+
+    /**
+     * 放弃重试：批次写入死信日志并移出缓冲区，分区中没有新的点时一并回收
+     * 调用方持有分区的刷写锁
+     */
+    private void deadLetter(Partition partition, List<TrackPoint> batch, RuntimeException e) {
+        log.error("轨迹 {} 缓冲刷写失败（连续 {} 次），放弃重试，{} 个轨迹点写入死信日志",
+                partition.trackId, partition.failedAttempts, batch.size(), e);
+        for (TrackPoint point : batch) {
+            deadLetterLog.error("trackId={}, createTime={}, longitude={}, latitude={}, altitude={}, speed={}, "
+                            + "accuracy={}, satelliteCount={}, address={}",
+                    partition.trackId, point.getCreateTime(), point.getLongitude(), point.getLatitude(),
+                    point.getAltitude(), point.getSpeed(), point.getAccuracy(), point.getSatelliteCount(),
+                    point.getAddress());
+        }
+        partition.failedAttempts = 0;
+        bufferedCount.addAndGet(-batch.size());
+        synchronized (partition) {
+            if (partition.pending.isEmpty()) {
+                partition.closed = true;
+                partitions.remove(partition.trackId, partition);
+            }
+        }
+    }
+
+    /**
+     * 丢弃指定轨迹的缓冲数据（轨迹被删除时调用）
+     */
+    public void discard(Long trackId) {
+        Partition partition = partitions.remove(trackId);
+        if (partition == null) {
+            return;
+        }
+        synchronized (partition.flushLock) {
+            synchronized (partition) {
+                partition.closed = true;
+                bufferedCount.addAndGet(-partition.pending.size());
+                partition.pending.clear();
+            }
+        }
+    }
+
+    /**
+     * 定时检查：刷写超过最大延迟的分区，并回收空闲分区
+     */
+    @Scheduled(fixedDelayString = "${track.ingest.buffer.max-delay-ms:1000}")
+    public void flushExpired() {
+        long now = System.currentTimeMillis();
+        for (Partition partition : partitions.values()) {
+            boolean expired;
+            synchronized (partition) {
+                if (partition.pending.isEmpty() && partition.inFlight.isEmpty()) {
+                    // 长时间（60个检查周期）无写入的空分区直接回收
+                    if (now - partition.oldestEnqueueTime > maxDelayMs * 60) {
+                        partition.closed = true;
+                        partitions.remove(partition.trackId, partition);
+                    }
+                    continue;
+                }
+                expired = !partition.pending.isEmpty() && now - partition.oldestEnqueueTime >= maxDelayMs;
+            }
+            if (expired) {
+                scheduleFlush(partition);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("应用关闭，刷写写缓冲区中剩余的 {} 个轨迹点", bufferedCount.get());
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(10, TimeUnit.SECONDS);
+        for (Long trackId : new ArrayList<>(partitions.keySet())) {
+            try {
+                flush(trackId);
+            } catch (RuntimeException e) {
+                log.error("应用关闭时轨迹 {} 的缓冲数据刷写失败", trackId);
+            }
+        }
+    }
+
+    private void scheduleFlush(Partition partition) {
+        if (partition.flushScheduled.compareAndSet(false, true)) {
+            flushExecutor.execute(() -> {
+                try {
+                    flush(partition.trackId);
+                } catch (RuntimeException e) {
+                    // 数据已放回缓冲区，由定时检查再次调度
+                }
+            });
+        }
+    }
+
+    /**
+     * 单条轨迹的缓冲分区
+     */
+    private static class Partition {
+        private final Long trackId;
+        private final Object flushLock = new Object();
+        private final AtomicBoolean flushScheduled = new AtomicBoolean();
+        private List<TrackPoint> pending = new ArrayList<>();
+        private List<TrackPoint> inFlight = Collections.emptyList();
+        private long oldestEnqueueTime = System.currentTimeMillis();
+        private volatile Long ownerId;
+        private int failedAttempts;
+        private boolean closed;
+
+        Partition(Long trackId) {
+            this.trackId = trackId;
+        }
+    }
+}
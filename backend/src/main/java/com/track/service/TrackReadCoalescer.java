@@ -0,0 +1,130 @@
+package com.track.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * 轨迹读取请求合并（single-flight）
+ * 同一时刻到达的相同读取请求（轨迹ID + 接口 + 参数相同）只执行一次，其余请求等待并共享同一个结果。
+ * 只合并正在执行中的请求，结果不做保留（缓存见 {@link TrackCacheService}）。
+ * 轨迹每次写入（轨迹点落库、进入写缓冲区、轨迹更新或删除）都调用 {@link #invalidate(Long)} 推进该轨迹的写入代数，
+ * 写入之后到达的请求不再加入写入之前开始的执行，保证读己之写（进行中的轨迹同样可以合并）。
+ * 指标：
+ * <ul>
+ *     <li>track.read.coalesce.calls{result=leader|joined}：实际执行 / 合并等待的请求数</li>
+ *     <li>track.read.coalesce.wait：合并请求的等待时间</li>
+ *     <li>track.read.coalesce.inflight：正在执行的读取数</li>
+ * </ul>
+ * 共享的结果对象只用于只读返回，调用方不应修改。
+ */
+@Component
+public class TrackReadCoalescer {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    @Value("${track.read.coalesce.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 按轨迹分段的写入代数（分段冲突只会少合并一次）
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final Map<String, CompletableFuture<Object>> inflight = new ConcurrentHashMap<>();
+
+    private final Counter leaderCounter;
+    private final Counter joinedCounter;
+    private final Timer waitTimer;
+
+    public TrackReadCoalescer(MeterRegistry meterRegistry) {
+        this.leaderCounter = Counter.builder("track.read.coalesce.calls")
+                .description("轨迹读取请求数（leader 为实际执行，joined 为合并等待）")
+                .tag("result", "leader")
+                .register(meterRegistry);
+        this.joinedCounter = Counter.builder("track.read.coalesce.calls")
+                .description("轨迹读取请求数（leader 为实际执行，joined 为合并等待）")
+                .tag("result", "joined")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("track.read.coalesce.wait")
+                .description("合并请求等待执行结果的时间")
+                .register(meterRegistry);
+        meterRegistry.gauge("track.read.coalesce.inflight", inflight, Map::size);
+    }
+
+    /**
+     * 执行读取，相同键且期间没有写入的并发请求只执行一次
+     *
+     * @param trackId 轨迹ID
+     * @param key 请求键（轨迹ID + 接口 + 参数）
+     * @param loader 读取函数
+     * @return 读取结果（并发请求共享同一个对象）
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Long trackId, String key, Supplier<T> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        key = key + "@" + generations.get(stripe(trackId));
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inflight.putIfAbsent(key, future);
+        if (existing != null) {
+            joinedCounter.increment();
+            long start = System.nanoTime();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                throw unwrap(e);
+            } finally {
+                waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        leaderCounter.increment();
+        try {
+            T result = loader.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inflight.remove(key, future);
+        }
+    }
+
+    /**
+     * 轨迹发生写入：之后到达的读取开始新的执行
+     */
+    public void invalidate(Long trackId) {
+        if (trackId != null) {
+            generations.incrementAndGet(stripe(trackId));
+        }
+    }
+
+    private static int stripe(Long trackId) {
+        return Math.floorMod(trackId.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static RuntimeException unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+            return (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+        return e;
+    }
+}
@@ -0,0 +1,56 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.entity.TrackPoint;
+import com.track.entity.TrackSegment;
+import com.track.util.KeysetCursor;
+
+import java.util.Iterator;
+import java.util.List;
+
+public interface TrackSegmentService extends IService<TrackSegment> {
+
+    /**
+     * 将轨迹在 track_points 中的逐行数据压缩为轨迹段并删除原行
+     * 轨迹完成后调用；完成后又补传的点会在下次压缩时追加为新的段
+     *
+     * @param trackId 轨迹ID
+     * @return 本次压缩的轨迹点数量
+     */
+    int compact(Long trackId);
+
+    /**
+     * 读取并解码轨迹的全部轨迹段
+     *
+     * @param trackId 轨迹ID
+     * @return 轨迹点列表（按时间升序），没有轨迹段时为空列表
+     */
+    List<TrackPoint> loadPoints(Long trackId);
+
+    /**
+     * 逐段解码轨迹段（流式输出时使用，同一时刻只持有一个段的解码结果）
+     *
+     * @param trackId 轨迹ID
+     * @return 轨迹点迭代器（按时间升序）
+     */
+    Iterator<TrackPoint> iteratePoints(Long trackId);
+
+    /**
+     * 读取键集位置之后的最早若干个点（键集分页使用）
+     * 按段的时间范围跳过不相关的段，已凑够点数后不再解码起始时间更晚的段。
+     * 返回的点的 id 为排序键 {@link KeysetCursor#segmentKey(int, int)}，调用方输出前需清空
+     *
+     * @param trackId 轨迹ID
+     * @param after 上一页最后一个点的 (时间, 排序键)，为 null 时从第一个点开始
+     * @param limit 最多返回的点数
+     * @return 轨迹点列表（按时间、排序键升序）
+     */
+    List<TrackPoint> loadPointsAfter(Long trackId, KeysetCursor after, int limit);
+
+    /**
+     * 删除轨迹的全部轨迹段
+     *
+     * @param trackId 轨迹ID
+     */
+    void removeByTrackId(Long trackId);
+}
@@ -1,10 +1,12 @@
 package com.track.service;
 
 import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.dto.CursorPageResponse;
 import com.track.dto.PageResponse;
 import com.track.dto.TrackDetail;
 import com.track.dto.TrackSimpleDetail;
 import com.track.entity.Track;
+import com.track.util.PointProjection;
 
 import java.time.LocalDate;
 import java.util.List;
@@ -18,16 +20,15 @@ public interface TrackService extends IService<Track> {
      * @param userId 用户ID
      * @param page 页码
      * @param pageSize 每页大小
+     * @param withTotal 是否统计总数（false 时跳过 COUNT 查询）
      * @return 分页响应对象
      */
-    PageResponse<Track> findByUserIdWithPagination(Long userId, int page, int pageSize);
+    PageResponse<Track> findByUserIdWithPagination(Long userId, int page, int pageSize, boolean withTotal);
 
     Track findByIdAndUserId(Long id, Long userId);
 
     boolean existsByIdAndUserId(Long id, Long userId);
 
-    void updateTotalPoints(Long trackId);
-
     /**
      * 检查用户是否有进行中的轨迹
      * @param userId 用户ID
@@ -49,6 +50,15 @@ public interface TrackService extends IService<Track> {
      */
     TrackDetail getTrackDetail(Long trackId, Long userId);
 
+    /**
+     * 按字段投影获取轨迹详情（权限验证已通过AOP处理）
+     * 投影需包含统计补建所需的字段（坐标、时间、海拔、速度），如 {@link PointProjection#MEASURES}
+     * @param trackId 轨迹ID
+     * @param projection 轨迹点字段投影
+     * @return 轨迹详情对象
+     */
+    TrackDetail getTrackDetail(Long trackId, Long userId, PointProjection projection);
+
     /**
      * 获取轨迹简化详情，不包含轨迹点列表（权限验证已通过AOP处理）
      * @param trackId 轨迹ID
@@ -56,6 +66,13 @@ public interface TrackService extends IService<Track> {
      */
     TrackSimpleDetail getTrackSimpleDetail(Long trackId, Long userId);
 
+    /**
+     * 获取轨迹统计信息（读取增量维护的统计聚合）
+     * @param trackId 轨迹ID
+     * @return 统计信息
+     */
+    TrackDetail.TrackStats getTrackStats(Long trackId);
+
     /**
      * 获取压缩后的轨迹详情，包含压缩后的轨迹点列表
      * @param trackId 轨迹ID
@@ -64,6 +81,15 @@ public interface TrackService extends IService<Track> {
      */
     TrackDetail getCompressedTrackDetail(Long trackId, Long userId, double tolerance);
 
+    /**
+     * 获取按点数预算简化的轨迹详情
+     * @param trackId 轨迹ID
+     * @param maxPoints 点数预算
+     * @param after 客户端已有的点数预算（渐进加载），0 表示返回完整的简化结果
+     * @return 轨迹详情对象，轨迹点为重要性排名在 [after, maxPoints) 之间的点
+     */
+    TrackDetail getBudgetTrackDetail(Long trackId, Long userId, int maxPoints, int after);
+
     /**
      * 根据ID获取轨迹（无权限验证，用于注解方式）
      * @param id 轨迹ID
@@ -79,7 +105,32 @@ public interface TrackService extends IService<Track> {
      * @param endDate 结束日期（可选）
      * @param page 页码
      * @param pageSize 每页大小
+     * @param withTotal 是否统计总数（false 时跳过 COUNT 查询）
      * @return 分页响应对象
      */
-    PageResponse<Track> searchTracks(Long userId, String keyword, LocalDate startDate, LocalDate endDate, int page, int pageSize);
-}
\ No newline at end of file
+    PageResponse<Track> searchTracks(Long userId, String keyword, LocalDate startDate, LocalDate endDate,
+                                     int page, int pageSize, boolean withTotal);
+
+    /**
+     * 键集分页搜索轨迹（按创建时间倒序，从游标位置之后继续）
+     * 深分页时不随页码变慢；查询条件与 {@link #searchTracks} 相同，关键字和日期均可为空
+     * @param userId 用户ID
+     * @param keyword 搜索关键字（可选）
+     * @param startDate 开始日期（可选）
+     * @param endDate 结束日期（可选）
+     * @param cursor 上一页返回的 nextCursor，为空时从第一页开始
+     * @param pageSize 每页大小
+     * @param withTotal 是否统计总数
+     * @return 键集分页响应
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    CursorPageResponse<Track> searchTracksByCursor(Long userId, String keyword, LocalDate startDate, LocalDate endDate,
+                                                   String cursor, int pageSize, boolean withTotal);
+
+    /**
+     * 更新轨迹信息，轨迹状态变为非进行中时提交尚未落库的缓冲点和流水线会话
+     * @param track 轨迹对象（ID 已设置）
+     * @return 是否更新成功
+     */
+    boolean updateTrack(Track track);
+}
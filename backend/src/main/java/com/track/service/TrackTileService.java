@@ -0,0 +1,24 @@
+package com.track.service;
+
+public interface TrackTileService {
+
+    /**
+     * 获取用户轨迹的矢量瓦片（Mapbox Vector Tile，图层 tracks）
+     * 只包含非进行中的轨迹，几何按瓦片级别的像素分辨率压缩后裁剪到瓦片范围
+     *
+     * @param userId 用户ID
+     * @param zoom 瓦片缩放级别
+     * @param x 瓦片列号
+     * @param y 瓦片行号
+     * @return 瓦片内容，瓦片内没有轨迹时为空数组
+     * @throws IllegalArgumentException 瓦片坐标超出范围
+     */
+    byte[] getTile(Long userId, int zoom, int x, int y);
+
+    /**
+     * 轨迹变化（状态、名称、轨迹点重新处理、删除）后使所属用户的瓦片缓存失效
+     *
+     * @param trackId 轨迹ID
+     */
+    void evictTrack(Long trackId);
+}
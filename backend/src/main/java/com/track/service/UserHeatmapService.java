@@ -0,0 +1,45 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.track.dto.HeatmapGrid;
+import com.track.entity.UserHeatmapCell;
+
+public interface UserHeatmapService extends IService<UserHeatmapCell> {
+
+    /**
+     * 把轨迹计入所属用户的热力图（已计入时先扣除旧的贡献）
+     * 轨迹完成或重新处理后调用；轨迹不是已完成状态时只扣除旧的贡献
+     *
+     * @param trackId 轨迹ID
+     */
+    void updateTrack(Long trackId);
+
+    /**
+     * 从所属用户的热力图中扣除轨迹的贡献
+     * 删除轨迹时在删除轨迹记录之前调用
+     *
+     * @param trackId 轨迹ID
+     */
+    void removeTrack(Long trackId);
+
+    /**
+     * 重建用户热力图（按全部已完成轨迹重新计入）
+     *
+     * @param userId 用户ID
+     * @return 计入的轨迹数
+     */
+    int rebuild(Long userId);
+
+    /**
+     * 获取用户热力图的一个瓦片（Web 墨卡托瓦片坐标，只返回非空单元）
+     * 缩放级别不在预聚合级别中时，使用不超过它的最近级别；低于最低级别时由最低级别合并得到
+     *
+     * @param userId 用户ID
+     * @param zoom 瓦片缩放级别
+     * @param x 瓦片列号
+     * @param y 瓦片行号
+     * @return 瓦片内的热力图网格
+     * @throws IllegalArgumentException 瓦片坐标超出范围
+     */
+    HeatmapGrid getTile(Long userId, int zoom, int x, int y);
+}
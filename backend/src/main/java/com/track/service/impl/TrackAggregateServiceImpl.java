@@ -0,0 +1,200 @@
+package com.track.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.entity.Track;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackAggregateMapper;
+import com.track.mapper.TrackMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackCacheService;
+import com.track.service.TrackTileService;
+import com.track.util.TrackStatsAccumulator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+
+@Service
+public class TrackAggregateServiceImpl extends ServiceImpl<TrackAggregateMapper, TrackAggregate> implements TrackAggregateService {
+
+    @Autowired
+    private TrackMapper trackMapper;
+
+    @Autowired
+    private TrackCacheService trackCacheService;
+
+    @Autowired
+    private TrackTileService trackTileService;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public TrackAggregate accumulate(Long trackId, List<TrackPoint> trackPoints) {
+        return accumulate(lockAggregate(trackId), trackPoints);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public TrackAggregate accumulate(TrackAggregate lockedAggregate, List<TrackPoint> trackPoints) {
+        applyPoints(lockedAggregate, trackPoints);
+        saveAggregate(lockedAggregate);
+        // 所有写入路径都经过这里，统一使缓存的轨迹详情和所属用户的矢量瓦片失效
+        trackCacheService.evict(lockedAggregate.getTrackId());
+        trackTileService.evictTrack(lockedAggregate.getTrackId());
+        return lockedAggregate;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public TrackAggregate rebuild(Long trackId, List<TrackPoint> trackPoints) {
+        trackCacheService.evict(trackId);
+        trackTileService.evictTrack(trackId);
+        return rebuildAggregate(trackId, trackPoints);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+    public TrackAggregate backfill(Long trackId, List<TrackPoint> trackPoints) {
+        return rebuildAggregate(trackId, trackPoints);
+    }
+
+    @Override
+    public long lockCommittedSeq(Long trackId) {
+        TrackAggregate aggregate = lockAggregate(trackId);
+        return aggregate.getCommittedSeq() != null ? aggregate.getCommittedSeq() : -1L;
+    }
+
+    @Override
+    public TrackAggregate lock(Long trackId) {
+        return lockAggregate(trackId);
+    }
+
+    @Override
+    public boolean tryLock(Long trackId) {
+        return baseMapper.selectForUpdateSkipLocked(trackId) != null;
+    }
+
+    @Override
+    public void updateCommittedSeq(Long trackId, long committedSeq) {
+        baseMapper.updateCommittedSeq(trackId, committedSeq);
+    }
+
+    @Override
+    public void removeByTrackId(Long trackId) {
+        baseMapper.deleteById(trackId);
+        trackCacheService.evict(trackId);
+    }
+
+    private TrackAggregate rebuildAggregate(Long trackId, List<TrackPoint> trackPoints) {
+        TrackAggregate aggregate = lockAggregate(trackId);
+        resetAggregate(aggregate);
+        applyPoints(aggregate, trackPoints);
+        saveAggregate(aggregate);
+        return aggregate;
+    }
+
+    /**
+     * 获取并锁定统计行（不存在时先创建），保证并发写入同一轨迹时累加不丢失
+     */
+    private TrackAggregate lockAggregate(Long trackId) {
+        baseMapper.insertIfAbsent(trackId);
+        return baseMapper.selectForUpdate(trackId);
+    }
+
+    private void resetAggregate(TrackAggregate aggregate) {
+        aggregate.setPointCount(0);
+        aggregate.setTotalDistance(0.0);
+        aggregate.setSpeedSum(0.0);
+        aggregate.setMaxSpeed(null);
+        aggregate.setMinAltitude(null);
+        aggregate.setMaxAltitude(null);
+        aggregate.setElevationGain(0.0);
+        aggregate.setElevationLoss(0.0);
+        aggregate.setElevationReference(null);
+        aggregate.setMovingTime(0L);
+        aggregate.setFirstTime(null);
+        aggregate.setLastTime(null);
+        aggregate.setLastLatitude(null);
+        aggregate.setLastLongitude(null);
+        aggregate.setMinLatitude(null);
+        aggregate.setMaxLatitude(null);
+        aggregate.setMinLongitude(null);
+        aggregate.setMaxLongitude(null);
+    }
+
+    /**
+     * 从统计行恢复累加器，单次遍历累加新的轨迹点后写回
+     */
+    private void applyPoints(TrackAggregate aggregate, List<TrackPoint> trackPoints) {
+        if (trackPoints == null || trackPoints.isEmpty()) {
+            return;
+        }
+
+        TrackStatsAccumulator accumulator = new TrackStatsAccumulator().restore(
+                aggregate.getPointCount() != null ? aggregate.getPointCount() : 0,
+                orZero(aggregate.getTotalDistance()),
+                orZero(aggregate.getSpeedSum()),
+                orNaN(aggregate.getMaxSpeed()),
+                orNaN(aggregate.getMinAltitude()),
+                orNaN(aggregate.getMaxAltitude()),
+                orZero(aggregate.getElevationGain()),
+                orZero(aggregate.getElevationLoss()),
+                aggregate.getMovingTime() != null ? aggregate.getMovingTime() : 0L,
+                orNaN(aggregate.getElevationReference()),
+                aggregate.getFirstTime(),
+                aggregate.getLastTime(),
+                orNaN(aggregate.getLastLatitude()),
+                orNaN(aggregate.getLastLongitude()))
+                .restoreBounds(orNaN(aggregate.getMinLatitude()), orNaN(aggregate.getMaxLatitude()),
+                        orNaN(aggregate.getMinLongitude()), orNaN(aggregate.getMaxLongitude()));
+        accumulator.addAll(trackPoints);
+
+        aggregate.setPointCount(accumulator.getPointCount());
+        aggregate.setTotalDistance(accumulator.getTotalDistance());
+        aggregate.setSpeedSum(accumulator.getSpeedSum());
+        aggregate.setMaxSpeed(orNull(accumulator.getMaxSpeed()));
+        aggregate.setMinAltitude(orNull(accumulator.getMinAltitude()));
+        aggregate.setMaxAltitude(orNull(accumulator.getMaxAltitude()));
+        aggregate.setElevationGain(accumulator.getElevationGain());
+        aggregate.setElevationLoss(accumulator.getElevationLoss());
+        aggregate.setElevationReference(orNull(accumulator.getElevationReference()));
+        aggregate.setMovingTime(accumulator.getMovingTimeMs());
+        aggregate.setFirstTime(accumulator.getFirstTime());
+        aggregate.setLastTime(accumulator.getLastTime());
+        aggregate.setLastLatitude(orNull(accumulator.getLastLatitude()));
+        aggregate.setLastLongitude(orNull(accumulator.getLastLongitude()));
+        aggregate.setMinLatitude(orNull(accumulator.getMinLatitude()));
+        aggregate.setMaxLatitude(orNull(accumulator.getMaxLatitude()));
+        aggregate.setMinLongitude(orNull(accumulator.getMinLongitude()));
+        aggregate.setMaxLongitude(orNull(accumulator.getMaxLongitude()));
+    }
+
+    private static double orZero(Double value) {
+        return value != null ? value : 0.0;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    /**
+     * 保存统计行，并同步轨迹表上的总点数和总距离
+     */
+    private void saveAggregate(TrackAggregate aggregate) {
+        baseMapper.updateAggregate(aggregate);
+
+        Track track = new Track();
+        track.setId(aggregate.getTrackId());
+        track.setTotalPoints(aggregate.getPointCount());
+        track.setTotalDistance(BigDecimal.valueOf(aggregate.getTotalDistance()).setScale(2, RoundingMode.HALF_UP));
+        trackMapper.updateById(track);
+    }
+}
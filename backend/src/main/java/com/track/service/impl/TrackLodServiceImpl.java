@@ -0,0 +1,141 @@
+package com.track.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackLod;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackAggregateMapper;
+import com.track.mapper.TrackLodMapper;
+import com.track.service.TrackLodService;
+import com.track.service.TrackPointService;
+import com.track.starter.model.Point;
+import com.track.starter.service.CompressionService;
+import com.track.util.PointBlock;
+import com.track.util.PointProjection;
+import com.track.util.TrackSegmentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.Arrays;
+import java.util.List;
+
+@Service
+public class TrackLodServiceImpl extends ServiceImpl<TrackLodMapper, TrackLod> implements TrackLodService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackLodServiceImpl.class);
+
+    @Value("${track.storage.lod.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 层级容差（米）
+     */
+    @Value("${track.storage.lod.levels:1,5,20,100,500}")
+    private double[] levels;
+
+    @Autowired
+    private TrackAggregateMapper trackAggregateMapper;
+
+    // 延迟注入，避免与 TrackPointServiceImpl 形成循环依赖
+    @Lazy
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Autowired(required = false)
+    private CompressionService compressionService;
+
+    @PostConstruct
+    public void init() {
+        Arrays.sort(levels);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int build(Long trackId) {
+        if (!enabled || compressionService == null) {
+            return 0;
+        }
+
+        // 层级只用于展示，不保存地址和卫星数
+        List<TrackPoint> rawPoints = trackPointService.findByTrackId(trackId, PointProjection.MEASURES);
+        removeByTrackId(trackId);
+        if (rawPoints.isEmpty()) {
+            return 0;
+        }
+
+        PointBlock block = PointBlock.of(rawPoints);
+        List<Point> points = block.asPoints();
+        StringBuilder summary = new StringBuilder();
+        for (double tolerance : levels) {
+            List<Point> compressed = compressionService.compress(points, tolerance);
+
+            TrackLod lod = new TrackLod();
+            lod.setTrackId(trackId);
+            lod.setTolerance(tolerance);
+            lod.setSourcePoints(rawPoints.size());
+            lod.setPointCount(compressed.size());
+            lod.setData(TrackSegmentCodec.encode(block.pick(compressed, rawPoints)));
+            baseMapper.insert(lod);
+            summary.append(' ').append(tolerance).append("m=").append(compressed.size());
+        }
+
+        log.info("轨迹 {} 多分辨率层级构建完成，原始点数: {}，层级点数:{}", trackId, rawPoints.size(), summary);
+        return levels.length;
+    }
+
+    @Override
+    public List<TrackPoint> loadLevel(Long trackId, double tolerance) {
+        if (!enabled) {
+            return null;
+        }
+        double level = snap(tolerance);
+        if (Double.isNaN(level)) {
+            return null;
+        }
+
+        QueryWrapper<TrackLod> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("source_points", "data");
+        queryWrapper.eq("track_id", trackId);
+        queryWrapper.eq("tolerance", level);
+        TrackLod lod = baseMapper.selectOne(queryWrapper);
+        if (lod == null) {
+            return null;
+        }
+
+        // 轨迹在构建层级之后被修改过（补传、重新处理），层级不再可用
+        TrackAggregate aggregate = trackAggregateMapper.selectById(trackId);
+        if (aggregate == null || !lod.getSourcePoints().equals(aggregate.getPointCount())) {
+            log.info("轨迹 {} 的多分辨率层级已失效，按原始数据压缩", trackId);
+            return null;
+        }
+        return TrackSegmentCodec.decode(lod.getData(), trackId);
+    }
+
+    @Override
+    public void removeByTrackId(Long trackId) {
+        QueryWrapper<TrackLod> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        baseMapper.delete(queryWrapper);
+    }
+
+    /**
+     * 取不超过请求容差的最大层级，请求容差小于最小层级时返回 NaN
+     */
+    private double snap(double tolerance) {
+        double level = Double.NaN;
+        for (double candidate : levels) {
+            if (candidate > tolerance) {
+                break;
+            }
+            level = candidate;
+        }
+        return level;
+    }
+}
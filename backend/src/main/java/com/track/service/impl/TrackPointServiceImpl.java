@@ -2,31 +2,122 @@ package com.track.service.impl;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.dto.BatchSaveResult;
+import com.track.dto.CursorPageResponse;
+import com.track.dto.HeatmapGrid;
+import com.track.entity.Track;
+import com.track.entity.TrackAggregate;
 import com.track.entity.TrackPoint;
+import com.track.mapper.TrackMapper;
 import com.track.mapper.TrackPointMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackCacheService;
+import com.track.service.TrackLodService;
+import com.track.service.TrackPipelineSessionManager;
+import com.track.service.TrackPointBulkWriter;
+import com.track.service.TrackPointPartitionManager;
 import com.track.service.TrackPointService;
+import com.track.service.TrackPointWriteBuffer;
+import com.track.service.TrackReadCoalescer;
+import com.track.service.TrackSegmentService;
+import com.track.service.TrackTileService;
+import com.track.service.UserHeatmapService;
 import com.track.starter.model.Point;
 import com.track.starter.pipeline.TrajectoryPipeline;
 import com.track.starter.service.CompressionService;
 import com.track.starter.service.NoiseFilterService;
+import com.track.util.GeoUtils;
+import com.track.util.KeysetCursor;
+import com.track.util.MercatorGrid;
+import com.track.util.PointBlock;
+import com.track.util.PointBudgetSimplifier;
 import com.track.util.PointConverter;
+import com.track.util.PointProjection;
+import com.track.util.TrackPointCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPoint> implements TrackPointService {
 
     private static final Logger log = LoggerFactory.getLogger(TrackPointServiceImpl.class);
 
+    /**
+     * 分页读取时每页最多返回的点数
+     */
+    private static final int MAX_PAGE_POINTS = 10000;
+
+    /**
+     * 键集分页顺序：(create_time, id)，轨迹段中的点以 KeysetCursor.segmentKey 作为 id
+     */
+    private static final Comparator<TrackPoint> KEYSET_ORDER = Comparator
+            .comparing(TrackPoint::getCreateTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparingLong(point -> point.getId() != null ? point.getId() : 0L);
+
+    /**
+     * 热力图网格最多返回的单元数，超过时逐级降低缩放级别
+     */
+    @Value("${track.heatmap.max-cells:5000}")
+    private int maxHeatmapCells;
+
     @Autowired
     private TrackPointMapper trackPointMapper;
 
+    @Autowired
+    private TrackAggregateService trackAggregateService;
+
+    @Autowired
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Autowired
+    private TrackPointBulkWriter trackPointBulkWriter;
+
+    @Autowired
+    private TrackPipelineSessionManager trackPipelineSessionManager;
+
+    @Autowired
+    private TrackPointPartitionManager trackPointPartitionManager;
+
+    @Autowired
+    private TrackSegmentService trackSegmentService;
+
+    @Autowired
+    private TrackCacheService trackCacheService;
+
+    @Autowired
+    private TrackMapper trackMapper;
+
+    @Autowired
+    private TrackReadCoalescer trackReadCoalescer;
+
+    @Autowired
+    private TrackLodService trackLodService;
+
+    @Autowired
+    private UserHeatmapService userHeatmapService;
+
+    @Autowired
+    private TrackTileService trackTileService;
+
     @Autowired(required = false)
     private TrajectoryPipeline trajectoryPipeline;
 
@@ -37,11 +128,88 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
     private NoiseFilterService noiseFilterService;
 
     @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
     public List<TrackPoint> findByTrackId(Long trackId) {
+        return findByTrackId(trackId, PointProjection.FULL);
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public List<TrackPoint> findByTrackId(Long trackId, PointProjection projection) {
         QueryWrapper<TrackPoint> queryWrapper = new QueryWrapper<>();
+        projection.applyTo(queryWrapper);
         queryWrapper.eq("track_id", trackId);
+        // 分区表模式下限定轨迹起止时间，只扫描相关分区
+        trackPointPartitionManager.applyTimeRange(queryWrapper, trackId);
         queryWrapper.orderByAsc("create_time");
-        return trackPointMapper.selectList(queryWrapper);
+
+        // 先取缓冲区快照再查库：刷写中的点可能已提交，按ID去重即可，不会漏读
+        List<TrackPoint> bufferedPoints = new ArrayList<>(trackPointWriteBuffer.pending(trackId));
+        // 流水线会话开放窗口中的点尚未落库（没有ID），一并返回
+        bufferedPoints.addAll(trackPipelineSessionManager.pending(trackId));
+        List<TrackPoint> points = trackPointMapper.selectList(queryWrapper);
+
+        // 已完成轨迹的点压缩存储在轨迹段中（同一快照内读取，不会与压缩过程交错）
+        List<TrackPoint> segmentPoints = trackSegmentService.loadPoints(trackId);
+        if (!projection.isFull()) {
+            // 段内点是本次解码新建的，就地清除；缓冲区中的点与写入方共享，复制后再清除
+            segmentPoints.forEach(projection::retain);
+            bufferedPoints.replaceAll(projection::copy);
+        }
+        if (!segmentPoints.isEmpty()) {
+            segmentPoints.addAll(points);
+            if (!points.isEmpty()) {
+                segmentPoints.sort(Comparator.comparing(TrackPoint::getCreateTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+            }
+            points = segmentPoints;
+        }
+        return mergeBufferedPoints(points, bufferedPoints);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void savePoints(Long trackId, List<TrackPoint> trackPoints) {
+        if (trackPoints == null || trackPoints.isEmpty()) {
+            return;
+        }
+        // 插入前锁定统计行：同一轨迹的写入事务串行执行，轨迹点ID按提交顺序递增（增量轮询依赖这一点）
+        TrackAggregate aggregate = trackAggregateService.lock(trackId);
+        saveBatch(trackPoints);
+        // 增量更新已锁定的统计行（含总点数），避免每次写入后 COUNT(*) 全表扫描
+        trackAggregateService.accumulate(aggregate, trackPoints);
+    }
+
+    /**
+     * 批量持久化轨迹点
+     * PostgreSQL 下大批量数据走 COPY 二进制协议（不回填主键），其余情况使用 saveBatch
+     */
+    private void persistPoints(List<TrackPoint> trackPoints) {
+        if (trackPointBulkWriter.shouldUseCopy(trackPoints.size())) {
+            trackPointBulkWriter.copyIn(trackPoints);
+        } else {
+            saveBatch(trackPoints);
+        }
+    }
+
+    /**
+     * 合并数据库中的轨迹点与写缓冲区中尚未落库的轨迹点
+     */
+    private List<TrackPoint> mergeBufferedPoints(List<TrackPoint> points, List<TrackPoint> bufferedPoints) {
+        if (bufferedPoints.isEmpty()) {
+            return points;
+        }
+
+        Set<Long> persistedIds = new HashSet<>();
+        for (TrackPoint point : points) {
+            persistedIds.add(point.getId());
+        }
+        for (TrackPoint bufferedPoint : bufferedPoints) {
+            if (bufferedPoint.getId() == null || !persistedIds.contains(bufferedPoint.getId())) {
+                points.add(bufferedPoint);
+            }
+        }
+        points.sort(Comparator.comparing(TrackPoint::getCreateTime, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return points;
     }
 
     @Override
@@ -51,40 +219,268 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
             return Collections.emptyList();
         }
 
+        // 先锁定统计行再处理和插入（锁顺序与流水线会话一致：统计行 → 会话行）
+        return saveLockedBatch(trackAggregateService.lock(trackId), trackPoints, trackId);
+    }
+
+    /**
+     * 处理并保存一批轨迹点，调用方已锁定统计行
+     *
+     * @param aggregate 当前事务中锁定的统计行
+     * @param trackPoints 待保存的轨迹点
+     * @param trackId 轨迹ID
+     * @return 保存后的轨迹点列表
+     */
+    private List<TrackPoint> saveLockedBatch(TrackAggregate aggregate, List<TrackPoint> trackPoints, Long trackId) {
+        if (trackPoints.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        trackPoints.forEach(point -> point.setTrackId(trackId));
+
         // 如果轨迹处理流水线未启用，直接保存
         if (trajectoryPipeline == null) {
             log.info("轨迹处理未启用，直接保存 {} 个轨迹点", trackPoints.size());
-            saveBatch(trackPoints);
+            persistPoints(trackPoints);
+            trackAggregateService.accumulate(aggregate, trackPoints);
             return trackPoints;
         }
 
-        try {
-            log.info("开始处理轨迹点，原始数量: {}", trackPoints.size());
+        // 转换为Point列表后进行处理
+        List<Point> points = PointConverter.toPoints(trackPoints);
+        return processAndPersist(aggregate, points, trackPoints, trackId, trackPoints);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchSaveResult saveSequencedBatch(List<TrackPoint> trackPoints, Long trackId, long seqStart) {
+        List<TrackPoint> batch = trackPoints != null ? trackPoints : Collections.emptyList();
+
+        // 锁定统计行读取高水位，同一轨迹的并发重传在此串行化
+        TrackAggregate aggregate = trackAggregateService.lock(trackId);
+        long committedSeq = committedSeqOf(aggregate);
+        int skippedCount = committedPrefix(batch.size(), seqStart, committedSeq);
+        if (skippedCount > 0) {
+            log.info("轨迹 {} 批次 [{}, {}] 中前 {} 个点已提交，跳过", trackId, seqStart, seqStart + batch.size() - 1, skippedCount);
+        }
+
+        List<TrackPoint> remaining = batch.subList(skippedCount, batch.size());
+        List<TrackPoint> savedPoints = saveLockedBatch(aggregate, remaining, trackId);
+
+        return buildSequencedResult(trackId, savedPoints, skippedCount, seqStart, batch.size(), committedSeq);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public BatchSaveResult saveEncodedBatch(InputStream in, long length, Long trackId, Long seqStart)
+            throws IOException {
+        // 解码结果直接构建为轨迹处理模型Point，不经过TrackPoint
+        ArrayList<Point> points = new ArrayList<>();
+        // Point 没有卫星数和地址，按解码顺序单独保存（与 points 一一对应，没有时为 null），处理后回填到保存的轨迹点
+        ArrayList<TrackPoint> extras = new ArrayList<>();
+        TrackPointCodec.decode(in, length, new TrackPointCodec.PointSink() {
+            @Override
+            public void begin(int count) {
+                // 点数来自客户端，预分配时设置上限
+                points.ensureCapacity(Math.min(count, 10000));
+                extras.ensureCapacity(Math.min(count, 10000));
+            }
+
+            @Override
+            public void accept(double longitude, double latitude, long timestamp,
+                               double altitude, double speed, double accuracy,
+                               int satelliteCount, String address) {
+                GeoUtils.validateCoordinates(latitude, longitude, points.size() + 1L);
+                points.add(PointConverter.toPoint(longitude, latitude, timestamp, altitude, speed, accuracy));
+                TrackPoint extra = null;
+                if (satelliteCount >= 0 || address != null) {
+                    extra = new TrackPoint();
+                    if (satelliteCount >= 0) {
+                        extra.setSatelliteCount(satelliteCount);
+                    }
+                    extra.setAddress(address);
+                }
+                extras.add(extra);
+            }
+        });
 
-            // 转换为Point列表
-            List<Point> points = PointConverter.toPoints(trackPoints);
+        TrackAggregate aggregate = trackAggregateService.lock(trackId);
+        if (seqStart == null) {
+            BatchSaveResult result = new BatchSaveResult();
+            result.setPoints(saveDecodedPoints(aggregate, points, trackId, extras));
+            return result;
+        }
+
+        long committedSeq = committedSeqOf(aggregate);
+        int skippedCount = committedPrefix(points.size(), seqStart, committedSeq);
+        List<TrackPoint> savedPoints = saveDecodedPoints(aggregate, points.subList(skippedCount, points.size()),
+                trackId, extras.subList(skippedCount, extras.size()));
+
+        return buildSequencedResult(trackId, savedPoints, skippedCount, seqStart, points.size(), committedSeq);
+    }
+
+    /**
+     * 保存解码得到的轨迹点（启用流水线时先处理）
+     */
+    private List<TrackPoint> saveDecodedPoints(TrackAggregate aggregate, List<Point> points, Long trackId,
+                                               List<TrackPoint> extras) {
+        if (points.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        // 如果轨迹处理流水线未启用，直接保存
+        if (trajectoryPipeline == null) {
+            log.info("轨迹处理未启用，直接保存 {} 个轨迹点", points.size());
+            List<TrackPoint> trackPoints = PointConverter.toTrackPoints(points, trackId);
+            applyExtras(trackPoints, extras);
+            persistPoints(trackPoints);
+            trackAggregateService.accumulate(aggregate, trackPoints);
+            return trackPoints;
+        }
 
-            // 使用轨迹处理流水线进行处理
-            List<Point> processedPoints = trajectoryPipeline.process(points);
+        return processAndPersist(aggregate, points, null, trackId, extras);
+    }
+
+    /**
+     * 把卫星数和地址按下标回填到由 Point 转换得到的轨迹点（两个列表一一对应）
+     */
+    private static void applyExtras(List<TrackPoint> trackPoints, List<TrackPoint> extras) {
+        for (int i = 0; i < trackPoints.size(); i++) {
+            copyExtra(extras.get(i), trackPoints.get(i));
+        }
+    }
+
+    /**
+     * 把卫星数和地址回填到流水线处理后的轨迹点
+     * 处理结果中的点按对象身份对应到输入下标；流水线新建的点（如平滑后的点）退回按时间戳对应到第一个同时间戳的输入点，
+     * 会话开放窗口中来自之前批次的点对应不到本批输入，不回填
+     *
+     * @param input 本批输入的点
+     * @param extras 与输入一一对应的卫星数和地址（没有时为 null）
+     * @param processed 处理后的点
+     * @param processedTrackPoints 由处理后的点转换得到的轨迹点（与 processed 一一对应）
+     */
+    private static void applyProcessedExtras(List<Point> input, List<TrackPoint> extras,
+                                             List<Point> processed, List<TrackPoint> processedTrackPoints) {
+        Map<Point, Integer> indexByPoint = new IdentityHashMap<>();
+        Map<Long, Integer> indexByTime = new HashMap<>();
+        for (int i = 0; i < input.size(); i++) {
+            if (extras.get(i) != null) {
+                indexByPoint.put(input.get(i), i);
+                indexByTime.putIfAbsent(input.get(i).getTimestamp(), i);
+            }
+        }
+        if (indexByPoint.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < processed.size(); i++) {
+            Integer index = indexByPoint.get(processed.get(i));
+            if (index == null) {
+                index = indexByTime.get(processed.get(i).getTimestamp());
+            }
+            if (index != null) {
+                copyExtra(extras.get(index), processedTrackPoints.get(i));
+            }
+        }
+    }
+
+    private static void copyExtra(TrackPoint extra, TrackPoint target) {
+        if (extra != null) {
+            target.setSatelliteCount(extra.getSatelliteCount());
+            target.setAddress(extra.getAddress());
+        }
+    }
+
+    private static long committedSeqOf(TrackAggregate aggregate) {
+        return aggregate.getCommittedSeq() != null ? aggregate.getCommittedSeq() : -1L;
+    }
+
+    /**
+     * 计算批次开头已提交、需要跳过的点数
+     *
+     * @param size 批次点数
+     * @param seqStart 批次第一个点的客户端序号
+     * @param committedSeq 服务端已提交的最大序号（-1 表示尚未提交）
+     * @return 需要跳过的点数
+     */
+    private static int committedPrefix(int size, long seqStart, long committedSeq) {
+        if (seqStart < 0) {
+            throw new IllegalArgumentException("批次序号不能为负数");
+        }
+        // 序号出现空洞时拒绝，避免后续补传的批次被误判为已提交
+        if (committedSeq >= 0 && seqStart > committedSeq + 1) {
+            throw new IllegalArgumentException("批次序号不连续，服务端已提交序号: " + committedSeq);
+        }
+        long skipped = committedSeq - seqStart + 1;
+        return (int) Math.min(Math.max(skipped, 0L), size);
+    }
+
+    /**
+     * 推进高水位并构建幂等上传结果
+     */
+    private BatchSaveResult buildSequencedResult(Long trackId, List<TrackPoint> savedPoints, int skippedCount,
+                                                 long seqStart, int batchSize, long committedSeq) {
+        long newCommittedSeq = Math.max(committedSeq, seqStart + batchSize - 1);
+        if (newCommittedSeq != committedSeq) {
+            trackAggregateService.updateCommittedSeq(trackId, newCommittedSeq);
+        }
+
+        BatchSaveResult result = new BatchSaveResult();
+        result.setPoints(savedPoints);
+        result.setSkippedCount(skippedCount);
+        result.setCommittedSeq(newCommittedSeq);
+        return result;
+    }
+
+    /**
+     * 使用轨迹处理流水线处理并保存轨迹点，处理失败时保存原始数据
+     *
+     * @param aggregate 当前事务中锁定的统计行
+     * @param points 待处理的轨迹点
+     * @param rawTrackPoints 原始轨迹点实体（为空时由 points 转换）
+     * @param trackId 轨迹ID
+     * @param extras 与 points 一一对应的卫星数和地址（没有时为 null）
+     * @return 保存后的轨迹点列表
+     */
+    private List<TrackPoint> processAndPersist(TrackAggregate aggregate, List<Point> points,
+                                               List<TrackPoint> rawTrackPoints, Long trackId,
+                                               List<TrackPoint> extras) {
+        List<TrackPoint> savedPoints;
+        try {
+            log.info("开始处理轨迹点，原始数量: {}", points.size());
+
+            // 使用轨迹处理流水线进行处理（启用会话时衔接上一批的去噪和压缩上下文）
+            List<Point> processedPoints = trackPipelineSessionManager.isEnabled()
+                    ? trackPipelineSessionManager.process(trackId, points)
+                    : trajectoryPipeline.process(points);
 
             double compressionRate = (1.0 - (double) processedPoints.size() / points.size()) * 100;
-            log.info("轨迹处理完成，原始数量: {}, 处理后数量: {}, 压缩率: {}%",
+            log.info("轨迹处理完成，原始数量: {}, 本批提交数量: {}, 压缩率: {}%",
                     points.size(), processedPoints.size(), String.format("%.2f", compressionRate));
 
             // 转换回TrackPoint
-            List<TrackPoint> processedTrackPoints = PointConverter.toTrackPoints(processedPoints, trackId);
-
-            // 保存处理后的轨迹点
-            saveBatch(processedTrackPoints);
-
-            return processedTrackPoints;
+            savedPoints = PointConverter.toTrackPoints(processedPoints, trackId);
+            applyProcessedExtras(points, extras, processedPoints, savedPoints);
 
         } catch (Exception e) {
             log.error("轨迹处理失败，将直接保存原始数据", e);
             // 如果处理失败，保存原始数据
-            saveBatch(trackPoints);
-            return trackPoints;
+            if (rawTrackPoints != null) {
+                savedPoints = rawTrackPoints;
+            } else {
+                savedPoints = PointConverter.toTrackPoints(points, trackId);
+                applyExtras(savedPoints, extras);
+            }
+        }
+
+        // 只有处理阶段的异常回退到原始数据，写库失败直接抛出由事务回滚
+        if (!savedPoints.isEmpty()) {
+            persistPoints(savedPoints);
         }
+
+        // 增量更新轨迹统计
+        trackAggregateService.accumulate(aggregate, savedPoints);
+        return savedPoints;
     }
 
     @Override
@@ -95,6 +491,10 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
             return 0;
         }
 
+        // 先把写缓冲区和流水线会话中的点落库，避免处理时遗漏
+        trackPointWriteBuffer.flush(trackId);
+        trackPipelineSessionManager.complete(trackId);
+
         try {
             // 获取原始轨迹点
             List<TrackPoint> originalPoints = findByTrackId(trackId);
@@ -105,24 +505,44 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
 
             log.info("开始处理轨迹 {} 的轨迹点，原始数量: {}", trackId, originalPoints.size());
 
-            // 转换为Point列表
-            List<Point> points = PointConverter.toPoints(originalPoints);
-
-            // 使用轨迹处理流水线进行处理
-            List<Point> processedPoints = trajectoryPipeline.process(points);
+            // 构建列式点块，流水线直接在数组视图上处理
+            PointBlock block = PointBlock.of(originalPoints);
+            List<Point> processedPoints = trajectoryPipeline.process(block.asPoints());
 
-            double compressionRate = (1.0 - (double) processedPoints.size() / points.size()) * 100;
+            double compressionRate = (1.0 - (double) processedPoints.size() / block.size()) * 100;
             log.info("轨迹 {} 处理完成，原始数量: {}, 处理后数量: {}, 压缩率: {}%",
-                    trackId, points.size(), processedPoints.size(), String.format("%.2f", compressionRate));
+                    trackId, block.size(), processedPoints.size(), String.format("%.2f", compressionRate));
 
             // 删除原始轨迹点
             QueryWrapper<TrackPoint> deleteWrapper = new QueryWrapper<>();
             deleteWrapper.eq("track_id", trackId);
+            trackPointPartitionManager.applyTimeRange(deleteWrapper, trackId);
             trackPointMapper.delete(deleteWrapper);
+            trackSegmentService.removeByTrackId(trackId);
+            trackLodService.removeByTrackId(trackId);
+
+            // 映射回原始轨迹点（未修改的点直接复用）并重新保存
+            List<TrackPoint> processedTrackPoints = block.pick(processedPoints, originalPoints);
+            processedTrackPoints.forEach(point -> {
+                point.setId(null);
+                point.setTrackId(trackId);
+            });
+            persistPoints(processedTrackPoints);
+
+            // 轨迹点已整体替换，重建轨迹统计
+            trackAggregateService.rebuild(trackId, processedTrackPoints);
+
+            // 已完成的轨迹：上面删除了轨迹段和多分辨率层级，按处理后的点重新压缩和构建
+            Track track = trackMapper.selectById(trackId);
+            if (track != null && Integer.valueOf(2).equals(track.getStatus())) {
+                // 与删除在同一事务中，失败时整体回滚，不会留下没有轨迹段或层级的已完成轨迹
+                trackSegmentService.compact(trackId);
+                trackLodService.build(trackId);
+            }
 
-            // 转换回TrackPoint并保存
-            List<TrackPoint> processedTrackPoints = PointConverter.toTrackPoints(processedPoints, trackId);
-            saveBatch(processedTrackPoints);
+            // 已完成轨迹重新计入用户热力图
+            userHeatmapService.updateTrack(trackId);
+            trackTileService.evictTrack(trackId);
 
             return processedTrackPoints.size();
 
@@ -134,16 +554,86 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
 
     @Override
     public List<TrackPoint> getRawPointsForHeatmap(Long trackId) {
-        // 获取原始轨迹点（只进行去噪，不压缩）
-        List<TrackPoint> rawPoints = findByTrackId(trackId);
+        return trackReadCoalescer.execute(trackId, "points:" + trackId + ":heatmap", () -> loadRawPointsForHeatmap(trackId));
+    }
+
+    @Override
+    public HeatmapGrid getHeatmapGrid(Long trackId, int zoom, int cellSize) {
+        MercatorGrid grid = new MercatorGrid(zoom, cellSize);
+        String name = "heatmap:" + zoom + ":" + cellSize;
+        return trackReadCoalescer.execute(trackId, "points:" + trackId + ":" + name, () -> {
+            if (trackCacheService.isCacheable(trackMapper.selectById(trackId))) {
+                return trackCacheService.get(trackId, name, HeatmapGrid.class,
+                        () -> aggregateHeatmapCapped(loadRawPointsForHeatmap(trackId), grid));
+            }
+            return aggregateHeatmapCapped(loadRawPointsForHeatmap(trackId), grid);
+        });
+    }
+
+    /**
+     * 按请求的缩放级别聚合，单元数超过上限时逐级降低缩放级别（每降一级单元边长对应的地面距离加倍）
+     */
+    private HeatmapGrid aggregateHeatmapCapped(List<TrackPoint> points, MercatorGrid grid) {
+        HeatmapGrid heatmapGrid = aggregateHeatmap(points, grid);
+        int zoom = grid.getZoom();
+        while (heatmapGrid.getCells().size() > maxHeatmapCells && zoom > 0) {
+            zoom--;
+            heatmapGrid = aggregateHeatmap(points, new MercatorGrid(zoom, grid.getCellSize()));
+        }
+        return heatmapGrid;
+    }
+
+    @Override
+    public HeatmapGrid buildHeatmapGrid(Long trackId, int zoom, int cellSize) {
+        return aggregateHeatmap(loadRawPointsForHeatmap(trackId), new MercatorGrid(zoom, cellSize));
+    }
+
+    /**
+     * 按网格单元统计点数：单元编号排序后按游程计数（基本类型数组，不装箱）
+     */
+    private static HeatmapGrid aggregateHeatmap(List<TrackPoint> points, MercatorGrid grid) {
+        int size = points.size();
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            TrackPoint point = points.get(i);
+            keys[i] = grid.cellOf(point.getLatitude(), point.getLongitude());
+        }
+        Arrays.sort(keys);
+
+        List<HeatmapGrid.Cell> cells = new ArrayList<>();
+        int maxCount = 0;
+        for (int i = 0; i < size; ) {
+            int j = i + 1;
+            while (j < size && keys[j] == keys[i]) {
+                j++;
+            }
+            int count = j - i;
+            cells.add(new HeatmapGrid.Cell(grid.centerLongitude(keys[i]), grid.centerLatitude(keys[i]), count));
+            maxCount = Math.max(maxCount, count);
+            i = j;
+        }
+
+        HeatmapGrid heatmapGrid = new HeatmapGrid();
+        heatmapGrid.setZoom(grid.getZoom());
+        heatmapGrid.setCellSize(grid.getCellSize());
+        heatmapGrid.setPointCount(size);
+        heatmapGrid.setMaxCount(maxCount);
+        heatmapGrid.setCells(cells);
+        return heatmapGrid;
+    }
+
+    private List<TrackPoint> loadRawPointsForHeatmap(Long trackId) {
+        // 获取原始轨迹点（只进行去噪，不压缩；去噪只需要坐标、时间和测量值）
+        List<TrackPoint> rawPoints = findByTrackId(trackId, PointProjection.MEASURES);
 
         if (rawPoints.isEmpty()) {
             return rawPoints;
         }
 
         try {
-            // 转换为Point列表
-            List<Point> points = PointConverter.toPoints(rawPoints);
+            // 构建列式点块，过滤服务直接在数组视图上处理
+            PointBlock block = PointBlock.of(rawPoints);
+            List<Point> points = block.asPoints();
 
             // 只进行去噪处理，不压缩
             List<Point> filteredPoints = points;
@@ -175,8 +665,8 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
                 log.info("轨迹处理未启用，返回原始热力图数据，点数: {}", points.size());
             }
 
-            // 转换回TrackPoint
-            return PointConverter.toTrackPoints(filteredPoints, trackId);
+            // 映射回原始轨迹点
+            return filteredPoints == points ? rawPoints : block.pick(filteredPoints, rawPoints);
 
         } catch (Exception e) {
             log.error("获取热力图数据失败，返回原始数据", e);
@@ -186,16 +676,42 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
 
     @Override
     public List<TrackPoint> getCompressedPoints(Long trackId, double tolerance) {
-        // 获取原始轨迹点
-        List<TrackPoint> rawPoints = findByTrackId(trackId);
+        return trackReadCoalescer.execute(trackId, "points:" + trackId + ":compressed:" + tolerance,
+                () -> loadCompressedPoints(trackId, tolerance));
+    }
+
+    private List<TrackPoint> loadCompressedPoints(Long trackId, double tolerance) {
+        // 已结束/已完成的轨迹按容差缓存压缩结果
+        if (trackCacheService.isCacheable(trackMapper.selectById(trackId))) {
+            @SuppressWarnings("unchecked")
+            List<TrackPoint> cached = trackCacheService.get(trackId, "compressed:" + tolerance, List.class,
+                    () -> compressPoints(trackId, tolerance));
+            return cached;
+        }
+        return compressPoints(trackId, tolerance);
+    }
+
+    private List<TrackPoint> compressPoints(Long trackId, double tolerance) {
+        // 已完成轨迹优先读取预计算的多分辨率层级，无需加载全部轨迹点和重新压缩
+        List<TrackPoint> levelPoints = trackLodService.loadLevel(trackId, tolerance);
+        if (levelPoints != null) {
+            return new ArrayList<>(levelPoints);
+        }
 
+        // 获取原始轨迹点（展示用，不读取地址和卫星数）
+        return compressPoints(trackId, findByTrackId(trackId, PointProjection.MEASURES), tolerance);
+    }
+
+    @Override
+    public List<TrackPoint> compressPoints(Long trackId, List<TrackPoint> rawPoints, double tolerance) {
         if (rawPoints.isEmpty() || compressionService == null) {
             return rawPoints;
         }
 
         try {
-            // 转换为Point列表
-            List<Point> points = PointConverter.toPoints(rawPoints);
+            // 构建列式点块，压缩服务直接在数组视图上处理
+            PointBlock block = PointBlock.of(rawPoints);
+            List<Point> points = block.asPoints();
 
             // 进行轨迹压缩
             List<Point> compressedPoints = compressionService.compress(points, tolerance);
@@ -204,12 +720,144 @@ public class TrackPointServiceImpl extends ServiceImpl<TrackPointMapper, TrackPo
             log.info("轨迹 {} 压缩完成，原始点数: {}, 压缩后点数: {}, 压缩率: {}%",
                     trackId, points.size(), compressedPoints.size(), String.format("%.2f", compressionRate));
 
-            // 转换回TrackPoint
-            return PointConverter.toTrackPoints(compressedPoints, trackId);
+            // 映射回原始轨迹点
+            return block.pick(compressedPoints, rawPoints);
 
         } catch (Exception e) {
             log.error("轨迹压缩失败，返回原始数据", e);
             return rawPoints;
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public List<TrackPoint> getBudgetPoints(Long trackId, int maxPoints, int after) {
+        checkBudget(maxPoints, after);
+        return trackReadCoalescer.execute(trackId, "points:" + trackId + ":budget:" + maxPoints + ":" + after, () -> {
+            if (trackCacheService.isCacheable(trackMapper.selectById(trackId))) {
+                @SuppressWarnings("unchecked")
+                List<TrackPoint> cached = trackCacheService.get(trackId, "budget:" + maxPoints + ":" + after, List.class,
+                        () -> simplifyPoints(trackId, findByTrackId(trackId, PointProjection.MEASURES), maxPoints, after));
+                return cached;
+            }
+            return simplifyPoints(trackId, findByTrackId(trackId, PointProjection.MEASURES), maxPoints, after);
+        });
+    }
+
+    @Override
+    public List<TrackPoint> simplifyPoints(Long trackId, List<TrackPoint> rawPoints, int maxPoints, int after) {
+        checkBudget(maxPoints, after);
+        int to = Math.min(maxPoints, rawPoints.size());
+        int from = Math.min(after, to);
+
+        // 重要性顺序的前 N 个点即为 N 点预算下的结果，渐进加载只取新增区间
+        int[] order = PointBudgetSimplifier.importanceOrder(PointBlock.of(rawPoints));
+        int[] picked = Arrays.copyOfRange(order, from, to);
+        Arrays.sort(picked);
+
+        List<TrackPoint> result = new ArrayList<>(picked.length);
+        for (int index : picked) {
+            result.add(rawPoints.get(index));
+        }
+        log.info("轨迹 {} 按点数预算简化完成，原始点数: {}, 预算: {}, 返回点数: {}",
+                trackId, rawPoints.size(), maxPoints, result.size());
+        return result;
+    }
+
+    @Override
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public CursorPageResponse<TrackPoint> findPointsByCursor(Long trackId, String cursor, LocalDateTime since,
+                                                             int limit, boolean withTotal, PointProjection projection) {
+        checkPageLimit(limit);
+        KeysetCursor position = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            position = KeysetCursor.decode(cursor);
+        } else if (since != null) {
+            // (create_time, id) > (since, MAX) 等价于 create_time > since
+            position = new KeysetCursor(since, Long.MAX_VALUE);
+        }
+
+        // 逐行数据：走 (track_id, create_time, id) 索引，多取一条判断是否还有下一页
+        QueryWrapper<TrackPoint> queryWrapper = new QueryWrapper<>();
+        projection.applyTo(queryWrapper);
+        queryWrapper.eq("track_id", trackId);
+        trackPointPartitionManager.applyTimeRange(queryWrapper, trackId);
+        if (position != null) {
+            queryWrapper.apply("(create_time, id) > ({0}, {1})", position.getTime(), position.getId());
+        }
+        queryWrapper.orderByAsc("create_time", "id");
+        queryWrapper.last("LIMIT " + (limit + 1));
+        List<TrackPoint> points = new ArrayList<>(trackPointMapper.selectList(queryWrapper));
+
+        // 轨迹段中的点以 (段序号, 段内序号) 编码的负数作为排序键（暂存在 id 中），
+        // 同一时刻的段内点排在逐行数据之前，跨页时不会遗漏
+        List<TrackPoint> segmentPoints = trackSegmentService.loadPointsAfter(trackId, position, limit + 1);
+        if (!segmentPoints.isEmpty()) {
+            if (!projection.isFull()) {
+                segmentPoints.forEach(projection::retain);
+            }
+            points.addAll(segmentPoints);
+            points.sort(KEYSET_ORDER);
+        }
+
+        boolean hasMore = points.size() > limit;
+        if (hasMore) {
+            points = new ArrayList<>(points.subList(0, limit));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            TrackPoint last = points.get(points.size() - 1);
+            nextCursor = KeysetCursor.of(last.getCreateTime(), last.getId());
+        }
+        // 段内点的排序键不对外输出
+        for (TrackPoint point : points) {
+            if (point.getId() != null && point.getId() < 0) {
+                point.setId(null);
+            }
+        }
+
+        Long total = null;
+        if (withTotal) {
+            // 总点数直接取增量维护的统计，不做 COUNT
+            TrackAggregate aggregate = trackAggregateService.getById(trackId);
+            total = aggregate != null && aggregate.getPointCount() != null ? aggregate.getPointCount().longValue() : null;
+        }
+        return new CursorPageResponse<>(points, nextCursor, hasMore, total);
+    }
+
+    @Override
+    public CursorPageResponse<TrackPoint> findPointsAfterId(Long trackId, long afterId, int limit, PointProjection projection) {
+        checkPageLimit(limit);
+        // 同一轨迹的写入事务在插入前锁定统计行，串行执行，ID 按提交顺序递增：
+        // 先分配ID的事务一定先提交，轮询不会因晚提交的小ID而漏点
+        QueryWrapper<TrackPoint> queryWrapper = new QueryWrapper<>();
+        projection.applyTo(queryWrapper);
+        queryWrapper.eq("track_id", trackId);
+        trackPointPartitionManager.applyTimeRange(queryWrapper, trackId);
+        queryWrapper.gt("id", afterId);
+        queryWrapper.orderByAsc("id");
+        queryWrapper.last("LIMIT " + (limit + 1));
+        List<TrackPoint> points = trackPointMapper.selectList(queryWrapper);
+
+        boolean hasMore = points.size() > limit;
+        if (hasMore) {
+            points = new ArrayList<>(points.subList(0, limit));
+        }
+        long lastId = points.isEmpty() ? afterId : points.get(points.size() - 1).getId();
+        return new CursorPageResponse<>(points, String.valueOf(lastId), hasMore, null);
+    }
+
+    private static void checkPageLimit(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_POINTS) {
+            throw new IllegalArgumentException("limit 必须在 1 到 " + MAX_PAGE_POINTS + " 之间");
+        }
+    }
+
+    private static void checkBudget(int maxPoints, int after) {
+        if (maxPoints < 2) {
+            throw new IllegalArgumentException("maxPoints 不能小于 2");
+        }
+        if (after < 0 || after >= maxPoints) {
+            throw new IllegalArgumentException("after 必须在 0 到 maxPoints 之间");
+        }
+    }
+}
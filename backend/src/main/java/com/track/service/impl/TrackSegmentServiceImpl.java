@@ -0,0 +1,254 @@
+package com.track.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.entity.TrackPoint;
+import com.track.entity.TrackSegment;
+import com.track.mapper.TrackPointMapper;
+import com.track.mapper.TrackSegmentMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackPointPartitionManager;
+import com.track.service.TrackSegmentService;
+import com.track.util.KeysetCursor;
+import com.track.util.TrackSegmentCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+@Service
+public class TrackSegmentServiceImpl extends ServiceImpl<TrackSegmentMapper, TrackSegment> implements TrackSegmentService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackSegmentServiceImpl.class);
+
+    private static final Comparator<TrackPoint> TIME_ORDER =
+            Comparator.comparing(TrackPoint::getCreateTime, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    /**
+     * 键集顺序：时间 + 排序键（id 字段暂存 KeysetCursor.segmentKey）
+     */
+    private static final Comparator<TrackPoint> KEYSET_ORDER = Comparator
+            .comparing(TrackPoint::getCreateTime, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparingLong(TrackPoint::getId);
+
+    @Value("${track.storage.segment.enabled:true}")
+    private boolean enabled;
+
+    @Value("${track.storage.segment.points-per-segment:4096}")
+    private int pointsPerSegment;
+
+    @Autowired
+    private TrackPointMapper trackPointMapper;
+
+    @Autowired
+    private TrackAggregateService trackAggregateService;
+
+    @Autowired
+    private TrackPointPartitionManager trackPointPartitionManager;
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int compact(Long trackId) {
+        if (!enabled) {
+            return 0;
+        }
+
+        // 锁定统计行，与同一轨迹的并发写入串行化，保证读取和删除的是同一批行
+        trackAggregateService.lockCommittedSeq(trackId);
+
+        QueryWrapper<TrackPoint> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        trackPointPartitionManager.applyTimeRange(queryWrapper, trackId);
+        queryWrapper.orderByAsc("create_time");
+        List<TrackPoint> rows = trackPointMapper.selectList(queryWrapper);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // 完成后补传的点可能早于已有段的结束时间：与之重叠的已有段解码后一起重新分段，
+        // 保持段按序号时间有序、互不重叠（流式归并输出和键集分页依赖这一点）
+        List<TrackPoint> points = rows;
+        List<TrackSegment> overlapping = selectOverlapping(trackId, rows.get(0).getCreateTime());
+        if (!overlapping.isEmpty()) {
+            points = new ArrayList<>(rows);
+            List<Integer> seqs = new ArrayList<>(overlapping.size());
+            for (TrackSegment segment : overlapping) {
+                points.addAll(TrackSegmentCodec.decode(segment.getData(), trackId));
+                seqs.add(segment.getSeq());
+            }
+            points.sort(TIME_ORDER);
+
+            QueryWrapper<TrackSegment> deleteSegments = new QueryWrapper<>();
+            deleteSegments.eq("track_id", trackId);
+            deleteSegments.in("seq", seqs);
+            baseMapper.delete(deleteSegments);
+            log.info("轨迹 {} 补传的点与 {} 个已有轨迹段时间重叠，合并后重新分段", trackId, overlapping.size());
+        }
+
+        int seq = nextSeq(trackId);
+        long encodedBytes = 0;
+        for (int from = 0; from < points.size(); from += pointsPerSegment) {
+            List<TrackPoint> chunk = points.subList(from, Math.min(from + pointsPerSegment, points.size()));
+
+            TrackSegment segment = new TrackSegment();
+            segment.setTrackId(trackId);
+            segment.setSeq(seq++);
+            segment.setPointCount(chunk.size());
+            segment.setFirstTime(chunk.get(0).getCreateTime());
+            segment.setLastTime(chunk.get(chunk.size() - 1).getCreateTime());
+            segment.setData(TrackSegmentCodec.encode(chunk));
+            baseMapper.insert(segment);
+            encodedBytes += segment.getData().length;
+        }
+
+        QueryWrapper<TrackPoint> deleteWrapper = new QueryWrapper<>();
+        deleteWrapper.eq("track_id", trackId);
+        trackPointPartitionManager.applyTimeRange(deleteWrapper, trackId);
+        trackPointMapper.delete(deleteWrapper);
+
+        log.info("轨迹 {} 压缩为轨迹段，点数: {}，段数: {}，压缩后 {} 字节（{} 字节/点）",
+                trackId, points.size(), (points.size() + pointsPerSegment - 1) / pointsPerSegment,
+                encodedBytes, String.format("%.1f", (double) encodedBytes / points.size()));
+        return rows.size();
+    }
+
+    @Override
+    public List<TrackPoint> loadPoints(Long trackId) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        queryWrapper.orderByAsc("seq");
+        List<TrackSegment> segments = baseMapper.selectList(queryWrapper);
+        if (segments.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        int total = 0;
+        for (TrackSegment segment : segments) {
+            total += segment.getPointCount();
+        }
+        List<TrackPoint> points = new ArrayList<>(total);
+        for (TrackSegment segment : segments) {
+            points.addAll(TrackSegmentCodec.decode(segment.getData(), trackId));
+        }
+        return points;
+    }
+
+    @Override
+    public Iterator<TrackPoint> iteratePoints(Long trackId) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        queryWrapper.orderByAsc("seq");
+        Iterator<TrackSegment> segments = baseMapper.selectList(queryWrapper).iterator();
+
+        return new Iterator<TrackPoint>() {
+            private Iterator<TrackPoint> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && segments.hasNext()) {
+                    TrackSegment segment = segments.next();
+                    current = TrackSegmentCodec.decode(segment.getData(), trackId).iterator();
+                    // 释放已解码段的原始字节
+                    segment.setData(null);
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public TrackPoint next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    @Override
+    public List<TrackPoint> loadPointsAfter(Long trackId, KeysetCursor after, int limit) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        if (after != null) {
+            // 与游标同一时刻、排序键更大的点也要返回
+            queryWrapper.ge("last_time", after.getTime());
+        }
+        // 段之间按序号时间有序（补传的点与已有段合并后重新分段），按起始时间遍历
+        queryWrapper.orderByAsc("first_time", "seq");
+        List<TrackSegment> segments = baseMapper.selectList(queryWrapper);
+
+        List<TrackPoint> points = new ArrayList<>();
+        LocalDateTime bound = null;
+        for (TrackSegment segment : segments) {
+            // 已凑够点数，且该段（及之后的段）起始时间都晚于已选中的最后一个点
+            if (bound != null && segment.getFirstTime() != null && segment.getFirstTime().isAfter(bound)) {
+                break;
+            }
+            List<TrackPoint> decoded = TrackSegmentCodec.decode(segment.getData(), trackId);
+            for (int i = 0; i < decoded.size(); i++) {
+                TrackPoint point = decoded.get(i);
+                point.setId(KeysetCursor.segmentKey(segment.getSeq(), i));
+                if (after == null || isAfter(point, after)) {
+                    points.add(point);
+                }
+            }
+            if (points.size() >= limit) {
+                points.sort(KEYSET_ORDER);
+                points = new ArrayList<>(points.subList(0, limit));
+                bound = points.get(limit - 1).getCreateTime();
+            }
+        }
+        if (bound == null) {
+            points.sort(KEYSET_ORDER);
+        }
+        return points;
+    }
+
+    private static boolean isAfter(TrackPoint point, KeysetCursor after) {
+        if (point.getCreateTime() == null) {
+            return false;
+        }
+        int compare = point.getCreateTime().compareTo(after.getTime());
+        return compare > 0 || (compare == 0 && point.getId() > after.getId());
+    }
+
+    @Override
+    public void removeByTrackId(Long trackId) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        baseMapper.delete(queryWrapper);
+    }
+
+    /**
+     * 结束时间不早于指定时刻的已有段（与新压缩的点时间重叠或在其之后）
+     */
+    private List<TrackSegment> selectOverlapping(Long trackId, LocalDateTime firstTime) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("track_id", trackId);
+        queryWrapper.ge("last_time", firstTime);
+        return baseMapper.selectList(queryWrapper);
+    }
+
+    /**
+     * 下一个段序号（完成后补传的点追加在已有段之后）
+     */
+    private int nextSeq(Long trackId) {
+        QueryWrapper<TrackSegment> queryWrapper = new QueryWrapper<>();
+        queryWrapper.select("COALESCE(MAX(seq), -1) AS seq");
+        queryWrapper.eq("track_id", trackId);
+        List<Object> result = baseMapper.selectObjs(queryWrapper);
+        if (result.isEmpty() || result.get(0) == null) {
+            return 0;
+        }
+        return ((Number) result.get(0)).intValue() + 1;
+    }
+}
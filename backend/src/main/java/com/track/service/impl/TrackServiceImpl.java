@@ -4,31 +4,58 @@ import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.dto.CursorPageResponse;
 import com.track.dto.PageResponse;
 import com.track.dto.TrackDetail;
 import com.track.dto.TrackSimpleDetail;
 import com.track.entity.Track;
+import com.track.entity.TrackAggregate;
 import com.track.entity.TrackPoint;
 import com.track.mapper.TrackMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackCacheService;
+import com.track.service.TrackLodService;
+import com.track.service.TrackPipelineSessionManager;
+import com.track.service.TrackPointPartitionManager;
 import com.track.service.TrackPointService;
+import com.track.service.TrackPointWriteBuffer;
+import com.track.service.TrackReadCoalescer;
+import com.track.service.TrackSegmentService;
 import com.track.service.TrackService;
+import com.track.service.TrackTileService;
+import com.track.service.UserHeatmapService;
+import com.track.util.KeysetCursor;
+import com.track.util.PointProjection;
+import com.track.util.TrackStatsAccumulator;
+import com.track.websocket.TrackIngestSessionRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 
 @Service
 public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements TrackService {
 
     private static final Logger log = LoggerFactory.getLogger(TrackServiceImpl.class);
 
+    /**
+     * 键集分页每页最大记录数
+     */
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
     // 这里无需注入一个trackMpper，因为继承的ServiceImpl类中已经有注入一个TrackMapper类的baseMapper，可以直接使用
     // @Autowired
     // private TrackMapper trackMapper;
@@ -36,6 +63,39 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
     @Autowired
     private TrackPointService trackPointService;
 
+    @Autowired
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Autowired
+    private TrackIngestSessionRegistry trackIngestSessionRegistry;
+
+    @Autowired
+    private TrackAggregateService trackAggregateService;
+
+    @Autowired
+    private TrackPipelineSessionManager trackPipelineSessionManager;
+
+    @Autowired
+    private TrackPointPartitionManager trackPointPartitionManager;
+
+    @Autowired
+    private TrackSegmentService trackSegmentService;
+
+    @Autowired
+    private TrackCacheService trackCacheService;
+
+    @Autowired
+    private TrackReadCoalescer trackReadCoalescer;
+
+    @Autowired
+    private TrackLodService trackLodService;
+
+    @Autowired
+    private UserHeatmapService userHeatmapService;
+
+    @Autowired
+    private TrackTileService trackTileService;
+
     @Override
     public List<Track> findByUserId(Long userId) {
         QueryWrapper<Track> queryWrapper = new QueryWrapper<>();
@@ -45,24 +105,8 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
     }
 
     @Override
-    public PageResponse<Track> findByUserIdWithPagination(Long userId, int page, int pageSize) {
-        QueryWrapper<Track> queryWrapper = new QueryWrapper<>();
-        queryWrapper.eq("user_id", userId);
-        queryWrapper.orderByDesc("create_time");
-
-        // 创建分页对象
-        Page<Track> trackPage = new Page<>(page, pageSize);
-
-        // 执行分页查询
-        Page<Track> resultPage = baseMapper.selectPage(trackPage, queryWrapper);
-
-        // 构建分页响应
-        return new PageResponse<>(
-            resultPage.getRecords(),
-            resultPage.getTotal(),
-            (int) resultPage.getCurrent(),
-            (int) resultPage.getSize()
-        );
+    public PageResponse<Track> findByUserIdWithPagination(Long userId, int page, int pageSize, boolean withTotal) {
+        return searchTracks(userId, null, null, null, page, pageSize, withTotal);
     }
 
     /**
@@ -111,20 +155,6 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
         return baseMapper.selectCount(queryWrapper) > 0;
     }
 
-    @Override
-    public void updateTotalPoints(Long trackId) {
-        // 查询轨迹点的总数
-        QueryWrapper<TrackPoint> pointQueryWrapper = new QueryWrapper<>();
-        pointQueryWrapper.eq("track_id", trackId);
-        int totalPoints = Math.toIntExact(trackPointService.count(pointQueryWrapper));
-
-        // 更新轨迹的总点数
-        Track track = new Track();
-        track.setId(trackId);
-        track.setTotalPoints(totalPoints);
-        this.updateById(track);
-    }
-
     @Override
     public boolean hasActiveTrack(Long userId) {
         QueryWrapper<Track> queryWrapper = new QueryWrapper<>();
@@ -137,10 +167,23 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
     @Transactional
     public boolean removeTrackWithPoints(Long trackId) {
         try {
-            // 先删除关联的轨迹点数据
+            // 先关闭实时采集通道，再丢弃写缓冲区和流水线会话中尚未落库的点，避免轨迹删除后再被写入
+            trackIngestSessionRegistry.closeTrack(trackId, "轨迹已删除");
+            trackPointWriteBuffer.discard(trackId);
+            trackPipelineSessionManager.discard(trackId);
+
+            // 先删除关联的轨迹点数据（分区表模式下按轨迹起止时间裁剪分区，需在删除统计之前）
             QueryWrapper<TrackPoint> pointQueryWrapper = new QueryWrapper<>();
             pointQueryWrapper.eq("track_id", trackId);
+            trackPointPartitionManager.applyTimeRange(pointQueryWrapper, trackId);
             trackPointService.remove(pointQueryWrapper);
+            trackSegmentService.removeByTrackId(trackId);
+            trackLodService.removeByTrackId(trackId);
+            userHeatmapService.removeTrack(trackId);
+            trackTileService.evictTrack(trackId);
+
+            // 删除轨迹统计
+            trackAggregateService.removeByTrackId(trackId);
 
             // 再删除轨迹记录
             return this.removeById(trackId);
@@ -149,111 +192,201 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
         }
     }
 
+    @Override
+    public boolean updateTrack(Track track) {
+        // 只在状态真正变化时执行收尾工作，重复提交相同状态不再重新压缩和构建层级
+        Integer previousStatus = null;
+        if (track.getStatus() != null) {
+            Track previous = this.getById(track.getId());
+            previousStatus = previous != null ? previous.getStatus() : null;
+        }
+
+        boolean updated = this.updateById(track);
+        trackCacheService.evict(track.getId());
+        trackTileService.evictTrack(track.getId());
+        if (!updated || track.getStatus() == null) {
+            return updated;
+        }
+
+        // 离开进行中（1）或进入已完成（2）时，提交尚未落库的轨迹点并回收流水线会话
+        boolean leavingInProgress = Integer.valueOf(1).equals(previousStatus) && track.getStatus() != 1;
+        boolean enteringCompleted = track.getStatus() == 2 && !Integer.valueOf(2).equals(previousStatus);
+        if (leavingInProgress || enteringCompleted) {
+            // 轨迹不再进行中，先关闭实时采集通道，之后不会再有新的点进入缓冲区
+            trackIngestSessionRegistry.closeTrack(track.getId(), "轨迹已结束");
+            trackPointWriteBuffer.flush(track.getId());
+            trackPipelineSessionManager.complete(track.getId());
+
+            // 已完成的轨迹不再修改，压缩为列式轨迹段
+            if (enteringCompleted) {
+                trackSegmentService.compact(track.getId());
+                buildLod(track.getId());
+                updateUserHeatmap(track.getId());
+            }
+
+            // 刷写和会话提交写入了新的点，多分辨率层级也改变了瓦片使用的压缩结果，完成后再使瓦片失效一次
+            trackTileService.evictTrack(track.getId());
+        }
+        return updated;
+    }
 
     /**
-     * 计算轨迹统计信息
+     * 构建多分辨率层级，失败时只影响缩放性能（回退为按原始数据压缩），不影响轨迹状态更新
      */
-    private TrackDetail.TrackStats calculateTrackStats(List<TrackPoint> trackPoints) {
-        TrackDetail.TrackStats stats = new TrackDetail.TrackStats();
+    private void buildLod(Long trackId) {
+        try {
+            trackLodService.build(trackId);
+        } catch (Exception e) {
+            log.error("轨迹 {} 多分辨率层级构建失败", trackId, e);
+        }
+    }
 
-        if (trackPoints == null || trackPoints.isEmpty()) {
-            return stats;
+    /**
+     * 计入用户热力图，失败时只影响用户热力图（可重建），不影响轨迹状态更新
+     */
+    private void updateUserHeatmap(Long trackId) {
+        try {
+            userHeatmapService.updateTrack(trackId);
+        } catch (Exception e) {
+            log.error("轨迹 {} 计入用户热力图失败", trackId, e);
         }
+    }
 
-        // 计算总点数
-        stats.setTotalPoints(trackPoints.size());
-
-        // 计算速度统计
-        BigDecimal totalSpeed = BigDecimal.ZERO;
-        BigDecimal maxSpeed = BigDecimal.ZERO;
-        BigDecimal minAltitude = null;
-        BigDecimal maxAltitude = null;
-
-        for (TrackPoint point : trackPoints) {
-            // 速度统计
-            if (point.getSpeed() != null) {
-                totalSpeed = totalSpeed.add(point.getSpeed());
-                if (point.getSpeed().compareTo(maxSpeed) > 0) {
-                    maxSpeed = point.getSpeed();
-                }
-            }
+    /**
+     * 读取轨迹统计聚合，历史轨迹尚无统计记录时基于全部轨迹点补建一次
+     */
+    private TrackAggregate loadAggregate(Long trackId) {
+        TrackAggregate aggregate = trackAggregateService.getById(trackId);
+        if (aggregate == null) {
+            log.info("轨迹 {} 尚无统计记录，基于轨迹点补建", trackId);
+            aggregate = trackAggregateService.backfill(trackId, trackPointService.findByTrackId(trackId));
+        }
+        return aggregate;
+    }
 
-            // 海拔统计
-            if (point.getAltitude() != null) {
-                if (minAltitude == null || point.getAltitude().compareTo(minAltitude) < 0) {
-                    minAltitude = point.getAltitude();
-                }
-                if (maxAltitude == null || point.getAltitude().compareTo(maxAltitude) > 0) {
-                    maxAltitude = point.getAltitude();
-                }
-            }
+    /**
+     * 读取轨迹统计聚合，需要补建时直接使用调用方已读取的全部轨迹点，不再重复读取
+     */
+    private TrackAggregate loadAggregate(Long trackId, List<TrackPoint> loadedPoints) {
+        TrackAggregate aggregate = trackAggregateService.getById(trackId);
+        if (aggregate == null) {
+            log.info("轨迹 {} 尚无统计记录，基于已读取的轨迹点补建", trackId);
+            aggregate = trackAggregateService.backfill(trackId, loadedPoints);
         }
+        return aggregate;
+    }
 
-        // 平均速度
-        if (trackPoints.size() > 0) {
-            stats.setAverageSpeed(totalSpeed.divide(BigDecimal.valueOf(trackPoints.size()), 2, BigDecimal.ROUND_HALF_UP));
+    /**
+     * 将轨迹统计聚合转换为统计信息
+     */
+    private TrackDetail.TrackStats toTrackStats(TrackAggregate aggregate) {
+        TrackDetail.TrackStats stats = new TrackDetail.TrackStats();
+
+        int pointCount = aggregate.getPointCount() != null ? aggregate.getPointCount() : 0;
+        if (pointCount == 0) {
+            return stats;
         }
 
-        stats.setMaxSpeed(maxSpeed);
+        stats.setTotalPoints(pointCount);
+
+        // 平均速度
+        double speedSum = aggregate.getSpeedSum() != null ? aggregate.getSpeedSum() : 0.0;
+        stats.setAverageSpeed(BigDecimal.valueOf(speedSum).divide(BigDecimal.valueOf(pointCount), 2, RoundingMode.HALF_UP));
+
+        // 最大速度
+        stats.setMaxSpeed(aggregate.getMaxSpeed() != null ? BigDecimal.valueOf(aggregate.getMaxSpeed()) : BigDecimal.ZERO);
 
         // 海拔变化
-        if (minAltitude != null && maxAltitude != null) {
-            stats.setAltitudeChange(maxAltitude.subtract(minAltitude));
+        if (aggregate.getMinAltitude() != null && aggregate.getMaxAltitude() != null) {
+            stats.setAltitudeChange(BigDecimal.valueOf(aggregate.getMaxAltitude() - aggregate.getMinAltitude())
+                    .setScale(2, RoundingMode.HALF_UP));
         }
 
-        // 计算轨迹长度（简化的直线距离计算）
-        BigDecimal totalDistance = BigDecimal.ZERO;
-        for (int i = 1; i < trackPoints.size(); i++) {
-            TrackPoint prev = trackPoints.get(i - 1);
-            TrackPoint curr = trackPoints.get(i);
-
-            if (prev.getLatitude() != null && prev.getLongitude() != null &&
-                curr.getLatitude() != null && curr.getLongitude() != null) {
+        // 轨迹长度
+        double totalDistance = aggregate.getTotalDistance() != null ? aggregate.getTotalDistance() : 0.0;
+        stats.setTotalDistance(BigDecimal.valueOf(totalDistance).setScale(2, RoundingMode.HALF_UP));
 
-                double distance = calculateDistance(
-                    prev.getLatitude().doubleValue(), prev.getLongitude().doubleValue(),
-                    curr.getLatitude().doubleValue(), curr.getLongitude().doubleValue()
-                );
-                totalDistance = totalDistance.add(BigDecimal.valueOf(distance));
-            }
+        // 持续时间（秒）
+        if (aggregate.getFirstTime() != null && aggregate.getLastTime() != null) {
+            stats.setDuration(Duration.between(aggregate.getFirstTime(), aggregate.getLastTime()).getSeconds());
         }
-        stats.setTotalDistance(totalDistance);
-
-        // 计算持续时间（秒）
-        if (!trackPoints.isEmpty()) {
-            TrackPoint firstPoint = trackPoints.get(0);
-            TrackPoint lastPoint = trackPoints.get(trackPoints.size() - 1);
-            if (firstPoint.getCreateTime() != null && lastPoint.getCreateTime() != null) {
-                // LocalDateTime 转换为时间戳（毫秒）
-                java.time.Duration duration = java.time.Duration.between(
-                    firstPoint.getCreateTime(), lastPoint.getCreateTime());
-                stats.setDuration(duration.getSeconds());
-            }
+
+        // 运动时间、累计爬升/下降和配速
+        long movingTime = aggregate.getMovingTime() != null ? aggregate.getMovingTime() : 0L;
+        stats.setMovingTime(movingTime / 1000);
+        stats.setElevationGain(BigDecimal.valueOf(aggregate.getElevationGain() != null ? aggregate.getElevationGain() : 0.0)
+                .setScale(2, RoundingMode.HALF_UP));
+        stats.setElevationLoss(BigDecimal.valueOf(aggregate.getElevationLoss() != null ? aggregate.getElevationLoss() : 0.0)
+                .setScale(2, RoundingMode.HALF_UP));
+        double pace = TrackStatsAccumulator.pace(movingTime, totalDistance);
+        if (!Double.isNaN(pace)) {
+            stats.setAveragePace(Math.round(pace));
         }
 
         return stats;
     }
 
-    /**
-     * 计算两点之间的距离（米）- 使用Haversine公式
-     */
-    private double calculateDistance(double lat1, double lon1, double lat2, double lon2) {
-        final int R = 6371000; // 地球半径（米）
+    @Override
+    public PageResponse<Track> searchTracks(Long userId, String keyword, LocalDate startDate, LocalDate endDate,
+                                            int page, int pageSize, boolean withTotal) {
+        QueryWrapper<Track> queryWrapper = buildSearchWrapper(userId, keyword, startDate, endDate);
 
-        double latDistance = Math.toRadians(lat2 - lat1);
-        double lonDistance = Math.toRadians(lon2 - lon1);
+        // 按创建时间倒序排列（ID 兜底，保证同一时间的记录分页顺序稳定）
+        queryWrapper.orderByDesc("create_time", "id");
 
-        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
-                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
-                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+        // 创建分页对象，不需要总数时跳过 COUNT 查询
+        Page<Track> trackPage = new Page<>(page, pageSize, withTotal);
 
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        // 执行分页查询
+        Page<Track> resultPage = baseMapper.selectPage(trackPage, queryWrapper);
 
-        return R * c;
+        // 构建分页响应
+        return new PageResponse<>(
+            resultPage.getRecords(),
+            withTotal ? resultPage.getTotal() : null,
+            (int) resultPage.getCurrent(),
+            (int) resultPage.getSize()
+        );
     }
 
     @Override
-    public PageResponse<Track> searchTracks(Long userId, String keyword, LocalDate startDate, LocalDate endDate, int page, int pageSize) {
+    public CursorPageResponse<Track> searchTracksByCursor(Long userId, String keyword, LocalDate startDate,
+                                                          LocalDate endDate, String cursor, int pageSize,
+                                                          boolean withTotal) {
+        if (pageSize < 1 || pageSize > MAX_CURSOR_PAGE_SIZE) {
+            throw new IllegalArgumentException("每页大小必须在 1 到 " + MAX_CURSOR_PAGE_SIZE + " 之间");
+        }
+        QueryWrapper<Track> queryWrapper = buildSearchWrapper(userId, keyword, startDate, endDate);
+
+        // 总数与游标无关，在追加游标条件前统计
+        Long total = withTotal ? baseMapper.selectCount(queryWrapper) : null;
+
+        // 键集分页：从上一页最后一条记录之后继续，走 (user_id, create_time, id) 索引，与页码深度无关
+        if (cursor != null && !cursor.isEmpty()) {
+            KeysetCursor position = KeysetCursor.decode(cursor);
+            queryWrapper.apply("(create_time, id) < ({0}, {1})", position.getTime(), position.getId());
+        }
+        queryWrapper.orderByDesc("create_time", "id");
+        // 多取一条判断是否还有下一页
+        queryWrapper.last("LIMIT " + (pageSize + 1));
+
+        List<Track> tracks = baseMapper.selectList(queryWrapper);
+        boolean hasMore = tracks.size() > pageSize;
+        if (hasMore) {
+            tracks = new ArrayList<>(tracks.subList(0, pageSize));
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            Track last = tracks.get(tracks.size() - 1);
+            nextCursor = KeysetCursor.of(last.getCreateTime(), last.getId());
+        }
+        return new CursorPageResponse<>(tracks, nextCursor, hasMore, total);
+    }
+
+    /**
+     * 构建轨迹搜索条件（归属用户 + 关键字 + 日期范围）
+     */
+    private QueryWrapper<Track> buildSearchWrapper(Long userId, String keyword, LocalDate startDate, LocalDate endDate) {
         QueryWrapper<Track> queryWrapper = new QueryWrapper<>();
 
         // 必须属于当前用户
@@ -277,185 +410,152 @@ public class TrackServiceImpl extends ServiceImpl<TrackMapper, Track> implements
             LocalDateTime endDateTime = endDate.atTime(LocalTime.MAX);
             queryWrapper.le("create_time", endDateTime);
         }
-
-        // 按创建时间倒序排列
-        queryWrapper.orderByDesc("create_time");
-
-        // 创建分页对象
-        Page<Track> trackPage = new Page<>(page, pageSize);
-
-        // 执行分页查询
-        Page<Track> resultPage = baseMapper.selectPage(trackPage, queryWrapper);
-
-        // 构建分页响应
-        return new PageResponse<>(
-            resultPage.getRecords(),
-            resultPage.getTotal(),
-            (int) resultPage.getCurrent(),
-            (int) resultPage.getSize()
-        );
+        return queryWrapper;
     }
 
+    // 读取方法不开启只读事务：相同请求合并后等待者不应占用数据库连接，
+    // 轨迹点本身在 findByTrackId 的可重复读事务中一次读取
     @Override
-    @Transactional(readOnly = true)
     public TrackDetail getTrackDetail(Long trackId, Long userId) {
+        return trackReadCoalescer.execute(trackId, "detail:" + trackId, () -> loadTrackDetail(trackId, PointProjection.FULL));
+    }
+
+    @Override
+    public TrackDetail getTrackDetail(Long trackId, Long userId, PointProjection projection) {
+        if (projection.isFull()) {
+            return getTrackDetail(trackId, userId);
+        }
+        return trackReadCoalescer.execute(trackId, "detail:" + trackId + ":" + projection.key(),
+                () -> loadTrackDetail(trackId, projection));
+    }
+
+    private TrackDetail loadTrackDetail(Long trackId, PointProjection projection) {
         // 获取轨迹信息（权限验证已通过AOP处理）
         Track track = this.getById(trackId);
         if (track == null) {
             return null;
         }
 
+        // 已结束/已完成的轨迹走两级缓存，不同投影分别缓存
+        if (trackCacheService.isCacheable(track)) {
+            String name = projection.isFull() ? "detail" : "detail:" + projection.key();
+            return trackCacheService.get(trackId, name, TrackDetail.class, () -> buildTrackDetail(track, projection));
+        }
+        return buildTrackDetail(track, projection);
+    }
+
+    private TrackDetail buildTrackDetail(Track track, PointProjection projection) {
+        Long trackId = track.getId();
+
         // 获取轨迹点列表
-        List<TrackPoint> trackPoints = trackPointService.findByTrackId(trackId);
+        List<TrackPoint> trackPoints = trackPointService.findByTrackId(trackId, projection);
 
         // 创建轨迹详情对象
         TrackDetail trackDetail = new TrackDetail();
         trackDetail.setTrack(track);
         trackDetail.setTrackPoints(trackPoints);
 
-        // 计算统计信息
-        TrackDetail.TrackStats stats = calculateTrackStats(trackPoints);
+        // 统计信息直接读取增量维护的统计聚合（需要补建时复用上面读取的轨迹点）
+        TrackDetail.TrackStats stats = toTrackStats(loadAggregate(trackId, trackPoints));
         trackDetail.setStats(stats);
 
         return trackDetail;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public TrackDetail getCompressedTrackDetail(Long trackId, Long userId, double tolerance) {
+        return trackReadCoalescer.execute(trackId, "detail:" + trackId + ":compressed:" + tolerance,
+                () -> loadCompressedTrackDetail(trackId,
+                        () -> trackPointService.getCompressedPoints(trackId, tolerance),
+                        rawPoints -> trackPointService.compressPoints(trackId, rawPoints, tolerance)));
+    }
+
+    @Override
+    public TrackDetail getBudgetTrackDetail(Long trackId, Long userId, int maxPoints, int after) {
+        return trackReadCoalescer.execute(trackId, "detail:" + trackId + ":budget:" + maxPoints + ":" + after,
+                () -> loadCompressedTrackDetail(trackId,
+                        () -> trackPointService.getBudgetPoints(trackId, maxPoints, after),
+                        rawPoints -> trackPointService.simplifyPoints(trackId, rawPoints, maxPoints, after)));
+    }
+
+    /**
+     * 构建压缩轨迹详情，轨迹点只读取一次
+     *
+     * @param pointsLoader 有统计记录时获取压缩后的点（可走缓存和多分辨率层级，无需读取原始轨迹点）
+     * @param simplifier 没有统计记录时，对读取到的原始轨迹点进行压缩（同一份数据同时用于补建统计）
+     */
+    private TrackDetail loadCompressedTrackDetail(Long trackId, Supplier<List<TrackPoint>> pointsLoader,
+                                                  UnaryOperator<List<TrackPoint>> simplifier) {
         // 获取轨迹信息（权限验证已通过AOP处理）
         Track track = this.getById(trackId);
         if (track == null) {
             return null;
         }
 
-        // 获取原始轨迹点列表（用于统计计算）
-        List<TrackPoint> rawTrackPoints = trackPointService.findByTrackId(trackId);
-
-        // 获取压缩后的轨迹点列表（用于展示）
-        List<TrackPoint> compressedTrackPoints = trackPointService.getCompressedPoints(trackId, tolerance);
+        // 统计信息基于原始数据，直接读取增量维护的统计聚合，无需再加载原始轨迹点
+        TrackAggregate aggregate = trackAggregateService.getById(trackId);
+        List<TrackPoint> compressedTrackPoints;
+        if (aggregate != null) {
+            // 获取压缩后的轨迹点列表（用于展示）
+            compressedTrackPoints = pointsLoader.get();
+        } else {
+            // 历史轨迹尚无统计记录：一次读取，同一份轨迹点既用于补建统计，也用于压缩
+            log.info("轨迹 {} 尚无统计记录，基于轨迹点补建并压缩", trackId);
+            List<TrackPoint> rawPoints = trackPointService.findByTrackId(trackId, PointProjection.MEASURES);
+            aggregate = trackAggregateService.backfill(trackId, rawPoints);
+            compressedTrackPoints = simplifier.apply(rawPoints);
+        }
 
         // 创建轨迹详情对象
         TrackDetail trackDetail = new TrackDetail();
         trackDetail.setTrack(track);
         trackDetail.setTrackPoints(compressedTrackPoints); // 使用压缩后的点
 
-        // 计算统计信息（基于原始数据）
-        TrackDetail.TrackStats stats = calculateTrackStats(rawTrackPoints);
+        TrackDetail.TrackStats stats = toTrackStats(aggregate);
         trackDetail.setStats(stats);
 
-        double compressionRate = (1.0 - (double) compressedTrackPoints.size() / rawTrackPoints.size()) * 100;
+        int rawPointCount = aggregate.getPointCount() != null ? aggregate.getPointCount() : 0;
+        double compressionRate = rawPointCount > 0 ? (1.0 - (double) compressedTrackPoints.size() / rawPointCount) * 100 : 0;
         log.info("轨迹 {} 压缩详情生成完成，原始点数: {}, 压缩后点数: {}, 压缩率: {}%",
-                trackId, rawTrackPoints.size(), compressedTrackPoints.size(), String.format("%.2f", compressionRate));
+                trackId, rawPointCount, compressedTrackPoints.size(), String.format("%.2f", compressionRate));
 
         return trackDetail;
     }
 
     @Override
-    @Transactional(readOnly = true)
     public TrackSimpleDetail getTrackSimpleDetail(Long trackId, Long userId) {
+        return trackReadCoalescer.execute(trackId, "simple-detail:" + trackId, () -> loadTrackSimpleDetail(trackId));
+    }
+
+    private TrackSimpleDetail loadTrackSimpleDetail(Long trackId) {
         // 获取轨迹信息（权限验证已通过AOP处理）
         Track track = this.getById(trackId);
         if (track == null) {
             return null;
         }
 
-        // 获取轨迹点列表（用于统计计算）
-        List<TrackPoint> trackPoints = trackPointService.findByTrackId(trackId);
+        if (trackCacheService.isCacheable(track)) {
+            return trackCacheService.get(trackId, "simple", TrackSimpleDetail.class, () -> buildTrackSimpleDetail(track));
+        }
+        return buildTrackSimpleDetail(track);
+    }
 
+    private TrackSimpleDetail buildTrackSimpleDetail(Track track) {
         // 创建轨迹简化详情对象
         TrackSimpleDetail trackSimpleDetail = new TrackSimpleDetail();
         trackSimpleDetail.setTrack(track);
 
-        // 计算统计信息
-        TrackSimpleDetail.TrackStats stats = calculateSimpleTrackStats(trackPoints);
+        // 统计信息为单行读取，无需扫描轨迹点
+        TrackSimpleDetail.TrackStats stats = new TrackSimpleDetail.TrackStats();
+        BeanUtils.copyProperties(toTrackStats(loadAggregate(track.getId())), stats);
         trackSimpleDetail.setStats(stats);
 
         return trackSimpleDetail;
     }
 
-    /**
-     * 计算轨迹简化统计信息（不包含轨迹点数据）
-     */
-    private TrackSimpleDetail.TrackStats calculateSimpleTrackStats(List<TrackPoint> trackPoints) {
-        TrackSimpleDetail.TrackStats stats = new TrackSimpleDetail.TrackStats();
-
-        if (trackPoints == null || trackPoints.isEmpty()) {
-            return stats;
-        }
-
-        // 计算总点数
-        stats.setTotalPoints(trackPoints.size());
-
-        // 计算速度统计
-        BigDecimal totalSpeed = BigDecimal.ZERO;
-        BigDecimal maxSpeed = BigDecimal.ZERO;
-        BigDecimal minAltitude = null;
-        BigDecimal maxAltitude = null;
-
-        for (TrackPoint point : trackPoints) {
-            // 速度统计
-            if (point.getSpeed() != null) {
-                totalSpeed = totalSpeed.add(point.getSpeed());
-                if (point.getSpeed().compareTo(maxSpeed) > 0) {
-                    maxSpeed = point.getSpeed();
-                }
-            }
-
-            // 海拔统计
-            if (point.getAltitude() != null) {
-                if (minAltitude == null || point.getAltitude().compareTo(minAltitude) < 0) {
-                    minAltitude = point.getAltitude();
-                }
-                if (maxAltitude == null || point.getAltitude().compareTo(maxAltitude) > 0) {
-                    maxAltitude = point.getAltitude();
-                }
-            }
-        }
-
-        // 平均速度
-        if (trackPoints.size() > 0) {
-            stats.setAverageSpeed(totalSpeed.divide(BigDecimal.valueOf(trackPoints.size()), 2, BigDecimal.ROUND_HALF_UP));
-        }
-
-        stats.setMaxSpeed(maxSpeed);
-
-        // 海拔变化
-        if (minAltitude != null && maxAltitude != null) {
-            stats.setAltitudeChange(maxAltitude.subtract(minAltitude));
-        }
-
-        // 计算轨迹长度（简化的直线距离计算）
-        BigDecimal totalDistance = BigDecimal.ZERO;
-        for (int i = 1; i < trackPoints.size(); i++) {
-            TrackPoint prev = trackPoints.get(i - 1);
-            TrackPoint curr = trackPoints.get(i);
-
-            if (prev.getLatitude() != null && prev.getLongitude() != null &&
-                curr.getLatitude() != null && curr.getLongitude() != null) {
-
-                double distance = calculateDistance(
-                    prev.getLatitude().doubleValue(), prev.getLongitude().doubleValue(),
-                    curr.getLatitude().doubleValue(), curr.getLongitude().doubleValue()
-                );
-                totalDistance = totalDistance.add(BigDecimal.valueOf(distance));
-            }
-        }
-        stats.setTotalDistance(totalDistance);
-
-        // 计算持续时间（秒）
-        if (!trackPoints.isEmpty()) {
-            TrackPoint firstPoint = trackPoints.get(0);
-            TrackPoint lastPoint = trackPoints.get(trackPoints.size() - 1);
-            if (firstPoint.getCreateTime() != null && lastPoint.getCreateTime() != null) {
-                // LocalDateTime 转换为时间戳（毫秒）
-                java.time.Duration duration = java.time.Duration.between(
-                    firstPoint.getCreateTime(), lastPoint.getCreateTime());
-                stats.setDuration(duration.getSeconds());
-            }
-        }
-
-        return stats;
+    @Override
+    public TrackDetail.TrackStats getTrackStats(Long trackId) {
+        return toTrackStats(loadAggregate(trackId));
     }
 
     @Override
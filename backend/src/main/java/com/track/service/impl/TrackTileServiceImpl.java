@@ -0,0 +1,115 @@
+package com.track.service.impl;
+
+import com.track.entity.Track;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackMapper;
+import com.track.service.TrackCacheService;
+import com.track.service.TrackPointService;
+import com.track.service.TrackTileService;
+import com.track.util.MercatorGrid;
+import com.track.util.VectorTileEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户轨迹矢量瓦片
+ * <ul>
+ *     <li>按轨迹统计中的外包矩形筛选与瓦片（含缓冲区）相交的轨迹</li>
+ *     <li>每条轨迹按瓦片级别一个像素对应的地面距离取压缩结果（已完成轨迹命中预计算的多分辨率层级）</li>
+ *     <li>瓦片按用户缓存，轨迹变化时整体失效</li>
+ * </ul>
+ */
+@Service
+public class TrackTileServiceImpl implements TrackTileService {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackTileServiceImpl.class);
+
+    private static final String LAYER_NAME = "tracks";
+
+    /**
+     * 0 级一个像素在赤道处对应的地面距离（米）
+     */
+    private static final double METERS_PER_PIXEL_AT_ZOOM_0 = 156543.03392;
+
+    /**
+     * 最小压缩容差（米），高缩放级别下不再细化
+     */
+    private static final double MIN_TOLERANCE = 1.0;
+
+    @Autowired
+    private TrackMapper trackMapper;
+
+    @Autowired
+    private TrackCacheService trackCacheService;
+
+    // 延迟注入，避免与 TrackPointServiceImpl 形成循环依赖
+    @Lazy
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Override
+    public byte[] getTile(Long userId, int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MercatorGrid.MAX_ZOOM) {
+            throw new IllegalArgumentException("zoom 必须在 0 到 " + MercatorGrid.MAX_ZOOM + " 之间");
+        }
+        long tiles = 1L << zoom;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new IllegalArgumentException("瓦片坐标超出范围");
+        }
+        return trackCacheService.getForUser(userId, "tile:" + zoom + "/" + x + "/" + y, byte[].class,
+                () -> buildTile(userId, zoom, x, y));
+    }
+
+    @Override
+    public void evictTrack(Long trackId) {
+        Track track = trackMapper.selectById(trackId);
+        if (track != null) {
+            trackCacheService.evictUser(track.getUserId());
+        }
+    }
+
+    private byte[] buildTile(Long userId, int zoom, int x, int y) {
+        // 瓦片加缓冲区的经纬度范围
+        double worldSize = (double) MercatorGrid.TILE_SIZE * (1L << zoom);
+        double margin = (double) MercatorGrid.TILE_SIZE * VectorTileEncoder.DEFAULT_BUFFER / VectorTileEncoder.DEFAULT_EXTENT;
+        double minPixelX = (double) x * MercatorGrid.TILE_SIZE - margin;
+        double maxPixelX = (double) (x + 1) * MercatorGrid.TILE_SIZE + margin;
+        double minPixelY = (double) y * MercatorGrid.TILE_SIZE - margin;
+        double maxPixelY = (double) (y + 1) * MercatorGrid.TILE_SIZE + margin;
+        List<Track> tracks = trackMapper.selectInBounds(userId,
+                MercatorGrid.latitude(maxPixelY, worldSize), MercatorGrid.latitude(minPixelY, worldSize),
+                MercatorGrid.longitude(minPixelX, worldSize), MercatorGrid.longitude(maxPixelX, worldSize));
+
+        double tolerance = Math.max(MIN_TOLERANCE, METERS_PER_PIXEL_AT_ZOOM_0 / (1L << zoom));
+        VectorTileEncoder encoder = new VectorTileEncoder(LAYER_NAME, zoom, x, y);
+        for (Track track : tracks) {
+            List<TrackPoint> points = trackPointService.getCompressedPoints(track.getId(), tolerance);
+            if (points.size() < 2) {
+                continue;
+            }
+            double[] latitudes = new double[points.size()];
+            double[] longitudes = new double[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                latitudes[i] = points.get(i).getLatitude();
+                longitudes[i] = points.get(i).getLongitude();
+            }
+
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("id", track.getId());
+            properties.put("name", track.getTrackName());
+            properties.put("status", track.getStatus());
+            encoder.addLine(track.getId(), properties, latitudes, longitudes);
+        }
+
+        log.debug("用户 {} 瓦片 {}/{}/{} 生成完成，候选轨迹: {}，要素: {}",
+                userId, zoom, x, y, tracks.size(), encoder.size());
+        return encoder.encode();
+    }
+}
@@ -0,0 +1,253 @@
+package com.track.service.impl;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.track.dto.HeatmapGrid;
+import com.track.entity.Track;
+import com.track.entity.UserHeatmapCell;
+import com.track.mapper.TrackMapper;
+import com.track.mapper.UserHeatmapMapper;
+import com.track.service.TrackPointService;
+import com.track.service.UserHeatmapService;
+import com.track.util.MercatorGrid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 用户热力图（增量维护的多级网格）
+ * <ul>
+ *     <li>轨迹完成时按最细缩放级别把去噪后的点聚合为网格单元点数，保存在 track_heatmap_cells</li>
+ *     <li>各缩放级别的单元编号由最细级别右移得到（单元像素大小不变，缩放级别每降一级行列号减半），
+ *         在数据库内聚合后 upsert 到 user_heatmap_cells，不需要把单元读回应用</li>
+ *     <li>轨迹重新处理或删除时按保存的贡献扣除，因此用户热力图的读取开销只与瓦片内的单元数有关</li>
+ * </ul>
+ */
+@Service
+public class UserHeatmapServiceImpl extends ServiceImpl<UserHeatmapMapper, UserHeatmapCell> implements UserHeatmapService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserHeatmapServiceImpl.class);
+
+    /**
+     * 每条插入语句写入的单元数
+     */
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    @Value("${track.heatmap.user.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * 预聚合的缩放级别
+     */
+    @Value("${track.heatmap.user.zooms:6,8,10,12,14,16}")
+    private int[] zooms;
+
+    /**
+     * 网格单元边长（像素，2 的幂，瓦片边长需能整除）
+     */
+    @Value("${track.heatmap.user.cell-size:8}")
+    private int cellSize;
+
+    @Autowired
+    private TrackMapper trackMapper;
+
+    // 延迟注入，避免与 TrackPointServiceImpl 形成循环依赖
+    @Lazy
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @PostConstruct
+    public void init() {
+        Arrays.sort(zooms);
+        if (Integer.bitCount(cellSize) != 1 || cellSize > MercatorGrid.TILE_SIZE) {
+            throw new IllegalStateException("track.heatmap.user.cell-size 必须是不超过 " + MercatorGrid.TILE_SIZE + " 的 2 的幂");
+        }
+        if (zooms.length == 0 || zooms[0] < 0 || finestZoom() > MercatorGrid.MAX_ZOOM) {
+            throw new IllegalStateException("track.heatmap.user.zooms 必须在 0 到 " + MercatorGrid.MAX_ZOOM + " 之间");
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void updateTrack(Long trackId) {
+        if (!enabled) {
+            return;
+        }
+        Track track = trackMapper.selectById(trackId);
+        if (track == null) {
+            return;
+        }
+        subtract(track.getUserId(), trackId);
+        if (track.getStatus() != null && track.getStatus() == 2) {
+            add(track);
+        }
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public void removeTrack(Long trackId) {
+        if (!enabled) {
+            return;
+        }
+        Track track = trackMapper.selectById(trackId);
+        if (track == null) {
+            baseMapper.deleteTrackCells(trackId);
+            return;
+        }
+        subtract(track.getUserId(), trackId);
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public int rebuild(Long userId) {
+        if (!enabled) {
+            return 0;
+        }
+        QueryWrapper<UserHeatmapCell> cellWrapper = new QueryWrapper<>();
+        cellWrapper.eq("user_id", userId);
+        baseMapper.delete(cellWrapper);
+
+        QueryWrapper<Track> trackWrapper = new QueryWrapper<>();
+        trackWrapper.eq("user_id", userId);
+        trackWrapper.eq("status", 2);
+        List<Track> tracks = trackMapper.selectList(trackWrapper);
+        for (Track track : tracks) {
+            baseMapper.deleteTrackCells(track.getId());
+            add(track);
+        }
+        log.info("用户 {} 热力图重建完成，轨迹数: {}", userId, tracks.size());
+        return tracks.size();
+    }
+
+    @Override
+    public HeatmapGrid getTile(Long userId, int zoom, int x, int y) {
+        if (zoom < 0 || zoom > MercatorGrid.MAX_ZOOM) {
+            throw new IllegalArgumentException("zoom 必须在 0 到 " + MercatorGrid.MAX_ZOOM + " 之间");
+        }
+        long tiles = 1L << zoom;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new IllegalArgumentException("瓦片坐标超出范围");
+        }
+
+        // 瓦片在本级别下覆盖的单元范围
+        int cellsPerTile = MercatorGrid.TILE_SIZE / cellSize;
+        long minX = (long) x * cellsPerTile;
+        long minY = (long) y * cellsPerTile;
+        long maxX = minX + cellsPerTile - 1;
+        long maxY = minY + cellsPerTile - 1;
+
+        // 选用不超过瓦片级别的最近预聚合级别，低于最低级别时读取最低级别再合并
+        int level = zooms[0];
+        for (int candidate : zooms) {
+            if (candidate <= zoom) {
+                level = candidate;
+            }
+        }
+        QueryWrapper<UserHeatmapCell> queryWrapper = new QueryWrapper<>();
+        queryWrapper.eq("user_id", userId);
+        queryWrapper.eq("zoom", level);
+        if (level <= zoom) {
+            int shift = zoom - level;
+            queryWrapper.between("cell_x", minX >> shift, maxX >> shift);
+            queryWrapper.between("cell_y", minY >> shift, maxY >> shift);
+        } else {
+            int shift = level - zoom;
+            queryWrapper.between("cell_x", minX << shift, ((maxX + 1) << shift) - 1);
+            queryWrapper.between("cell_y", minY << shift, ((maxY + 1) << shift) - 1);
+        }
+        List<UserHeatmapCell> rows = baseMapper.selectList(queryWrapper);
+
+        // 输出级别：预聚合级别不高于瓦片级别时直接输出该级别的单元，否则合并到瓦片级别
+        int outputZoom = Math.min(level, zoom);
+        int shift = level - outputZoom;
+        Map<Long, Long> counts = new LinkedHashMap<>();
+        for (UserHeatmapCell row : rows) {
+            counts.merge(MercatorGrid.cell(row.getCellX() >> shift, row.getCellY() >> shift), row.getCount(), Long::sum);
+        }
+
+        MercatorGrid grid = new MercatorGrid(outputZoom, cellSize);
+        List<HeatmapGrid.Cell> cells = new ArrayList<>(counts.size());
+        long total = 0;
+        int maxCount = 0;
+        for (Map.Entry<Long, Long> entry : counts.entrySet()) {
+            int count = saturatedInt(entry.getValue());
+            cells.add(new HeatmapGrid.Cell(grid.centerLongitude(entry.getKey()), grid.centerLatitude(entry.getKey()), count));
+            total += entry.getValue();
+            maxCount = Math.max(maxCount, count);
+        }
+
+        HeatmapGrid heatmapGrid = new HeatmapGrid();
+        heatmapGrid.setZoom(outputZoom);
+        heatmapGrid.setCellSize(cellSize);
+        heatmapGrid.setPointCount(saturatedInt(total));
+        heatmapGrid.setMaxCount(maxCount);
+        heatmapGrid.setCells(cells);
+        return heatmapGrid;
+    }
+
+    /**
+     * 计入轨迹：最细级别的单元点数写入 track_heatmap_cells，再累加到各级别
+     */
+    private void add(Track track) {
+        Long trackId = track.getId();
+        int finestZoom = finestZoom();
+        HeatmapGrid trackGrid = trackPointService.buildHeatmapGrid(trackId, finestZoom, cellSize);
+        if (trackGrid.getCells().isEmpty()) {
+            return;
+        }
+
+        // 单元中心换算回单元编号（中心距单元边界半个单元，不受浮点误差影响）
+        MercatorGrid grid = new MercatorGrid(finestZoom, cellSize);
+        List<UserHeatmapCell> cells = new ArrayList<>(trackGrid.getCells().size());
+        for (HeatmapGrid.Cell gridCell : trackGrid.getCells()) {
+            long key = grid.cellOf(gridCell.getLatitude(), gridCell.getLongitude());
+            UserHeatmapCell cell = new UserHeatmapCell();
+            cell.setCellX(MercatorGrid.column(key));
+            cell.setCellY(MercatorGrid.row(key));
+            cell.setCount((long) gridCell.getCount());
+            cells.add(cell);
+        }
+        for (int from = 0; from < cells.size(); from += INSERT_BATCH_SIZE) {
+            baseMapper.insertTrackCells(trackId, cells.subList(from, Math.min(cells.size(), from + INSERT_BATCH_SIZE)));
+        }
+
+        for (int zoom : zooms) {
+            baseMapper.applyTrackCells(track.getUserId(), trackId, zoom, finestZoom - zoom, 1);
+        }
+        log.info("轨迹 {} 计入用户 {} 的热力图，点数: {}，单元数: {}",
+                trackId, track.getUserId(), trackGrid.getPointCount(), cells.size());
+    }
+
+    /**
+     * 扣除轨迹已计入的贡献
+     */
+    private void subtract(Long userId, Long trackId) {
+        if (!baseMapper.existsTrackCells(trackId)) {
+            return;
+        }
+        for (int zoom : zooms) {
+            baseMapper.applyTrackCells(userId, trackId, zoom, finestZoom() - zoom, -1);
+        }
+        baseMapper.deleteTrackCells(trackId);
+        baseMapper.deleteEmptyCells(userId);
+    }
+
+    private int finestZoom() {
+        return zooms[zooms.length - 1];
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(Integer.MAX_VALUE, value);
+    }
+}
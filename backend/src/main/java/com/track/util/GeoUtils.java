@@ -0,0 +1,78 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+
+import java.util.List;
+
+/**
+ * 地理计算工具类
+ */
+public class GeoUtils {
+
+    /**
+     * 地球半径（米）
+     */
+    public static final double EARTH_RADIUS = 6371000;
+
+    private GeoUtils() {
+        // 工具类，私有构造函数
+    }
+
+    /**
+     * 计算两点之间的距离（米）- 使用Haversine公式
+     */
+    public static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        double latDistance = Math.toRadians(lat2 - lat1);
+        double lonDistance = Math.toRadians(lon2 - lon1);
+
+        double a = Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(lonDistance / 2) * Math.sin(lonDistance / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS * c;
+    }
+
+    /**
+     * 校验上传的轨迹点坐标：必须存在、为有限值且在经纬度范围内
+     *
+     * @param trackPoints 轨迹点列表
+     * @throws IllegalArgumentException 坐标缺失或超出范围
+     */
+    public static void validateCoordinates(List<TrackPoint> trackPoints) {
+        for (int i = 0; i < trackPoints.size(); i++) {
+            validateCoordinates(trackPoints.get(i), i + 1);
+        }
+    }
+
+    /**
+     * 校验单个轨迹点的坐标
+     *
+     * @param trackPoint 轨迹点
+     * @param ordinal 轨迹点在上传数据中的序号（从1开始，用于错误信息）
+     * @throws IllegalArgumentException 坐标缺失或超出范围
+     */
+    public static void validateCoordinates(TrackPoint trackPoint, long ordinal) {
+        Double latitude = trackPoint.getLatitude();
+        Double longitude = trackPoint.getLongitude();
+        if (latitude == null || longitude == null) {
+            throw new IllegalArgumentException("第 " + ordinal + " 个轨迹点缺少经纬度");
+        }
+        validateCoordinates(latitude, longitude, ordinal);
+    }
+
+    /**
+     * 校验单个点的经纬度范围（二进制格式解码时使用，不构建 TrackPoint）
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param ordinal 轨迹点在上传数据中的序号（从1开始，用于错误信息）
+     * @throws IllegalArgumentException 坐标超出范围
+     */
+    public static void validateCoordinates(double latitude, double longitude, long ordinal) {
+        if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+            throw new IllegalArgumentException("第 " + ordinal + " 个轨迹点的经纬度超出范围");
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.track.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 键集（seek）分页游标：上一页最后一条记录的 (create_time, id)
+ * 对客户端是不透明字符串（URL 安全的 Base64），时间保留完整精度（数据库时间戳为微秒），
+ * 避免截断后 (create_time, id) 比较把上一页最后一条记录再查出来。
+ * 轨迹段中的点没有ID，以 {@link #segmentKey(int, int)}（段序号 + 段内序号）作为排序键：
+ * 键为负数，同一时刻的段内点排在逐行数据之前，段内点之间按段序号、段内序号排序，跨页时不会遗漏同一时刻的点。
+ */
+public final class KeysetCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime time;
+    private final long id;
+
+    public KeysetCursor(LocalDateTime time, long id) {
+        this.time = time;
+        this.id = id;
+    }
+
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * 编码为游标字符串
+     */
+    public String encode() {
+        String raw = time.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     *
+     * @throws IllegalArgumentException 游标格式错误
+     */
+    public static KeysetCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new IllegalArgumentException("分页游标格式错误");
+            }
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            // NumberFormatException 是 IllegalArgumentException 的子类
+            throw new IllegalArgumentException("分页游标格式错误");
+        }
+    }
+
+    /**
+     * 轨迹段中第 ordinal 个点的排序键（负数，随段序号和段内序号递增）
+     */
+    public static long segmentKey(int seq, int ordinal) {
+        return Long.MIN_VALUE + ((long) seq << 32) + ordinal;
+    }
+
+    /**
+     * 以记录的 (create_time, id) 构建下一页游标，ID 为空时记为 0
+     */
+    public static String of(LocalDateTime time, Long id) {
+        return new KeysetCursor(time, id != null ? id : 0L).encode();
+    }
+}
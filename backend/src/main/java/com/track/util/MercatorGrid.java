@@ -0,0 +1,138 @@
+package com.track.util;
+
+/**
+ * Web 墨卡托像素网格
+ * 与地图瓦片使用同一坐标系：缩放级别 z 下整个世界宽 256 × 2^z 像素，网格单元为 cellSize × cellSize 像素，
+ * 因此同一缩放级别下单元在屏幕上大小一致，与地图显示的缩放级别直接对应。
+ * 单元编号打包为一个 long（高 32 位为列号，低 32 位为行号），可以直接排序和比较。
+ */
+public final class MercatorGrid {
+
+    /**
+     * 支持的最大缩放级别（256 × 2^22 像素，单元编号不超过 int 范围）
+     */
+    public static final int MAX_ZOOM = 22;
+
+    /**
+     * 瓦片边长（像素）
+     */
+    public static final int TILE_SIZE = 256;
+
+    /**
+     * Web 墨卡托投影的纬度范围
+     */
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    private final int zoom;
+    private final int cellSize;
+    private final double worldSize;
+    private final long cells;
+
+    /**
+     * @param zoom 缩放级别（0 到 {@link #MAX_ZOOM}）
+     * @param cellSize 单元边长（像素，1 到 {@link #TILE_SIZE}）
+     * @throws IllegalArgumentException 参数超出范围
+     */
+    public MercatorGrid(int zoom, int cellSize) {
+        if (zoom < 0 || zoom > MAX_ZOOM) {
+            throw new IllegalArgumentException("zoom 必须在 0 到 " + MAX_ZOOM + " 之间");
+        }
+        if (cellSize < 1 || cellSize > TILE_SIZE) {
+            throw new IllegalArgumentException("cellSize 必须在 1 到 " + TILE_SIZE + " 之间");
+        }
+        this.zoom = zoom;
+        this.cellSize = cellSize;
+        this.worldSize = (double) TILE_SIZE * (1L << zoom);
+        this.cells = ((long) TILE_SIZE << zoom) / cellSize;
+    }
+
+    public int getZoom() {
+        return zoom;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * 点所在单元的编号
+     */
+    public long cellOf(double latitude, double longitude) {
+        long column = clamp((long) Math.floor(pixelX(longitude, worldSize) / cellSize));
+        long row = clamp((long) Math.floor(pixelY(latitude, worldSize) / cellSize));
+        return cell(column, row);
+    }
+
+    /**
+     * 经度对应的世界像素横坐标
+     *
+     * @param worldSize 世界宽度（像素，256 × 2^z）
+     */
+    public static double pixelX(double longitude, double worldSize) {
+        return (longitude + 180.0) / 360.0 * worldSize;
+    }
+
+    /**
+     * 纬度对应的世界像素纵坐标（超出投影范围的纬度按边界处理）
+     *
+     * @param worldSize 世界宽度（像素，256 × 2^z）
+     */
+    public static double pixelY(double latitude, double worldSize) {
+        double lat = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, latitude));
+        double sinLat = Math.sin(Math.toRadians(lat));
+        return (0.5 - Math.log((1 + sinLat) / (1 - sinLat)) / (4 * Math.PI)) * worldSize;
+    }
+
+    /**
+     * 由列号和行号打包单元编号
+     */
+    public static long cell(long column, long row) {
+        return column << 32 | row;
+    }
+
+    /**
+     * 单元的列号
+     */
+    public static long column(long cell) {
+        return cell >>> 32;
+    }
+
+    /**
+     * 单元的行号
+     */
+    public static long row(long cell) {
+        return cell & 0xFFFFFFFFL;
+    }
+
+    /**
+     * 单元中心的经度
+     */
+    public double centerLongitude(long cell) {
+        return longitude((column(cell) + 0.5) * cellSize, worldSize);
+    }
+
+    /**
+     * 单元中心的纬度
+     */
+    public double centerLatitude(long cell) {
+        return latitude((row(cell) + 0.5) * cellSize, worldSize);
+    }
+
+    /**
+     * 世界像素横坐标对应的经度
+     */
+    public static double longitude(double pixelX, double worldSize) {
+        return pixelX / worldSize * 360.0 - 180.0;
+    }
+
+    /**
+     * 世界像素纵坐标对应的纬度
+     */
+    public static double latitude(double pixelY, double worldSize) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * pixelY / worldSize))));
+    }
+
+    private long clamp(long index) {
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+}
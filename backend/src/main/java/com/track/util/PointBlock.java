@@ -0,0 +1,349 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import com.track.starter.model.Point;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.zone.ZoneRules;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * 列式轨迹点块（struct-of-arrays）
+ * 每个字段一个并行的 double[] / long[] 数组，缺失的海拔、速度、精度用 NaN 表示。
+ * 读路径上用它代替 List&lt;TrackPoint&gt; → List&lt;Point&gt; → List&lt;TrackPoint&gt; 的逐点复制：
+ * <ul>
+ *     <li>{@link #asPoints()} 返回数组上的视图，starter 的 Point 服务直接读写数组，不再为每个点复制字段</li>
+ *     <li>{@link #pick(List, List)} 把处理结果映射回原始 TrackPoint 对象，未修改的点不再重新构建</li>
+ * </ul>
+ * 时间列为毫秒时间戳，时区规则按块缓存，不再每个点调用 ZoneId.systemDefault()。
+ */
+public class PointBlock {
+
+    private final ZoneRules zoneRules = ZoneId.systemDefault().getRules();
+
+    private double[] latitudes;
+    private double[] longitudes;
+    private long[] timestamps;
+    private double[] altitudes;
+    private double[] speeds;
+    private double[] accuracies;
+    /**
+     * 方向角（TrackPoint 中没有该字段，只在流水线处理期间保留），首次写入时才分配
+     */
+    private double[] bearings;
+    private int size;
+
+    /**
+     * 通过视图被流水线修改过的点（映射回 TrackPoint 时需要按数组重建）
+     */
+    private final BitSet modified = new BitSet();
+
+    public PointBlock(int capacity) {
+        int initial = Math.max(capacity, 8);
+        latitudes = new double[initial];
+        longitudes = new double[initial];
+        timestamps = new long[initial];
+        altitudes = new double[initial];
+        speeds = new double[initial];
+        accuracies = new double[initial];
+    }
+
+    /**
+     * 由轨迹点列表构建（单次遍历，速度单位保持 m/s）
+     */
+    public static PointBlock of(List<TrackPoint> trackPoints) {
+        PointBlock block = new PointBlock(trackPoints.size());
+        for (TrackPoint trackPoint : trackPoints) {
+            block.add(trackPoint.getLongitude(), trackPoint.getLatitude(),
+                    trackPoint.getCreateTime() != null ? block.toEpochMilli(trackPoint.getCreateTime()) : 0L,
+                    orNaN(trackPoint.getAltitude()), orNaN(trackPoint.getSpeed()), orNaN(trackPoint.getAccuracy()));
+        }
+        return block;
+    }
+
+    /**
+     * 追加一个点
+     *
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param timestamp 时间戳（毫秒）
+     * @param altitude 海拔（米），缺失为 NaN
+     * @param speed 速度（米/秒），缺失为 NaN
+     * @param accuracy 精度（米），缺失为 NaN
+     */
+    public void add(double longitude, double latitude, long timestamp, double altitude, double speed, double accuracy) {
+        if (size == latitudes.length) {
+            grow();
+        }
+        longitudes[size] = longitude;
+        latitudes[size] = latitude;
+        timestamps[size] = timestamp;
+        altitudes[size] = altitude;
+        speeds[size] = speed;
+        accuracies[size] = accuracy;
+        if (bearings != null) {
+            bearings[size] = Double.NaN;
+        }
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double latitude(int index) {
+        return latitudes[index];
+    }
+
+    public double longitude(int index) {
+        return longitudes[index];
+    }
+
+    public long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * 按本地时间解释的毫秒数（LocalDateTime 按 UTC 换算），用于与 LocalDateTime 直接相减得到的时长保持一致
+     */
+    public long localTimestamp(int index) {
+        long epochMilli = timestamps[index];
+        ZoneOffset offset = zoneRules.isFixedOffset()
+                ? zoneRules.getOffset(Instant.EPOCH)
+                : zoneRules.getOffset(Instant.ofEpochMilli(epochMilli));
+        return epochMilli + offset.getTotalSeconds() * 1000L;
+    }
+
+    public double altitude(int index) {
+        return altitudes[index];
+    }
+
+    public double speed(int index) {
+        return speeds[index];
+    }
+
+    public double accuracy(int index) {
+        return accuracies[index];
+    }
+
+    /**
+     * Point 列表视图：元素只持有块引用和下标，读写直接作用于数组
+     * 每次 get 会分配一个轻量句柄（不复制字段），热点循环中应优先使用按下标读取的方法
+     */
+    public List<Point> asPoints() {
+        return new PointView();
+    }
+
+    /**
+     * 把 Point 服务的处理结果映射回轨迹点
+     * 结果中来自本块视图且未被修改的点直接复用原始 TrackPoint，其余点按数值重建
+     *
+     * @param processed 处理结果
+     * @param source 构建本块时使用的原始轨迹点（下标一一对应）
+     * @return 轨迹点列表
+     */
+    public List<TrackPoint> pick(List<Point> processed, List<TrackPoint> source) {
+        List<TrackPoint> result = new ArrayList<>(processed.size());
+        Long trackId = source.isEmpty() ? null : source.get(0).getTrackId();
+        for (Point point : processed) {
+            if (point instanceof BlockPoint && ((BlockPoint) point).block() == this) {
+                int index = ((BlockPoint) point).index;
+                result.add(modified.get(index) ? rebuild(index, source.get(index)) : source.get(index));
+            } else {
+                result.add(PointConverter.toTrackPoint(point, trackId));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 按下标构建轨迹点（速度单位 m/s）
+     */
+    public TrackPoint toTrackPoint(int index, Long trackId) {
+        TrackPoint trackPoint = new TrackPoint();
+        trackPoint.setTrackId(trackId);
+        trackPoint.setLongitude(longitudes[index]);
+        trackPoint.setLatitude(latitudes[index]);
+        trackPoint.setCreateTime(toLocalDateTime(timestamps[index]));
+        trackPoint.setAltitude(orNull(altitudes[index]));
+        trackPoint.setSpeed(orNull(speeds[index]));
+        trackPoint.setAccuracy(orNull(accuracies[index]));
+        return trackPoint;
+    }
+
+    /**
+     * 按数组中（已被修改的）数值重建轨迹点，保留原始点的其他字段
+     */
+    private TrackPoint rebuild(int index, TrackPoint original) {
+        TrackPoint trackPoint = toTrackPoint(index, original.getTrackId());
+        trackPoint.setSatelliteCount(original.getSatelliteCount());
+        trackPoint.setAddress(original.getAddress());
+        return trackPoint;
+    }
+
+    private void grow() {
+        int capacity = latitudes.length * 2;
+        latitudes = Arrays.copyOf(latitudes, capacity);
+        longitudes = Arrays.copyOf(longitudes, capacity);
+        timestamps = Arrays.copyOf(timestamps, capacity);
+        altitudes = Arrays.copyOf(altitudes, capacity);
+        speeds = Arrays.copyOf(speeds, capacity);
+        accuracies = Arrays.copyOf(accuracies, capacity);
+        if (bearings != null) {
+            bearings = Arrays.copyOf(bearings, capacity);
+        }
+    }
+
+    private long toEpochMilli(LocalDateTime time) {
+        ZoneOffset offset = zoneRules.isFixedOffset()
+                ? zoneRules.getOffset(Instant.EPOCH)
+                : zoneRules.getOffset(time);
+        return time.toEpochSecond(offset) * 1000 + time.getNano() / 1_000_000;
+    }
+
+    private LocalDateTime toLocalDateTime(long epochMilli) {
+        ZoneOffset offset = zoneRules.isFixedOffset()
+                ? zoneRules.getOffset(Instant.EPOCH)
+                : zoneRules.getOffset(Instant.ofEpochMilli(epochMilli));
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMilli, 1000),
+                (int) Math.floorMod(epochMilli, 1000) * 1_000_000, offset);
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Double orNull(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static Double orNullScaled(double value, double scale) {
+        return Double.isNaN(value) ? null : value * scale;
+    }
+
+    /**
+     * 列表视图
+     */
+    private class PointView extends AbstractList<Point> implements RandomAccess {
+
+        @Override
+        public Point get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+            }
+            return new BlockPoint(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * 指向块中某一行的 Point 句柄（starter 的速度单位为 km/h，读写时换算）
+     */
+    private class BlockPoint extends Point {
+        private final int index;
+
+        BlockPoint(int index) {
+            this.index = index;
+        }
+
+        PointBlock block() {
+            return PointBlock.this;
+        }
+
+        @Override
+        public double getLat() {
+            return latitudes[index];
+        }
+
+        @Override
+        public void setLat(double value) {
+            latitudes[index] = value;
+            modified.set(index);
+        }
+
+        @Override
+        public double getLng() {
+            return longitudes[index];
+        }
+
+        @Override
+        public void setLng(double value) {
+            longitudes[index] = value;
+            modified.set(index);
+        }
+
+        @Override
+        public long getTimestamp() {
+            return timestamps[index];
+        }
+
+        @Override
+        public void setTimestamp(long value) {
+            timestamps[index] = value;
+            modified.set(index);
+        }
+
+        @Override
+        public Double getAltitude() {
+            return orNull(altitudes[index]);
+        }
+
+        @Override
+        public void setAltitude(Double value) {
+            altitudes[index] = orNaN(value);
+            modified.set(index);
+        }
+
+        @Override
+        public Double getSpeed() {
+            return orNullScaled(speeds[index], 3.6);
+        }
+
+        @Override
+        public void setSpeed(Double value) {
+            speeds[index] = value != null ? value / 3.6 : Double.NaN;
+            modified.set(index);
+        }
+
+        @Override
+        public Double getAccuracy() {
+            return orNull(accuracies[index]);
+        }
+
+        @Override
+        public void setAccuracy(Double value) {
+            accuracies[index] = orNaN(value);
+            modified.set(index);
+        }
+
+        @Override
+        public Double getBearing() {
+            return bearings != null ? orNull(bearings[index]) : null;
+        }
+
+        @Override
+        public void setBearing(Double value) {
+            if (bearings == null) {
+                if (value == null) {
+                    return;
+                }
+                bearings = new double[latitudes.length];
+                Arrays.fill(bearings, Double.NaN);
+            }
+            // 轨迹点不保存方向角，不标记为已修改
+            bearings[index] = orNaN(value);
+        }
+    }
+}
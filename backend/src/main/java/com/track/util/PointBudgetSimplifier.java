@@ -0,0 +1,153 @@
+package com.track.util;
+
+/**
+ * 按点数预算简化轨迹（Visvalingam-Whyatt 算法，基于最小堆）
+ * 反复删除有效面积（与相邻两点构成的三角形面积）最小的点，删除后更新相邻点的面积。
+ * 删除顺序倒过来就是点的重要性顺序：重要性顺序的前 N 个点即为 N 点预算下的最佳近似，
+ * 不同预算的结果互相嵌套，因此可以渐进加载：预算从 N1 提高到 N2 时只需补充第 N1 到 N2 个点。
+ * 面积在以轨迹平均纬度为基准的等距投影平面上计算（米²）。
+ */
+public class PointBudgetSimplifier {
+
+    /**
+     * 每度纬度对应的米数（近似）
+     */
+    private static final double METERS_PER_DEGREE = 111320.0;
+
+    private PointBudgetSimplifier() {
+        // 工具类，私有构造函数
+    }
+
+    /**
+     * 计算点的重要性顺序
+     * 首尾两点始终排在最前面，其余点按被删除时的有效面积从大到小排列
+     *
+     * @param block 轨迹点块（按时间升序）
+     * @return 点下标的排列，长度等于点数
+     */
+    public static int[] importanceOrder(PointBlock block) {
+        int n = block.size();
+        int[] order = new int[n];
+        if (n == 0) {
+            return order;
+        }
+        if (n <= 2) {
+            for (int i = 0; i < n; i++) {
+                order[i] = i;
+            }
+            return order;
+        }
+
+        // 等距投影到平面（米）
+        double latitudeSum = 0;
+        for (int i = 0; i < n; i++) {
+            latitudeSum += block.latitude(i);
+        }
+        double xScale = METERS_PER_DEGREE * Math.cos(Math.toRadians(latitudeSum / n));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = block.longitude(i) * xScale;
+            y[i] = block.latitude(i) * METERS_PER_DEGREE;
+        }
+
+        int[] previous = new int[n];
+        int[] next = new int[n];
+        for (int i = 0; i < n; i++) {
+            previous[i] = i - 1;
+            next[i] = i + 1;
+        }
+
+        // 内部点的最小堆：heap 存点下标，position 为点在堆中的位置
+        double[] area = new double[n];
+        int[] heap = new int[n - 2];
+        int[] position = new int[n];
+        int heapSize = 0;
+        for (int i = 1; i < n - 1; i++) {
+            area[i] = triangleArea(x, y, i - 1, i, i + 1);
+            heap[heapSize] = i;
+            position[i] = heapSize;
+            heapSize++;
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heap, position, area, heapSize, i);
+        }
+
+        // 依次删除面积最小的点，删除顺序从后往前写入
+        int tail = n - 1;
+        double maxRemovedArea = 0;
+        while (heapSize > 0) {
+            int removed = heap[0];
+            heapSize--;
+            if (heapSize > 0) {
+                heap[0] = heap[heapSize];
+                position[heap[0]] = 0;
+                siftDown(heap, position, area, heapSize, 0);
+            }
+            order[tail--] = removed;
+            // 保证删除面积单调不减，相邻点不会因为删除后面积变小而先于已删除点被删
+            maxRemovedArea = Math.max(maxRemovedArea, area[removed]);
+
+            int before = previous[removed];
+            int after = next[removed];
+            next[before] = after;
+            previous[after] = before;
+            if (before > 0) {
+                area[before] = Math.max(triangleArea(x, y, previous[before], before, after), maxRemovedArea);
+                update(heap, position, area, heapSize, position[before]);
+            }
+            if (after < n - 1) {
+                area[after] = Math.max(triangleArea(x, y, before, after, next[after]), maxRemovedArea);
+                update(heap, position, area, heapSize, position[after]);
+            }
+        }
+        order[0] = 0;
+        order[1] = n - 1;
+        return order;
+    }
+
+    private static double triangleArea(double[] x, double[] y, int a, int b, int c) {
+        return Math.abs((x[b] - x[a]) * (y[c] - y[a]) - (x[c] - x[a]) * (y[b] - y[a])) * 0.5;
+    }
+
+    private static void update(int[] heap, int[] position, double[] area, int size, int index) {
+        int item = heap[index];
+        siftUp(heap, position, area, index);
+        siftDown(heap, position, area, size, position[item]);
+    }
+
+    private static void siftUp(int[] heap, int[] position, double[] area, int index) {
+        int item = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (area[heap[parent]] <= area[item]) {
+                break;
+            }
+            heap[index] = heap[parent];
+            position[heap[index]] = index;
+            index = parent;
+        }
+        heap[index] = item;
+        position[item] = index;
+    }
+
+    private static void siftDown(int[] heap, int[] position, double[] area, int size, int index) {
+        int item = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && area[heap[right]] < area[heap[child]]) {
+                child = right;
+            }
+            if (area[item] <= area[heap[child]]) {
+                break;
+            }
+            heap[index] = heap[child];
+            position[heap[index]] = index;
+            index = child;
+        }
+        heap[index] = item;
+        position[item] = index;
+    }
+}
@@ -3,7 +3,6 @@ package com.track.util;
 import com.track.entity.TrackPoint;
 import com.track.starter.model.Point;
 
-import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
@@ -34,40 +33,62 @@ public class PointConverter {
 
         Point point = new Point();
 
-        // 坐标转换：BigDecimal -> double
-        if (trackPoint.getLatitude() != null) {
-            point.setLat(trackPoint.getLatitude().doubleValue());
-        }
-        if (trackPoint.getLongitude() != null) {
-            point.setLng(trackPoint.getLongitude().doubleValue());
-        }
+        // 坐标
+        point.setLat(trackPoint.getLatitude());
+        point.setLng(trackPoint.getLongitude());
 
         // 时间转换：LocalDateTime -> long timestamp (毫秒)
         if (trackPoint.getCreateTime() != null) {
             point.setTimestamp(toTimestamp(trackPoint.getCreateTime()));
         }
 
-        // 海拔转换：BigDecimal -> Double
-        if (trackPoint.getAltitude() != null) {
-            point.setAltitude(trackPoint.getAltitude().doubleValue());
-        }
+        // 海拔
+        point.setAltitude(trackPoint.getAltitude());
 
-        // 速度转换：BigDecimal -> Double (注意单位：m/s -> km/h)
+        // 速度转换（注意单位：m/s -> km/h）
         if (trackPoint.getSpeed() != null) {
             // 后端存储的是m/s，starter期望的是km/h
-            point.setSpeed(trackPoint.getSpeed().doubleValue() * 3.6);
+            point.setSpeed(trackPoint.getSpeed() * 3.6);
         }
 
-        // 精度转换：BigDecimal -> Double
-        if (trackPoint.getAccuracy() != null) {
-            point.setAccuracy(trackPoint.getAccuracy().doubleValue());
-        }
+        // 精度
+        point.setAccuracy(trackPoint.getAccuracy());
 
         // 方向角：TrackPoint中没有bearing字段，留空
 
         return point;
     }
 
+    /**
+     * 由原始数值直接构建Point（二进制上传格式解码时使用，不经过TrackPoint）
+     *
+     * @param longitude 经度
+     * @param latitude 纬度
+     * @param timestamp 时间戳（毫秒）
+     * @param altitude 海拔（米），缺失为 NaN
+     * @param speed 速度（米/秒），缺失为 NaN
+     * @param accuracy 精度（米），缺失为 NaN
+     * @return 轨迹处理模型Point
+     */
+    public static Point toPoint(double longitude, double latitude, long timestamp,
+                                double altitude, double speed, double accuracy) {
+        Point point = new Point();
+        point.setLng(longitude);
+        point.setLat(latitude);
+        point.setTimestamp(timestamp);
+        if (!Double.isNaN(altitude)) {
+            point.setAltitude(altitude);
+        }
+        if (!Double.isNaN(speed)) {
+            // 速度单位：m/s -> km/h
+            point.setSpeed(speed * 3.6);
+        }
+        if (!Double.isNaN(accuracy)) {
+            point.setAccuracy(accuracy);
+        }
+        return point;
+    }
+
     /**
      * 将Point转换为TrackPoint
      *
@@ -83,27 +104,23 @@ public class PointConverter {
         TrackPoint trackPoint = new TrackPoint();
         trackPoint.setTrackId(trackId);
 
-        // 坐标转换：double -> BigDecimal
-        trackPoint.setLatitude(BigDecimal.valueOf(point.getLat()));
-        trackPoint.setLongitude(BigDecimal.valueOf(point.getLng()));
+        // 坐标
+        trackPoint.setLatitude(point.getLat());
+        trackPoint.setLongitude(point.getLng());
 
         // 时间转换：long timestamp -> LocalDateTime
         trackPoint.setCreateTime(toLocalDateTime(point.getTimestamp()));
 
-        // 海拔转换：Double -> BigDecimal
-        if (point.getAltitude() != null) {
-            trackPoint.setAltitude(BigDecimal.valueOf(point.getAltitude()));
-        }
+        // 海拔
+        trackPoint.setAltitude(point.getAltitude());
 
-        // 速度转换：Double -> BigDecimal (注意单位：km/h -> m/s)
+        // 速度转换（注意单位：km/h -> m/s）
         if (point.getSpeed() != null) {
-            trackPoint.setSpeed(BigDecimal.valueOf(point.getSpeed() / 3.6));
+            trackPoint.setSpeed(point.getSpeed() / 3.6);
         }
 
-        // 精度转换：Double -> BigDecimal
-        if (point.getAccuracy() != null) {
-            trackPoint.setAccuracy(BigDecimal.valueOf(point.getAccuracy()));
-        }
+        // 精度
+        trackPoint.setAccuracy(point.getAccuracy());
 
         return trackPoint;
     }
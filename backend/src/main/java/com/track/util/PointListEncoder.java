@@ -0,0 +1,232 @@
+package com.track.util;
+
+import com.track.dto.EncodedPoints;
+import com.track.entity.TrackPoint;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 轨迹点列表的紧凑输出格式
+ * JSON 对象数组中每个点都重复字段名和空值，地图展示只需要坐标（和可选的时间、海拔），
+ * 按编码折线或按列输出通常能把响应缩小 5-10 倍。
+ * 格式由 format 参数指定，未指定时按 Accept 头中的媒体类型协商，都没有时为 JSON。
+ */
+public class PointListEncoder {
+
+    /**
+     * 编码折线的媒体类型
+     */
+    public static final String POLYLINE_MEDIA_TYPE = "application/vnd.track.polyline+json";
+
+    /**
+     * 列式 JSON 的媒体类型
+     */
+    public static final String COLUMNAR_MEDIA_TYPE = "application/vnd.track.columnar+json";
+
+    public static final String DIMENSION_LATITUDE = "lat";
+    public static final String DIMENSION_LONGITUDE = "lng";
+    public static final String DIMENSION_TIME = "t";
+    public static final String DIMENSION_ALTITUDE = "alt";
+
+    /**
+     * 折线默认坐标小数位数（与 Google 编码折线一致）
+     */
+    public static final int DEFAULT_PRECISION = 5;
+
+    private static final int MAX_PRECISION = 7;
+
+    /**
+     * 折线中海拔的倍数（保留 1 位小数）
+     */
+    private static final double ALTITUDE_FACTOR = 10.0;
+
+    public enum Format {
+        JSON, POLYLINE, COLUMNAR;
+
+        /**
+         * 对应的响应媒体类型，JSON 为 null（使用默认的 application/json）
+         */
+        public String mediaType() {
+            switch (this) {
+                case POLYLINE:
+                    return POLYLINE_MEDIA_TYPE;
+                case COLUMNAR:
+                    return COLUMNAR_MEDIA_TYPE;
+                default:
+                    return null;
+            }
+        }
+    }
+
+    private PointListEncoder() {
+        // 工具类，私有构造函数
+    }
+
+    /**
+     * 确定输出格式：format 参数优先，其次是 Accept 头
+     *
+     * @param format format 参数（json / polyline / columnar），可为空
+     * @param accept Accept 请求头，可为空
+     * @throws IllegalArgumentException format 参数不支持
+     */
+    public static Format resolve(String format, String accept) {
+        if (format != null && !format.trim().isEmpty()) {
+            try {
+                return Format.valueOf(format.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("不支持的格式: " + format + "（可选 json、polyline、columnar）");
+            }
+        }
+        if (accept != null) {
+            if (accept.contains(POLYLINE_MEDIA_TYPE)) {
+                return Format.POLYLINE;
+            }
+            if (accept.contains(COLUMNAR_MEDIA_TYPE)) {
+                return Format.COLUMNAR;
+            }
+        }
+        return Format.JSON;
+    }
+
+    /**
+     * 按格式编码轨迹点
+     *
+     * @param points 轨迹点（按时间排序）
+     * @param format 输出格式（polyline / columnar）
+     * @param dimensions 除经纬度外附加的维度（t、alt，逗号分隔），为空时 polyline 不附加，columnar 附加时间
+     * @param precision 折线坐标小数位数
+     * @throws IllegalArgumentException 维度或精度不合法
+     */
+    public static EncodedPoints encode(List<TrackPoint> points, Format format, String dimensions, int precision) {
+        boolean withTime = format == Format.COLUMNAR;
+        boolean withAltitude = false;
+        if (dimensions != null && !dimensions.trim().isEmpty()) {
+            withTime = false;
+            for (String dimension : dimensions.split(",")) {
+                String name = dimension.trim();
+                if (DIMENSION_TIME.equals(name)) {
+                    withTime = true;
+                } else if (DIMENSION_ALTITUDE.equals(name)) {
+                    withAltitude = true;
+                } else if (!name.isEmpty()) {
+                    throw new IllegalArgumentException("不支持的维度: " + name + "（可选 t、alt）");
+                }
+            }
+        }
+
+        List<String> names = new ArrayList<>(4);
+        names.add(DIMENSION_LATITUDE);
+        names.add(DIMENSION_LONGITUDE);
+        if (withTime) {
+            names.add(DIMENSION_TIME);
+        }
+        if (withAltitude) {
+            names.add(DIMENSION_ALTITUDE);
+        }
+
+        EncodedPoints encoded = new EncodedPoints();
+        encoded.setFormat(format.name().toLowerCase(Locale.ROOT));
+        encoded.setCount(points.size());
+        encoded.setDimensions(names);
+        if (format == Format.POLYLINE) {
+            if (precision < 0 || precision > MAX_PRECISION) {
+                throw new IllegalArgumentException("precision 必须在 0 到 " + MAX_PRECISION + " 之间");
+            }
+            encodePolyline(points, withTime, withAltitude, precision, encoded);
+        } else if (format == Format.COLUMNAR) {
+            encodeColumnar(points, withTime, withAltitude, encoded);
+        } else {
+            throw new IllegalArgumentException("JSON 格式不需要编码");
+        }
+        return encoded;
+    }
+
+    private static void encodePolyline(List<TrackPoint> points, boolean withTime, boolean withAltitude,
+                                       int precision, EncodedPoints encoded) {
+        double factor = Math.pow(10, precision);
+        Long startTime = withTime ? firstEpochSecond(points) : null;
+        StringBuilder polyline = new StringBuilder(points.size() * (withTime || withAltitude ? 10 : 6));
+        long lastLatitude = 0;
+        long lastLongitude = 0;
+        long lastTime = 0;
+        long lastAltitude = 0;
+        for (TrackPoint point : points) {
+            long latitude = Math.round(point.getLatitude() * factor);
+            long longitude = Math.round(point.getLongitude() * factor);
+            appendValue(polyline, latitude - lastLatitude);
+            appendValue(polyline, longitude - lastLongitude);
+            lastLatitude = latitude;
+            lastLongitude = longitude;
+            // 缺失的时间和海拔沿用上一个点的值（增量为 0）
+            if (withTime) {
+                Long second = epochSecond(point.getCreateTime());
+                long time = second != null ? second - startTime : lastTime;
+                appendValue(polyline, time - lastTime);
+                lastTime = time;
+            }
+            if (withAltitude) {
+                long altitude = point.getAltitude() != null ? Math.round(point.getAltitude() * ALTITUDE_FACTOR) : lastAltitude;
+                appendValue(polyline, altitude - lastAltitude);
+                lastAltitude = altitude;
+            }
+        }
+        encoded.setPrecision(precision);
+        encoded.setStartTime(startTime);
+        encoded.setPolyline(polyline.toString());
+    }
+
+    private static void encodeColumnar(List<TrackPoint> points, boolean withTime, boolean withAltitude,
+                                       EncodedPoints encoded) {
+        int n = points.size();
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        Long[] times = withTime ? new Long[n] : null;
+        Double[] altitudes = withAltitude ? new Double[n] : null;
+        for (int i = 0; i < n; i++) {
+            TrackPoint point = points.get(i);
+            latitudes[i] = point.getLatitude();
+            longitudes[i] = point.getLongitude();
+            if (times != null) {
+                times[i] = epochSecond(point.getCreateTime());
+            }
+            if (altitudes != null) {
+                altitudes[i] = point.getAltitude();
+            }
+        }
+        encoded.setLat(latitudes);
+        encoded.setLng(longitudes);
+        encoded.setT(times);
+        encoded.setAlt(altitudes);
+    }
+
+    /**
+     * Google 编码折线的单个有符号值：左移一位（负数取反）后按 5 位分组，每组加 63 转为可打印字符
+     */
+    static void appendValue(StringBuilder out, long value) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            out.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        out.append((char) (shifted + 63));
+    }
+
+    private static long firstEpochSecond(List<TrackPoint> points) {
+        for (TrackPoint point : points) {
+            Long second = epochSecond(point.getCreateTime());
+            if (second != null) {
+                return second;
+            }
+        }
+        return 0L;
+    }
+
+    private static Long epochSecond(LocalDateTime time) {
+        // 与 PointConverter 一致，按服务器时区换算
+        return time != null ? time.atZone(ZoneId.systemDefault()).toEpochSecond() : null;
+    }
+}
@@ -0,0 +1,227 @@
+package com.track.util;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.track.dto.PointView;
+import com.track.entity.TrackPoint;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 轨迹点字段投影
+ * 地图展示等场景只需要坐标和时间，SELECT * 会把 address、satellite_count 等列一并读出和序列化。
+ * 投影决定查询的列（ID、轨迹ID、时间和经纬度用于排序、去重和压缩，总是读取）以及输出的字段。
+ * 不可变，线程安全。
+ */
+public final class PointProjection {
+
+    public enum Field {
+        ID("id", "id"),
+        LONGITUDE("longitude", "longitude"),
+        LATITUDE("latitude", "latitude"),
+        ALTITUDE("altitude", "altitude"),
+        SPEED("speed", "speed"),
+        ACCURACY("accuracy", "accuracy"),
+        SATELLITE_COUNT("satelliteCount", "satellite_count"),
+        ADDRESS("address", "address"),
+        CREATE_TIME("createTime", "create_time");
+
+        private final String property;
+        private final String column;
+
+        Field(String property, String column) {
+            this.property = property;
+            this.column = column;
+        }
+
+        public String getProperty() {
+            return property;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+
+        static Field of(String name) {
+            switch (name) {
+                case PointListEncoder.DIMENSION_LATITUDE:
+                    return LATITUDE;
+                case PointListEncoder.DIMENSION_LONGITUDE:
+                    return LONGITUDE;
+                case PointListEncoder.DIMENSION_TIME:
+                    return CREATE_TIME;
+                case PointListEncoder.DIMENSION_ALTITUDE:
+                    return ALTITUDE;
+                default:
+                    for (Field field : values()) {
+                        if (field.property.equals(name)) {
+                            return field;
+                        }
+                    }
+                    throw new IllegalArgumentException("不支持的字段: " + name);
+            }
+        }
+    }
+
+    /**
+     * 全部字段（不限定查询列）
+     */
+    public static final PointProjection FULL = new PointProjection(EnumSet.allOf(Field.class));
+
+    /**
+     * 坐标、时间和测量值（不含地址和卫星数），用于压缩、热力图、多分辨率层级和导出
+     */
+    public static final PointProjection MEASURES = new PointProjection(EnumSet.of(Field.ID, Field.LONGITUDE,
+            Field.LATITUDE, Field.ALTITUDE, Field.SPEED, Field.ACCURACY, Field.CREATE_TIME));
+
+    /**
+     * 总是查询的列
+     */
+    private static final Set<Field> REQUIRED = EnumSet.of(Field.ID, Field.LONGITUDE, Field.LATITUDE, Field.CREATE_TIME);
+
+    private final Set<Field> fields;
+
+    private PointProjection(Set<Field> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 解析 fields 参数（逗号分隔的 TrackPoint 属性名，也可使用 lat、lng、t、alt 简写）
+     *
+     * @param fields fields 参数，为空时返回 {@link #FULL}
+     * @throws IllegalArgumentException 字段名不支持
+     */
+    public static PointProjection parse(String fields) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return FULL;
+        }
+        Set<Field> selected = EnumSet.noneOf(Field.class);
+        for (String name : fields.split(",")) {
+            if (!name.trim().isEmpty()) {
+                selected.add(Field.of(name.trim()));
+            }
+        }
+        if (selected.isEmpty()) {
+            return FULL;
+        }
+        return selected.size() == Field.values().length ? FULL : new PointProjection(selected);
+    }
+
+    public boolean isFull() {
+        return fields.size() == Field.values().length;
+    }
+
+    public boolean contains(Field field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * 投影的唯一标识（用于缓存项名称）
+     */
+    public String key() {
+        return fields.stream().map(field -> field.property).collect(Collectors.joining(","));
+    }
+
+    /**
+     * 限定查询列，全部字段时不修改查询（与原有的 SELECT 一致）
+     */
+    public void applyTo(QueryWrapper<TrackPoint> queryWrapper) {
+        if (isFull()) {
+            return;
+        }
+        List<String> columns = new ArrayList<>();
+        columns.add("track_id");
+        for (Field field : Field.values()) {
+            if (fields.contains(field) || REQUIRED.contains(field)) {
+                columns.add(field.column);
+            }
+        }
+        queryWrapper.select(columns.toArray(new String[0]));
+    }
+
+    /**
+     * 清除投影外的字段（就地修改，只用于本次读取新建的轨迹点）
+     */
+    public TrackPoint retain(TrackPoint point) {
+        if (!contains(Field.ALTITUDE)) {
+            point.setAltitude(null);
+        }
+        if (!contains(Field.SPEED)) {
+            point.setSpeed(null);
+        }
+        if (!contains(Field.ACCURACY)) {
+            point.setAccuracy(null);
+        }
+        if (!contains(Field.SATELLITE_COUNT)) {
+            point.setSatelliteCount(null);
+        }
+        if (!contains(Field.ADDRESS)) {
+            point.setAddress(null);
+        }
+        return point;
+    }
+
+    /**
+     * 复制投影内的字段（用于写缓冲区等共享的轨迹点）
+     */
+    public TrackPoint copy(TrackPoint point) {
+        TrackPoint copy = new TrackPoint();
+        copy.setId(point.getId());
+        copy.setTrackId(point.getTrackId());
+        copy.setLongitude(point.getLongitude());
+        copy.setLatitude(point.getLatitude());
+        copy.setAltitude(point.getAltitude());
+        copy.setSpeed(point.getSpeed());
+        copy.setAccuracy(point.getAccuracy());
+        copy.setSatelliteCount(point.getSatelliteCount());
+        copy.setAddress(point.getAddress());
+        copy.setCreateTime(point.getCreateTime());
+        return retain(copy);
+    }
+
+    /**
+     * 转换为只包含投影字段的输出对象
+     */
+    public PointView view(TrackPoint point) {
+        PointView view = new PointView();
+        if (contains(Field.ID)) {
+            view.setId(point.getId());
+        }
+        if (contains(Field.LONGITUDE)) {
+            view.setLongitude(point.getLongitude());
+        }
+        if (contains(Field.LATITUDE)) {
+            view.setLatitude(point.getLatitude());
+        }
+        if (contains(Field.ALTITUDE)) {
+            view.setAltitude(point.getAltitude());
+        }
+        if (contains(Field.SPEED)) {
+            view.setSpeed(point.getSpeed());
+        }
+        if (contains(Field.ACCURACY)) {
+            view.setAccuracy(point.getAccuracy());
+        }
+        if (contains(Field.SATELLITE_COUNT)) {
+            view.setSatelliteCount(point.getSatelliteCount());
+        }
+        if (contains(Field.ADDRESS)) {
+            view.setAddress(point.getAddress());
+        }
+        if (contains(Field.CREATE_TIME)) {
+            view.setCreateTime(point.getCreateTime());
+        }
+        return view;
+    }
+
+    public List<PointView> view(List<TrackPoint> points) {
+        List<PointView> views = new ArrayList<>(points.size());
+        for (TrackPoint point : points) {
+            views.add(view(point));
+        }
+        return views;
+    }
+}
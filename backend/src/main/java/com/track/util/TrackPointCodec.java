@@ -0,0 +1,196 @@
+package com.track.util;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 轨迹点紧凑二进制编解码器
+ * 相比 JSON 数组，去掉了重复的字段名和十进制字符串，移动端上传体积可缩小数倍，服务端解析也无需反射。
+ *
+ * 格式（所有整数均为 varint，带符号整数先做 zigzag 编码）：
+ * <pre>
+ * 头部：  'T' 'P' 版本号(1字节) 点数(varint)
+ * 每个点：存在位图(1字节)
+ *         纬度增量、经度增量（定点数 ×1e6，相对上一个点）
+ *         时间增量（毫秒时间戳，相对上一个点；第一个点为绝对值）
+ *         [海拔增量]（厘米，相对上一个带海拔的点）    位图 bit0
+ *         [速度]（厘米/秒）                          位图 bit1
+ *         [精度]（厘米）                             位图 bit2
+ *         [卫星数量]                                 位图 bit3
+ *         [地址]（UTF-8 字节长度 + 内容）            位图 bit4
+ * </pre>
+ * 解码时直接把原始数值回调给 {@link PointSink}，不构建中间的 TrackPoint 对象。
+ * 每个点至少占 {@link #MIN_POINT_BYTES} 字节，已知数据长度时先按此校验头部声明的点数。
+ */
+public class TrackPointCodec {
+
+    /**
+     * 二进制上传格式的 Content-Type
+     */
+    public static final String MEDIA_TYPE = "application/x-track-points";
+
+    public static final int VERSION = 1;
+
+    public static final int HAS_ALTITUDE = 1;
+    public static final int HAS_SPEED = 1 << 1;
+    public static final int HAS_ACCURACY = 1 << 2;
+    public static final int HAS_SATELLITE_COUNT = 1 << 3;
+    public static final int HAS_ADDRESS = 1 << 4;
+
+    /**
+     * 经纬度定点数比例（与数据库 DECIMAL(10,6) 精度一致）
+     */
+    public static final double COORDINATE_SCALE = 1e6;
+
+    /**
+     * 海拔、速度、精度的定点数比例（与数据库 DECIMAL(x,2) 精度一致）
+     */
+    public static final double MEASURE_SCALE = 100.0;
+
+    /**
+     * 每个点的最小字节数：存在位图 + 纬度、经度、时间各至少 1 字节
+     */
+    public static final int MIN_POINT_BYTES = 4;
+
+    private static final int MAX_ADDRESS_BYTES = 1024;
+
+    private TrackPointCodec() {
+        // 工具类，私有构造函数
+    }
+
+    /**
+     * 解码回调：缺失的海拔、速度、精度为 NaN，缺失的卫星数量为 -1，缺失的地址为 null
+     */
+    public interface PointSink {
+
+        /**
+         * 点数已知时回调，便于预分配容量
+         */
+        default void begin(int count) {
+        }
+
+        void accept(double longitude, double latitude, long timestamp,
+                    double altitude, double speed, double accuracy,
+                    int satelliteCount, String address);
+    }
+
+    /**
+     * 从输入流解码轨迹点（数据长度未知）
+     *
+     * @param in 输入流（建议使用带缓冲的流）
+     * @param sink 解码回调
+     * @return 解码的点数
+     * @throws IOException 读取失败或数据被截断
+     * @throws IllegalArgumentException 数据格式错误
+     */
+    public static int decode(InputStream in, PointSink sink) throws IOException {
+        return decode(in, -1, sink);
+    }
+
+    /**
+     * 从输入流解码轨迹点
+     *
+     * @param in 输入流（建议使用带缓冲的流）
+     * @param length 数据总字节数，未知时传 -1
+     * @param sink 解码回调
+     * @return 解码的点数
+     * @throws IOException 读取失败或数据被截断
+     * @throws IllegalArgumentException 数据格式错误，或声明的点数超出数据长度所能容纳的点数
+     */
+    public static int decode(InputStream in, long length, PointSink sink) throws IOException {
+        if (readByte(in) != 'T' || readByte(in) != 'P') {
+            throw new IllegalArgumentException("二进制轨迹数据格式错误：文件头不匹配");
+        }
+        int version = readByte(in);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("不支持的二进制轨迹数据版本: " + version);
+        }
+
+        long count = readVarLong(in);
+        if (count < 0 || count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("二进制轨迹数据格式错误：点数非法");
+        }
+        // 在回调 begin（调用方据此预分配）之前，拒绝与数据长度不符的点数
+        if (length >= 0 && count > (length - 3 - varLongSize(count)) / MIN_POINT_BYTES) {
+            throw new IllegalArgumentException("二进制轨迹数据格式错误：点数与数据长度不符");
+        }
+        sink.begin((int) count);
+
+        long latitude = 0;
+        long longitude = 0;
+        long timestamp = 0;
+        long altitude = 0;
+        for (int i = 0; i < count; i++) {
+            int presence = readByte(in);
+            latitude += zigzagDecode(readVarLong(in));
+            longitude += zigzagDecode(readVarLong(in));
+            timestamp += zigzagDecode(readVarLong(in));
+
+            double altitudeValue = Double.NaN;
+            if ((presence & HAS_ALTITUDE) != 0) {
+                altitude += zigzagDecode(readVarLong(in));
+                altitudeValue = altitude / MEASURE_SCALE;
+            }
+            double speed = (presence & HAS_SPEED) != 0 ? zigzagDecode(readVarLong(in)) / MEASURE_SCALE : Double.NaN;
+            double accuracy = (presence & HAS_ACCURACY) != 0 ? zigzagDecode(readVarLong(in)) / MEASURE_SCALE : Double.NaN;
+            int satelliteCount = (presence & HAS_SATELLITE_COUNT) != 0 ? (int) readVarLong(in) : -1;
+            String address = (presence & HAS_ADDRESS) != 0 ? readString(in) : null;
+
+            sink.accept(longitude / COORDINATE_SCALE, latitude / COORDINATE_SCALE, timestamp,
+                    altitudeValue, speed, accuracy, satelliteCount, address);
+        }
+        return (int) count;
+    }
+
+    private static int readByte(InputStream in) throws IOException {
+        int b = in.read();
+        if (b < 0) {
+            throw new EOFException("二进制轨迹数据被截断");
+        }
+        return b;
+    }
+
+    private static long readVarLong(InputStream in) throws IOException {
+        long result = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(in);
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new IllegalArgumentException("二进制轨迹数据格式错误：varint 过长");
+    }
+
+    private static int varLongSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        long length = readVarLong(in);
+        if (length < 0 || length > MAX_ADDRESS_BYTES) {
+            throw new IllegalArgumentException("二进制轨迹数据格式错误：地址长度非法");
+        }
+        byte[] bytes = new byte[(int) length];
+        int offset = 0;
+        while (offset < bytes.length) {
+            int read = in.read(bytes, offset, bytes.length - offset);
+            if (read < 0) {
+                throw new EOFException("二进制轨迹数据被截断");
+            }
+            offset += read;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long zigzagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,354 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 轨迹段列式编解码器（已完成轨迹的压缩存储）
+ * 同一列的相邻值变化很小，按列做增量 + zigzag + varint 编码后每个点通常只需十几个字节，
+ * 而逐行存储的 track_points 每个点超过 100 字节（不含索引）。
+ *
+ * 格式（整数均为 varint，带符号整数先做 zigzag 编码）：
+ * <pre>
+ * 头部：  'T' 'S' 版本号(1字节) 点数(varint) 可选列标志(1字节)
+ * 纬度列：定点数 ×1e6 的增量
+ * 经度列：定点数 ×1e6 的增量
+ * 时间列：微秒时间戳（UTC 解释的 LocalDateTime）的增量，第一个为绝对值
+ * 可选列（标志位对应的列存在时）：存在位图（每点 1 bit）+ 有值点的数据
+ *         海拔（厘米，相对上一个有值点的增量）   标志 bit0
+ *         速度（厘米/秒）                       标志 bit1
+ *         精度（厘米）                          标志 bit2
+ *         卫星数量                              标志 bit3
+ *         地址（UTF-8 字节长度 + 内容）         标志 bit4
+ * </pre>
+ * 经纬度和海拔、速度、精度的定点精度与数据库 DECIMAL 列一致，时间精度与数据库 TIMESTAMP（微秒）一致，编码无损。
+ */
+public class TrackSegmentCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int HAS_ALTITUDE = 1;
+    private static final int HAS_SPEED = 1 << 1;
+    private static final int HAS_ACCURACY = 1 << 2;
+    private static final int HAS_SATELLITE_COUNT = 1 << 3;
+    private static final int HAS_ADDRESS = 1 << 4;
+
+    private static final double COORDINATE_SCALE = 1e6;
+
+    private static final double MEASURE_SCALE = 100.0;
+
+    private TrackSegmentCodec() {
+        // 工具类，私有构造函数
+    }
+
+    /**
+     * 编码一段轨迹点（按时间升序）
+     *
+     * @param points 轨迹点列表
+     * @return 编码后的字节
+     */
+    public static byte[] encode(List<TrackPoint> points) {
+        int count = points.size();
+        Writer out = new Writer(count * 12 + 16);
+        out.writeByte('T');
+        out.writeByte('S');
+        out.writeByte(VERSION);
+        out.writeVarLong(count);
+
+        int flags = 0;
+        for (TrackPoint point : points) {
+            flags |= point.getAltitude() != null ? HAS_ALTITUDE : 0;
+            flags |= point.getSpeed() != null ? HAS_SPEED : 0;
+            flags |= point.getAccuracy() != null ? HAS_ACCURACY : 0;
+            flags |= point.getSatelliteCount() != null ? HAS_SATELLITE_COUNT : 0;
+            flags |= point.getAddress() != null ? HAS_ADDRESS : 0;
+        }
+        out.writeByte(flags);
+
+        long previous = 0;
+        for (TrackPoint point : points) {
+            long value = toFixed(point.getLatitude(), COORDINATE_SCALE);
+            out.writeSignedVarLong(value - previous);
+            previous = value;
+        }
+        previous = 0;
+        for (TrackPoint point : points) {
+            long value = toFixed(point.getLongitude(), COORDINATE_SCALE);
+            out.writeSignedVarLong(value - previous);
+            previous = value;
+        }
+        previous = 0;
+        for (TrackPoint point : points) {
+            long value = toEpochMicro(point.getCreateTime());
+            out.writeSignedVarLong(value - previous);
+            previous = value;
+        }
+
+        if ((flags & HAS_ALTITUDE) != 0) {
+            writePresence(out, points, HAS_ALTITUDE);
+            previous = 0;
+            for (TrackPoint point : points) {
+                if (point.getAltitude() != null) {
+                    long value = toFixed(point.getAltitude(), MEASURE_SCALE);
+                    out.writeSignedVarLong(value - previous);
+                    previous = value;
+                }
+            }
+        }
+        if ((flags & HAS_SPEED) != 0) {
+            writePresence(out, points, HAS_SPEED);
+            for (TrackPoint point : points) {
+                if (point.getSpeed() != null) {
+                    out.writeSignedVarLong(toFixed(point.getSpeed(), MEASURE_SCALE));
+                }
+            }
+        }
+        if ((flags & HAS_ACCURACY) != 0) {
+            writePresence(out, points, HAS_ACCURACY);
+            for (TrackPoint point : points) {
+                if (point.getAccuracy() != null) {
+                    out.writeSignedVarLong(toFixed(point.getAccuracy(), MEASURE_SCALE));
+                }
+            }
+        }
+        if ((flags & HAS_SATELLITE_COUNT) != 0) {
+            writePresence(out, points, HAS_SATELLITE_COUNT);
+            for (TrackPoint point : points) {
+                if (point.getSatelliteCount() != null) {
+                    out.writeVarLong(point.getSatelliteCount());
+                }
+            }
+        }
+        if ((flags & HAS_ADDRESS) != 0) {
+            writePresence(out, points, HAS_ADDRESS);
+            for (TrackPoint point : points) {
+                if (point.getAddress() != null) {
+                    byte[] bytes = point.getAddress().getBytes(StandardCharsets.UTF_8);
+                    out.writeVarLong(bytes.length);
+                    out.writeByteArray(bytes);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 解码一段轨迹点
+     *
+     * @param data 编码后的字节
+     * @param trackId 轨迹ID
+     * @return 轨迹点列表（按时间升序）
+     * @throws IllegalStateException 数据损坏
+     */
+    public static List<TrackPoint> decode(byte[] data, Long trackId) {
+        Reader in = new Reader(data);
+        if (in.readByte() != 'T' || in.readByte() != 'S') {
+            throw new IllegalStateException("轨迹段数据格式错误：文件头不匹配");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("不支持的轨迹段数据版本: " + version);
+        }
+        int count = (int) in.readVarLong();
+        int flags = in.readByte();
+
+        TrackPoint[] points = new TrackPoint[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = new TrackPoint();
+            points[i].setTrackId(trackId);
+        }
+
+        long value = 0;
+        for (int i = 0; i < count; i++) {
+            value += in.readSignedVarLong();
+            points[i].setLatitude(value / COORDINATE_SCALE);
+        }
+        value = 0;
+        for (int i = 0; i < count; i++) {
+            value += in.readSignedVarLong();
+            points[i].setLongitude(value / COORDINATE_SCALE);
+        }
+        value = 0;
+        for (int i = 0; i < count; i++) {
+            value += in.readSignedVarLong();
+            points[i].setCreateTime(toLocalDateTime(value));
+        }
+
+        if ((flags & HAS_ALTITUDE) != 0) {
+            byte[] presence = in.readBytes((count + 7) / 8);
+            value = 0;
+            for (int i = 0; i < count; i++) {
+                if (isPresent(presence, i)) {
+                    value += in.readSignedVarLong();
+                    points[i].setAltitude(value / MEASURE_SCALE);
+                }
+            }
+        }
+        if ((flags & HAS_SPEED) != 0) {
+            byte[] presence = in.readBytes((count + 7) / 8);
+            for (int i = 0; i < count; i++) {
+                if (isPresent(presence, i)) {
+                    points[i].setSpeed(in.readSignedVarLong() / MEASURE_SCALE);
+                }
+            }
+        }
+        if ((flags & HAS_ACCURACY) != 0) {
+            byte[] presence = in.readBytes((count + 7) / 8);
+            for (int i = 0; i < count; i++) {
+                if (isPresent(presence, i)) {
+                    points[i].setAccuracy(in.readSignedVarLong() / MEASURE_SCALE);
+                }
+            }
+        }
+        if ((flags & HAS_SATELLITE_COUNT) != 0) {
+            byte[] presence = in.readBytes((count + 7) / 8);
+            for (int i = 0; i < count; i++) {
+                if (isPresent(presence, i)) {
+                    points[i].setSatelliteCount((int) in.readVarLong());
+                }
+            }
+        }
+        if ((flags & HAS_ADDRESS) != 0) {
+            byte[] presence = in.readBytes((count + 7) / 8);
+            for (int i = 0; i < count; i++) {
+                if (isPresent(presence, i)) {
+                    int length = (int) in.readVarLong();
+                    points[i].setAddress(new String(in.readBytes(length), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        return Arrays.asList(points);
+    }
+
+    private static void writePresence(Writer out, List<TrackPoint> points, int column) {
+        byte[] presence = new byte[(points.size() + 7) / 8];
+        for (int i = 0; i < points.size(); i++) {
+            TrackPoint point = points.get(i);
+            boolean present;
+            switch (column) {
+                case HAS_ALTITUDE:
+                    present = point.getAltitude() != null;
+                    break;
+                case HAS_SPEED:
+                    present = point.getSpeed() != null;
+                    break;
+                case HAS_ACCURACY:
+                    present = point.getAccuracy() != null;
+                    break;
+                case HAS_SATELLITE_COUNT:
+                    present = point.getSatelliteCount() != null;
+                    break;
+                default:
+                    present = point.getAddress() != null;
+                    break;
+            }
+            if (present) {
+                presence[i >>> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        out.writeByteArray(presence);
+    }
+
+    private static boolean isPresent(byte[] presence, int index) {
+        return (presence[index >>> 3] & (1 << (index & 7))) != 0;
+    }
+
+    private static long toFixed(double value, double scale) {
+        return Math.round(value * scale);
+    }
+
+    private static long toEpochMicro(LocalDateTime time) {
+        if (time == null) {
+            return 0;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMicro) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicro, 1_000_000),
+                (int) Math.floorMod(epochMicro, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+
+    /**
+     * 基于字节数组的写入器
+     */
+    private static class Writer extends ByteArrayOutputStream {
+
+        Writer(int size) {
+            super(size);
+        }
+
+        void writeByte(int b) {
+            write(b);
+        }
+
+        void writeByteArray(byte[] bytes) {
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeSignedVarLong(long value) {
+            writeVarLong((value << 1) ^ (value >> 63));
+        }
+    }
+
+    /**
+     * 基于字节数组的读取器
+     */
+    private static class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            if (position >= data.length) {
+                throw new IllegalStateException("轨迹段数据被截断");
+            }
+            return data[position++] & 0xFF;
+        }
+
+        byte[] readBytes(int length) {
+            if (length < 0 || position + length > data.length) {
+                throw new IllegalStateException("轨迹段数据被截断");
+            }
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalStateException("轨迹段数据格式错误：varint 过长");
+        }
+
+        long readSignedVarLong() {
+            long value = readVarLong();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * 轨迹统计累加器（单次遍历、基本类型、无对象分配）
+ * 所有统计指标在一次遍历中同时计算，状态全部是基本类型字段，可以从持久化的统计聚合恢复后继续累加：
+ * <ul>
+ *     <li>距离：Haversine 公式，缓存上一个点纬度的余弦值，每段只计算一次 cos</li>
+ *     <li>速度：速度之和与最大速度（米/秒），平均速度按总点数计算</li>
+ *     <li>海拔：最低/最高海拔，以及带滞回阈值的累计爬升/下降（过滤 GPS 海拔抖动）</li>
+ *     <li>时间：起止时间、运动时间（相邻两点间平均速度不低于阈值的时间段之和）</li>
+ *     <li>范围：经纬度外包矩形（按地图范围筛选轨迹）</li>
+ * </ul>
+ * 时间统一使用把 LocalDateTime 按 UTC 解释得到的微秒数，与原先 Duration.between(LocalDateTime) 的结果一致；
+ * 起止时间保持数据库 TIMESTAMP 的微秒精度（分区表模式按起止时间裁剪分区，截断会漏掉最后一个点）。
+ * 非线程安全，每次统计使用独立实例。
+ */
+public class TrackStatsAccumulator {
+
+    /**
+     * 判定为运动状态的最低速度（米/秒）
+     */
+    public static final double MOVING_SPEED_THRESHOLD = 0.5;
+
+    /**
+     * 累计爬升/下降的海拔滞回阈值（米）
+     */
+    public static final double ELEVATION_THRESHOLD = 3.0;
+
+    /**
+     * 两点间隔超过该值（毫秒）视为信号中断，不计入运动时间
+     */
+    public static final long MAX_MOVING_GAP_MS = 5 * 60 * 1000L;
+
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private int pointCount;
+    private double totalDistance;
+    private double speedSum;
+    private double maxSpeed = Double.NaN;
+    private double minAltitude = Double.NaN;
+    private double maxAltitude = Double.NaN;
+    private double elevationGain;
+    private double elevationLoss;
+    private long movingTimeMicros;
+    private long firstTime = NO_TIME;
+    private long lastTime = NO_TIME;
+    private double minLatitude = Double.NaN;
+    private double maxLatitude = Double.NaN;
+    private double minLongitude = Double.NaN;
+    private double maxLongitude = Double.NaN;
+
+    // 上一个点的状态，用于逐段增量计算
+    private double lastLatitude = Double.NaN;
+    private double lastLongitude = Double.NaN;
+    private double lastCosLatitude;
+    private long previousTime = NO_TIME;
+    private double elevationReference = Double.NaN;
+
+    /**
+     * 从已有统计恢复累加状态，缺失的数值传 NaN，缺失的时间传 null
+     */
+    public TrackStatsAccumulator restore(int pointCount, double totalDistance, double speedSum, double maxSpeed,
+                                         double minAltitude, double maxAltitude, double elevationGain,
+                                         double elevationLoss, long movingTimeMs, double elevationReference,
+                                         LocalDateTime firstTime, LocalDateTime lastTime,
+                                         double lastLatitude, double lastLongitude) {
+        this.pointCount = pointCount;
+        this.totalDistance = totalDistance;
+        this.speedSum = speedSum;
+        this.maxSpeed = maxSpeed;
+        this.minAltitude = minAltitude;
+        this.maxAltitude = maxAltitude;
+        this.elevationGain = elevationGain;
+        this.elevationLoss = elevationLoss;
+        this.movingTimeMicros = movingTimeMs * 1000;
+        this.elevationReference = elevationReference;
+        this.firstTime = toMicros(firstTime);
+        this.lastTime = toMicros(lastTime);
+        this.previousTime = this.lastTime;
+        this.lastLatitude = lastLatitude;
+        this.lastLongitude = lastLongitude;
+        if (!Double.isNaN(lastLatitude)) {
+            this.lastCosLatitude = Math.cos(Math.toRadians(lastLatitude));
+        }
+        return this;
+    }
+
+    /**
+     * 恢复外包矩形，缺失传 NaN（历史统计没有外包矩形时只统计新累加的点）
+     */
+    public TrackStatsAccumulator restoreBounds(double minLatitude, double maxLatitude,
+                                               double minLongitude, double maxLongitude) {
+        this.minLatitude = minLatitude;
+        this.maxLatitude = maxLatitude;
+        this.minLongitude = minLongitude;
+        this.maxLongitude = maxLongitude;
+        return this;
+    }
+
+    /**
+     * 累加一个点
+     *
+     * @param latitude 纬度
+     * @param longitude 经度
+     * @param time 时间（微秒），缺失为 Long.MIN_VALUE
+     * @param altitude 海拔（米），缺失为 NaN
+     * @param speed 速度（米/秒），缺失为 NaN
+     */
+    public void add(double latitude, double longitude, long time, double altitude, double speed) {
+        pointCount++;
+
+        // 速度
+        if (!Double.isNaN(speed)) {
+            speedSum += speed;
+            if (Double.isNaN(maxSpeed) || speed > maxSpeed) {
+                maxSpeed = speed;
+            }
+        }
+
+        // 海拔：最值 + 滞回累计爬升/下降
+        if (!Double.isNaN(altitude)) {
+            if (Double.isNaN(minAltitude) || altitude < minAltitude) {
+                minAltitude = altitude;
+            }
+            if (Double.isNaN(maxAltitude) || altitude > maxAltitude) {
+                maxAltitude = altitude;
+            }
+            if (Double.isNaN(elevationReference)) {
+                elevationReference = altitude;
+            } else {
+                double delta = altitude - elevationReference;
+                if (delta >= ELEVATION_THRESHOLD) {
+                    elevationGain += delta;
+                    elevationReference = altitude;
+                } else if (delta <= -ELEVATION_THRESHOLD) {
+                    elevationLoss -= delta;
+                    elevationReference = altitude;
+                }
+            }
+        }
+
+        // 外包矩形
+        if (Double.isNaN(minLatitude) || latitude < minLatitude) {
+            minLatitude = latitude;
+        }
+        if (Double.isNaN(maxLatitude) || latitude > maxLatitude) {
+            maxLatitude = latitude;
+        }
+        if (Double.isNaN(minLongitude) || longitude < minLongitude) {
+            minLongitude = longitude;
+        }
+        if (Double.isNaN(maxLongitude) || longitude > maxLongitude) {
+            maxLongitude = longitude;
+        }
+
+        // 距离：复用上一个点的 cos(纬度)
+        double latitudeRadians = Math.toRadians(latitude);
+        double cosLatitude = Math.cos(latitudeRadians);
+        double segment = 0;
+        if (!Double.isNaN(lastLatitude)) {
+            double sinHalfLat = Math.sin((latitudeRadians - Math.toRadians(lastLatitude)) * 0.5);
+            double sinHalfLng = Math.sin(Math.toRadians(longitude - lastLongitude) * 0.5);
+            double a = sinHalfLat * sinHalfLat + lastCosLatitude * cosLatitude * sinHalfLng * sinHalfLng;
+            segment = 2 * GeoUtils.EARTH_RADIUS * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+            totalDistance += segment;
+        }
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        lastCosLatitude = cosLatitude;
+
+        // 时间：起止时间和运动时间
+        if (time != NO_TIME) {
+            if (firstTime == NO_TIME || time < firstTime) {
+                firstTime = time;
+            }
+            if (lastTime == NO_TIME || time > lastTime) {
+                lastTime = time;
+            }
+            if (previousTime != NO_TIME) {
+                long interval = time - previousTime;
+                if (interval > 0 && interval <= MAX_MOVING_GAP_MS * 1000
+                        && segment * 1_000_000 >= MOVING_SPEED_THRESHOLD * interval) {
+                    movingTimeMicros += interval;
+                }
+            }
+            previousTime = time;
+        }
+    }
+
+    /**
+     * 累加一组轨迹点
+     */
+    public TrackStatsAccumulator addAll(List<TrackPoint> trackPoints) {
+        for (int i = 0, size = trackPoints.size(); i < size; i++) {
+            TrackPoint point = trackPoints.get(i);
+            add(point.getLatitude(), point.getLongitude(), toMicros(point.getCreateTime()),
+                    point.getAltitude() != null ? point.getAltitude() : Double.NaN,
+                    point.getSpeed() != null ? point.getSpeed() : Double.NaN);
+        }
+        return this;
+    }
+
+    /**
+     * 直接按列累加一个点块（不经过 TrackPoint 对象，点块时间只有毫秒精度）
+     */
+    public TrackStatsAccumulator addAll(PointBlock block) {
+        for (int i = 0, size = block.size(); i < size; i++) {
+            add(block.latitude(i), block.longitude(i), block.localTimestamp(i) * 1000, block.altitude(i), block.speed(i));
+        }
+        return this;
+    }
+
+    public int getPointCount() {
+        return pointCount;
+    }
+
+    public double getTotalDistance() {
+        return totalDistance;
+    }
+
+    public double getSpeedSum() {
+        return speedSum;
+    }
+
+    /**
+     * 最大速度（米/秒），没有速度数据时为 NaN
+     */
+    public double getMaxSpeed() {
+        return maxSpeed;
+    }
+
+    /**
+     * 最低海拔（米），没有海拔数据时为 NaN
+     */
+    public double getMinAltitude() {
+        return minAltitude;
+    }
+
+    /**
+     * 最高海拔（米），没有海拔数据时为 NaN
+     */
+    public double getMaxAltitude() {
+        return maxAltitude;
+    }
+
+    public double getElevationGain() {
+        return elevationGain;
+    }
+
+    public double getElevationLoss() {
+        return elevationLoss;
+    }
+
+    /**
+     * 当前滞回基准海拔，持久化后用于下一批继续累计爬升/下降
+     */
+    public double getElevationReference() {
+        return elevationReference;
+    }
+
+    public long getMovingTimeMs() {
+        return movingTimeMicros / 1000;
+    }
+
+    public LocalDateTime getFirstTime() {
+        return toLocalDateTime(firstTime);
+    }
+
+    public LocalDateTime getLastTime() {
+        return toLocalDateTime(lastTime);
+    }
+
+    /**
+     * 外包矩形最小纬度，没有点时为 NaN（其余三个边界同）
+     */
+    public double getMinLatitude() {
+        return minLatitude;
+    }
+
+    public double getMaxLatitude() {
+        return maxLatitude;
+    }
+
+    public double getMinLongitude() {
+        return minLongitude;
+    }
+
+    public double getMaxLongitude() {
+        return maxLongitude;
+    }
+
+    public double getLastLatitude() {
+        return lastLatitude;
+    }
+
+    public double getLastLongitude() {
+        return lastLongitude;
+    }
+
+    /**
+     * 平均速度（米/秒，按总点数平均）
+     */
+    public double getAverageSpeed() {
+        return pointCount > 0 ? speedSum / pointCount : 0;
+    }
+
+    /**
+     * 运动配速（秒/公里），距离为 0 时为 NaN
+     */
+    public double getPace() {
+        return pace(getMovingTimeMs(), totalDistance);
+    }
+
+    /**
+     * 按运动时间和距离计算配速（秒/公里），距离为 0 时为 NaN
+     */
+    public static double pace(long movingTimeMs, double totalDistance) {
+        return totalDistance > 0 ? movingTimeMs / totalDistance : Double.NaN;
+    }
+
+    private static long toMicros(LocalDateTime time) {
+        if (time == null) {
+            return NO_TIME;
+        }
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+
+    private static LocalDateTime toLocalDateTime(long micros) {
+        if (micros == NO_TIME) {
+            return null;
+        }
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,332 @@
+package com.track.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mapbox Vector Tile 编码器（MVT 2.1，只支持单图层的线要素）
+ * 直接按 vector_tile.proto 写出 protobuf，不依赖第三方库：
+ * <ul>
+ *     <li>坐标：经纬度按 Web 墨卡托投影到瓦片坐标系（默认 4096 × 4096），超出瓦片加缓冲区的部分被裁剪</li>
+ *     <li>几何：MoveTo/LineTo 命令 + ZigZag 编码的坐标增量，连续重复的整数坐标被合并</li>
+ *     <li>属性：键和值在图层内去重，要素只保存下标</li>
+ * </ul>
+ * 非线程安全，每个瓦片使用独立实例。
+ */
+public class VectorTileEncoder {
+
+    /**
+     * 默认瓦片坐标范围
+     */
+    public static final int DEFAULT_EXTENT = 4096;
+
+    /**
+     * 默认缓冲区（瓦片坐标单位），避免线条在瓦片边界处被截断出缝隙
+     */
+    public static final int DEFAULT_BUFFER = 64;
+
+    private static final int GEOMETRY_LINESTRING = 2;
+    private static final int COMMAND_MOVE_TO = 1;
+    private static final int COMMAND_LINE_TO = 2;
+
+    private final String layerName;
+    private final int zoom;
+    private final int tileX;
+    private final int tileY;
+    private final int extent;
+    private final int buffer;
+
+    private final Map<String, Integer> keys = new LinkedHashMap<>();
+    private final Map<Object, Integer> values = new LinkedHashMap<>();
+    private final List<byte[]> features = new ArrayList<>();
+
+    /**
+     * @param layerName 图层名称
+     * @param zoom 瓦片缩放级别
+     * @param tileX 瓦片列号
+     * @param tileY 瓦片行号
+     */
+    public VectorTileEncoder(String layerName, int zoom, int tileX, int tileY) {
+        this(layerName, zoom, tileX, tileY, DEFAULT_EXTENT, DEFAULT_BUFFER);
+    }
+
+    public VectorTileEncoder(String layerName, int zoom, int tileX, int tileY, int extent, int buffer) {
+        this.layerName = layerName;
+        this.zoom = zoom;
+        this.tileX = tileX;
+        this.tileY = tileY;
+        this.extent = extent;
+        this.buffer = buffer;
+    }
+
+    /**
+     * 添加一条线要素，裁剪后没有剩余部分时不添加
+     *
+     * @param id 要素ID
+     * @param properties 属性（值支持 String、整数和浮点数，null 值忽略）
+     * @param latitudes 纬度
+     * @param longitudes 经度
+     * @return 是否添加了要素
+     */
+    public boolean addLine(long id, Map<String, Object> properties, double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double scale = (double) extent / MercatorGrid.TILE_SIZE;
+        double worldSize = (double) MercatorGrid.TILE_SIZE * (1L << zoom);
+        double[] x = new double[n];
+        double[] y = new double[n];
+        double originX = (double) tileX * MercatorGrid.TILE_SIZE;
+        double originY = (double) tileY * MercatorGrid.TILE_SIZE;
+        for (int i = 0; i < n; i++) {
+            x[i] = (MercatorGrid.pixelX(longitudes[i], worldSize) - originX) * scale;
+            y[i] = (MercatorGrid.pixelY(latitudes[i], worldSize) - originY) * scale;
+        }
+
+        List<int[]> parts = clip(x, y, -buffer, extent + buffer);
+        if (parts.isEmpty()) {
+            return false;
+        }
+
+        ProtobufWriter geometry = new ProtobufWriter();
+        int cursorX = 0;
+        int cursorY = 0;
+        for (int[] part : parts) {
+            int count = part.length / 2;
+            geometry.writeVarint(command(COMMAND_MOVE_TO, 1));
+            geometry.writeVarint(zigZag(part[0] - cursorX));
+            geometry.writeVarint(zigZag(part[1] - cursorY));
+            geometry.writeVarint(command(COMMAND_LINE_TO, count - 1));
+            for (int i = 1; i < count; i++) {
+                geometry.writeVarint(zigZag(part[2 * i] - part[2 * i - 2]));
+                geometry.writeVarint(zigZag(part[2 * i + 1] - part[2 * i - 1]));
+            }
+            cursorX = part[part.length - 2];
+            cursorY = part[part.length - 1];
+        }
+
+        ProtobufWriter tags = new ProtobufWriter();
+        for (Map.Entry<String, Object> property : properties.entrySet()) {
+            if (property.getValue() == null) {
+                continue;
+            }
+            tags.writeVarint(keys.computeIfAbsent(property.getKey(), key -> keys.size()));
+            tags.writeVarint(values.computeIfAbsent(normalize(property.getValue()), value -> values.size()));
+        }
+
+        ProtobufWriter feature = new ProtobufWriter();
+        feature.writeVarintField(1, id);
+        feature.writeBytesField(2, tags.toByteArray());
+        feature.writeVarintField(3, GEOMETRY_LINESTRING);
+        feature.writeBytesField(4, geometry.toByteArray());
+        features.add(feature.toByteArray());
+        return true;
+    }
+
+    /**
+     * 要素数量
+     */
+    public int size() {
+        return features.size();
+    }
+
+    /**
+     * 编码为瓦片，没有要素时返回空数组（合法的空瓦片）
+     */
+    public byte[] encode() {
+        if (features.isEmpty()) {
+            return new byte[0];
+        }
+        ProtobufWriter layer = new ProtobufWriter();
+        layer.writeVarintField(15, 2);
+        layer.writeBytesField(1, layerName.getBytes(StandardCharsets.UTF_8));
+        for (byte[] feature : features) {
+            layer.writeBytesField(2, feature);
+        }
+        for (String key : keys.keySet()) {
+            layer.writeBytesField(3, key.getBytes(StandardCharsets.UTF_8));
+        }
+        for (Object value : values.keySet()) {
+            layer.writeBytesField(4, encodeValue(value));
+        }
+        layer.writeVarintField(5, extent);
+
+        ProtobufWriter tile = new ProtobufWriter();
+        tile.writeBytesField(3, layer.toByteArray());
+        return tile.toByteArray();
+    }
+
+    /**
+     * 把折线裁剪到正方形 [min, max] × [min, max] 内（逐段 Liang-Barsky），
+     * 返回取整后的若干连续部分（x0, y0, x1, y1, ...），每部分至少两个不同的点
+     */
+    static List<int[]> clip(double[] x, double[] y, double min, double max) {
+        List<int[]> parts = new ArrayList<>();
+        IntList current = new IntList();
+        for (int i = 0; i + 1 < x.length; i++) {
+            double[] segment = clipSegment(x[i], y[i], x[i + 1], y[i + 1], min, max);
+            if (segment == null) {
+                flush(current, parts);
+                continue;
+            }
+            int startX = (int) Math.round(segment[0]);
+            int startY = (int) Math.round(segment[1]);
+            // 线段起点被裁剪，说明从瓦片外重新进入，开始新的部分
+            if (segment[0] != x[i] || segment[1] != y[i]) {
+                flush(current, parts);
+            }
+            current.addPoint(startX, startY);
+            current.addPoint((int) Math.round(segment[2]), (int) Math.round(segment[3]));
+            // 线段终点被裁剪，说明离开瓦片
+            if (segment[2] != x[i + 1] || segment[3] != y[i + 1]) {
+                flush(current, parts);
+            }
+        }
+        flush(current, parts);
+        return parts;
+    }
+
+    private static double[] clipSegment(double x0, double y0, double x1, double y1, double min, double max) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double t0 = 0;
+        double t1 = 1;
+        double[] p = {-dx, dx, -dy, dy};
+        double[] q = {x0 - min, max - x0, y0 - min, max - y0};
+        for (int i = 0; i < 4; i++) {
+            if (p[i] == 0) {
+                if (q[i] < 0) {
+                    return null;
+                }
+            } else {
+                double t = q[i] / p[i];
+                if (p[i] < 0) {
+                    t0 = Math.max(t0, t);
+                } else {
+                    t1 = Math.min(t1, t);
+                }
+                if (t0 > t1) {
+                    return null;
+                }
+            }
+        }
+        return new double[]{
+                t0 == 0 ? x0 : x0 + t0 * dx, t0 == 0 ? y0 : y0 + t0 * dy,
+                t1 == 1 ? x1 : x0 + t1 * dx, t1 == 1 ? y1 : y0 + t1 * dy};
+    }
+
+    private static void flush(IntList current, List<int[]> parts) {
+        if (current.pointCount() >= 2) {
+            parts.add(current.toArray());
+        }
+        current.clear();
+    }
+
+    private static int command(int id, int count) {
+        return (id & 0x7) | (count << 3);
+    }
+
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static Object normalize(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Float) {
+            return ((Float) value).doubleValue();
+        }
+        if (value instanceof Long || value instanceof Double || value instanceof String) {
+            return value;
+        }
+        return value.toString();
+    }
+
+    private static byte[] encodeValue(Object value) {
+        ProtobufWriter writer = new ProtobufWriter();
+        if (value instanceof String) {
+            writer.writeBytesField(1, ((String) value).getBytes(StandardCharsets.UTF_8));
+        } else if (value instanceof Double) {
+            writer.writeFixed64Field(3, Double.doubleToLongBits((Double) value));
+        } else {
+            long number = (Long) value;
+            writer.writeVarintField(6, (number << 1) ^ (number >> 63));
+        }
+        return writer.toByteArray();
+    }
+
+    /**
+     * 去除连续重复点的 int 列表
+     */
+    private static class IntList {
+        private int[] data = new int[64];
+        private int size;
+
+        void addPoint(int x, int y) {
+            if (size >= 2 && data[size - 2] == x && data[size - 1] == y) {
+                return;
+            }
+            if (size + 2 > data.length) {
+                int[] grown = new int[data.length * 2];
+                System.arraycopy(data, 0, grown, 0, size);
+                data = grown;
+            }
+            data[size++] = x;
+            data[size++] = y;
+        }
+
+        int pointCount() {
+            return size / 2;
+        }
+
+        int[] toArray() {
+            int[] result = new int[size];
+            System.arraycopy(data, 0, result, 0, size);
+            return result;
+        }
+
+        void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * 最小的 protobuf 写入器（varint、64 位定长、长度前缀三种线型）
+     */
+    private static class ProtobufWriter {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        void writeVarintField(int field, long value) {
+            writeVarint((long) field << 3);
+            writeVarint(value);
+        }
+
+        void writeFixed64Field(int field, long value) {
+            writeVarint((long) field << 3 | 1);
+            for (int i = 0; i < 8; i++) {
+                out.write((int) (value >>> (8 * i)) & 0xFF);
+            }
+        }
+
+        void writeBytesField(int field, byte[] bytes) {
+            writeVarint((long) field << 3 | 2);
+            writeVarint(bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+
+        byte[] toByteArray() {
+            return out.toByteArray();
+        }
+    }
+}
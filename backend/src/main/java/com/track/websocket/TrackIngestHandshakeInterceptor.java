@@ -0,0 +1,116 @@
+package com.track.websocket;
+
+import com.track.security.UserPrincipal;
+import com.track.service.TrackService;
+import com.track.util.JwtUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Map;
+
+/**
+ * 轨迹采集通道握手拦截器
+ * 浏览器的 WebSocket API 无法设置请求头，因此令牌既可以放在 Authorization 头，也可以放在 token 查询参数中。
+ * 握手时校验令牌并确认轨迹属于当前用户，校验通过后将用户ID和轨迹ID写入会话属性，后续帧不再重复校验。
+ */
+@Component
+public class TrackIngestHandshakeInterceptor implements HandshakeInterceptor {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackIngestHandshakeInterceptor.class);
+
+    public static final String ATTR_USER_ID = "userId";
+
+    public static final String ATTR_TRACK_ID = "trackId";
+
+    private static final String PATH_PATTERN = "/ws/tracks/{trackId}/points";
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private TrackService trackService;
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+
+        String jwt = parseJwt(servletRequest);
+        if (jwt == null || !jwtUtils.validateJwtToken(jwt)) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        Long trackId = parseTrackId(servletRequest);
+        if (trackId == null) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+
+        UserPrincipal userPrincipal;
+        try {
+            userPrincipal = (UserPrincipal) userDetailsService.loadUserByUsername(jwtUtils.getUserNameFromJwtToken(jwt));
+        } catch (Exception e) {
+            log.warn("WebSocket 握手加载用户失败: {}", e.getMessage());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        // 验证轨迹属于当前用户
+        if (!trackService.existsByIdAndUserId(trackId, userPrincipal.getId())) {
+            response.setStatusCode(HttpStatus.FORBIDDEN);
+            return false;
+        }
+
+        attributes.put(ATTR_USER_ID, userPrincipal.getId());
+        attributes.put(ATTR_TRACK_ID, trackId);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private String parseJwt(HttpServletRequest request) {
+        String headerAuth = request.getHeader("Authorization");
+        if (StringUtils.hasText(headerAuth) && headerAuth.startsWith("Bearer ")) {
+            return headerAuth.substring(7);
+        }
+        String token = request.getParameter("token");
+        return StringUtils.hasText(token) ? token : null;
+    }
+
+    private Long parseTrackId(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (!pathMatcher.match(PATH_PATTERN, path)) {
+            return null;
+        }
+        try {
+            return Long.valueOf(pathMatcher.extractUriTemplateVariables(PATH_PATTERN, path).get("trackId"));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.track.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实时采集通道会话登记表（按轨迹ID索引）
+ * 轨迹被删除或不再进行中时关闭该轨迹的全部采集连接，避免已结束的轨迹继续写入缓冲区。
+ * 只登记本节点上的连接，多节点部署时各节点分别关闭自己的连接。
+ */
+@Component
+public class TrackIngestSessionRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackIngestSessionRegistry.class);
+
+    private final Map<Long, Set<WebSocketSession>> sessions = new ConcurrentHashMap<>();
+
+    public void register(Long trackId, WebSocketSession session) {
+        sessions.computeIfAbsent(trackId, id -> ConcurrentHashMap.newKeySet()).add(session);
+    }
+
+    public void unregister(Long trackId, WebSocketSession session) {
+        sessions.computeIfPresent(trackId, (id, trackSessions) -> {
+            trackSessions.remove(session);
+            return trackSessions.isEmpty() ? null : trackSessions;
+        });
+    }
+
+    /**
+     * 关闭指定轨迹的全部采集连接
+     *
+     * @param trackId 轨迹ID
+     * @param reason 关闭原因（随关闭帧发送给客户端）
+     */
+    public void closeTrack(Long trackId, String reason) {
+        Set<WebSocketSession> trackSessions = sessions.remove(trackId);
+        if (trackSessions == null) {
+            return;
+        }
+        CloseStatus status = CloseStatus.NORMAL.withReason(reason);
+        for (WebSocketSession session : trackSessions) {
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.warn("关闭轨迹 {} 的实时采集通道失败: {}", trackId, e.getMessage());
+            }
+        }
+        log.info("轨迹 {} {}，关闭 {} 个实时采集通道", trackId, reason, trackSessions.size());
+    }
+}
@@ -0,0 +1,156 @@
+package com.track.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.track.entity.TrackPoint;
+import com.track.service.TrackPointService;
+import com.track.service.TrackPointWriteBuffer;
+import com.track.util.GeoUtils;
+import com.track.util.PointConverter;
+import com.track.util.TrackPointCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.AbstractWebSocketHandler;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 实时轨迹采集通道处理器
+ * 鉴权和归属校验已在握手阶段完成，每帧只做解析并写入缓冲区，由写缓冲区合并批量落库。
+ * 支持两种帧格式：
+ * <ul>
+ *     <li>文本帧：单个轨迹点 JSON 对象，或轨迹点 JSON 数组</li>
+ *     <li>二进制帧：{@link TrackPointCodec} 紧凑二进制格式</li>
+ * </ul>
+ * 每帧处理后回复 {"received": n}，解析或坐标校验失败时回复 {"error": "..."}，连接保持不断开。
+ * 轨迹被删除或结束时由 {@link TrackIngestSessionRegistry} 关闭该轨迹的连接。
+ */
+@Component
+public class TrackPointWebSocketHandler extends AbstractWebSocketHandler {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointWebSocketHandler.class);
+
+    @Autowired
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Autowired
+    private TrackPointService trackPointService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TrackIngestSessionRegistry trackIngestSessionRegistry;
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        trackIngestSessionRegistry.register(trackId(session), session);
+        log.info("轨迹 {} 实时采集通道已建立，用户: {}", trackId(session), userId(session));
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws IOException {
+        List<TrackPoint> trackPoints = new ArrayList<>();
+        try (MappingIterator<TrackPoint> iterator = objectMapper.readerFor(TrackPoint.class).readValues(message.getPayload())) {
+            while (iterator.hasNextValue()) {
+                trackPoints.add(iterator.nextValue());
+            }
+        } catch (JsonProcessingException e) {
+            sendError(session, "轨迹点数据格式错误");
+            return;
+        }
+        try {
+            GeoUtils.validateCoordinates(trackPoints);
+        } catch (IllegalArgumentException e) {
+            sendError(session, e.getMessage());
+            return;
+        }
+        accept(session, trackPoints);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        Long trackId = trackId(session);
+        ByteBuffer payload = message.getPayload();
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+
+        List<TrackPoint> trackPoints = new ArrayList<>();
+        try {
+            TrackPointCodec.decode(new ByteArrayInputStream(bytes), bytes.length,
+                    (longitude, latitude, timestamp, altitude, speed, accuracy, satelliteCount, address) -> {
+                        TrackPoint trackPoint = PointConverter.toTrackPoint(PointConverter.toPoint(
+                                longitude, latitude, timestamp, altitude, speed, accuracy), trackId);
+                        if (satelliteCount >= 0) {
+                            trackPoint.setSatelliteCount(satelliteCount);
+                        }
+                        trackPoint.setAddress(address);
+                        trackPoints.add(trackPoint);
+                    });
+            GeoUtils.validateCoordinates(trackPoints);
+        } catch (IllegalArgumentException | IOException e) {
+            sendError(session, e.getMessage());
+            return;
+        }
+        accept(session, trackPoints);
+    }
+
+    @Override
+    public void handleTransportError(WebSocketSession session, Throwable exception) {
+        log.warn("轨迹 {} 实时采集通道传输异常: {}", trackId(session), exception.getMessage());
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        trackIngestSessionRegistry.unregister(trackId(session), session);
+        log.info("轨迹 {} 实时采集通道已关闭: {}", trackId(session), status);
+    }
+
+    /**
+     * 将一帧中的轨迹点写入缓冲区（未启用缓冲时直接保存）
+     */
+    private void accept(WebSocketSession session, List<TrackPoint> trackPoints) throws IOException {
+        Long trackId = trackId(session);
+        Long userId = userId(session);
+        trackPoints.forEach(point -> point.setTrackId(trackId));
+
+        if (!trackPoints.isEmpty()) {
+            if (trackPointWriteBuffer.isEnabled()) {
+                for (TrackPoint trackPoint : trackPoints) {
+                    trackPointWriteBuffer.add(userId, trackPoint);
+                }
+            } else {
+                trackPointService.savePoints(trackId, trackPoints);
+            }
+        }
+
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(
+                Collections.singletonMap("received", trackPoints.size()))));
+    }
+
+    private void sendError(WebSocketSession session, String message) throws IOException {
+        log.warn("轨迹 {} 实时采集帧解析失败: {}", trackId(session), message);
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(
+                Collections.singletonMap("error", message))));
+    }
+
+    private static Long trackId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(TrackIngestHandshakeInterceptor.ATTR_TRACK_ID);
+    }
+
+    private static Long userId(WebSocketSession session) {
+        return (Long) session.getAttributes().get(TrackIngestHandshakeInterceptor.ATTR_USER_ID);
+    }
+}
@@ -0,0 +1,29 @@
+-- 轨迹点分区表（PostgreSQL 11+）
+-- 轨迹点数量很大时，用本文件中的 track_points 定义替换 schema.sql 中的同名表：
+--   * 按 create_time 每月一个范围分区，删除过期数据只需 DETACH + DROP 分区，不产生死元组和索引膨胀
+--   * 查询带上轨迹的起止时间（track_stats.first_time / last_time）即可裁剪到少数几个分区
+--   * 月度分区由 TrackPointPartitionManager 定时预建，超出范围的数据落入默认分区
+-- 分区表的主键必须包含分区键，因此主键为 (id, create_time)
+
+CREATE TABLE IF NOT EXISTS track_points (
+    id BIGSERIAL,
+    track_id BIGINT NOT NULL,
+    longitude DECIMAL(10,6) NOT NULL, -- 经度
+    latitude DECIMAL(10,6) NOT NULL,  -- 纬度
+    altitude DECIMAL(8,2),            -- 海拔
+    speed DECIMAL(6,2),               -- 速度
+    accuracy DECIMAL(6,2),            -- 精度
+    satellite_count INTEGER,          -- 卫星数量
+    address VARCHAR(255),             -- 地址信息
+    create_time TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, create_time),
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+) PARTITION BY RANGE (create_time);
+
+-- 默认分区：兜底尚未预建分区的时间范围（例如设备时钟错误导致的异常时间）
+CREATE TABLE IF NOT EXISTS track_points_default PARTITION OF track_points DEFAULT;
+
+-- 分区索引（自动创建到每个分区上）
+CREATE INDEX IF NOT EXISTS idx_track_points_track_time ON track_points(track_id, create_time);
+CREATE INDEX IF NOT EXISTS idx_track_points_track_time_id ON track_points(track_id, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_track_points_track_id_id ON track_points(track_id, id);
@@ -46,6 +46,87 @@ CREATE TABLE IF NOT EXISTS track_points (
     FOREIGN KEY (track_id) REFERENCES tracks(id)
 );
 
+-- 创建轨迹统计表（随轨迹点写入增量维护，读取统计时无需扫描轨迹点）
+CREATE TABLE IF NOT EXISTS track_stats (
+    track_id BIGINT PRIMARY KEY,
+    point_count INTEGER NOT NULL DEFAULT 0,             -- 轨迹点数量
+    total_distance DOUBLE PRECISION NOT NULL DEFAULT 0, -- 累计距离（米）
+    speed_sum DOUBLE PRECISION NOT NULL DEFAULT 0,      -- 速度之和（米/秒）
+    max_speed DOUBLE PRECISION,                         -- 最大速度
+    min_altitude DOUBLE PRECISION,                      -- 最低海拔
+    max_altitude DOUBLE PRECISION,                      -- 最高海拔
+    elevation_gain DOUBLE PRECISION NOT NULL DEFAULT 0, -- 累计爬升（米）
+    elevation_loss DOUBLE PRECISION NOT NULL DEFAULT 0, -- 累计下降（米）
+    elevation_reference DOUBLE PRECISION,               -- 爬升/下降滞回基准海拔（增量计算）
+    moving_time BIGINT NOT NULL DEFAULT 0,              -- 运动时间（毫秒）
+    first_time TIMESTAMP,                               -- 第一个点时间
+    last_time TIMESTAMP,                                -- 最后一个点时间
+    last_latitude DOUBLE PRECISION,                     -- 最后一个点纬度（增量计算距离）
+    last_longitude DOUBLE PRECISION,                    -- 最后一个点经度（增量计算距离）
+    min_latitude DOUBLE PRECISION,                      -- 外包矩形（按地图范围筛选轨迹，如矢量瓦片）
+    max_latitude DOUBLE PRECISION,
+    min_longitude DOUBLE PRECISION,
+    max_longitude DOUBLE PRECISION,
+    committed_seq BIGINT,                               -- 客户端已提交的最大批次序号（幂等上传）
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+);
+
+-- 创建轨迹段表（已完成轨迹的轨迹点按列压缩后分段存储，格式见 TrackSegmentCodec）
+CREATE TABLE IF NOT EXISTS track_segments (
+    track_id BIGINT NOT NULL,
+    seq INTEGER NOT NULL,               -- 段序号，按序拼接
+    point_count INTEGER NOT NULL,       -- 段内轨迹点数量
+    first_time TIMESTAMP,               -- 段内第一个点时间
+    last_time TIMESTAMP,                -- 段内最后一个点时间
+    data BYTEA NOT NULL,                -- 列式压缩数据
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (track_id, seq),
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+);
+
+-- 创建轨迹处理流水线会话表（跨批次去噪/压缩的锚点和开放窗口，与轨迹点在同一事务中更新，见 TrackPipelineSessionManager）
+CREATE TABLE IF NOT EXISTS track_pipeline_sessions (
+    track_id BIGINT PRIMARY KEY,
+    anchor BYTEA,                       -- 上一次已提交的最后一个处理后点（列式编码，格式见 TrackSegmentCodec）
+    open_points BYTEA,                  -- 锚点之后尚未确定去留的原始点（同上）
+    update_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+);
+
+-- 创建轨迹多分辨率层级表（已完成轨迹按固定容差预先压缩，见 TrackLodService）
+CREATE TABLE IF NOT EXISTS track_lod (
+    track_id BIGINT NOT NULL,
+    tolerance DOUBLE PRECISION NOT NULL, -- 压缩容差（米）
+    source_points INTEGER NOT NULL,      -- 构建时轨迹总点数（用于判断层级是否失效）
+    point_count INTEGER NOT NULL,        -- 层级点数
+    data BYTEA NOT NULL,                 -- 层级点的列式压缩数据
+    create_time TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (track_id, tolerance),
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+);
+
+-- 创建轨迹热力贡献表（已完成轨迹在最细缩放级别下各网格单元的点数，见 UserHeatmapService）
+CREATE TABLE IF NOT EXISTS track_heatmap_cells (
+    track_id BIGINT NOT NULL,
+    cell_x BIGINT NOT NULL,             -- Web 墨卡托像素网格列号
+    cell_y BIGINT NOT NULL,             -- Web 墨卡托像素网格行号
+    count INTEGER NOT NULL,             -- 单元内的轨迹点数
+    PRIMARY KEY (track_id, cell_x, cell_y),
+    FOREIGN KEY (track_id) REFERENCES tracks(id)
+);
+
+-- 创建用户热力图表（用户全部已完成轨迹在多个缩放级别下的网格单元点数，随轨迹完成/重新处理/删除增量维护）
+CREATE TABLE IF NOT EXISTS user_heatmap_cells (
+    user_id BIGINT NOT NULL,
+    zoom INTEGER NOT NULL,              -- 缩放级别
+    cell_x BIGINT NOT NULL,
+    cell_y BIGINT NOT NULL,
+    count BIGINT NOT NULL,
+    PRIMARY KEY (user_id, zoom, cell_x, cell_y),
+    FOREIGN KEY (user_id) REFERENCES users(id)
+);
+
 -- 创建设备表
 CREATE TABLE IF NOT EXISTS devices (
     id BIGSERIAL PRIMARY KEY,
@@ -66,5 +147,9 @@ CREATE INDEX IF NOT EXISTS idx_users_username ON users(username);
 CREATE INDEX IF NOT EXISTS idx_users_email ON users(email);
 CREATE INDEX IF NOT EXISTS idx_tracks_user_id ON tracks(user_id);
 CREATE INDEX IF NOT EXISTS idx_track_points_track_id ON track_points(track_id);
+-- 键集分页索引：轨迹列表按 (create_time, id) 倒序，轨迹点按 (create_time, id) 或 id 顺序
+CREATE INDEX IF NOT EXISTS idx_tracks_user_time_id ON tracks(user_id, create_time DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_track_points_track_time_id ON track_points(track_id, create_time, id);
+CREATE INDEX IF NOT EXISTS idx_track_points_track_id_id ON track_points(track_id, id);
 CREATE INDEX IF NOT EXISTS idx_devices_user_id ON devices(user_id);
 CREATE INDEX IF NOT EXISTS idx_devices_device_id ON devices(device_id);
\ No newline at end of file
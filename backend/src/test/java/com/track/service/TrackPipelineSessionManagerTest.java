@@ -0,0 +1,125 @@
+package com.track.service;
+
+import com.track.entity.TrackPipelineSession;
+import com.track.mapper.TrackPipelineSessionMapper;
+import com.track.starter.model.Point;
+import com.track.starter.pipeline.TrajectoryPipeline;
+import com.track.util.PointConverter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * 流水线会话测试：处理在调用方事务中进行，流水线异常时原始点照常提交，空闲回收不阻塞写入
+ */
+@ExtendWith(MockitoExtension.class)
+class TrackPipelineSessionManagerTest {
+
+    private static final Long TRACK_ID = 42L;
+
+    @Mock
+    private TrajectoryPipeline trajectoryPipeline;
+
+    @Mock
+    private TrackPipelineSessionMapper trackPipelineSessionMapper;
+
+    @Mock
+    private TrackAggregateService trackAggregateService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @InjectMocks
+    private TrackPipelineSessionManager sessionManager;
+
+    @Test
+    void pipelineFailureCommitsRawPointsWithoutNestedTransaction() {
+        ReflectionTestUtils.setField(sessionManager, "maxOpenPoints", 200);
+        TrackPipelineSession row = new TrackPipelineSession();
+        row.setTrackId(TRACK_ID);
+        when(trackPipelineSessionMapper.selectForUpdate(TRACK_ID)).thenReturn(row);
+        when(trajectoryPipeline.process(anyList())).thenThrow(new IllegalStateException("boom"));
+
+        List<Point> points = points(1_000L, 2_000L, 3_000L);
+        List<Point> committed = sessionManager.process(TRACK_ID, points);
+
+        assertEquals(points, committed);
+        // 会话从本批最后一个点重新开始，开放窗口清空
+        verify(trackPipelineSessionMapper).updateState(eq(TRACK_ID), any(byte[].class), isNull());
+        // 不开启嵌套事务，调用方的事务不会被标记为只回滚
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void keepsLastPointOpenUntilNextBatch() {
+        ReflectionTestUtils.setField(sessionManager, "maxOpenPoints", 200);
+        TrackPipelineSession row = new TrackPipelineSession();
+        row.setTrackId(TRACK_ID);
+        when(trackPipelineSessionMapper.selectForUpdate(TRACK_ID)).thenReturn(row);
+        when(trajectoryPipeline.process(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<Point> committed = sessionManager.process(TRACK_ID, points(1_000L, 2_000L, 3_000L));
+
+        assertEquals(2, committed.size());
+        assertEquals(2_000L, committed.get(1).getTimestamp());
+        verify(trackPipelineSessionMapper).updateState(eq(TRACK_ID), any(byte[].class), any(byte[].class));
+        verifyNoInteractions(transactionManager);
+    }
+
+    @Test
+    void evictionClaimsSessionBeforeStatsAndSkipsBusyTracks() {
+        when(trackPipelineSessionMapper.selectIdleTrackIds(any(LocalDateTime.class)))
+                .thenReturn(Collections.singletonList(TRACK_ID));
+        TrackPipelineSession row = new TrackPipelineSession();
+        row.setTrackId(TRACK_ID);
+        when(trackPipelineSessionMapper.selectIdleForUpdate(eq(TRACK_ID), any(LocalDateTime.class))).thenReturn(row);
+        when(trackAggregateService.tryLock(TRACK_ID)).thenReturn(false);
+
+        sessionManager.evictIdle();
+
+        InOrder order = inOrder(trackPipelineSessionMapper, trackAggregateService);
+        order.verify(trackPipelineSessionMapper).selectIdleForUpdate(eq(TRACK_ID), any(LocalDateTime.class));
+        order.verify(trackAggregateService).tryLock(TRACK_ID);
+        // 统计行被写入事务锁定时不阻塞等待，会话留到下一轮
+        verify(trackAggregateService, never()).lockCommittedSeq(anyLong());
+        verify(trackPipelineSessionMapper, never()).deleteById(anyLong());
+    }
+
+    @Test
+    void emptyBatchSkipsSession() {
+        assertNotNull(sessionManager.process(TRACK_ID, new ArrayList<>()));
+        verifyNoInteractions(trackPipelineSessionMapper);
+    }
+
+    private static List<Point> points(long... timestamps) {
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < timestamps.length; i++) {
+            points.add(PointConverter.toPoint(120.0 + i * 0.0001, 30.0, timestamps[i], Double.NaN, Double.NaN,
+                    Double.NaN));
+        }
+        return points;
+    }
+}
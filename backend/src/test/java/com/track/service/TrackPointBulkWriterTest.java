@@ -0,0 +1,90 @@
+package com.track.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * COPY 二进制编码测试：按 PostgreSQL 的格式解码写出的字段，与期望值比较
+ */
+class TrackPointBulkWriterTest {
+
+    @Test
+    void numericRoundTripsAtColumnScale() throws IOException {
+        double[] values = {0.0, 116.397128, -33.868820, 39.9, 12345.67, -0.000001, 0.000001, 180.0, -180.0, 8848.86};
+        int[] scales = {6, 6, 6, 6, 2, 6, 6, 6, 6, 2};
+        for (int i = 0; i < values.length; i++) {
+            BigDecimal expected = BigDecimal.valueOf(values[i]).setScale(scales[i], RoundingMode.HALF_UP);
+            assertEquals(0, expected.compareTo(decodeNumeric(encodeNumeric(values[i], scales[i]))),
+                    "value " + values[i]);
+        }
+    }
+
+    @Test
+    void numericRoundsToColumnScale() throws IOException {
+        assertEquals(0, new BigDecimal("1.23").compareTo(decodeNumeric(encodeNumeric(1.234, 2))));
+        assertEquals(0, new BigDecimal("116.397128").compareTo(decodeNumeric(encodeNumeric(116.3971284, 6))));
+    }
+
+    @Test
+    void zeroHasNoDigitsAndPositiveSign() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encodeNumeric(-0.0000001, 6)));
+        assertEquals(8, in.readInt());
+        assertEquals(0, in.readShort());
+        assertEquals(0, in.readShort());
+        assertEquals(0, in.readShort());
+        assertEquals(6, in.readShort());
+    }
+
+    @Test
+    void timestampIsMicrosecondsSince2000() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrackPointBulkWriter.writeTimestamp(new DataOutputStream(bytes),
+                LocalDateTime.of(2000, 1, 1, 0, 0, 1, 123_456_789));
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertEquals(8, in.readInt());
+        assertEquals(1_123_456L, in.readLong());
+
+        bytes.reset();
+        TrackPointBulkWriter.writeTimestamp(new DataOutputStream(bytes), LocalDateTime.of(1999, 12, 31, 23, 59, 59));
+        in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        in.readInt();
+        assertEquals(-1_000_000L, in.readLong());
+    }
+
+    private static byte[] encodeNumeric(double value, int scale) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TrackPointBulkWriter.writeNumeric(new DataOutputStream(bytes), value, scale);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * 按 numeric 二进制格式解码：长度, ndigits, weight, sign, dscale, base-10000 数位
+     */
+    private static BigDecimal decodeNumeric(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        int length = in.readInt();
+        int digitCount = in.readShort();
+        assertEquals(8 + 2 * digitCount, length);
+        int weight = in.readShort();
+        int sign = in.readShort();
+        int scale = in.readShort();
+
+        BigDecimal result = BigDecimal.ZERO;
+        for (int i = 0; i < digitCount; i++) {
+            BigDecimal digit = BigDecimal.valueOf(in.readShort());
+            result = result.add(digit.scaleByPowerOfTen(4 * (weight - i)));
+        }
+        result = result.setScale(scale, RoundingMode.UNNECESSARY);
+        return sign == 0x4000 ? result.negate() : result;
+    }
+}
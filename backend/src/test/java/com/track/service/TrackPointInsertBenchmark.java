@@ -0,0 +1,173 @@
+package com.track.service;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.config.GlobalConfig;
+import com.baomidou.mybatisplus.core.toolkit.GlobalConfigUtils;
+import com.baomidou.mybatisplus.extension.spring.MybatisSqlSessionFactoryBean;
+import com.track.config.MyBatisPlusConfig;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackPointMapper;
+import com.track.service.impl.TrackPointServiceImpl;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 轨迹点批量写入基准：COPY 二进制协议与 MyBatis-Plus saveBatch 的吞吐量对比（行/秒）
+ * 需要真实的 PostgreSQL（已执行 schema.sql），默认不运行：类名不符合 surefire 的测试命名规则，
+ * 且未设置 track.benchmark.pg-url 时跳过。运行方式：
+ * <pre>
+ * mvn -B test -Dtest=TrackPointInsertBenchmark \
+ *     -Dtrack.benchmark.pg-url=jdbc:postgresql://localhost:5432/track_db \
+ *     -Dtrack.benchmark.pg-user=postgres -Dtrack.benchmark.pg-password=postgres \
+ *     [-Dtrack.benchmark.rows=100000] [-Dtrack.benchmark.iterations=5]
+ * </pre>
+ * 每轮写入在独立事务中进行，计时只包含写入本身，结束后回滚，不在库中留下数据；
+ * 基准创建的用户和轨迹在结束时删除。
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@EnabledIfSystemProperty(named = "track.benchmark.pg-url", matches = ".+")
+class TrackPointInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TrackPointInsertBenchmark.class);
+
+    private static final int WARMUP_ITERATIONS = 2;
+
+    private final int rows = Integer.getInteger("track.benchmark.rows", 100_000);
+
+    private final int iterations = Integer.getInteger("track.benchmark.iterations", 5);
+
+    private DriverManagerDataSource dataSource;
+
+    private TransactionTemplate transactionTemplate;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TrackPointBulkWriter bulkWriter;
+
+    private TrackPointServiceImpl trackPointService;
+
+    private Long userId;
+
+    private Long trackId;
+
+    @BeforeAll
+    void setUp() throws Exception {
+        dataSource = new DriverManagerDataSource(System.getProperty("track.benchmark.pg-url"),
+                System.getProperty("track.benchmark.pg-user", "postgres"),
+                System.getProperty("track.benchmark.pg-password", ""));
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        jdbcTemplate = new JdbcTemplate(dataSource);
+
+        bulkWriter = new TrackPointBulkWriter();
+        ReflectionTestUtils.setField(bulkWriter, "dataSource", dataSource);
+
+        // 与应用相同的 MyBatis-Plus 配置（驼峰映射、自增主键、自动填充、分页插件），saveBatch 走 BATCH 执行器
+        MyBatisPlusConfig myBatisPlusConfig = new MyBatisPlusConfig();
+        GlobalConfig globalConfig = GlobalConfigUtils.defaults();
+        globalConfig.getDbConfig().setIdType(IdType.AUTO);
+        globalConfig.setMetaObjectHandler(myBatisPlusConfig);
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setMapUnderscoreToCamelCase(true);
+        GlobalConfigUtils.setGlobalConfig(configuration, globalConfig);
+        configuration.addMapper(TrackPointMapper.class);
+        MybatisSqlSessionFactoryBean factoryBean = new MybatisSqlSessionFactoryBean();
+        factoryBean.setDataSource(dataSource);
+        factoryBean.setConfiguration(configuration);
+        factoryBean.setGlobalConfig(globalConfig);
+        factoryBean.setPlugins(myBatisPlusConfig.mybatisPlusInterceptor());
+        factoryBean.getObject();
+        trackPointService = new TrackPointServiceImpl();
+
+        String suffix = Long.toString(System.nanoTime());
+        userId = jdbcTemplate.queryForObject(
+                "INSERT INTO users (username, password) VALUES (?, 'benchmark') RETURNING id",
+                Long.class, "benchmark-" + suffix);
+        trackId = jdbcTemplate.queryForObject(
+                "INSERT INTO tracks (user_id, track_name) VALUES (?, ?) RETURNING id",
+                Long.class, userId, "benchmark-" + suffix);
+    }
+
+    @AfterAll
+    void tearDown() {
+        if (trackId != null) {
+            jdbcTemplate.update("DELETE FROM track_points WHERE track_id = ?", trackId);
+            jdbcTemplate.update("DELETE FROM tracks WHERE id = ?", trackId);
+        }
+        if (userId != null) {
+            jdbcTemplate.update("DELETE FROM users WHERE id = ?", userId);
+        }
+    }
+
+    @Test
+    void copyVersusSaveBatch() {
+        double copyRate = measure("COPY", points -> assertEquals(points.size(), bulkWriter.copyIn(points)));
+        double batchRate = measure("saveBatch", points -> trackPointService.saveBatch(points));
+
+        log.info("{} 行/批：COPY {} 行/秒，saveBatch {} 行/秒，COPY 为 saveBatch 的 {} 倍",
+                rows, Math.round(copyRate), Math.round(batchRate), String.format("%.1f", copyRate / batchRate));
+    }
+
+    /**
+     * 预热后测量多轮，返回中位数吞吐量（行/秒）
+     */
+    private double measure(String name, Consumer<List<TrackPoint>> writer) {
+        double[] rates = new double[iterations];
+        for (int i = -WARMUP_ITERATIONS; i < iterations; i++) {
+            // 每轮重新生成：saveBatch 会回填主键，COPY 会补全空的创建时间
+            List<TrackPoint> points = points(rows);
+            long elapsed = transactionTemplate.execute(status -> {
+                long start = System.nanoTime();
+                writer.accept(points);
+                long nanos = System.nanoTime() - start;
+                status.setRollbackOnly();
+                return nanos;
+            });
+            if (i >= 0) {
+                rates[i] = rows / (elapsed / 1e9);
+                log.info("{} 第 {} 轮：{} ms，{} 行/秒", name, i + 1, elapsed / 1_000_000, Math.round(rates[i]));
+            }
+        }
+        Arrays.sort(rates);
+        return rates[iterations / 2];
+    }
+
+    private List<TrackPoint> points(int count) {
+        List<TrackPoint> points = new ArrayList<>(count);
+        // 使用当前时间，分区表上落在已创建的分区中
+        LocalDateTime start = LocalDateTime.now().withNano(0);
+        for (int i = 0; i < count; i++) {
+            TrackPoint point = new TrackPoint();
+            point.setTrackId(trackId);
+            point.setLatitude(30.0 + i * 0.00001);
+            point.setLongitude(120.0 + i * 0.00001);
+            point.setAltitude(12.5);
+            point.setSpeed(1.4);
+            point.setAccuracy(5.0);
+            point.setSatelliteCount(12);
+            point.setCreateTime(start.plusSeconds(i));
+            points.add(point);
+        }
+        return points;
+    }
+}
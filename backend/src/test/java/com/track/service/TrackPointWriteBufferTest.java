@@ -0,0 +1,128 @@
+package com.track.service;
+
+import com.track.entity.TrackPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 写缓冲区测试：坏批次不会被无限重试，缓冲区已满时拒绝写入
+ */
+@ExtendWith(MockitoExtension.class)
+class TrackPointWriteBufferTest {
+
+    @Mock
+    private TrackPointService trackPointService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private TrackReadCoalescer trackReadCoalescer;
+
+    @InjectMocks
+    private TrackPointWriteBuffer buffer;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(buffer, "batchSize", 1000);
+        ReflectionTestUtils.setField(buffer, "capacity", 3);
+        ReflectionTestUtils.setField(buffer, "flushThreads", 1);
+        ReflectionTestUtils.setField(buffer, "maxFlushAttempts", 3);
+        buffer.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        buffer.shutdown();
+    }
+
+    @Test
+    void nonTransientFailureDropsBatchImmediately() {
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+                .when(trackPointService).savePoints(eq(1L), anyList());
+        buffer.add(7L, point(1L));
+        buffer.add(7L, point(1L));
+
+        buffer.flush(1L);
+
+        assertTrue(buffer.pending(1L).isEmpty());
+        assertEquals(0, bufferedCount());
+        // 批次已移除，再次刷写不会重试
+        buffer.flush(1L);
+        verify(trackPointService, times(1)).savePoints(eq(1L), anyList());
+    }
+
+    @Test
+    void transientFailureIsRetriedUntilLimit() {
+        doThrow(new QueryTimeoutException("timeout")).when(trackPointService).savePoints(eq(1L), anyList());
+        buffer.add(7L, point(1L));
+
+        assertThrows(QueryTimeoutException.class, () -> buffer.flush(1L));
+        assertThrows(QueryTimeoutException.class, () -> buffer.flush(1L));
+        assertEquals(1, buffer.pending(1L).size());
+
+        // 第三次失败达到上限，批次写入死信日志后移除
+        buffer.flush(1L);
+        assertTrue(buffer.pending(1L).isEmpty());
+        assertEquals(0, bufferedCount());
+        verify(trackPointService, times(3)).savePoints(eq(1L), anyList());
+    }
+
+    @Test
+    void rejectsWriteWhenFullAfterFlushingOwnTrack() {
+        buffer.add(7L, point(1L));
+        buffer.add(7L, point(1L));
+        buffer.add(7L, point(1L));
+
+        // 积压来自其他轨迹，本轨迹分区为空，刷写后仍然已满
+        assertThrows(IllegalStateException.class, () -> buffer.add(8L, point(2L)));
+        assertTrue(buffer.pending(2L).isEmpty());
+        assertEquals(3, bufferedCount());
+        verify(trackPointService, never()).savePoints(eq(2L), anyList());
+    }
+
+    @Test
+    void acceptsWriteWhenOwnFlushFreesCapacity() {
+        buffer.add(7L, point(1L));
+        buffer.add(7L, point(1L));
+        buffer.add(7L, point(1L));
+
+        buffer.add(7L, point(1L));
+
+        verify(trackPointService, times(1)).savePoints(eq(1L), anyList());
+        assertEquals(1, bufferedCount());
+    }
+
+    private int bufferedCount() {
+        return ((AtomicInteger) ReflectionTestUtils.getField(buffer, "bufferedCount")).get();
+    }
+
+    private static TrackPoint point(Long trackId) {
+        TrackPoint point = new TrackPoint();
+        point.setTrackId(trackId);
+        point.setLatitude(30.0);
+        point.setLongitude(120.0);
+        return point;
+    }
+}
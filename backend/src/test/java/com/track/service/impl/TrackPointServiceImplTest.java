@@ -0,0 +1,270 @@
+package com.track.service.impl;
+
+import com.track.dto.BatchSaveResult;
+import com.track.entity.Track;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackMapper;
+import com.track.mapper.TrackPointMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackLodService;
+import com.track.service.TrackPipelineSessionManager;
+import com.track.service.TrackPointBulkWriter;
+import com.track.service.TrackPointPartitionManager;
+import com.track.service.TrackPointWriteBuffer;
+import com.track.service.TrackSegmentService;
+import com.track.service.TrackTileService;
+import com.track.service.UserHeatmapService;
+import com.track.starter.pipeline.TrajectoryPipeline;
+import com.track.util.TrackPointCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 轨迹点服务测试：流水线处理失败时回退保存原始轨迹点，二进制上传按下标回填卫星数和地址并校验坐标，
+ * 重新处理已完成的轨迹后重建轨迹段和多分辨率层级
+ */
+@ExtendWith(MockitoExtension.class)
+class TrackPointServiceImplTest {
+
+    private static final Long TRACK_ID = 42L;
+
+    @Mock
+    private TrackPointMapper trackPointMapper;
+
+    @Mock
+    private TrackAggregateService trackAggregateService;
+
+    @Mock
+    private TrackPointBulkWriter trackPointBulkWriter;
+
+    @Mock
+    private TrackPipelineSessionManager trackPipelineSessionManager;
+
+    @Mock
+    private TrajectoryPipeline trajectoryPipeline;
+
+    @Mock
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Mock
+    private TrackPointPartitionManager trackPointPartitionManager;
+
+    @Mock
+    private TrackSegmentService trackSegmentService;
+
+    @Mock
+    private TrackLodService trackLodService;
+
+    @Mock
+    private UserHeatmapService userHeatmapService;
+
+    @Mock
+    private TrackTileService trackTileService;
+
+    @Mock
+    private TrackMapper trackMapper;
+
+    @InjectMocks
+    private TrackPointServiceImpl trackPointService;
+
+    private final TrackAggregate aggregate = new TrackAggregate();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trackPointService, "baseMapper", trackPointMapper);
+        lenient().when(trackPointBulkWriter.shouldUseCopy(anyInt())).thenReturn(true);
+        aggregate.setTrackId(TRACK_ID);
+        lenient().when(trackAggregateService.lock(TRACK_ID)).thenReturn(aggregate);
+    }
+
+    @Test
+    void savePointsLocksStatsRowOnce() {
+        List<TrackPoint> points = points(3);
+        TrackPointServiceImpl service = spy(trackPointService);
+        doReturn(true).when(service).saveBatch(points);
+
+        service.savePoints(TRACK_ID, points);
+
+        // 插入前锁定一次，累加时复用已锁定的统计行
+        verify(trackAggregateService, times(1)).lock(TRACK_ID);
+        verify(trackAggregateService).accumulate(aggregate, points);
+        verify(trackAggregateService, never()).lockCommittedSeq(anyLong());
+        verify(trackAggregateService, never()).accumulate(anyLong(), anyList());
+    }
+
+    @Test
+    void sessionPipelineFailureStillPersistsRawPoints() {
+        when(trackPipelineSessionManager.isEnabled()).thenReturn(true);
+        when(trackPipelineSessionManager.process(eq(TRACK_ID), anyList())).thenThrow(new IllegalStateException("boom"));
+
+        List<TrackPoint> points = points(3);
+        List<TrackPoint> saved = trackPointService.saveBatchWithProcessing(points, TRACK_ID);
+
+        assertSame(points, saved);
+        verify(trackPointBulkWriter).copyIn(points);
+        verify(trackAggregateService).accumulate(aggregate, points);
+    }
+
+    @Test
+    void pipelineFailureStillPersistsRawPoints() {
+        when(trackPipelineSessionManager.isEnabled()).thenReturn(false);
+        when(trajectoryPipeline.process(anyList())).thenThrow(new IllegalStateException("boom"));
+
+        List<TrackPoint> points = points(3);
+        List<TrackPoint> saved = trackPointService.saveBatchWithProcessing(points, TRACK_ID);
+
+        assertSame(points, saved);
+        verify(trackPointBulkWriter).copyIn(points);
+        verify(trackAggregateService).accumulate(aggregate, points);
+    }
+
+    @Test
+    void encodedExtrasFollowPointIndexNotTimestamp() throws Exception {
+        when(trackPipelineSessionManager.isEnabled()).thenReturn(false);
+        when(trajectoryPipeline.process(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // 两个点时间戳相同，地址不同
+        ByteArrayOutputStream out = header(2);
+        point(out, 30_000_000L, 120_000_000L, 1_704_067_200_000L, "东门");
+        point(out, 10L, 10L, 0L, "西门");
+        byte[] data = out.toByteArray();
+
+        BatchSaveResult result = trackPointService.saveEncodedBatch(new ByteArrayInputStream(data), data.length,
+                TRACK_ID, null);
+
+        assertEquals(2, result.getPoints().size());
+        assertEquals("东门", result.getPoints().get(0).getAddress());
+        assertEquals("西门", result.getPoints().get(1).getAddress());
+    }
+
+    @Test
+    void encodedBatchRejectsOutOfRangeCoordinates() {
+        ByteArrayOutputStream out = header(1);
+        point(out, 91_000_000L, 120_000_000L, 1_704_067_200_000L, null);
+        byte[] data = out.toByteArray();
+
+        assertThrows(IllegalArgumentException.class, () -> trackPointService.saveEncodedBatch(
+                new ByteArrayInputStream(data), data.length, TRACK_ID, null));
+        verify(trackPointBulkWriter, never()).copyIn(anyList());
+    }
+
+    @Test
+    void reprocessingCompletedTrackRebuildsSegmentsAndLevels() {
+        when(trackMapper.selectById(TRACK_ID)).thenReturn(track(2));
+        when(trajectoryPipeline.process(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        List<TrackPoint> points = points(3);
+        TrackPointServiceImpl service = spy(trackPointService);
+        doReturn(points).when(service).findByTrackId(TRACK_ID);
+
+        assertEquals(3, service.processTrackPoints(TRACK_ID));
+
+        // 先删除旧的轨迹段和层级，保存处理后的点之后重新压缩和构建
+        InOrder order = inOrder(trackSegmentService, trackLodService, trackPointBulkWriter, trackAggregateService);
+        order.verify(trackSegmentService).removeByTrackId(TRACK_ID);
+        order.verify(trackLodService).removeByTrackId(TRACK_ID);
+        order.verify(trackPointBulkWriter).copyIn(anyList());
+        order.verify(trackAggregateService).rebuild(eq(TRACK_ID), anyList());
+        order.verify(trackSegmentService).compact(TRACK_ID);
+        order.verify(trackLodService).build(TRACK_ID);
+    }
+
+    @Test
+    void reprocessingActiveTrackLeavesPointsUncompacted() {
+        when(trackMapper.selectById(TRACK_ID)).thenReturn(track(1));
+        when(trajectoryPipeline.process(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        TrackPointServiceImpl service = spy(trackPointService);
+        doReturn(points(3)).when(service).findByTrackId(TRACK_ID);
+
+        service.processTrackPoints(TRACK_ID);
+
+        verify(trackSegmentService, never()).compact(anyLong());
+        verify(trackLodService, never()).build(anyLong());
+    }
+
+    private static Track track(int status) {
+        Track track = new Track();
+        track.setId(TRACK_ID);
+        track.setStatus(status);
+        return track;
+    }
+
+    private static ByteArrayOutputStream header(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('T');
+        out.write('P');
+        out.write(TrackPointCodec.VERSION);
+        writeVarLong(out, count);
+        return out;
+    }
+
+    /**
+     * 按 TrackPointCodec 格式写入一个点（坐标和时间为相对上一个点的增量）
+     */
+    private static void point(ByteArrayOutputStream out, long latitudeDelta, long longitudeDelta, long timeDelta,
+                              String address) {
+        out.write(address != null ? TrackPointCodec.HAS_ADDRESS : 0);
+        writeSigned(out, latitudeDelta);
+        writeSigned(out, longitudeDelta);
+        writeSigned(out, timeDelta);
+        if (address != null) {
+            byte[] bytes = address.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+
+    private static void writeSigned(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static List<TrackPoint> points(int count) {
+        List<TrackPoint> points = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < count; i++) {
+            TrackPoint point = new TrackPoint();
+            point.setLatitude(30.0 + i * 0.0001);
+            point.setLongitude(120.0);
+            point.setCreateTime(start.plusSeconds(i));
+            points.add(point);
+        }
+        return points;
+    }
+}
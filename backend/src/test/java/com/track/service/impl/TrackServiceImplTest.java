@@ -0,0 +1,221 @@
+package com.track.service.impl;
+
+import com.track.dto.TrackDetail;
+import com.track.entity.Track;
+import com.track.entity.TrackAggregate;
+import com.track.entity.TrackPoint;
+import com.track.mapper.TrackMapper;
+import com.track.service.TrackAggregateService;
+import com.track.service.TrackCacheService;
+import com.track.service.TrackLodService;
+import com.track.service.TrackPipelineSessionManager;
+import com.track.service.TrackPointService;
+import com.track.service.TrackPointWriteBuffer;
+import com.track.service.TrackReadCoalescer;
+import com.track.service.TrackSegmentService;
+import com.track.service.TrackTileService;
+import com.track.service.UserHeatmapService;
+import com.track.util.PointProjection;
+import com.track.websocket.TrackIngestSessionRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 轨迹服务测试：压缩详情只读取一次轨迹点，状态变化时才执行收尾工作
+ */
+@ExtendWith(MockitoExtension.class)
+class TrackServiceImplTest {
+
+    private static final Long TRACK_ID = 42L;
+
+    @Mock
+    private TrackMapper trackMapper;
+
+    @Mock
+    private TrackPointService trackPointService;
+
+    @Mock
+    private TrackAggregateService trackAggregateService;
+
+    @Mock
+    private TrackReadCoalescer trackReadCoalescer;
+
+    @Mock
+    private TrackPointWriteBuffer trackPointWriteBuffer;
+
+    @Mock
+    private TrackPipelineSessionManager trackPipelineSessionManager;
+
+    @Mock
+    private TrackSegmentService trackSegmentService;
+
+    @Mock
+    private TrackCacheService trackCacheService;
+
+    @Mock
+    private TrackLodService trackLodService;
+
+    @Mock
+    private UserHeatmapService userHeatmapService;
+
+    @Mock
+    private TrackTileService trackTileService;
+
+    @Mock
+    private TrackIngestSessionRegistry trackIngestSessionRegistry;
+
+    @InjectMocks
+    private TrackServiceImpl trackService;
+
+    private final List<TrackPoint> rawPoints = Arrays.asList(new TrackPoint(), new TrackPoint(), new TrackPoint());
+
+    private final List<TrackPoint> compressedPoints = Collections.singletonList(new TrackPoint());
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(trackService, "baseMapper", trackMapper);
+        lenient().when(trackMapper.selectById(TRACK_ID)).thenReturn(track(1));
+        lenient().when(trackReadCoalescer.execute(anyLong(), anyString(), any()))
+                .thenAnswer(invocation -> ((Supplier<?>) invocation.getArgument(2)).get());
+    }
+
+    @Test
+    void compressedDetailWithAggregateNeverReadsRawPoints() {
+        when(trackAggregateService.getById(TRACK_ID)).thenReturn(aggregate(3));
+        when(trackPointService.getCompressedPoints(TRACK_ID, 5.0)).thenReturn(compressedPoints);
+
+        TrackDetail detail = trackService.getCompressedTrackDetail(TRACK_ID, 1L, 5.0);
+
+        assertSame(compressedPoints, detail.getTrackPoints());
+        verify(trackMapper, times(1)).selectById(TRACK_ID);
+        verify(trackPointService, times(1)).getCompressedPoints(TRACK_ID, 5.0);
+        verify(trackPointService, never()).findByTrackId(anyLong());
+        verify(trackPointService, never()).findByTrackId(anyLong(), any());
+        verify(trackAggregateService, never()).backfill(anyLong(), any());
+    }
+
+    @Test
+    void compressedDetailWithoutAggregateReadsPointsOnce() {
+        when(trackAggregateService.getById(TRACK_ID)).thenReturn(null);
+        when(trackPointService.findByTrackId(TRACK_ID, PointProjection.MEASURES)).thenReturn(rawPoints);
+        when(trackAggregateService.backfill(TRACK_ID, rawPoints)).thenReturn(aggregate(3));
+        when(trackPointService.compressPoints(TRACK_ID, rawPoints, 5.0)).thenReturn(compressedPoints);
+
+        TrackDetail detail = trackService.getCompressedTrackDetail(TRACK_ID, 1L, 5.0);
+
+        // 同一份轨迹点既用于补建统计，也用于压缩
+        assertSame(compressedPoints, detail.getTrackPoints());
+        verify(trackPointService, times(1)).findByTrackId(TRACK_ID, PointProjection.MEASURES);
+        verify(trackPointService, never()).findByTrackId(anyLong());
+        verify(trackPointService, never()).getCompressedPoints(anyLong(), anyDouble());
+        verify(trackAggregateService, times(1)).backfill(TRACK_ID, rawPoints);
+    }
+
+    @Test
+    void budgetDetailWithoutAggregateReadsPointsOnce() {
+        when(trackAggregateService.getById(TRACK_ID)).thenReturn(null);
+        when(trackPointService.findByTrackId(TRACK_ID, PointProjection.MEASURES)).thenReturn(rawPoints);
+        when(trackAggregateService.backfill(TRACK_ID, rawPoints)).thenReturn(aggregate(3));
+        when(trackPointService.simplifyPoints(TRACK_ID, rawPoints, 100, 0)).thenReturn(compressedPoints);
+
+        TrackDetail detail = trackService.getBudgetTrackDetail(TRACK_ID, 1L, 100, 0);
+
+        assertSame(compressedPoints, detail.getTrackPoints());
+        verify(trackPointService, times(1)).findByTrackId(TRACK_ID, PointProjection.MEASURES);
+        verify(trackPointService, never()).getBudgetPoints(anyLong(), anyInt(), anyInt());
+    }
+
+    @Test
+    void completingTrackFinishesItOnce() {
+        when(trackMapper.updateById(any(Track.class))).thenReturn(1);
+
+        assertTrue(trackService.updateTrack(track(2)));
+
+        verify(trackIngestSessionRegistry, times(1)).closeTrack(TRACK_ID, "轨迹已结束");
+        verify(trackPointWriteBuffer, times(1)).flush(TRACK_ID);
+        verify(trackPipelineSessionManager, times(1)).complete(TRACK_ID);
+        verify(trackSegmentService, times(1)).compact(TRACK_ID);
+        verify(trackLodService, times(1)).build(TRACK_ID);
+        verify(userHeatmapService, times(1)).updateTrack(TRACK_ID);
+    }
+
+    @Test
+    void resavingCompletedTrackSkipsFinishing() {
+        when(trackMapper.selectById(TRACK_ID)).thenReturn(track(2));
+        when(trackMapper.updateById(any(Track.class))).thenReturn(1);
+
+        Track renamed = track(2);
+        renamed.setTrackName("晨跑");
+        assertTrue(trackService.updateTrack(renamed));
+
+        verify(trackIngestSessionRegistry, never()).closeTrack(anyLong(), anyString());
+        verify(trackPointWriteBuffer, never()).flush(anyLong());
+        verify(trackPipelineSessionManager, never()).complete(anyLong());
+        verify(trackSegmentService, never()).compact(anyLong());
+        verify(trackLodService, never()).build(anyLong());
+        verify(userHeatmapService, never()).updateTrack(anyLong());
+        verify(trackCacheService, times(1)).evict(TRACK_ID);
+    }
+
+    @Test
+    void endingTrackFlushesWithoutCompacting() {
+        when(trackMapper.updateById(any(Track.class))).thenReturn(1);
+
+        assertTrue(trackService.updateTrack(track(0)));
+
+        verify(trackPointWriteBuffer, times(1)).flush(TRACK_ID);
+        verify(trackPipelineSessionManager, times(1)).complete(TRACK_ID);
+        verify(trackSegmentService, never()).compact(anyLong());
+        verify(trackLodService, never()).build(anyLong());
+    }
+
+    @Test
+    void updateWithoutStatusSkipsStatusLookup() {
+        when(trackMapper.updateById(any(Track.class))).thenReturn(1);
+
+        Track renamed = new Track();
+        renamed.setId(TRACK_ID);
+        renamed.setTrackName("晨跑");
+        assertTrue(trackService.updateTrack(renamed));
+
+        verify(trackMapper, never()).selectById(any());
+        verify(trackPointWriteBuffer, never()).flush(anyLong());
+    }
+
+    private static Track track(int status) {
+        Track track = new Track();
+        track.setId(TRACK_ID);
+        track.setStatus(status);
+        return track;
+    }
+
+    private static TrackAggregate aggregate(int pointCount) {
+        TrackAggregate aggregate = new TrackAggregate();
+        aggregate.setTrackId(TRACK_ID);
+        aggregate.setPointCount(pointCount);
+        return aggregate;
+    }
+}
@@ -0,0 +1,68 @@
+package com.track.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 键集分页游标测试
+ */
+class KeysetCursorTest {
+
+    @Test
+    void roundTripKeepsMicroseconds() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_456_000);
+        KeysetCursor decoded = KeysetCursor.decode(new KeysetCursor(time, 9_876_543_210L).encode());
+        assertEquals(time, decoded.getTime());
+        assertEquals(9_876_543_210L, decoded.getId());
+    }
+
+    @Test
+    void roundTripKeepsSegmentKeys() {
+        LocalDateTime time = LocalDateTime.of(2024, 1, 1, 0, 0);
+        long key = KeysetCursor.segmentKey(3, 4095);
+        String cursor = KeysetCursor.of(time, key);
+        // URL 安全，不带填充
+        assertFalse(cursor.contains("+") || cursor.contains("/") || cursor.contains("="));
+        assertEquals(key, KeysetCursor.decode(cursor).getId());
+    }
+
+    @Test
+    void nullIdBecomesZero() {
+        assertEquals(0L, KeysetCursor.decode(KeysetCursor.of(LocalDateTime.of(2024, 1, 1, 0, 0), null)).getId());
+    }
+
+    @Test
+    void segmentKeysSortBeforeRowIdsInSegmentOrder() {
+        long[] keys = {
+                KeysetCursor.segmentKey(0, 0),
+                KeysetCursor.segmentKey(0, 1),
+                KeysetCursor.segmentKey(0, Integer.MAX_VALUE),
+                KeysetCursor.segmentKey(1, 0),
+                KeysetCursor.segmentKey(1, 1),
+                KeysetCursor.segmentKey(Integer.MAX_VALUE, Integer.MAX_VALUE),
+                0L,
+                1L
+        };
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1] < keys[i], "key " + i);
+        }
+        assertTrue(KeysetCursor.segmentKey(Integer.MAX_VALUE, Integer.MAX_VALUE) < 0);
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("bm8tc2VwYXJhdG9y"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(
+                Base64.getUrlEncoder().encodeToString("2024-01-01T00:00|abc".getBytes())));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(
+                Base64.getUrlEncoder().encodeToString("yesterday|1".getBytes())));
+    }
+}
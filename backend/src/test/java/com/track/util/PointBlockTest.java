@@ -0,0 +1,77 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import com.track.starter.model.Point;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 列式点块测试：视图读写数组，方向角在处理期间保留，未修改的点复用原始对象
+ */
+class PointBlockTest {
+
+    @Test
+    void viewKeepsBearingWrittenByPipeline() {
+        PointBlock block = PointBlock.of(points(3));
+        List<Point> view = block.asPoints();
+
+        assertNull(view.get(1).getBearing());
+        view.get(1).setBearing(90.0);
+
+        // 每次 get 返回新句柄，方向角保存在块中
+        assertEquals(90.0, view.get(1).getBearing());
+        assertNull(view.get(0).getBearing());
+    }
+
+    @Test
+    void bearingSurvivesGrowth() {
+        PointBlock block = new PointBlock(1);
+        block.add(120.0, 30.0, 0L, Double.NaN, Double.NaN, Double.NaN);
+        block.asPoints().get(0).setBearing(45.0);
+        for (int i = 1; i < 20; i++) {
+            block.add(120.0, 30.0, i * 1000L, Double.NaN, Double.NaN, Double.NaN);
+        }
+
+        assertEquals(45.0, block.asPoints().get(0).getBearing());
+        assertNull(block.asPoints().get(19).getBearing());
+    }
+
+    @Test
+    void pickReusesUnmodifiedPoints() {
+        List<TrackPoint> source = points(3);
+        PointBlock block = PointBlock.of(source);
+        List<Point> view = block.asPoints();
+        view.get(0).setBearing(10.0);
+        view.get(2).setLat(31.0);
+
+        List<TrackPoint> picked = block.pick(view, source);
+
+        // 方向角不写入轨迹点，只修改方向角的点仍复用原始对象
+        assertSame(source.get(0), picked.get(0));
+        assertSame(source.get(1), picked.get(1));
+        assertNotSame(source.get(2), picked.get(2));
+        assertEquals(31.0, picked.get(2).getLatitude());
+    }
+
+    private static List<TrackPoint> points(int count) {
+        List<TrackPoint> points = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        for (int i = 0; i < count; i++) {
+            TrackPoint point = new TrackPoint();
+            point.setTrackId(1L);
+            point.setLatitude(30.0 + i * 0.0001);
+            point.setLongitude(120.0);
+            point.setCreateTime(start.plusSeconds(i));
+            points.add(point);
+        }
+        return points;
+    }
+}
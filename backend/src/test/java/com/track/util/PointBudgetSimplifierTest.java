@@ -0,0 +1,80 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按点数预算简化（Visvalingam-Whyatt）测试
+ */
+class PointBudgetSimplifierTest {
+
+    @Test
+    void handlesTinyTracks() {
+        assertArrayEquals(new int[0], PointBudgetSimplifier.importanceOrder(block()));
+        assertArrayEquals(new int[]{0}, PointBudgetSimplifier.importanceOrder(block(30.0, 120.0)));
+        assertArrayEquals(new int[]{0, 1}, PointBudgetSimplifier.importanceOrder(block(30.0, 120.0, 30.1, 120.1)));
+    }
+
+    @Test
+    void orderIsPermutationStartingWithEndpoints() {
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            points.add(point(30.0 + i * 0.0001 + Math.sin(i * 0.37) * 0.0003, 120.0 + i * 0.0001));
+        }
+        int[] order = PointBudgetSimplifier.importanceOrder(PointBlock.of(points));
+
+        assertEquals(points.size(), order.length);
+        assertEquals(0, order[0]);
+        assertEquals(points.size() - 1, order[1]);
+        boolean[] seen = new boolean[points.size()];
+        for (int index : order) {
+            assertTrue(!seen[index], "duplicate index " + index);
+            seen[index] = true;
+        }
+    }
+
+    @Test
+    void turningPointIsMostImportantInteriorPoint() {
+        // V 形轨迹：两条边上的内部点共线（面积为 0），第 5 个点为拐点
+        double[] coordinates = new double[22];
+        for (int i = 0; i < 11; i++) {
+            coordinates[2 * i] = 30.0 + Math.abs(i - 5) * 0.001;
+            coordinates[2 * i + 1] = 120.0 + i * 0.001;
+        }
+        int[] order = PointBudgetSimplifier.importanceOrder(block(coordinates));
+        assertEquals(5, order[2]);
+    }
+
+    @Test
+    void orderIsReverseOfRemoval() {
+        // 小鼓包（1）最先删除，之后是与首点、尖峰构成三角形的点（2），尖峰（3）最后删除
+        double[] coordinates = {30.0, 120.0, 30.0002, 120.001, 30.0, 120.002, 30.003, 120.003, 30.0, 120.005};
+        int[] order = PointBudgetSimplifier.importanceOrder(block(coordinates));
+        assertArrayEquals(new int[]{0, 4, 3, 2, 1}, Arrays.copyOf(order, 5));
+    }
+
+    private static PointBlock block(double... coordinates) {
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            points.add(point(coordinates[i], coordinates[i + 1]));
+        }
+        return PointBlock.of(points);
+    }
+
+    private static TrackPoint point(double latitude, double longitude) {
+        TrackPoint point = new TrackPoint();
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        point.setCreateTime(LocalDateTime.of(2024, 1, 1, 0, 0));
+        return point;
+    }
+}
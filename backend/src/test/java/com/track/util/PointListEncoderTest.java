@@ -0,0 +1,158 @@
+package com.track.util;
+
+import com.track.dto.EncodedPoints;
+import com.track.entity.TrackPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 编码折线与列式输出测试
+ */
+class PointListEncoderTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0, 0);
+
+    @Test
+    void matchesGooglePolylineReference() {
+        // Google 编码折线算法文档中的示例
+        List<TrackPoint> points = Arrays.asList(
+                point(38.5, -120.2, null, null),
+                point(40.7, -120.95, null, null),
+                point(43.252, -126.453, null, null));
+
+        EncodedPoints encoded = PointListEncoder.encode(points, PointListEncoder.Format.POLYLINE, null,
+                PointListEncoder.DEFAULT_PRECISION);
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", encoded.getPolyline());
+        assertEquals("polyline", encoded.getFormat());
+        assertEquals(3, encoded.getCount());
+        assertEquals(Arrays.asList("lat", "lng"), encoded.getDimensions());
+        assertEquals(5, encoded.getPrecision());
+        assertNull(encoded.getStartTime());
+    }
+
+    @Test
+    void polylineRoundTripsWithTimeAndAltitude() {
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            points.add(point(39.9 + i * 0.000137, 116.3 - i * 0.000291, START.plusSeconds(i * 3L),
+                    i == 10 ? null : 43.5 + i * 0.7));
+        }
+
+        EncodedPoints encoded = PointListEncoder.encode(points, PointListEncoder.Format.POLYLINE, "t,alt", 6);
+
+        assertEquals(Arrays.asList("lat", "lng", "t", "alt"), encoded.getDimensions());
+        assertEquals(START.atZone(ZoneId.systemDefault()).toEpochSecond(), encoded.getStartTime());
+        long[] values = decodePolyline(encoded.getPolyline(), 4);
+        assertEquals(points.size() * 4, values.length);
+        long latitude = 0;
+        long longitude = 0;
+        long time = 0;
+        long altitude = 0;
+        long lastAltitude = 0;
+        for (int i = 0; i < points.size(); i++) {
+            latitude += values[4 * i];
+            longitude += values[4 * i + 1];
+            time += values[4 * i + 2];
+            altitude += values[4 * i + 3];
+            TrackPoint point = points.get(i);
+            assertEquals(Math.round(point.getLatitude() * 1e6), latitude);
+            assertEquals(Math.round(point.getLongitude() * 1e6), longitude);
+            assertEquals(i * 3L, time);
+            // 缺失的海拔沿用上一个点的值
+            long expectedAltitude = point.getAltitude() != null ? Math.round(point.getAltitude() * 10) : lastAltitude;
+            assertEquals(expectedAltitude, altitude);
+            lastAltitude = altitude;
+        }
+    }
+
+    @Test
+    void encodesNegativeAndLargeValues() {
+        StringBuilder out = new StringBuilder();
+        PointListEncoder.appendValue(out, -179_98321L);
+        assertEquals("`~oia@", out.toString());
+        assertArrayEquals(new long[]{-179_98321L}, decodePolyline(out.toString(), 1));
+    }
+
+    @Test
+    void columnarIncludesTimeByDefault() {
+        List<TrackPoint> points = Arrays.asList(
+                point(30.1, 120.1, START, 10.0),
+                point(30.2, 120.2, null, null));
+
+        EncodedPoints encoded = PointListEncoder.encode(points, PointListEncoder.Format.COLUMNAR, null, 5);
+
+        assertEquals(Arrays.asList("lat", "lng", "t"), encoded.getDimensions());
+        assertArrayEquals(new double[]{30.1, 30.2}, encoded.getLat());
+        assertArrayEquals(new double[]{120.1, 120.2}, encoded.getLng());
+        assertArrayEquals(new Long[]{START.atZone(ZoneId.systemDefault()).toEpochSecond(), null}, encoded.getT());
+        assertNull(encoded.getAlt());
+
+        encoded = PointListEncoder.encode(points, PointListEncoder.Format.COLUMNAR, "alt", 5);
+        assertEquals(Arrays.asList("lat", "lng", "alt"), encoded.getDimensions());
+        assertNull(encoded.getT());
+        assertArrayEquals(new Double[]{10.0, null}, encoded.getAlt());
+    }
+
+    @Test
+    void resolvesFormat() {
+        assertEquals(PointListEncoder.Format.POLYLINE, PointListEncoder.resolve(" Polyline ", null));
+        assertEquals(PointListEncoder.Format.JSON, PointListEncoder.resolve("json", PointListEncoder.COLUMNAR_MEDIA_TYPE));
+        assertEquals(PointListEncoder.Format.COLUMNAR,
+                PointListEncoder.resolve(null, "application/json, " + PointListEncoder.COLUMNAR_MEDIA_TYPE));
+        assertEquals(PointListEncoder.Format.POLYLINE, PointListEncoder.resolve("", PointListEncoder.POLYLINE_MEDIA_TYPE));
+        assertEquals(PointListEncoder.Format.JSON, PointListEncoder.resolve(null, null));
+        assertThrows(IllegalArgumentException.class, () -> PointListEncoder.resolve("geojson", null));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        List<TrackPoint> points = Arrays.asList(point(30.1, 120.1, START, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> PointListEncoder.encode(points, PointListEncoder.Format.POLYLINE, "speed", 5));
+        assertThrows(IllegalArgumentException.class,
+                () -> PointListEncoder.encode(points, PointListEncoder.Format.POLYLINE, null, 8));
+        assertThrows(IllegalArgumentException.class,
+                () -> PointListEncoder.encode(points, PointListEncoder.Format.JSON, null, 5));
+    }
+
+    /**
+     * 按 Google 编码折线算法解码，返回所有增量值
+     */
+    private static long[] decodePolyline(String polyline, int dimensions) {
+        List<Long> values = new ArrayList<>();
+        int index = 0;
+        while (index < polyline.length()) {
+            long result = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = polyline.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            values.add((result & 1) != 0 ? ~(result >> 1) : result >> 1);
+        }
+        assertEquals(0, values.size() % dimensions);
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static TrackPoint point(double latitude, double longitude, LocalDateTime time, Double altitude) {
+        TrackPoint point = new TrackPoint();
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        point.setCreateTime(time);
+        point.setAltitude(altitude);
+        return point;
+    }
+}
@@ -0,0 +1,192 @@
+package com.track.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 二进制上传格式解码测试，测试数据按文档中的格式手工编码
+ */
+class TrackPointCodecTest {
+
+    @Test
+    void decodesDeltasAndOptionalFields() throws Exception {
+        ByteArrayOutputStream out = header(3);
+        // 第一个点：全部字段
+        out.write(TrackPointCodec.HAS_ALTITUDE | TrackPointCodec.HAS_SPEED | TrackPointCodec.HAS_ACCURACY
+                | TrackPointCodec.HAS_SATELLITE_COUNT | TrackPointCodec.HAS_ADDRESS);
+        writeSigned(out, 39_908_722L);
+        writeSigned(out, 116_397_128L);
+        writeSigned(out, 1_704_067_200_000L);
+        writeSigned(out, 4_350L);
+        writeSigned(out, 125L);
+        writeSigned(out, 500L);
+        writeVarLong(out, 12);
+        byte[] address = "北京市东城区".getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, address.length);
+        out.write(address);
+        // 第二个点：只有坐标和时间，坐标向西南移动
+        out.write(0);
+        writeSigned(out, -100L);
+        writeSigned(out, -250L);
+        writeSigned(out, 1_000L);
+        // 第三个点：海拔相对上一个带海拔的点
+        out.write(TrackPointCodec.HAS_ALTITUDE);
+        writeSigned(out, 0L);
+        writeSigned(out, 0L);
+        writeSigned(out, 1_000L);
+        writeSigned(out, -50L);
+
+        List<Object[]> points = decode(out.toByteArray());
+
+        assertEquals(3, points.size());
+        assertPoint(points.get(0), 116.397128, 39.908722, 1_704_067_200_000L, 43.5, 1.25, 5.0, 12, "北京市东城区");
+        assertPoint(points.get(1), 116.396878, 39.908622, 1_704_067_201_000L, Double.NaN, Double.NaN, Double.NaN, -1, null);
+        assertPoint(points.get(2), 116.396878, 39.908622, 1_704_067_202_000L, 43.0, Double.NaN, Double.NaN, -1, null);
+    }
+
+    @Test
+    void reportsCountBeforePoints() throws Exception {
+        ByteArrayOutputStream out = header(0);
+        int[] begun = {-1};
+        int decoded = TrackPointCodec.decode(new ByteArrayInputStream(out.toByteArray()), new TrackPointCodec.PointSink() {
+            @Override
+            public void begin(int count) {
+                begun[0] = count;
+            }
+
+            @Override
+            public void accept(double longitude, double latitude, long timestamp, double altitude, double speed,
+                               double accuracy, int satelliteCount, String address) {
+                throw new AssertionError("no points expected");
+            }
+        });
+        assertEquals(0, decoded);
+        assertEquals(0, begun[0]);
+    }
+
+    @Test
+    void rejectsBadHeaderAndVersion() {
+        assertThrows(IllegalArgumentException.class, () -> decode(new byte[]{'T', 'S', 1, 0}));
+        assertThrows(IllegalArgumentException.class, () -> decode(new byte[]{'T', 'P', 2, 0}));
+    }
+
+    @Test
+    void rejectsTruncatedData() throws Exception {
+        ByteArrayOutputStream out = header(2);
+        out.write(0);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        byte[] data = out.toByteArray();
+        assertThrows(EOFException.class, () -> decode(data));
+    }
+
+    @Test
+    void rejectsOversizedAddress() throws Exception {
+        ByteArrayOutputStream out = header(1);
+        out.write(TrackPointCodec.HAS_ADDRESS);
+        writeSigned(out, 0L);
+        writeSigned(out, 0L);
+        writeSigned(out, 0L);
+        writeVarLong(out, 4096);
+        byte[] data = out.toByteArray();
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> decode(data));
+        assertTrue(e.getMessage().contains("地址"));
+    }
+
+    @Test
+    void rejectsCountLargerThanPayload() throws Exception {
+        ByteArrayOutputStream out = header(2);
+        out.write(0);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        out.write(0);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        writeSigned(out, 1L);
+        byte[] data = out.toByteArray();
+        assertEquals(2, TrackPointCodec.decode(new ByteArrayInputStream(data), data.length,
+                (longitude, latitude, timestamp, altitude, speed, accuracy, satelliteCount, address) -> {
+                }));
+
+        // 声明 1 亿个点但只有几个字节，在预分配之前拒绝
+        ByteArrayOutputStream forged = header(100_000_000);
+        forged.write(0);
+        byte[] forgedData = forged.toByteArray();
+        int[] begun = {0};
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> TrackPointCodec.decode(new ByteArrayInputStream(forgedData), forgedData.length,
+                        new TrackPointCodec.PointSink() {
+                            @Override
+                            public void begin(int count) {
+                                begun[0]++;
+                            }
+
+                            @Override
+                            public void accept(double longitude, double latitude, long timestamp, double altitude,
+                                               double speed, double accuracy, int satelliteCount, String address) {
+                            }
+                        }));
+        assertTrue(e.getMessage().contains("点数"));
+        assertEquals(0, begun[0]);
+    }
+
+    private static List<Object[]> decode(byte[] data) throws Exception {
+        List<Object[]> points = new ArrayList<>();
+        TrackPointCodec.decode(new ByteArrayInputStream(data),
+                (longitude, latitude, timestamp, altitude, speed, accuracy, satelliteCount, address) ->
+                        points.add(new Object[]{longitude, latitude, timestamp, altitude, speed, accuracy,
+                                satelliteCount, address}));
+        return points;
+    }
+
+    private static void assertPoint(Object[] point, double longitude, double latitude, long timestamp,
+                                    double altitude, double speed, double accuracy, int satelliteCount,
+                                    String address) {
+        assertEquals(longitude, (double) point[0], 1e-9);
+        assertEquals(latitude, (double) point[1], 1e-9);
+        assertEquals(timestamp, (long) point[2]);
+        assertEquals(altitude, (double) point[3], 1e-9);
+        assertEquals(speed, (double) point[4], 1e-9);
+        assertEquals(accuracy, (double) point[5], 1e-9);
+        assertEquals(satelliteCount, (int) point[6]);
+        if (address == null) {
+            assertNull(point[7]);
+        } else {
+            assertEquals(address, point[7]);
+        }
+    }
+
+    private static ByteArrayOutputStream header(int count) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write('T');
+        out.write('P');
+        out.write(TrackPointCodec.VERSION);
+        writeVarLong(out, count);
+        return out;
+    }
+
+    private static void writeSigned(ByteArrayOutputStream out, long value) {
+        writeVarLong(out, (value << 1) ^ (value >> 63));
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -0,0 +1,118 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 轨迹段列式编解码测试
+ */
+class TrackSegmentCodecTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_456_000);
+
+    @Test
+    void roundTripKeepsAllColumns() {
+        List<TrackPoint> points = Arrays.asList(
+                point(39.908722, 116.397128, START, 43.5, 1.25, 5.0, 12, "北京市东城区"),
+                point(39.908622, 116.396878, START.plusNanos(1_000), null, null, null, null, null),
+                point(39.908500, 116.396500, START.plusSeconds(1).plusNanos(999_000), -12.34, 0.0, 3.5, 0, ""),
+                point(-33.868820, 151.209296, START.plusSeconds(2), 43.0, 27.78, null, 7, "Sydney"));
+
+        List<TrackPoint> decoded = TrackSegmentCodec.decode(TrackSegmentCodec.encode(points), 42L);
+
+        assertEquals(points.size(), decoded.size());
+        for (int i = 0; i < points.size(); i++) {
+            TrackPoint expected = points.get(i);
+            TrackPoint actual = decoded.get(i);
+            assertEquals(42L, actual.getTrackId());
+            assertEquals(expected.getLatitude(), actual.getLatitude(), 1e-9);
+            assertEquals(expected.getLongitude(), actual.getLongitude(), 1e-9);
+            assertEquals(expected.getCreateTime(), actual.getCreateTime(), "point " + i);
+            assertNullableEquals(expected.getAltitude(), actual.getAltitude());
+            assertNullableEquals(expected.getSpeed(), actual.getSpeed());
+            assertNullableEquals(expected.getAccuracy(), actual.getAccuracy());
+            assertEquals(expected.getSatelliteCount(), actual.getSatelliteCount());
+            assertEquals(expected.getAddress(), actual.getAddress());
+        }
+    }
+
+    @Test
+    void keepsMicrosecondTimes() {
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            points.add(point(30.0, 120.0, START.plusNanos(i * 1_001_000L), null, null, null, null, null));
+        }
+        List<TrackPoint> decoded = TrackSegmentCodec.decode(TrackSegmentCodec.encode(points), 1L);
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals(points.get(i).getCreateTime(), decoded.get(i).getCreateTime());
+        }
+    }
+
+    @Test
+    void omitsAbsentColumns() {
+        List<TrackPoint> points = Collections.singletonList(point(30.0, 120.0, START, null, null, null, null, null));
+        byte[] data = TrackSegmentCodec.encode(points);
+        // 头部 5 字节后是可选列标志
+        assertEquals(0, data[4]);
+
+        TrackPoint decoded = TrackSegmentCodec.decode(data, 1L).get(0);
+        assertNull(decoded.getAltitude());
+        assertNull(decoded.getSpeed());
+        assertNull(decoded.getAccuracy());
+        assertNull(decoded.getSatelliteCount());
+        assertNull(decoded.getAddress());
+    }
+
+    @Test
+    void encodesEmptySegment() {
+        assertTrue(TrackSegmentCodec.decode(TrackSegmentCodec.encode(Collections.emptyList()), 1L).isEmpty());
+    }
+
+    @Test
+    void rejectsCorruptData() {
+        byte[] data = TrackSegmentCodec.encode(Collections.singletonList(
+                point(30.0, 120.0, START, 10.0, null, null, null, null)));
+
+        assertThrows(IllegalStateException.class, () -> TrackSegmentCodec.decode(Arrays.copyOf(data, data.length - 1), 1L));
+        byte[] badHeader = data.clone();
+        badHeader[1] = 'P';
+        assertThrows(IllegalStateException.class, () -> TrackSegmentCodec.decode(badHeader, 1L));
+        byte[] badVersion = data.clone();
+        badVersion[2] = 9;
+        assertThrows(IllegalStateException.class, () -> TrackSegmentCodec.decode(badVersion, 1L));
+    }
+
+    private static void assertNullableEquals(Double expected, Double actual) {
+        if (expected == null) {
+            assertNull(actual);
+        } else {
+            assertEquals(expected, actual, 1e-9);
+        }
+    }
+
+    private static TrackPoint point(double latitude, double longitude, LocalDateTime time, Double altitude,
+                                    Double speed, Double accuracy, Integer satelliteCount, String address) {
+        TrackPoint point = new TrackPoint();
+        point.setTrackId(1L);
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        point.setCreateTime(time);
+        point.setAltitude(altitude);
+        point.setSpeed(speed);
+        point.setAccuracy(accuracy);
+        point.setSatelliteCount(satelliteCount);
+        point.setAddress(address);
+        return point;
+    }
+}
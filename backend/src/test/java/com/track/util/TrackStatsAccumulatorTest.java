@@ -0,0 +1,178 @@
+package com.track.util;
+
+import com.track.entity.TrackPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 单次遍历轨迹统计测试
+ */
+class TrackStatsAccumulatorTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 8, 0, 0, 123_456_000);
+
+    @Test
+    void distanceMatchesHaversine() {
+        List<TrackPoint> points = walk(200);
+        double expected = 0;
+        for (int i = 1; i < points.size(); i++) {
+            TrackPoint a = points.get(i - 1);
+            TrackPoint b = points.get(i);
+            expected += GeoUtils.haversineDistance(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+        }
+
+        TrackStatsAccumulator stats = new TrackStatsAccumulator().addAll(points);
+
+        assertEquals(200, stats.getPointCount());
+        assertEquals(expected, stats.getTotalDistance(), 1e-6);
+    }
+
+    @Test
+    void tracksSpeedAltitudeAndBounds() {
+        List<TrackPoint> points = new ArrayList<>();
+        points.add(point(30.0, 120.0, START, 100.0, 1.0));
+        points.add(point(30.1, 119.9, START.plusSeconds(1), null, 3.0));
+        points.add(point(29.9, 120.2, START.plusSeconds(2), 80.0, null));
+
+        TrackStatsAccumulator stats = new TrackStatsAccumulator().addAll(points);
+
+        assertEquals(4.0, stats.getSpeedSum(), 1e-9);
+        assertEquals(3.0, stats.getMaxSpeed(), 1e-9);
+        assertEquals(4.0 / 3, stats.getAverageSpeed(), 1e-9);
+        assertEquals(80.0, stats.getMinAltitude(), 1e-9);
+        assertEquals(100.0, stats.getMaxAltitude(), 1e-9);
+        assertEquals(29.9, stats.getMinLatitude(), 1e-9);
+        assertEquals(30.1, stats.getMaxLatitude(), 1e-9);
+        assertEquals(119.9, stats.getMinLongitude(), 1e-9);
+        assertEquals(120.2, stats.getMaxLongitude(), 1e-9);
+    }
+
+    @Test
+    void missingValuesAreNaN() {
+        TrackStatsAccumulator stats = new TrackStatsAccumulator()
+                .addAll(Collections.singletonList(point(30.0, 120.0, null, null, null)));
+        assertTrue(Double.isNaN(stats.getMaxSpeed()));
+        assertTrue(Double.isNaN(stats.getMinAltitude()));
+        assertNull(stats.getFirstTime());
+        assertTrue(Double.isNaN(stats.getPace()));
+    }
+
+    @Test
+    void elevationUsesHysteresis() {
+        double[] altitudes = {100, 101, 102, 104, 103, 99, 100.5, 101, 102.5};
+        List<TrackPoint> points = new ArrayList<>();
+        for (int i = 0; i < altitudes.length; i++) {
+            points.add(point(30.0, 120.0, START.plusSeconds(i), altitudes[i], null));
+        }
+
+        TrackStatsAccumulator stats = new TrackStatsAccumulator().addAll(points);
+
+        // 100 → 104 爬升 4，104 → 99 下降 5，99 → 102.5 爬升 3.5，1-2 米的抖动不计入
+        assertEquals(7.5, stats.getElevationGain(), 1e-9);
+        assertEquals(5.0, stats.getElevationLoss(), 1e-9);
+        assertEquals(102.5, stats.getElevationReference(), 1e-9);
+    }
+
+    @Test
+    void movingTimeSkipsStopsAndGaps() {
+        List<TrackPoint> points = new ArrayList<>();
+        // 约 1.1 米/秒移动 10 秒
+        points.add(point(30.0, 120.0, START, null, null));
+        points.add(point(30.0001, 120.0, START.plusSeconds(10), null, null));
+        // 原地停留 60 秒
+        points.add(point(30.0001, 120.0, START.plusSeconds(70), null, null));
+        // 信号中断超过 5 分钟
+        points.add(point(30.01, 120.0, START.plusSeconds(70 + 301), null, null));
+        // 再移动 10 秒
+        points.add(point(30.0101, 120.0, START.plusSeconds(70 + 311), null, null));
+
+        TrackStatsAccumulator stats = new TrackStatsAccumulator().addAll(points);
+
+        assertEquals(20_000L, stats.getMovingTimeMs());
+        assertEquals(START, stats.getFirstTime());
+        assertEquals(START.plusSeconds(70 + 311), stats.getLastTime());
+        assertEquals(stats.getMovingTimeMs() / stats.getTotalDistance(), stats.getPace(), 1e-9);
+    }
+
+    @Test
+    void keepsMicrosecondBounds() {
+        List<TrackPoint> points = new ArrayList<>();
+        points.add(point(30.0, 120.0, START.plusNanos(999_000), null, null));
+        points.add(point(30.0, 120.0, START.plusNanos(1_000), null, null));
+
+        TrackStatsAccumulator stats = new TrackStatsAccumulator().addAll(points);
+
+        assertEquals(START.plusNanos(1_000), stats.getFirstTime());
+        assertEquals(START.plusNanos(999_000), stats.getLastTime());
+    }
+
+    @Test
+    void restoredStateContinuesLikeSinglePass() {
+        List<TrackPoint> points = walk(100);
+        TrackStatsAccumulator single = new TrackStatsAccumulator().addAll(points);
+
+        TrackStatsAccumulator first = new TrackStatsAccumulator().addAll(points.subList(0, 40));
+        TrackStatsAccumulator resumed = new TrackStatsAccumulator()
+                .restore(first.getPointCount(), first.getTotalDistance(), first.getSpeedSum(), first.getMaxSpeed(),
+                        first.getMinAltitude(), first.getMaxAltitude(), first.getElevationGain(),
+                        first.getElevationLoss(), first.getMovingTimeMs(), first.getElevationReference(),
+                        first.getFirstTime(), first.getLastTime(), first.getLastLatitude(), first.getLastLongitude())
+                .restoreBounds(first.getMinLatitude(), first.getMaxLatitude(),
+                        first.getMinLongitude(), first.getMaxLongitude())
+                .addAll(points.subList(40, points.size()));
+
+        assertEquals(single.getPointCount(), resumed.getPointCount());
+        assertEquals(single.getTotalDistance(), resumed.getTotalDistance(), 1e-6);
+        assertEquals(single.getSpeedSum(), resumed.getSpeedSum(), 1e-9);
+        assertEquals(single.getMaxSpeed(), resumed.getMaxSpeed(), 1e-9);
+        assertEquals(single.getElevationGain(), resumed.getElevationGain(), 1e-9);
+        assertEquals(single.getElevationLoss(), resumed.getElevationLoss(), 1e-9);
+        assertEquals(single.getMovingTimeMs(), resumed.getMovingTimeMs());
+        assertEquals(single.getFirstTime(), resumed.getFirstTime());
+        assertEquals(single.getLastTime(), resumed.getLastTime());
+        assertEquals(single.getMaxLatitude(), resumed.getMaxLatitude(), 1e-9);
+    }
+
+    @Test
+    void blockMatchesTrackPoints() {
+        List<TrackPoint> points = walk(100);
+        TrackStatsAccumulator fromPoints = new TrackStatsAccumulator().addAll(points);
+        TrackStatsAccumulator fromBlock = new TrackStatsAccumulator().addAll(PointBlock.of(points));
+
+        assertEquals(fromPoints.getTotalDistance(), fromBlock.getTotalDistance(), 1e-6);
+        assertEquals(fromPoints.getElevationGain(), fromBlock.getElevationGain(), 1e-9);
+        assertEquals(fromPoints.getMovingTimeMs(), fromBlock.getMovingTimeMs());
+    }
+
+    /**
+     * 每 5 秒一个点、带速度和起伏海拔的轨迹（整毫秒时间，点块与轨迹点的统计结果一致）
+     */
+    private static List<TrackPoint> walk(int count) {
+        List<TrackPoint> points = new ArrayList<>();
+        LocalDateTime start = START.withNano(0);
+        for (int i = 0; i < count; i++) {
+            points.add(point(30.0 + i * 0.00005 + Math.sin(i * 0.2) * 0.00002, 120.0 + i * 0.00004,
+                    start.plusSeconds(i * 5L), 50 + Math.sin(i * 0.1) * 20, 1.0 + (i % 7) * 0.3));
+        }
+        return points;
+    }
+
+    private static TrackPoint point(double latitude, double longitude, LocalDateTime time, Double altitude,
+                                    Double speed) {
+        TrackPoint point = new TrackPoint();
+        point.setLatitude(latitude);
+        point.setLongitude(longitude);
+        point.setCreateTime(time);
+        point.setAltitude(altitude);
+        point.setSpeed(speed);
+        return point;
+    }
+}
@@ -0,0 +1,165 @@
+package com.track.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MVT 编码测试：按 vector_tile.proto 解析编码结果
+ */
+class VectorTileEncoderTest {
+
+    @Test
+    void emptyTileHasNoBytes() {
+        VectorTileEncoder encoder = new VectorTileEncoder("tracks", 0, 0, 0);
+        assertEquals(0, encoder.size());
+        assertEquals(0, encoder.encode().length);
+    }
+
+    @Test
+    void encodesLineLayerAndProperties() {
+        VectorTileEncoder encoder = new VectorTileEncoder("tracks", 0, 0, 0);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("name", "晨跑");
+        properties.put("status", 2);
+        properties.put("distance", 1234.5);
+        properties.put("missing", null);
+        // 赤道上经度 0 到 90 度：瓦片坐标 (2048, 2048) 到 (3072, 2048)
+        assertTrue(encoder.addLine(7L, properties, new double[]{0, 0}, new double[]{0, 90}));
+        // 第二个要素复用同一个键和值
+        assertTrue(encoder.addLine(8L, Collections.singletonMap("status", 2L), new double[]{0, 0}, new double[]{-90, 0}));
+
+        Message tile = Message.parse(encoder.encode());
+        assertEquals(1, tile.bytes(3).size());
+        Message layer = Message.parse(tile.bytes(3).get(0));
+        assertEquals(Collections.singletonList(2L), layer.varints(15));
+        assertEquals("tracks", layer.string(1));
+        assertEquals(Collections.singletonList((long) VectorTileEncoder.DEFAULT_EXTENT), layer.varints(5));
+        assertEquals(3, layer.bytes(3).size());
+        assertEquals("name", new String(layer.bytes(3).get(0), StandardCharsets.UTF_8));
+        assertEquals(3, layer.bytes(4).size());
+
+        List<byte[]> features = layer.bytes(2);
+        assertEquals(2, features.size());
+        Message first = Message.parse(features.get(0));
+        assertEquals(Collections.singletonList(7L), first.varints(1));
+        assertEquals(Collections.singletonList(2L), first.varints(3));
+        assertArrayEquals(new long[]{0, 0, 1, 1, 2, 2}, packed(first.bytes(2).get(0)));
+        // MoveTo(1) (2048, 2048)，LineTo(1) (+1024, 0)
+        assertArrayEquals(new long[]{9, 4096, 4096, 10, 2048, 0}, packed(first.bytes(4).get(0)));
+
+        Message second = Message.parse(features.get(1));
+        assertArrayEquals(new long[]{1, 1}, packed(second.bytes(2).get(0)));
+    }
+
+    @Test
+    void skipsLinesOutsideTile() {
+        VectorTileEncoder encoder = new VectorTileEncoder("tracks", 1, 1, 0);
+        // 西半球的线不在 z1 的 (1, 0) 瓦片内
+        assertFalse(encoder.addLine(1L, Collections.emptyMap(), new double[]{10, 20}, new double[]{-100, -50}));
+        assertEquals(0, encoder.size());
+    }
+
+    @Test
+    void clipsToBoundsAndSplitsParts() {
+        // 从左侧进入，离开右侧后再从右侧回来
+        double[] x = {-50, 50, 150, 80};
+        double[] y = {10, 10, 10, 20};
+        List<int[]> parts = VectorTileEncoder.clip(x, y, 0, 100);
+
+        assertEquals(2, parts.size());
+        assertArrayEquals(new int[]{0, 10, 50, 10, 100, 10}, parts.get(0));
+        assertArrayEquals(new int[]{100, 17, 80, 20}, parts.get(1));
+    }
+
+    @Test
+    void clipDropsDegenerateParts() {
+        // 完全在外部，或取整后只剩一个点
+        assertTrue(VectorTileEncoder.clip(new double[]{-10, -5}, new double[]{0, 0}, 0, 100).isEmpty());
+        assertTrue(VectorTileEncoder.clip(new double[]{10.1, 10.2}, new double[]{5.1, 5.2}, 0, 100).isEmpty());
+    }
+
+    private static long[] packed(byte[] data) {
+        List<Long> values = new ArrayList<>();
+        int[] position = {0};
+        while (position[0] < data.length) {
+            values.add(Message.readVarint(data, position));
+        }
+        return values.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    /**
+     * 最小的 protobuf 解析器，按字段号收集 varint 和长度前缀字段
+     */
+    private static class Message {
+        private final Map<Integer, List<Object>> fields = new LinkedHashMap<>();
+
+        static Message parse(byte[] data) {
+            Message message = new Message();
+            int[] position = {0};
+            while (position[0] < data.length) {
+                long key = readVarint(data, position);
+                int field = (int) (key >>> 3);
+                int wireType = (int) (key & 7);
+                Object value;
+                if (wireType == 0) {
+                    value = readVarint(data, position);
+                } else if (wireType == 2) {
+                    int length = (int) readVarint(data, position);
+                    byte[] bytes = new byte[length];
+                    System.arraycopy(data, position[0], bytes, 0, length);
+                    position[0] += length;
+                    value = bytes;
+                } else if (wireType == 1) {
+                    position[0] += 8;
+                    value = null;
+                } else {
+                    throw new AssertionError("unexpected wire type " + wireType);
+                }
+                message.fields.computeIfAbsent(field, k -> new ArrayList<>()).add(value);
+            }
+            return message;
+        }
+
+        static long readVarint(byte[] data, int[] position) {
+            long result = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = data[position[0]++] & 0xFF;
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+        }
+
+        List<Long> varints(int field) {
+            List<Long> values = new ArrayList<>();
+            for (Object value : fields.getOrDefault(field, Collections.emptyList())) {
+                values.add((Long) value);
+            }
+            return values;
+        }
+
+        List<byte[]> bytes(int field) {
+            List<byte[]> values = new ArrayList<>();
+            for (Object value : fields.getOrDefault(field, Collections.emptyList())) {
+                values.add((byte[]) value);
+            }
+            return values;
+        }
+
+        String string(int field) {
+            return new String(bytes(field).get(0), StandardCharsets.UTF_8);
+        }
+    }
+}
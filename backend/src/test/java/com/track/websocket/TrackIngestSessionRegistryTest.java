@@ -0,0 +1,52 @@
+package com.track.websocket;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 采集通道登记表测试：只关闭指定轨迹的连接
+ */
+class TrackIngestSessionRegistryTest {
+
+    private final TrackIngestSessionRegistry registry = new TrackIngestSessionRegistry();
+
+    @Test
+    void closesOnlySessionsOfTrack() throws IOException {
+        WebSocketSession first = mock(WebSocketSession.class);
+        WebSocketSession second = mock(WebSocketSession.class);
+        WebSocketSession other = mock(WebSocketSession.class);
+        registry.register(1L, first);
+        registry.register(1L, second);
+        registry.register(2L, other);
+
+        registry.closeTrack(1L, "轨迹已结束");
+
+        verify(first).close(CloseStatus.NORMAL.withReason("轨迹已结束"));
+        verify(second).close(CloseStatus.NORMAL.withReason("轨迹已结束"));
+        verify(other, never()).close(any(CloseStatus.class));
+
+        // 已关闭的轨迹不会重复关闭
+        registry.closeTrack(1L, "轨迹已删除");
+        verify(first, times(1)).close(any(CloseStatus.class));
+    }
+
+    @Test
+    void unregisteredSessionIsNotClosed() throws IOException {
+        WebSocketSession session = mock(WebSocketSession.class);
+        registry.register(1L, session);
+        registry.unregister(1L, session);
+
+        registry.closeTrack(1L, "轨迹已删除");
+
+        verify(session, never()).close(any(CloseStatus.class));
+    }
+}
@@ -236,6 +236,11 @@ export const trackApi = {
     });
   },
 
+  // 获取用户轨迹矢量瓦片的地址模板（Mapbox Vector Tile，请求时需携带 Authorization 头，空瓦片返回 204）
+  getTrackTileUrl: () => {
+    return `${BASE_URL}/tiles/{z}/{x}/{y}.mvt`;
+  },
+
   // 导出轨迹
   exportTrack: (id, format) => {
     return new Promise((resolve, reject) => {
@@ -334,6 +339,27 @@ export const heatmapApi = {
     });
   },
 
+  // 获取轨迹热力图网格（服务端按缩放级别聚合，只返回非空单元及点数；
+  // 单元数超过服务端上限时降低缩放级别，返回的 zoom 为实际使用的级别）
+  getTrackHeatmapGrid: (trackId, zoom = 16, cellSize = 8) => {
+    return request({
+      url: `/tracks/${trackId}/points/heatmap/grid`,
+      method: 'GET',
+      data: {
+        zoom,
+        cellSize
+      }
+    });
+  },
+
+  // 获取用户热力图瓦片（全部已完成轨迹增量聚合，按 Web 墨卡托瓦片坐标获取）
+  getUserHeatmapTile: (zoom, x, y) => {
+    return request({
+      url: `/heatmap/user/tiles/${zoom}/${x}/${y}`,
+      method: 'GET'
+    });
+  },
+
   // 获取用户所有轨迹的热力图数据
   getUserHeatmap: () => {
     return request({